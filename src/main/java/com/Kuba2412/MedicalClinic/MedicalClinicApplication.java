@@ -2,8 +2,10 @@ package com.Kuba2412.MedicalClinic;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class MedicalClinicApplication {
 
 	public static void main(String[] args) {
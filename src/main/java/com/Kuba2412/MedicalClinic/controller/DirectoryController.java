@@ -0,0 +1,35 @@
+package com.Kuba2412.MedicalClinic.controller;
+
+import com.Kuba2412.MedicalClinic.model.dto.DirectoryCacheStatsDTO;
+import com.Kuba2412.MedicalClinic.service.DirectoryCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/directory")
+@RequiredArgsConstructor
+public class DirectoryController {
+
+    private final DirectoryCache directoryCache;
+
+    @PostMapping("/refresh")
+    @Operation(summary = "Refresh the directory cache", description = "Drops all cached doctor and institution data so the next reads load it again.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cache cleared, statistics returned")
+    })
+    public DirectoryCacheStatsDTO refresh() {
+        return directoryCache.refresh();
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Get directory cache statistics", description = "Size, hits, misses and evictions of the doctor and institution cache.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cache statistics returned")
+    })
+    public DirectoryCacheStatsDTO getStats() {
+        return directoryCache.getStats();
+    }
+}
@@ -2,9 +2,11 @@ package com.Kuba2412.MedicalClinic.controller;
 
 import com.Kuba2412.MedicalClinic.model.Doctor;
 import com.Kuba2412.MedicalClinic.model.dto.SimpleDoctorDTO;
-import com.Kuba2412.MedicalClinic.model.Institution;
 import com.Kuba2412.MedicalClinic.model.dto.DoctorDTO;
+import com.Kuba2412.MedicalClinic.model.dto.InstitutionDTO;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleTemplateDTO;
 import com.Kuba2412.MedicalClinic.service.DoctorService;
+import com.Kuba2412.MedicalClinic.service.ScheduleTemplateService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -14,6 +16,7 @@ import lombok.RequiredArgsConstructor;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -24,6 +27,7 @@ import java.util.List;
 public class DoctorController {
 
     private final DoctorService doctorService;
+    private final ScheduleTemplateService scheduleTemplateService;
 
     @Operation(summary = "Create a new doctor", description = "Creates a new doctor and returns a success message. Ensures the email is unique.")
     @ApiResponses(value = {
@@ -39,7 +43,7 @@ public class DoctorController {
         return "Doctor created successfully.";
     }
 
-    @Operation(summary = "Get all doctors", description = "Returns a paginated list of all doctors.")
+    @Operation(summary = "Get all doctors", description = "Returns a page of doctors without counting the table. X-Has-Next tells whether more pages exist; includeTotal=true adds X-Total-Count.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully returned list of doctors",
                     content = {@Content(mediaType = "application/json", schema = @Schema(implementation = SimpleDoctorDTO.class ))}),
@@ -47,8 +51,9 @@ public class DoctorController {
                     content = @Content)
     })
     @GetMapping
-    public List<SimpleDoctorDTO> getAllDoctors(Pageable pageable) {
-        return doctorService.getAllDoctors(pageable);
+    public ResponseEntity<List<SimpleDoctorDTO>> getAllDoctors(Pageable pageable,
+                                                               @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return SliceResponses.of(doctorService.getAllDoctors(pageable), includeTotal, doctorService::countDoctors);
     }
 
     @Operation(summary = "Get all simple doctors", description = "Returns a list of all doctors with basic information.")
@@ -57,18 +62,75 @@ public class DoctorController {
                     content = {@Content(mediaType = "application/json", schema = @Schema(implementation = SimpleDoctorDTO.class ))}),
     })
     @GetMapping("/simple")
-    public List<SimpleDoctorDTO> getAllSimpleDoctors(Pageable pageable) {
-        return doctorService.getAllSimpleDoctors(pageable);
+    public ResponseEntity<List<SimpleDoctorDTO>> getAllSimpleDoctors(Pageable pageable,
+                                                                     @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return SliceResponses.of(doctorService.getAllSimpleDoctors(pageable), includeTotal, doctorService::countDoctors);
     }
 
-    @Operation(summary = "Get institutions assigned to a doctor", description = "Retrieve a list of institutions assigned to a specific doctor by their ID.")
+    @Operation(summary = "Get doctors by specialization", description = "Returns every doctor with the given specialization.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully returned list of doctors",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = SimpleDoctorDTO.class ))})
+    })
+    @GetMapping("/specializations/{specialization}")
+    public List<SimpleDoctorDTO> getDoctorsBySpecialization(@PathVariable String specialization) {
+        return doctorService.getDoctorsBySpecialization(specialization);
+    }
+
+    @Operation(summary = "Get doctors in batch", description = "Returns up to 100 doctors by id with one query, in request order.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found doctors returned, unknown ids skipped",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = SimpleDoctorDTO.class ))}),
+            @ApiResponse(responseCode = "400", description = "No ids or too many ids", content = @Content)
+    })
+    @GetMapping("/batch")
+    public List<SimpleDoctorDTO> getDoctorsBatch(@RequestParam List<Long> ids) {
+        return doctorService.getDoctorsByIds(ids);
+    }
+
+    @Operation(summary = "Get institutions assigned to a doctor", description = "Retrieve a page of institutions assigned to a specific doctor by their ID, with the ids of their doctors.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of institutions returned successfully",
-                    content ={@Content(mediaType = "application/json", schema = @Schema(implementation = Institution.class))}),
+                    content ={@Content(mediaType = "application/json", schema = @Schema(implementation = InstitutionDTO.class))}),
             @ApiResponse(responseCode = "404", description = "Doctor not found", content = @Content)
     })
     @GetMapping("/{doctorId}/institutions")
-    public List<Institution> getAssignedInstitutionsForDoctor(@PathVariable Long doctorId) {
-        return doctorService.getAssignedInstitutionsForDoctor(doctorId);
+    public List<InstitutionDTO> getAssignedInstitutionsForDoctor(@PathVariable Long doctorId, Pageable pageable) {
+        return doctorService.getAssignedInstitutionsForDoctor(doctorId, pageable);
+    }
+
+    @Operation(summary = "Add a weekly schedule template for a doctor",
+            description = "Defines recurring working hours cut into slots. Slots are offered as availability without creating visits.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Template created successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid template or overlap with another template", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Doctor not found", content = @Content)
+    })
+    @PostMapping("/{doctorId}/schedule-templates")
+    @ResponseStatus(HttpStatus.CREATED)
+    public ScheduleTemplateDTO createScheduleTemplate(@PathVariable Long doctorId,
+                                                      @RequestBody ScheduleTemplateDTO templateDTO) {
+        return scheduleTemplateService.createTemplate(doctorId, templateDTO);
+    }
+
+    @Operation(summary = "Get the schedule templates of a doctor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Templates returned successfully"),
+            @ApiResponse(responseCode = "404", description = "Doctor not found", content = @Content)
+    })
+    @GetMapping("/{doctorId}/schedule-templates")
+    public List<ScheduleTemplateDTO> getScheduleTemplates(@PathVariable Long doctorId) {
+        return scheduleTemplateService.getTemplates(doctorId);
+    }
+
+    @Operation(summary = "Delete a schedule template", description = "Visits already booked from the template are kept.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Template deleted successfully"),
+            @ApiResponse(responseCode = "404", description = "Template not found", content = @Content)
+    })
+    @DeleteMapping("/schedule-templates/{templateId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteScheduleTemplate(@PathVariable Long templateId) {
+        scheduleTemplateService.deleteTemplate(templateId);
     }
-}
\ No newline at end of file
+}
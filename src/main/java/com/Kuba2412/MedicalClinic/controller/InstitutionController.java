@@ -1,7 +1,8 @@
 package com.Kuba2412.MedicalClinic.controller;
 
-import com.Kuba2412.MedicalClinic.model.Doctor;
 import com.Kuba2412.MedicalClinic.model.dto.InstitutionDTO;
+import com.Kuba2412.MedicalClinic.model.dto.LocalityQuery;
+import com.Kuba2412.MedicalClinic.model.dto.SimpleDoctorDTO;
 import com.Kuba2412.MedicalClinic.service.InstitutionService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,6 +11,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -38,17 +40,39 @@ public class InstitutionController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of institutions returned successfully")
     })
-    public List<InstitutionDTO> getAllInstitutions(Pageable pageable) {
-        return institutionService.getAllInstitutions(pageable);
+    public ResponseEntity<List<InstitutionDTO>> getAllInstitutions(Pageable pageable,
+                                                                   @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return SliceResponses.of(institutionService.getAllInstitutions(pageable), includeTotal,
+                institutionService::countInstitutions);
+    }
+
+    @GetMapping("/batch")
+    @Operation(summary = "Get institutions in batch", description = "Retrieve up to 100 institutions by id with one query, in request order.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found institutions returned, unknown ids skipped"),
+            @ApiResponse(responseCode = "400", description = "No ids or too many ids")
+    })
+    public List<InstitutionDTO> getInstitutionsBatch(@RequestParam List<Long> ids) {
+        return institutionService.getInstitutionsByIds(ids);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search institutions by locality", description = "Find institutions by postal code prefix, city and/or distance from a point, nearest first.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching institutions returned"),
+            @ApiResponse(responseCode = "400", description = "No criteria, invalid coordinates, radius or limit")
+    })
+    public List<InstitutionDTO> searchInstitutions(LocalityQuery query) {
+        return institutionService.searchByLocality(query);
     }
 
     @GetMapping("/{institutionId}/doctors")
-    @Operation(summary = "Get doctors for an institution", description = "Retrieve a list of doctors assigned to a specific institution by its ID.")
+    @Operation(summary = "Get doctors for an institution", description = "Retrieve a page of doctors assigned to a specific institution by its ID.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of doctors returned successfully"),
             @ApiResponse(responseCode = "404", description = "Institution not found")
     })
-    public List<Doctor> getDoctorsForInstitution(@PathVariable Long institutionId) {
-        return institutionService.getDoctorsForInstitution(institutionId);
+    public List<SimpleDoctorDTO> getDoctorsForInstitution(@PathVariable Long institutionId, Pageable pageable) {
+        return institutionService.getDoctorsForInstitution(institutionId, pageable);
     }
 }
\ No newline at end of file
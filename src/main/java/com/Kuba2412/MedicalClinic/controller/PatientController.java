@@ -1,7 +1,9 @@
 package com.Kuba2412.MedicalClinic.controller;
 
 import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.model.dto.PatientCacheStatsDTO;
 import com.Kuba2412.MedicalClinic.model.dto.PatientDTO;
+import com.Kuba2412.MedicalClinic.model.dto.PatientImportDTO;
 import com.Kuba2412.MedicalClinic.model.dto.VisitDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -9,10 +11,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import com.Kuba2412.MedicalClinic.service.PatientCache;
+import com.Kuba2412.MedicalClinic.service.PatientImporter;
 import com.Kuba2412.MedicalClinic.service.PatientService;
 
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -21,6 +28,8 @@ import java.util.List;
 public class PatientController {
 
     private final PatientService patientService;
+    private final PatientCache patientCache;
+    private final PatientImporter patientImporter;
 
     @GetMapping("/{email}")
     @Operation(summary = "Get patient by email", description = "Retrieve a patient by their email address.")
@@ -33,12 +42,47 @@ public class PatientController {
     }
 
     @GetMapping
-    @Operation(summary = "Get patients by first name", description = "Retrieve a list of patients by their first name, with pagination.")
+    @Operation(summary = "Get patients by first name", description = "Retrieve a page of patients, optionally by first name. X-Has-Next tells whether more pages exist; includeTotal=true adds X-Total-Count.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of patients returned successfully")
     })
-    public List<PatientDTO> getPatients(@RequestParam(required = false) String firstName, Pageable pageable) {
-        return patientService.getPatients(firstName, pageable);
+    public ResponseEntity<List<PatientDTO>> getPatients(@RequestParam(required = false) String firstName, Pageable pageable,
+                                                        @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return SliceResponses.of(patientService.getPatients(firstName, pageable), includeTotal,
+                () -> patientService.countPatients(firstName));
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search patients", description = "Type-ahead search by name, email or id card number, tolerant to typos.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching patients returned, best match first"),
+            @ApiResponse(responseCode = "400", description = "Query too short or limit out of range")
+    })
+    public List<PatientDTO> searchPatients(@RequestParam("q") String query, @RequestParam(defaultValue = "20") int limit) {
+        return patientService.searchPatients(query, limit);
+    }
+
+    @GetMapping("/batch")
+    @Operation(summary = "Get patients in batch", description = "Retrieve up to 100 patients by ids or by emails with one query, in request order.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found patients returned, unknown keys skipped"),
+            @ApiResponse(responseCode = "400", description = "Neither or both of ids and emails given, or too many keys")
+    })
+    public List<PatientDTO> getPatientsBatch(@RequestParam(required = false) List<Long> ids,
+                                             @RequestParam(required = false) List<String> emails) {
+        if ((ids == null) == (emails == null)) {
+            throw new IllegalArgumentException("Either ids or emails are required.");
+        }
+        return ids != null ? patientService.getPatientsByIds(ids) : patientService.getPatientsByEmails(emails);
+    }
+
+    @GetMapping("/cache/stats")
+    @Operation(summary = "Get patient cache statistics", description = "Size, hits, misses and evictions of the patient-by-email cache.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cache statistics returned")
+    })
+    public PatientCacheStatsDTO getCacheStats() {
+        return patientCache.getStats();
     }
 
     @PostMapping
@@ -51,6 +95,30 @@ public class PatientController {
         return patientService.addPatient(patient);
     }
 
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @Operation(summary = "Import patients", description = "Streams a CSV (with header) or NDJSON upload into the patient table. " +
+            "Records with a taken email or id card number are skipped. Pass importId to resume an interrupted import with the same file.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import finished, counters returned"),
+            @ApiResponse(responseCode = "400", description = "Missing CSV columns or import can't be resumed"),
+            @ApiResponse(responseCode = "404", description = "Import to resume not found")
+    })
+    public PatientImportDTO importPatients(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                           @RequestParam(required = false) Long importId,
+                                           InputStream body) {
+        return patientImporter.importPatients(body, PatientImporter.Format.fromContentType(contentType), importId);
+    }
+
+    @GetMapping("/import/{importId}")
+    @Operation(summary = "Get import progress", description = "Returns the counters of the last checkpoint of an import.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import progress returned"),
+            @ApiResponse(responseCode = "404", description = "Import not found")
+    })
+    public PatientImportDTO getImport(@PathVariable Long importId) {
+        return patientImporter.getImport(importId);
+    }
+
     @DeleteMapping("/{email}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Operation(summary = "Delete patient by email", description = "Delete a patient record by their email address.")
@@ -72,5 +140,16 @@ public class PatientController {
     public PatientDTO updatePatientByEmail(@PathVariable("email") String email, @RequestBody PatientDTO patientDto) {
         return patientService.updatePatientByEmail(email, patientDto);
     }
-}
 
+    @PatchMapping("/{email}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @Operation(summary = "Partially update patient by email", description = "Updates only the fields present in the body, in a single statement.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Patient updated successfully"),
+            @ApiResponse(responseCode = "404", description = "Patient not found"),
+            @ApiResponse(responseCode = "400", description = "No fields to update, id card number or birthday given, or email already taken")
+    })
+    public void patchPatientByEmail(@PathVariable("email") String email, @RequestBody PatientDTO patientDto) {
+        patientService.patchPatientByEmail(email, patientDto);
+    }
+}
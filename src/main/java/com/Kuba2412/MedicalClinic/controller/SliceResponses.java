@@ -0,0 +1,30 @@
+package com.Kuba2412.MedicalClinic.controller;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Turns a {@link Slice} into a list response. The body stays a plain JSON array; {@code X-Has-Next}
+ * tells the client whether another page exists, and {@code X-Total-Count} is only added (and only
+ * counted) when the client sends {@code includeTotal=true}.
+ */
+final class SliceResponses {
+
+    static final String HAS_NEXT = "X-Has-Next";
+    static final String TOTAL_COUNT = "X-Total-Count";
+
+    private SliceResponses() {
+    }
+
+    static <T> ResponseEntity<List<T>> of(Slice<T> slice, boolean includeTotal, LongSupplier total) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HAS_NEXT, String.valueOf(slice.hasNext()));
+        if (includeTotal) {
+            response.header(TOTAL_COUNT, String.valueOf(total.getAsLong()));
+        }
+        return response.body(slice.getContent());
+    }
+}
@@ -8,6 +8,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -41,12 +42,13 @@ public class UserController {
     }
 
     @GetMapping
-    @Operation(summary = "Get all users", description = "Retrieve a paginated list of all users.")
+    @Operation(summary = "Get all users", description = "Retrieve a page of users. X-Has-Next tells whether more pages exist; includeTotal=true adds X-Total-Count.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of users returned successfully")
     })
-    public List<User> getAllUsers(Pageable pageable) {
-        return userService.getAllUsers(pageable);
+    public ResponseEntity<List<User>> getAllUsers(Pageable pageable,
+                                                  @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return SliceResponses.of(userService.getAllUsers(pageable), includeTotal, userService::countUsers);
     }
 
     @PutMapping("/{username}/password")
@@ -1,16 +1,35 @@
 package com.Kuba2412.MedicalClinic.controller;
 
+import com.Kuba2412.MedicalClinic.model.dto.AvailabilityRebuildDTO;
+import com.Kuba2412.MedicalClinic.model.dto.BulkVisitChangeDTO;
+import com.Kuba2412.MedicalClinic.model.dto.RegistrationDTO;
+import com.Kuba2412.MedicalClinic.model.dto.RegistrationResultDTO;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleDTO;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleResultDTO;
+import com.Kuba2412.MedicalClinic.model.dto.SlotDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitCursor;
 import com.Kuba2412.MedicalClinic.model.dto.VisitDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitHoldDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitRescheduleDTO;
+import com.Kuba2412.MedicalClinic.model.dto.WaitlistDTO;
+import com.Kuba2412.MedicalClinic.service.AvailabilityProjection;
+import com.Kuba2412.MedicalClinic.service.VisitExportService;
 import com.Kuba2412.MedicalClinic.service.VisitService;
+import com.Kuba2412.MedicalClinic.service.WaitlistService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -18,7 +37,12 @@ import java.util.List;
 @RequiredArgsConstructor
 public class VisitController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final VisitService visitService;
+    private final VisitExportService visitExportService;
+    private final WaitlistService waitlistService;
+    private final AvailabilityProjection availabilityProjection;
 
     @Operation(summary = "Register patient for a visit")
     @ApiResponses(value = {
@@ -31,24 +55,152 @@ public class VisitController {
         visitService.registerPatientForVisit(visitId, patientId);
     }
 
-    @Operation(summary = "Get visits by doctor ID")
+    @Operation(summary = "Register a patient for a slot of a doctor's schedule template",
+            description = "Creates the visit, already registered to the patient. The start must match a template slot.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Patient registered successfully"),
+            @ApiResponse(responseCode = "400", description = "Slot is in the past or already taken"),
+            @ApiResponse(responseCode = "404", description = "Doctor, patient or template slot not found")
+    })
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping("/doctor/{doctorId}/template-slots/register")
+    public VisitDTO registerPatientForTemplateSlot(
+            @PathVariable Long doctorId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam Long patientId) {
+        return visitService.registerPatientForTemplateSlot(doctorId, start, patientId);
+    }
+
+    @Operation(summary = "Register many patients for visits at once",
+            description = "Returns one result per pair; conflicting pairs don't stop the others from being registered.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed"),
+            @ApiResponse(responseCode = "400", description = "Empty, oversized or incomplete batch")
+    })
+    @PostMapping("/register/batch")
+    public List<RegistrationResultDTO> registerPatients(@RequestBody List<RegistrationDTO> registrations) {
+        return visitService.registerPatients(registrations);
+    }
+
+    @Operation(summary = "Cancel a patient's registration for a visit",
+            description = "The freed visit is offered to the waitlist before it becomes available again.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Registration cancelled successfully"),
+            @ApiResponse(responseCode = "400", description = "Visit is in the past or registered to another patient"),
+            @ApiResponse(responseCode = "404", description = "Visit not found")
+    })
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @DeleteMapping("/{visitId}/patient/{patientId}")
+    public void cancelRegistration(@PathVariable Long visitId, @PathVariable Long patientId) {
+        visitService.cancelRegistration(visitId, patientId);
+    }
+
+    @Operation(summary = "Cancel all upcoming visits of a doctor in a time range",
+            description = "Returns the number of cancelled visits and the patients that were booked on them.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Visits cancelled successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid time range"),
+            @ApiResponse(responseCode = "404", description = "Doctor not found")
+    })
+    @DeleteMapping("/doctor/{doctorId}")
+    public BulkVisitChangeDTO cancelDoctorVisits(
+            @PathVariable Long doctorId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return visitService.cancelDoctorVisits(doctorId, from, to);
+    }
+
+    @Operation(summary = "Move all upcoming visits of a doctor in a time range to another doctor or date",
+            description = "Registered patients keep their visits. Returns the number of moved visits and the affected patients.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Visits rescheduled successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid range or target, or moved visits would overlap"),
+            @ApiResponse(responseCode = "404", description = "Doctor not found")
+    })
+    @PostMapping("/doctor/{doctorId}/reschedule")
+    public BulkVisitChangeDTO rescheduleDoctorVisits(@PathVariable Long doctorId,
+                                                     @RequestBody VisitRescheduleDTO rescheduleDTO) {
+        return visitService.rescheduleDoctorVisits(doctorId, rescheduleDTO);
+    }
+
+    @Operation(summary = "Join the waitlist for a doctor or a specialization")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Patient added to the waitlist"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data"),
+            @ApiResponse(responseCode = "404", description = "Patient or doctor not found")
+    })
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping("/waitlist")
+    public WaitlistDTO joinWaitlist(@RequestBody WaitlistDTO waitlistDTO) {
+        return waitlistService.joinWaitlist(waitlistDTO);
+    }
+
+    @Operation(summary = "Leave the waitlist")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Waitlist entry removed"),
+            @ApiResponse(responseCode = "404", description = "Waitlist entry not found")
+    })
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @DeleteMapping("/waitlist/{entryId}")
+    public void leaveWaitlist(@PathVariable Long entryId) {
+        waitlistService.leaveWaitlist(entryId);
+    }
+
+    @Operation(summary = "Hold a visit while the patient completes the booking",
+            description = "The hold expires after a few minutes unless it is confirmed or released.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Visit held successfully"),
+            @ApiResponse(responseCode = "400", description = "Visit is taken, in the past or held by another patient"),
+            @ApiResponse(responseCode = "404", description = "Visit or patient not found")
+    })
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping("/{visitId}/hold")
+    public VisitHoldDTO holdVisit(@PathVariable Long visitId, @RequestParam Long patientId) {
+        return visitService.holdVisit(visitId, patientId);
+    }
+
+    @Operation(summary = "Confirm a held visit and register the patient")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Patient registered successfully"),
+            @ApiResponse(responseCode = "400", description = "Hold expired or registration not allowed"),
+            @ApiResponse(responseCode = "404", description = "Visit or patient not found")
+    })
+    @PostMapping("/{visitId}/hold/confirm")
+    public void confirmHold(@PathVariable Long visitId, @RequestParam Long patientId) {
+        visitService.confirmHold(visitId, patientId);
+    }
+
+    @Operation(summary = "Release a held visit")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Hold released successfully"),
+            @ApiResponse(responseCode = "404", description = "Hold not found")
+    })
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @DeleteMapping("/{visitId}/hold")
+    public void releaseHold(@PathVariable Long visitId, @RequestParam Long patientId) {
+        visitService.releaseHold(visitId, patientId);
+    }
+
+    @Operation(summary = "Get visits by doctor ID",
+            description = "Returns one page ordered by start time. Pass afterStart and afterId of the last visit for the next page.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Visits retrieved successfully"),
             @ApiResponse(responseCode = "404", description = "Doctor not found")
     })
     @GetMapping("/doctor/{doctorId}")
-    public List<VisitDTO> getVisitsByDoctorId(@PathVariable Long doctorId) {
-        return visitService.getVisitsByDoctorId(doctorId);
+    public List<VisitDTO> getVisitsByDoctorId(@PathVariable Long doctorId, VisitCursor cursor) {
+        return visitService.getVisitsByDoctorId(doctorId, cursor);
     }
 
-    @Operation(summary = "Get all visits for a patient by patient ID")
+    @Operation(summary = "Get all visits for a patient by patient ID",
+            description = "Returns one page ordered by start time. Pass afterStart and afterId of the last visit for the next page.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Visits retrieved successfully"),
             @ApiResponse(responseCode = "404", description = "Patient not found")
     })
     @GetMapping("/patient/{patientId}")
-    public List<VisitDTO> getAllVisitsForPatient(@PathVariable Long patientId) {
-        return visitService.getAllVisitsForPatient(patientId);
+    public List<VisitDTO> getAllVisitsForPatient(@PathVariable Long patientId, VisitCursor cursor) {
+        return visitService.getAllVisitsForPatient(patientId, cursor);
     }
 
     @Operation(summary = "Get available visits by doctor specialization and date")
@@ -63,6 +215,48 @@ public class VisitController {
         return visitService.getAvailableVisitsByDoctorSpecializationAndByDate(specialization, date);
     }
 
+    @Operation(summary = "Get free slots of a doctor on a given date")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Free slots retrieved successfully")
+    })
+    @GetMapping("/doctor/{doctorId}/free-slots")
+    public List<SlotDTO> getFreeSlotsForDoctor(@PathVariable Long doctorId, @RequestParam LocalDate date) {
+        return visitService.getFreeSlotsForDoctor(doctorId, date);
+    }
+
+    @Operation(summary = "Get the first free slot for a doctor specialization")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "First free slot retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "No free slot found for the specified specialization")
+    })
+    @GetMapping("/doctor/specialization/{specialization}/first-free-slot")
+    public SlotDTO getFirstFreeSlotBySpecialization(@PathVariable String specialization) {
+        return visitService.getFirstFreeSlotBySpecialization(specialization);
+    }
+
+    @Operation(summary = "Get the earliest free slots across all doctors of a specialization",
+            description = "Optionally limited to doctors working at an institution in the given city.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Free slots retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid limit")
+    })
+    @GetMapping("/doctor/specialization/{specialization}/next-available")
+    public List<SlotDTO> getNextAvailableSlots(@PathVariable String specialization,
+                                               @RequestParam(required = false) String city,
+                                               @RequestParam(defaultValue = "5") int limit) {
+        return visitService.getNextAvailableSlots(specialization, city, limit);
+    }
+
+    @Operation(summary = "Rebuild the availability read model",
+            description = "Regenerates the available slots from all free future visits and reloads the slot calendar.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Availability rebuilt successfully")
+    })
+    @PostMapping("/available-slots/rebuild")
+    public AvailabilityRebuildDTO rebuildAvailability() {
+        return availabilityProjection.rebuild();
+    }
+
     @Operation(summary = "Create a new visit")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Visit created successfully"),
@@ -74,13 +268,44 @@ public class VisitController {
         return visitService.createVisit(visitDTO);
     }
 
-    @Operation(summary = "Get visits by patient email")
+    @Operation(summary = "Generate a doctor's schedule",
+            description = "Creates free visits for every day in the date range, weekends included, and reports the insert rate.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Schedule generated successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid schedule"),
+            @ApiResponse(responseCode = "404", description = "Doctor not found")
+    })
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping("/schedule")
+    public ScheduleResultDTO generateSchedule(@RequestBody ScheduleDTO scheduleDTO) {
+        return visitService.generateSchedule(scheduleDTO);
+    }
+
+    @Operation(summary = "Export visits as NDJSON",
+            description = "Streams one JSON visit per line, optionally filtered by doctor and specialization.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Visits streamed successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid date range")
+    })
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportVisits(
+            @RequestParam LocalDate from,
+            @RequestParam LocalDate to,
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) String specialization) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(visitExportService.exportVisits(from, to, doctorId, specialization));
+    }
+
+    @Operation(summary = "Get visits by patient email",
+            description = "Returns one page ordered by start time. Pass afterStart and afterId of the last visit for the next page.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Visits retrieved successfully"),
             @ApiResponse(responseCode = "404", description = "Patient not found")
     })
     @GetMapping("/patient/email/{email}")
-    public List<VisitDTO> getVisitsByPatientEmail(@PathVariable String email) {
-        return visitService.getVisitsByPatientEmail(email);
+    public List<VisitDTO> getVisitsByPatientEmail(@PathVariable String email, VisitCursor cursor) {
+        return visitService.getVisitsByPatientEmail(email, cursor);
     }
 }
\ No newline at end of file
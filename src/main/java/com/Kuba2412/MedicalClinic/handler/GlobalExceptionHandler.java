@@ -44,7 +44,19 @@ public class GlobalExceptionHandler {
     public ResponseEntity<String> handleVisitNotFoundException(VisitNotFound ex){
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
     }
-}
 
+    @ExceptionHandler(WaitlistEntryNotFound.class)
+    public ResponseEntity<String> handleWaitlistEntryNotFound(WaitlistEntryNotFound ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
+    }
 
+    @ExceptionHandler(ScheduleTemplateNotFound.class)
+    public ResponseEntity<String> handleScheduleTemplateNotFound(ScheduleTemplateNotFound ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
+    }
 
+    @ExceptionHandler(PatientImportNotFound.class)
+    public ResponseEntity<String> handlePatientImportNotFound(PatientImportNotFound ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
+    }
+}
@@ -0,0 +1,9 @@
+package com.Kuba2412.MedicalClinic.handler.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class PatientImportNotFound extends MedicalExcpetion {
+    public PatientImportNotFound(String message) {
+        super(message, HttpStatus.NOT_FOUND);
+    }
+}
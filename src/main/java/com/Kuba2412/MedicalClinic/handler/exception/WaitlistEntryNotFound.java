@@ -0,0 +1,9 @@
+package com.Kuba2412.MedicalClinic.handler.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class WaitlistEntryNotFound extends MedicalExcpetion {
+    public WaitlistEntryNotFound(String message) {
+        super(message, HttpStatus.NOT_FOUND);
+    }
+}
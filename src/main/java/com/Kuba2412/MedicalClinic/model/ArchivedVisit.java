@@ -0,0 +1,32 @@
+package com.Kuba2412.MedicalClinic.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Finished visit moved out of VISIT by {@code VisitArchiver}. Keeps the id it had in VISIT,
+ * so archived and current visits share one (startVisit, id) ordering.
+ */
+@Entity
+@Immutable
+@Table(name = "visit_archive")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedVisit {
+
+    @Id
+    private Long id;
+    private LocalDateTime startVisit;
+    private LocalDateTime endVisit;
+    private Long patientId;
+    private Long doctorId;
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,31 @@
+package com.Kuba2412.MedicalClinic.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only row of the availability projection: one free future visit, denormalized with its
+ * doctor's specialization. Rows are written by {@code AvailabilityProjection}, never through JPA.
+ */
+@Entity
+@Immutable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailableSlot {
+
+    @Id
+    private Long visitId;
+    private Long doctorId;
+    private String specialization;
+    private LocalDate slotDate;
+    private LocalDateTime startVisit;
+    private LocalDateTime endVisit;
+}
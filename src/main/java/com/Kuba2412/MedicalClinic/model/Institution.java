@@ -24,6 +24,8 @@ public class Institution {
     private String postalCode;
     private String street;
     private String buildingNumber;
+    private Double latitude;
+    private Double longitude;
 
     @ManyToMany(mappedBy = "institutions")
     private List<Doctor> doctors;
@@ -50,6 +52,8 @@ public class Institution {
                 ", postalCode='" + postalCode + '\'' +
                 ", street='" + street + '\'' +
                 ", buildingNumber='" + buildingNumber + '\'' +
+                ", latitude=" + latitude +
+                ", longitude=" + longitude +
                 ", doctors=" + doctors +
                 '}';
     }
@@ -0,0 +1,72 @@
+package com.Kuba2412.MedicalClinic.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Objects;
+
+/**
+ * Weekly working hours of a doctor, cut into slots of {@code slotMinutes}. The days of the week
+ * are stored as a bitmask, bit 0 being Monday. Slots are never stored; they are expanded in memory
+ * and a VISIT row is only created when a patient books one.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleTemplate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "doctor_id")
+    private Doctor doctor;
+
+    private int daysMask;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private int slotMinutes;
+    private LocalDate validFrom;
+    private LocalDate validTo;
+
+    public boolean appliesTo(LocalDate date) {
+        return (daysMask & dayBit(date.getDayOfWeek())) != 0
+                && !date.isBefore(validFrom)
+                && (validTo == null || !date.isAfter(validTo));
+    }
+
+    public static int dayBit(DayOfWeek dayOfWeek) {
+        return 1 << (dayOfWeek.getValue() - 1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ScheduleTemplate that = (ScheduleTemplate) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ScheduleTemplate{" +
+                "id=" + id +
+                ", daysMask=" + daysMask +
+                ", startTime=" + startTime +
+                ", endTime=" + endTime +
+                ", slotMinutes=" + slotMinutes +
+                '}';
+    }
+}
@@ -16,7 +16,8 @@ import java.util.Objects;
 public class Visit {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "visit_seq")
+    @SequenceGenerator(name = "visit_seq", sequenceName = "visit_seq", allocationSize = 50)
     private Long id;
     private LocalDateTime startVisit;
     private LocalDateTime endVisit;
@@ -0,0 +1,15 @@
+package com.Kuba2412.MedicalClinic.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityRebuildDTO {
+
+    private int slots;
+    private int chunks;
+    private long elapsedMillis;
+}
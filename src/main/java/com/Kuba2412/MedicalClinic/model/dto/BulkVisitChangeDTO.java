@@ -0,0 +1,16 @@
+package com.Kuba2412.MedicalClinic.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkVisitChangeDTO {
+
+    private int affectedVisits;
+    private List<Long> patientIds;
+}
@@ -0,0 +1,21 @@
+package com.Kuba2412.MedicalClinic.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DirectoryCacheStatsDTO {
+
+    private int size;
+    private int maxSize;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private double hitRate;
+    private LocalDateTime refreshedAt;
+}
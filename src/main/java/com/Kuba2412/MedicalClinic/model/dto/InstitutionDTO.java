@@ -17,5 +17,16 @@ public class InstitutionDTO {
     private String postalCode;
     private String street;
     private String buildingNumber;
+    private Double latitude;
+    private Double longitude;
     private List<Long> doctorIds;
+
+    public InstitutionDTO(Long id, String name, String city, String postalCode, String street, String buildingNumber) {
+        this(id, name, city, postalCode, street, buildingNumber, null, null);
+    }
+
+    public InstitutionDTO(Long id, String name, String city, String postalCode, String street, String buildingNumber,
+                          Double latitude, Double longitude) {
+        this(id, name, city, postalCode, street, buildingNumber, latitude, longitude, null);
+    }
 }
@@ -0,0 +1,23 @@
+package com.Kuba2412.MedicalClinic.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Institution search criteria; at least one of them is required and all given ones must match.
+ * The postal code is a prefix, the city is matched ignoring case, and coordinates select the
+ * institutions within {@code radiusKm}, nearest first.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocalityQuery {
+
+    private String postalCode;
+    private String city;
+    private Double latitude;
+    private Double longitude;
+    private double radiusKm = 10;
+    private int limit = 20;
+}
@@ -0,0 +1,18 @@
+package com.Kuba2412.MedicalClinic.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientCacheStatsDTO {
+
+    private int size;
+    private int maxSize;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private double hitRate;
+}
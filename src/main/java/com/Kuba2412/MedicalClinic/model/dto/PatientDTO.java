@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -15,4 +18,13 @@ public class PatientDTO {
     private String lastName;
     private String phoneNumber;
     private String birthday;
+
+    /**
+     * Used by the repository constructor projections, which read the birthday as a date.
+     */
+    public PatientDTO(Long id, String email, String idCardNo, String firstName, String lastName,
+                      String phoneNumber, LocalDate birthday) {
+        this(id, email, idCardNo, firstName, lastName, phoneNumber,
+                birthday == null ? null : DateTimeFormatter.ISO_LOCAL_DATE.format(birthday));
+    }
 }
@@ -0,0 +1,26 @@
+package com.Kuba2412.MedicalClinic.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientImportDTO {
+
+    private Long id;
+    private String format;
+    private String status;
+    private long recordsRead;
+    private long imported;
+    private long duplicates;
+    private long rejected;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private long rowsPerSecond;
+    private List<String> errors;
+}
@@ -0,0 +1,16 @@
+package com.Kuba2412.MedicalClinic.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegistrationResultDTO {
+
+    private Long visitId;
+    private Long patientId;
+    private boolean registered;
+    private String message;
+}
@@ -0,0 +1,16 @@
+package com.Kuba2412.MedicalClinic.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleResultDTO {
+
+    private int createdVisits;
+    private int skippedSlots;
+    private long elapsedMillis;
+    private long rowsPerSecond;
+}
@@ -0,0 +1,25 @@
+package com.Kuba2412.MedicalClinic.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleTemplateDTO {
+
+    private Long id;
+    private Long doctorId;
+    private Set<DayOfWeek> daysOfWeek;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private Integer slotMinutes;
+    private LocalDate validFrom;
+    private LocalDate validTo;
+}
@@ -0,0 +1,27 @@
+package com.Kuba2412.MedicalClinic.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Keyset position in a visit listing ordered by (startVisit, id). Clients pass the
+ * startVisit and id of the last visit they received to get the next page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisitCursor {
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime afterStart;
+    private Long afterId;
+    private int size = 20;
+
+    public boolean isFirstPage() {
+        return afterStart == null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.Kuba2412.MedicalClinic.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisitHoldDTO {
+
+    private Long visitId;
+    private Long patientId;
+    private LocalDateTime expiresAt;
+}
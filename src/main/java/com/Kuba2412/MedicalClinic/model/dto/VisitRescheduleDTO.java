@@ -0,0 +1,23 @@
+package com.Kuba2412.MedicalClinic.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Moves every upcoming visit of a doctor that starts in [from, to) to another doctor, to the
+ * day {@code targetDate} (keeping the time of day and the spacing between days), or both.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisitRescheduleDTO {
+
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Long targetDoctorId;
+    private LocalDate targetDate;
+}
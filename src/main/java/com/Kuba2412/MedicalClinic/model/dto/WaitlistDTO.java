@@ -0,0 +1,19 @@
+package com.Kuba2412.MedicalClinic.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistDTO {
+
+    private Long id;
+    private Long patientId;
+    private Long doctorId;
+    private String specialization;
+    private LocalDateTime createdAt;
+}
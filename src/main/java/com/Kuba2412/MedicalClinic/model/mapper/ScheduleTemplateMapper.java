@@ -0,0 +1,30 @@
+package com.Kuba2412.MedicalClinic.model.mapper;
+
+import com.Kuba2412.MedicalClinic.model.ScheduleTemplate;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleTemplateDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.util.EnumSet;
+import java.util.Set;
+
+@Mapper(componentModel = "spring")
+@Component
+public interface ScheduleTemplateMapper {
+
+    @Mapping(source = "doctor.id", target = "doctorId")
+    @Mapping(source = "daysMask", target = "daysOfWeek")
+    ScheduleTemplateDTO scheduleTemplateToScheduleTemplateDTO(ScheduleTemplate scheduleTemplate);
+
+    default Set<DayOfWeek> daysMaskToDaysOfWeek(int daysMask) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if ((daysMask & ScheduleTemplate.dayBit(day)) != 0) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+}
@@ -1,16 +1,25 @@
 package com.Kuba2412.MedicalClinic.model.mapper;
 
+import com.Kuba2412.MedicalClinic.model.AvailableSlot;
 import com.Kuba2412.MedicalClinic.model.Visit;
 import com.Kuba2412.MedicalClinic.model.dto.VisitDTO;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.springframework.stereotype.Component;
 
 @Mapper(componentModel = "spring")
 @Component
 public interface VisitMapper {
 
+    @Mapping(source = "patient.id", target = "patientId")
+    @Mapping(source = "doctor.id", target = "doctorId")
+    @Mapping(source = "doctor.specialization", target = "specialization")
     VisitDTO visitToVisitDTO(Visit visit);
 
     Visit visitDTOToVisit(VisitDTO visitDTO);
 
+    @Mapping(source = "visitId", target = "id")
+    @Mapping(target = "patientId", ignore = true)
+    VisitDTO availableSlotToVisitDTO(AvailableSlot availableSlot);
+
 }
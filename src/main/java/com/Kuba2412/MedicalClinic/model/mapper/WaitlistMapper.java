@@ -0,0 +1,17 @@
+package com.Kuba2412.MedicalClinic.model.mapper;
+
+import com.Kuba2412.MedicalClinic.model.WaitlistEntry;
+import com.Kuba2412.MedicalClinic.model.dto.WaitlistDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.springframework.stereotype.Component;
+
+@Mapper(componentModel = "spring")
+@Component
+public interface WaitlistMapper {
+
+    @Mapping(source = "patient.id", target = "patientId")
+    @Mapping(source = "doctor.id", target = "doctorId")
+    WaitlistDTO waitlistEntryToWaitlistDTO(WaitlistEntry waitlistEntry);
+
+}
@@ -0,0 +1,69 @@
+package com.Kuba2412.MedicalClinic.repository;
+
+import com.Kuba2412.MedicalClinic.model.ArchivedVisit;
+import com.Kuba2412.MedicalClinic.model.dto.VisitDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface ArchivedVisitRepository extends JpaRepository<ArchivedVisit, Long> {
+
+    @Query("select new com.Kuba2412.MedicalClinic.model.dto.VisitDTO(" +
+            "a.id, a.startVisit, a.endVisit, a.patientId, a.doctorId, d.specialization) " +
+            "from ArchivedVisit a left join Doctor d on d.id = a.doctorId " +
+            "where a.patientId = :patientId " +
+            "order by a.startVisit, a.id")
+    List<VisitDTO> findAllByPatientId(@Param("patientId") Long patientId, Pageable pageable);
+
+    @Query("select new com.Kuba2412.MedicalClinic.model.dto.VisitDTO(" +
+            "a.id, a.startVisit, a.endVisit, a.patientId, a.doctorId, d.specialization) " +
+            "from ArchivedVisit a left join Doctor d on d.id = a.doctorId " +
+            "where a.patientId = :patientId " +
+            "and (a.startVisit > :afterStart or (a.startVisit = :afterStart and a.id > :afterId)) " +
+            "order by a.startVisit, a.id")
+    List<VisitDTO> findAllByPatientIdAfter(@Param("patientId") Long patientId,
+                                           @Param("afterStart") LocalDateTime afterStart,
+                                           @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    @Query("select new com.Kuba2412.MedicalClinic.model.dto.VisitDTO(" +
+            "a.id, a.startVisit, a.endVisit, a.patientId, a.doctorId, d.specialization) " +
+            "from ArchivedVisit a left join Doctor d on d.id = a.doctorId " +
+            "where a.doctorId = :doctorId " +
+            "order by a.startVisit, a.id")
+    List<VisitDTO> findAllByDoctorId(@Param("doctorId") Long doctorId, Pageable pageable);
+
+    @Query("select new com.Kuba2412.MedicalClinic.model.dto.VisitDTO(" +
+            "a.id, a.startVisit, a.endVisit, a.patientId, a.doctorId, d.specialization) " +
+            "from ArchivedVisit a left join Doctor d on d.id = a.doctorId " +
+            "where a.doctorId = :doctorId " +
+            "and (a.startVisit > :afterStart or (a.startVisit = :afterStart and a.id > :afterId)) " +
+            "order by a.startVisit, a.id")
+    List<VisitDTO> findAllByDoctorIdAfter(@Param("doctorId") Long doctorId,
+                                          @Param("afterStart") LocalDateTime afterStart,
+                                          @Param("afterId") Long afterId,
+                                          Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.Kuba2412.MedicalClinic.model.dto.VisitDTO(" +
+            "a.id, a.startVisit, a.endVisit, a.patientId, a.doctorId, d.specialization) " +
+            "from ArchivedVisit a left join Doctor d on d.id = a.doctorId " +
+            "where a.startVisit >= :from and a.startVisit < :to " +
+            "and (:doctorId is null or a.doctorId = :doctorId) " +
+            "and (:specialization is null or d.specialization = :specialization) " +
+            "order by a.id")
+    Stream<VisitDTO> streamForExport(@Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to,
+                                     @Param("doctorId") Long doctorId,
+                                     @Param("specialization") String specialization);
+}
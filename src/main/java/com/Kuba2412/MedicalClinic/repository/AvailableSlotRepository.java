@@ -0,0 +1,25 @@
+package com.Kuba2412.MedicalClinic.repository;
+
+import com.Kuba2412.MedicalClinic.model.AvailableSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AvailableSlotRepository extends JpaRepository<AvailableSlot, Long> {
+
+    /**
+     * Free slots of a specialization starting in the half-open range [from, to).
+     */
+    @Query("select a from AvailableSlot a where a.specialization = :specialization " +
+            "and a.startVisit >= :from and a.startVisit < :to order by a.startVisit")
+    List<AvailableSlot> findAllBySpecializationInRange(@Param("specialization") String specialization,
+                                                       @Param("from") LocalDateTime from,
+                                                       @Param("to") LocalDateTime to);
+
+    List<AvailableSlot> findAllByStartVisitAfter(LocalDateTime start);
+}
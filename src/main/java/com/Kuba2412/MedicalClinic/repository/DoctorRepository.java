@@ -1,10 +1,14 @@
 package com.Kuba2412.MedicalClinic.repository;
 
 import com.Kuba2412.MedicalClinic.model.Doctor;
+import com.Kuba2412.MedicalClinic.model.dto.SimpleDoctorDTO;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,5 +19,18 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
 
     List<Doctor> findBySpecialization(String specialization);
 
+    @Query("select new com.Kuba2412.MedicalClinic.model.dto.SimpleDoctorDTO(d.id, d.firstName, d.lastName, d.specialization) " +
+            "from Doctor d")
+    Slice<SimpleDoctorDTO> findAllSimpleDoctors(Pageable pageable);
+
+    @Query("select new com.Kuba2412.MedicalClinic.model.dto.SimpleDoctorDTO(d.id, d.firstName, d.lastName, d.specialization) " +
+            "from Doctor d join d.institutions i where i.id = :institutionId")
+    List<SimpleDoctorDTO> findSimpleDoctorsByInstitutionId(@Param("institutionId") Long institutionId, Pageable pageable);
+
     Optional<Doctor> findByEmail(String email);
+
+    @Query("select distinct d.id from Doctor d join d.institutions i " +
+            "where d.specialization = :specialization and i.city = :city")
+    List<Long> findIdsBySpecializationAndInstitutionCity(@Param("specialization") String specialization,
+                                                         @Param("city") String city);
 }
@@ -0,0 +1,6 @@
+package com.Kuba2412.MedicalClinic.repository;
+
+public interface DoctorVisitInterval extends VisitInterval {
+
+    Long getDoctorId();
+}
@@ -2,13 +2,33 @@ package com.Kuba2412.MedicalClinic.repository;
 
 
 import com.Kuba2412.MedicalClinic.model.Institution;
+import com.Kuba2412.MedicalClinic.model.dto.InstitutionDTO;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface InstitutionRepository extends JpaRepository<Institution, Long> {
     Page<Institution> findAll(Pageable pageable);
+
+    @Query("select new com.Kuba2412.MedicalClinic.model.dto.InstitutionDTO(" +
+            "i.id, i.name, i.city, i.postalCode, i.street, i.buildingNumber, i.latitude, i.longitude) from Institution i")
+    Slice<InstitutionDTO> findAllInstitutionDTOs(Pageable pageable);
+
+    @Query("select new com.Kuba2412.MedicalClinic.model.dto.InstitutionDTO(" +
+            "i.id, i.name, i.city, i.postalCode, i.street, i.buildingNumber, i.latitude, i.longitude) " +
+            "from Institution i join i.doctors d where d.id = :doctorId")
+    List<InstitutionDTO> findInstitutionDTOsByDoctorId(@Param("doctorId") Long doctorId, Pageable pageable);
+
+    @Query("select i.id as institutionId, d.id as doctorId from Institution i join i.doctors d " +
+            "where i.id in :institutionIds order by d.id")
+    List<InstitutionDoctor> findDoctorIdsByInstitutionIdIn(@Param("institutionIds") Collection<Long> institutionIds);
 }
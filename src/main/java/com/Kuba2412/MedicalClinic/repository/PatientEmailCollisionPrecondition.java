@@ -0,0 +1,45 @@
+package com.Kuba2412.MedicalClinic.repository;
+
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomPreconditionErrorException;
+import liquibase.exception.CustomPreconditionFailedException;
+import liquibase.exception.DatabaseException;
+import liquibase.precondition.CustomPrecondition;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Guards the email normalization in med-21. Patients whose emails differ only by case or
+ * surrounding whitespace would collide on uk_patient_email once normalized, so the migration
+ * halts and lists them; they have to be merged or corrected by hand before it is run again.
+ */
+public class PatientEmailCollisionPrecondition implements CustomPrecondition {
+
+    private static final String FIND_COLLISIONS = "SELECT LOWER(TRIM(email)), id FROM patient " +
+            "WHERE LOWER(TRIM(email)) IN (SELECT LOWER(TRIM(email)) FROM patient " +
+            "GROUP BY LOWER(TRIM(email)) HAVING COUNT(*) > 1) ORDER BY 1, 2";
+
+    @Override
+    public void check(Database database) throws CustomPreconditionFailedException, CustomPreconditionErrorException {
+        Map<String, List<Long>> collisions = new LinkedHashMap<>();
+        try (Statement statement = ((JdbcConnection) database.getConnection()).createStatement();
+             ResultSet rs = statement.executeQuery(FIND_COLLISIONS)) {
+            while (rs.next()) {
+                collisions.computeIfAbsent(rs.getString(1), email -> new ArrayList<>()).add(rs.getLong(2));
+            }
+        } catch (SQLException | DatabaseException e) {
+            throw new CustomPreconditionErrorException("Could not check patient emails for collisions.", e);
+        }
+        if (!collisions.isEmpty()) {
+            throw new CustomPreconditionFailedException("Patient emails collide once lower-cased and trimmed, " +
+                    "merge or correct these patients first: " + collisions);
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package com.Kuba2412.MedicalClinic.repository;
 
 import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.model.dto.PatientDTO;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,6 +22,44 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
 
     Optional<Patient> findByEmail(String email);
 
-    Page<Patient> findByFirstName(String firstName, Pageable pageable);
+    List<Patient> findAllByEmailIn(Collection<String> emails);
+
+    @Query("select p from Patient p left join fetch p.user where p.id in :patientIds")
+    List<Patient> findAllWithUserByIdIn(@Param("patientIds") Collection<Long> patientIds);
+
+    @Query("select new com.Kuba2412.MedicalClinic.model.dto.PatientDTO(" +
+            "p.id, p.email, p.idCardNo, p.firstName, p.lastName, p.phoneNumber, p.birthday) from Patient p")
+    Slice<PatientDTO> findAllPatientDTOs(Pageable pageable);
+
+    @Query("select new com.Kuba2412.MedicalClinic.model.dto.PatientDTO(" +
+            "p.id, p.email, p.idCardNo, p.firstName, p.lastName, p.phoneNumber, p.birthday) from Patient p " +
+            "where p.firstName = :firstName")
+    Slice<PatientDTO> findPatientDTOsByFirstName(@Param("firstName") String firstName, Pageable pageable);
+
+    long countByFirstName(String firstName);
+
+    @Modifying
+    @Query("update Patient p set p.email = coalesce(:newEmail, p.email), " +
+            "p.firstName = coalesce(:firstName, p.firstName), " +
+            "p.lastName = coalesce(:lastName, p.lastName), " +
+            "p.phoneNumber = coalesce(:phoneNumber, p.phoneNumber) " +
+            "where p.email = :email")
+    int patchByEmail(@Param("email") String email,
+                     @Param("newEmail") String newEmail,
+                     @Param("firstName") String firstName,
+                     @Param("lastName") String lastName,
+                     @Param("phoneNumber") String phoneNumber);
+
+    @Modifying
+    @Query("delete from Patient p where p.email = :email " +
+            "and not exists (select v.id from Visit v where v.patient = p and v.startVisit > :now)")
+    int deleteByEmailWithoutFutureVisits(@Param("email") String email, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from Patient p where p.email = :email")
+    int deleteAllByEmail(@Param("email") String email);
+
+    @Query("select p.user.id from Patient p where p.email = :email")
+    Optional<Long> findUserIdByEmail(@Param("email") String email);
 
 }
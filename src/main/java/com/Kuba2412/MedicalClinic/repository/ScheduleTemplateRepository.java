@@ -0,0 +1,21 @@
+package com.Kuba2412.MedicalClinic.repository;
+
+import com.Kuba2412.MedicalClinic.model.ScheduleTemplate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ScheduleTemplateRepository extends JpaRepository<ScheduleTemplate, Long> {
+
+    List<ScheduleTemplate> findAllByDoctorIdOrderByStartTime(Long doctorId);
+
+    @Query("select t from ScheduleTemplate t join fetch t.doctor")
+    List<ScheduleTemplate> findAllWithDoctor();
+
+    @Query("select t from ScheduleTemplate t join fetch t.doctor d where d.id = :doctorId")
+    List<ScheduleTemplate> findAllWithDoctorByDoctorId(@Param("doctorId") Long doctorId);
+}
@@ -2,6 +2,8 @@ package com.Kuba2412.MedicalClinic.repository;
 
 import com.Kuba2412.MedicalClinic.model.User;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,4 +13,6 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByUsername(String username);
+
+    Slice<User> findAllBy(Pageable pageable);
 }
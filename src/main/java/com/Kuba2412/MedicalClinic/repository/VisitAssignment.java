@@ -0,0 +1,8 @@
+package com.Kuba2412.MedicalClinic.repository;
+
+public interface VisitAssignment {
+
+    Long getId();
+
+    Long getPatientId();
+}
@@ -0,0 +1,10 @@
+package com.Kuba2412.MedicalClinic.repository;
+
+import java.time.LocalDateTime;
+
+public interface VisitInterval {
+
+    LocalDateTime getStartVisit();
+
+    LocalDateTime getEndVisit();
+}
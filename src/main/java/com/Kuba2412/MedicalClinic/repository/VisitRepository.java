@@ -1,23 +1,168 @@
 package com.Kuba2412.MedicalClinic.repository;
 
+import com.Kuba2412.MedicalClinic.model.Doctor;
 import com.Kuba2412.MedicalClinic.model.Visit;
 
+import com.Kuba2412.MedicalClinic.model.dto.VisitDTO;
 import com.Kuba2412.MedicalClinic.model.mapper.VisitMapper;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface VisitRepository extends JpaRepository<Visit, Long>  {
 
-    List<Visit> findAllByPatientId(Long patientId);
+    @EntityGraph(attributePaths = "doctor")
+    List<Visit> findAllByPatientIdOrderByStartVisitAscIdAsc(Long patientId, Pageable pageable);
+
+    @EntityGraph(attributePaths = "doctor")
+    @Query("select v from Visit v where v.patient.id = :patientId " +
+            "and (v.startVisit > :afterStart or (v.startVisit = :afterStart and v.id > :afterId)) " +
+            "order by v.startVisit, v.id")
+    List<Visit> findAllByPatientIdAfter(@Param("patientId") Long patientId,
+                                        @Param("afterStart") LocalDateTime afterStart,
+                                        @Param("afterId") Long afterId,
+                                        Pageable pageable);
+
+    @EntityGraph(attributePaths = {"doctor", "patient"})
+    List<Visit> findAllByDoctorIdOrderByStartVisitAscIdAsc(Long doctorId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"doctor", "patient"})
+    @Query("select v from Visit v where v.doctor.id = :doctorId " +
+            "and (v.startVisit > :afterStart or (v.startVisit = :afterStart and v.id > :afterId)) " +
+            "order by v.startVisit, v.id")
+    List<Visit> findAllByDoctorIdAfter(@Param("doctorId") Long doctorId,
+                                       @Param("afterStart") LocalDateTime afterStart,
+                                       @Param("afterId") Long afterId,
+                                       Pageable pageable);
 
     Page<Visit> findAllByDoctorIdAndPatientIsNull(Long doctorId, Pageable pageable);
 
-    Page<Visit> findAllByDoctorSpecializationAndStartVisitBetweenAndPatientIsNull(
-            String specialization, LocalDateTime start, LocalDateTime end, Pageable pageable);
+    @Query("select v.startVisit as startVisit, v.endVisit as endVisit from Visit v " +
+            "where v.doctor.id = :doctorId and v.startVisit >= :from and v.startVisit < :to " +
+            "order by v.startVisit")
+    List<VisitInterval> findIntervalsByDoctorId(@Param("doctorId") Long doctorId,
+                                                @Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to);
+
+    @Query("select v.doctor.id as doctorId, v.startVisit as startVisit, v.endVisit as endVisit from Visit v " +
+            "where v.doctor.id in :doctorIds and v.startVisit >= :from and v.startVisit < :to " +
+            "order by v.startVisit")
+    List<DoctorVisitInterval> findIntervalsByDoctorIdIn(@Param("doctorIds") Collection<Long> doctorIds,
+                                                        @Param("from") LocalDateTime from,
+                                                        @Param("to") LocalDateTime to);
+
+    @Query("select count(v) > 0 from Visit v " +
+            "where v.doctor.id = :doctorId and v.startVisit > :earliestStart and v.startVisit < :end " +
+            "and v.endVisit > :start")
+    boolean existsOverlappingVisit(@Param("doctorId") Long doctorId,
+                                   @Param("earliestStart") LocalDateTime earliestStart,
+                                   @Param("start") LocalDateTime start,
+                                   @Param("end") LocalDateTime end);
+
+    @Query("select v.id from Visit v " +
+            "where v.doctor.id = :doctorId and v.startVisit > :earliestStart and v.startVisit < :end " +
+            "and v.endVisit > :start")
+    List<Long> findOverlappingVisitIds(@Param("doctorId") Long doctorId,
+                                       @Param("earliestStart") LocalDateTime earliestStart,
+                                       @Param("start") LocalDateTime start,
+                                       @Param("end") LocalDateTime end);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.Kuba2412.MedicalClinic.model.dto.VisitDTO(" +
+            "v.id, v.startVisit, v.endVisit, p.id, d.id, d.specialization) " +
+            "from Visit v left join v.patient p left join v.doctor d " +
+            "where v.startVisit >= :from and v.startVisit < :to " +
+            "and (:doctorId is null or d.id = :doctorId) " +
+            "and (:specialization is null or d.specialization = :specialization) " +
+            "order by v.id")
+    Stream<VisitDTO> streamForExport(@Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to,
+                                     @Param("doctorId") Long doctorId,
+                                     @Param("specialization") String specialization);
+
+    @Modifying
+    @Query("update Visit v set v.patient = (select p from Patient p where p.id = :patientId) " +
+            "where v.id = :visitId and v.patient is null and v.startVisit > :now " +
+            "and exists (select p.id from Patient p where p.id = :patientId)")
+    int registerPatient(@Param("visitId") Long visitId, @Param("patientId") Long patientId,
+                        @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update Visit v set v.patient = null " +
+            "where v.id = :visitId and v.patient.id = :patientId and v.startVisit > :now")
+    int cancelRegistration(@Param("visitId") Long visitId, @Param("patientId") Long patientId,
+                           @Param("now") LocalDateTime now);
+
+    @Query("select v.id from Visit v where v.patient.email = :email and v.startVisit > :now")
+    List<Long> findFutureVisitIdsByPatientEmail(@Param("email") String email, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update Visit v set v.patient = null where v.id in :visitIds")
+    int releaseVisits(@Param("visitIds") Collection<Long> visitIds);
+
+    @EntityGraph(attributePaths = "doctor")
+    List<Visit> findAllByIdIn(Collection<Long> visitIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select v.id from Visit v where v.id in :visitIds order by v.id")
+    List<Long> lockAllById(@Param("visitIds") Collection<Long> visitIds);
+
+    @Query("select v from Visit v left join fetch v.patient p left join fetch p.user left join fetch v.doctor " +
+            "where v.id in :visitIds")
+    List<Visit> findAllWithPatientAndDoctorByIdIn(@Param("visitIds") Collection<Long> visitIds);
+
+    @Query("select v.id as id, v.patient.id as patientId from Visit v " +
+            "where v.doctor.id = :doctorId and v.startVisit >= :from and v.startVisit < :to and v.startVisit > :now " +
+            "order by v.id")
+    List<VisitAssignment> findAssignmentsByDoctorId(@Param("doctorId") Long doctorId,
+                                                    @Param("from") LocalDateTime from,
+                                                    @Param("to") LocalDateTime to,
+                                                    @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from Visit v " +
+            "where v.doctor.id = :doctorId and v.startVisit >= :from and v.startVisit < :to and v.startVisit > :now")
+    int deleteByDoctorId(@Param("doctorId") Long doctorId,
+                         @Param("from") LocalDateTime from,
+                         @Param("to") LocalDateTime to,
+                         @Param("now") LocalDateTime now);
+
+    @Query("select count(t) > 0 from Visit v, Visit t " +
+            "where v.doctor.id = :doctorId and v.startVisit >= :from and v.startVisit < :to and v.startVisit > :now " +
+            "and t.doctor.id = :targetDoctorId " +
+            "and not (t.doctor.id = :doctorId and t.startVisit >= :from and t.startVisit < :to and t.startVisit > :now) " +
+            "and t.startVisit < v.endVisit + :shiftDays day and t.endVisit > v.startVisit + :shiftDays day")
+    boolean existsRescheduleConflict(@Param("doctorId") Long doctorId,
+                                     @Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to,
+                                     @Param("now") LocalDateTime now,
+                                     @Param("targetDoctorId") Long targetDoctorId,
+                                     @Param("shiftDays") long shiftDays);
+
+    @Modifying
+    @Query("update Visit v set v.doctor = :targetDoctor, " +
+            "v.startVisit = v.startVisit + :shiftDays day, v.endVisit = v.endVisit + :shiftDays day " +
+            "where v.doctor.id = :doctorId and v.startVisit >= :from and v.startVisit < :to and v.startVisit > :now")
+    int rescheduleVisits(@Param("doctorId") Long doctorId,
+                         @Param("from") LocalDateTime from,
+                         @Param("to") LocalDateTime to,
+                         @Param("now") LocalDateTime now,
+                         @Param("targetDoctor") Doctor targetDoctor,
+                         @Param("shiftDays") long shiftDays);
 }
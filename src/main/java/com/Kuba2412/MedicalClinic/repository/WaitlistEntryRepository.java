@@ -0,0 +1,18 @@
+package com.Kuba2412.MedicalClinic.repository;
+
+import com.Kuba2412.MedicalClinic.model.WaitlistEntry;
+import com.Kuba2412.MedicalClinic.model.dto.WaitlistDTO;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    @Query("select new com.Kuba2412.MedicalClinic.model.dto.WaitlistDTO(" +
+            "w.id, p.id, d.id, w.specialization, w.createdAt) " +
+            "from WaitlistEntry w join w.patient p left join w.doctor d")
+    List<WaitlistDTO> findAllWaiting();
+}
@@ -0,0 +1,179 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Visit;
+import com.Kuba2412.MedicalClinic.model.dto.AvailabilityRebuildDTO;
+import com.Kuba2412.MedicalClinic.repository.AvailableSlotRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the AVAILABLE_SLOT table and the in-memory slot calendar in step with free visits.
+ * Every change to a visit's availability goes through here; reads go to the table or the calendar.
+ * <p>
+ * Changes must be made in the transaction that changes the visits. The table rows are written
+ * in it, so they commit or roll back together with the visits, and the calendar applies the
+ * change only after the commit.
+ */
+@Component
+@RequiredArgsConstructor
+public class AvailabilityProjection {
+
+    private static final int REBUILD_CHUNK_SIZE = 10_000;
+    private static final int REBUILD_THREADS = 4;
+
+    private static final String INSERT_SLOT = "insert into available_slot " +
+            "(visit_id, doctor_id, specialization, slot_date, start_visit, end_visit) values (?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_SLOT = "delete from available_slot where visit_id = ?";
+    private static final String INSERT_FREE_VISIT = "insert into available_slot " +
+            "(visit_id, doctor_id, specialization, slot_date, start_visit, end_visit) " +
+            "select v.id, d.id, d.specialization, cast(v.start_visit as date), v.start_visit, v.end_visit " +
+            "from visit v join doctor d on d.id = v.doctor_id " +
+            "where v.patient_id is null and v.id = ?";
+    private static final String STAGE_FREE_VISITS = "insert into available_slot_rebuild " +
+            "(visit_id, doctor_id, specialization, slot_date, start_visit, end_visit) " +
+            "select v.id, d.id, d.specialization, cast(v.start_visit as date), v.start_visit, v.end_visit " +
+            "from visit v join doctor d on d.id = v.doctor_id " +
+            "where v.patient_id is null and v.start_visit > ? and v.id between ? and ?";
+    private static final String LOCK_FREE_VISITS = "select id from visit " +
+            "where patient_id is null and start_visit > ? for update";
+    private static final String SWAP_STILL_FREE = "insert into available_slot " +
+            "(visit_id, doctor_id, specialization, slot_date, start_visit, end_visit) " +
+            "select s.visit_id, s.doctor_id, s.specialization, s.slot_date, s.start_visit, s.end_visit " +
+            "from available_slot_rebuild s join visit v on v.id = s.visit_id " +
+            "where v.patient_id is null and v.doctor_id = s.doctor_id " +
+            "and v.start_visit = s.start_visit and v.end_visit = s.end_visit";
+    private static final String SWAP_FREED_SINCE = "insert into available_slot " +
+            "(visit_id, doctor_id, specialization, slot_date, start_visit, end_visit) " +
+            "select v.id, d.id, d.specialization, cast(v.start_visit as date), v.start_visit, v.end_visit " +
+            "from visit v join doctor d on d.id = v.doctor_id " +
+            "where v.patient_id is null and v.start_visit > ? " +
+            "and not exists (select 1 from available_slot a where a.visit_id = v.id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final VisitSlotCalendar visitSlotCalendar;
+    private final AvailableSlotRepository availableSlotRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void slotOpened(Visit visit) {
+        slotsOpened(List.of(visit));
+    }
+
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void slotsOpened(Collection<Visit> visits) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Visit visit : visits) {
+            if (visit.getPatient() == null && visit.getDoctor() != null) {
+                rows.add(new Object[]{visit.getId(), visit.getDoctor().getId(), visit.getDoctor().getSpecialization(),
+                        Date.valueOf(visit.getStartVisit().toLocalDate()),
+                        Timestamp.valueOf(visit.getStartVisit()), Timestamp.valueOf(visit.getEndVisit())});
+            }
+            visitSlotCalendar.addFreeVisit(visit);
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SLOT, rows);
+        }
+    }
+
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void slotBooked(Long visitId) {
+        slotsBooked(List.of(visitId));
+    }
+
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void slotsBooked(Collection<Long> visitIds) {
+        if (visitIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(DELETE_SLOT, visitIds.stream().map(visitId -> new Object[]{visitId}).toList());
+        visitIds.forEach(visitSlotCalendar::markBooked);
+    }
+
+    /**
+     * For visits deleted from VISIT. Their rows already went with them through the foreign key,
+     * so only the calendar is updated.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void slotsDeleted(Collection<Long> visitIds) {
+        visitIds.forEach(visitSlotCalendar::markBooked);
+    }
+
+    /**
+     * For visits whose doctor or time changed in place. Their rows are replaced from VISIT and
+     * the calendar is re-indexed from the new rows.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void slotsMoved(Collection<Long> visitIds) {
+        if (visitIds.isEmpty()) {
+            return;
+        }
+        slotsBooked(visitIds);
+        jdbcTemplate.batchUpdate(INSERT_FREE_VISIT, visitIds.stream().map(visitId -> new Object[]{visitId}).toList());
+        availableSlotRepository.findAllById(visitIds).forEach(visitSlotCalendar::addFreeSlot);
+    }
+
+    /**
+     * Regenerates the table from VISIT. The id range is split into chunks that are copied
+     * concurrently into AVAILABLE_SLOT_REBUILD, each with a single insert-select. The staged rows
+     * are then swapped in within one transaction that first locks the free visits, so readers keep
+     * seeing the old rows until it commits and bookings wait for it instead of racing it. Visits
+     * booked, moved or freed while the chunks were copied are reconciled against VISIT in the swap.
+     * The calendar is reloaded afterwards.
+     */
+    public synchronized AvailabilityRebuildDTO rebuild() {
+        long startedAt = System.nanoTime();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("delete from available_slot_rebuild");
+        long[] idRange = jdbcTemplate.queryForObject("select min(id), max(id) from visit",
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+
+        List<Callable<Integer>> chunks = new ArrayList<>();
+        for (long from = idRange[0]; from <= idRange[1]; from += REBUILD_CHUNK_SIZE) {
+            long chunkStart = from;
+            long chunkEnd = from + REBUILD_CHUNK_SIZE - 1;
+            chunks.add(() -> jdbcTemplate.update(STAGE_FREE_VISITS, now, chunkStart, chunkEnd));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(REBUILD_THREADS);
+        try {
+            for (Future<Integer> chunk : executor.invokeAll(chunks)) {
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Availability rebuild was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Availability rebuild failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int slots = transactionTemplate.execute(status -> {
+            jdbcTemplate.query(LOCK_FREE_VISITS, rs -> {
+            }, now);
+            jdbcTemplate.update("delete from available_slot");
+            int swapped = jdbcTemplate.update(SWAP_STILL_FREE);
+            swapped += jdbcTemplate.update(SWAP_FREED_SINCE, now);
+            jdbcTemplate.update("delete from available_slot_rebuild");
+            return swapped;
+        });
+        visitSlotCalendar.reload();
+        return new AvailabilityRebuildDTO(slots, chunks.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+}
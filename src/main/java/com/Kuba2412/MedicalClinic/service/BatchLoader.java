@@ -0,0 +1,54 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Resolves keys to values with one call of a batch function per {@link #loadMany} and remembers
+ * every answer, misses included, so a key is fetched at most once for the lifetime of the loader.
+ * Instances are not thread-safe; {@link BatchLoaders} hands out one per HTTP request.
+ */
+public class BatchLoader<K, V> {
+
+    private final Function<Collection<K>, Map<K, V>> batchFunction;
+    private final Map<K, Optional<V>> loaded = new HashMap<>();
+
+    public BatchLoader(Function<Collection<K>, Map<K, V>> batchFunction) {
+        this.batchFunction = batchFunction;
+    }
+
+    public Optional<V> load(K key) {
+        return Optional.ofNullable(loadMany(List.of(key)).get(key));
+    }
+
+    /**
+     * Returns the values found for the given keys in the order the keys were given, without
+     * duplicates. Keys that do not resolve to a value are left out.
+     */
+    public Map<K, V> loadMany(Collection<K> keys) {
+        Set<K> distinctKeys = new LinkedHashSet<>(keys);
+        distinctKeys.remove(null);
+        List<K> missing = distinctKeys.stream()
+                .filter(key -> !loaded.containsKey(key))
+                .toList();
+        if (!missing.isEmpty()) {
+            Map<K, V> found = batchFunction.apply(missing);
+            missing.forEach(key -> loaded.put(key, Optional.ofNullable(found.get(key))));
+        }
+        Map<K, V> result = new LinkedHashMap<>();
+        distinctKeys.forEach(key -> loaded.get(key).ifPresent(value -> result.put(key, value)));
+        return result;
+    }
+
+    public void prime(K key, V value) {
+        loaded.put(Objects.requireNonNull(key), Optional.of(value));
+    }
+}
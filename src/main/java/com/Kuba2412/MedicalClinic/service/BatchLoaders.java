@@ -0,0 +1,110 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.model.dto.InstitutionDTO;
+import com.Kuba2412.MedicalClinic.model.dto.PatientDTO;
+import com.Kuba2412.MedicalClinic.model.dto.SimpleDoctorDTO;
+import com.Kuba2412.MedicalClinic.model.mapper.DoctorMapper;
+import com.Kuba2412.MedicalClinic.model.mapper.InstitutionMapper;
+import com.Kuba2412.MedicalClinic.model.mapper.PatientMapper;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.InstitutionRepository;
+import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Hands out the {@link BatchLoader}s of the current HTTP request, so every lookup of the same
+ * patient, doctor or institution within one request is answered from a single {@code IN} query.
+ * Outside a request (schedulers, tests) every call gets a fresh loader and nothing is remembered.
+ */
+@Component
+@RequiredArgsConstructor
+public class BatchLoaders {
+
+    public static final int MAX_KEYS = 100;
+
+    private static final String ATTRIBUTE_PREFIX = BatchLoaders.class.getName() + ".";
+
+    private final PatientRepository patientRepository;
+    private final PatientMapper patientMapper;
+    private final DoctorRepository doctorRepository;
+    private final DoctorMapper doctorMapper;
+    private final InstitutionRepository institutionRepository;
+    private final InstitutionMapper institutionMapper;
+    private final DirectoryCache directoryCache;
+
+    public BatchLoader<Long, PatientDTO> patients() {
+        return current("patients", () -> new BatchLoader<>(ids -> {
+            Map<Long, PatientDTO> patients = toPatientDTOs(patientRepository.findAllById(ids), PatientDTO::getId);
+            BatchLoader<String, PatientDTO> byEmail = patientsByEmail();
+            patients.values().forEach(patient -> byEmail.prime(patient.getEmail(), patient));
+            return patients;
+        }));
+    }
+
+    public BatchLoader<String, PatientDTO> patientsByEmail() {
+        return current("patientsByEmail", () -> new BatchLoader<>(emails -> {
+            Map<String, PatientDTO> patients = toPatientDTOs(patientRepository.findAllByEmailIn(emails), PatientDTO::getEmail);
+            BatchLoader<Long, PatientDTO> byId = patients();
+            patients.values().forEach(patient -> byId.prime(patient.getId(), patient));
+            return patients;
+        }));
+    }
+
+    public BatchLoader<Long, SimpleDoctorDTO> doctors() {
+        return current("doctors", () -> new BatchLoader<>(ids -> directoryCache.getAll(DirectoryCache.Region.DOCTOR, ids,
+                missing -> doctorRepository.findAllById(missing).stream()
+                        .map(doctorMapper::toSimpleDoctorDTO)
+                        .collect(Collectors.toMap(SimpleDoctorDTO::getId, Function.identity())))));
+    }
+
+    public BatchLoader<Long, InstitutionDTO> institutions() {
+        return current("institutions", () -> new BatchLoader<>(ids -> directoryCache.getAll(DirectoryCache.Region.INSTITUTION, ids,
+                missing -> institutionRepository.findAllById(missing).stream()
+                        .map(institutionMapper::toInstitutionDTO)
+                        .collect(Collectors.toMap(InstitutionDTO::getId, Function.identity())))));
+    }
+
+    /**
+     * Checks the keys of a batch endpoint: at least one and at most {@link #MAX_KEYS}.
+     */
+    public static <K> void validateKeys(Collection<K> keys) {
+        if (keys == null || keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one key is required.");
+        }
+        if (keys.size() > MAX_KEYS) {
+            throw new IllegalArgumentException("At most " + MAX_KEYS + " keys can be requested at once.");
+        }
+    }
+
+    private <K> Map<K, PatientDTO> toPatientDTOs(List<Patient> patients, Function<PatientDTO, K> key) {
+        return patients.stream()
+                .map(patientMapper::patientToPatientDTO)
+                .collect(Collectors.toMap(key, Function.identity()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K, V> BatchLoader<K, V> current(String name, Supplier<BatchLoader<K, V>> factory) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return factory.get();
+        }
+        String attribute = ATTRIBUTE_PREFIX + name;
+        BatchLoader<K, V> loader = (BatchLoader<K, V>) request.getAttribute(attribute, RequestAttributes.SCOPE_REQUEST);
+        if (loader == null) {
+            loader = factory.get();
+            request.setAttribute(attribute, loader, RequestAttributes.SCOPE_REQUEST);
+        }
+        return loader;
+    }
+}
@@ -0,0 +1,156 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.dto.DirectoryCacheStatsDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of doctor and institution data, which changes a few times a day but is read
+ * on almost every page. Readers only dereference an immutable snapshot, so they never lock or
+ * contend with each other. A miss loads the value and publishes a new snapshot with the entry
+ * added; writes are rare, so copying the map then is cheaper than locking every read.
+ * <p>
+ * The cache holds at most {@code directory.cache.max-size} entries across all regions and drops
+ * the oldest ones first. Any write to doctors or institutions clears it, and a value loaded before
+ * a clear is never published after it. Cached values are shared, so callers must not modify them.
+ */
+@Component
+public class DirectoryCache {
+
+    public enum Region {
+        DOCTOR,
+        DOCTOR_PAGE,
+        DOCTOR_COUNT,
+        DOCTORS_BY_SPECIALIZATION,
+        DOCTORS_BY_INSTITUTION,
+        INSTITUTION,
+        INSTITUTION_PAGE,
+        INSTITUTION_COUNT,
+        INSTITUTIONS_BY_DOCTOR
+    }
+
+    private final int maxSize;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(0, Map.of(), LocalDateTime.now()));
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public DirectoryCache(@Value("${directory.cache.max-size:10000}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <V> V get(Region region, Object key, Supplier<V> loader) {
+        Snapshot current = snapshot.get();
+        Key cacheKey = new Key(region, key);
+        V value = (V) current.entries().get(cacheKey);
+        if (value != null) {
+            hits.incrementAndGet();
+            return value;
+        }
+        misses.incrementAndGet();
+        V loaded = loader.get();
+        if (loaded != null) {
+            publish(current.generation(), Map.of(cacheKey, loaded));
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the cached values for the keys and loads all missing ones with a single call of the
+     * loader. Keys the loader does not find are left out and not cached.
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> Map<K, V> getAll(Region region, Collection<K> keys, Function<Collection<K>, Map<K, V>> loader) {
+        Snapshot current = snapshot.get();
+        Map<K, V> result = new LinkedHashMap<>();
+        List<K> missing = keys.stream()
+                .filter(key -> {
+                    V value = (V) current.entries().get(new Key(region, key));
+                    if (value == null) {
+                        return true;
+                    }
+                    result.put(key, value);
+                    return false;
+                })
+                .toList();
+        hits.addAndGet(result.size());
+        if (missing.isEmpty()) {
+            return result;
+        }
+        misses.addAndGet(missing.size());
+        Map<K, V> loaded = loader.apply(missing);
+        Map<Key, Object> entries = new LinkedHashMap<>();
+        loaded.forEach((key, value) -> entries.put(new Key(region, key), value));
+        publish(current.generation(), entries);
+        result.putAll(loaded);
+        return result;
+    }
+
+    /**
+     * Drops every entry now and, inside a transaction, again after commit, so a read running
+     * before the commit cannot leave the old state cached.
+     */
+    public void invalidate() {
+        clear();
+        TransactionCallbacks.afterCommit(this::clear);
+    }
+
+    public DirectoryCacheStatsDTO refresh() {
+        clear();
+        return getStats();
+    }
+
+    public DirectoryCacheStatsDTO getStats() {
+        Snapshot current = snapshot.get();
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long requests = hitCount + missCount;
+        return new DirectoryCacheStatsDTO(current.entries().size(), maxSize, hitCount, missCount, evictions.get(),
+                requests == 0 ? 0 : (double) hitCount / requests, current.refreshedAt());
+    }
+
+    private void clear() {
+        snapshot.updateAndGet(current -> new Snapshot(current.generation() + 1, Map.of(), LocalDateTime.now()));
+    }
+
+    private void publish(long generation, Map<Key, Object> loaded) {
+        while (true) {
+            Snapshot current = snapshot.get();
+            if (current.generation() != generation) {
+                return;
+            }
+            LinkedHashMap<Key, Object> entries = new LinkedHashMap<>(current.entries());
+            entries.putAll(loaded);
+            int evicted = 0;
+            Iterator<Key> oldest = entries.keySet().iterator();
+            while (entries.size() > maxSize) {
+                oldest.next();
+                oldest.remove();
+                evicted++;
+            }
+            if (snapshot.compareAndSet(current, new Snapshot(generation, entries, current.refreshedAt()))) {
+                evictions.addAndGet(evicted);
+                return;
+            }
+        }
+    }
+
+    private record Key(Region region, Object key) {
+    }
+
+    private record Snapshot(long generation, Map<Key, Object> entries, LocalDateTime refreshedAt) {
+    }
+}
@@ -4,16 +4,21 @@ import com.Kuba2412.MedicalClinic.handler.exception.DoctorNotFoundException;
 import com.Kuba2412.MedicalClinic.model.mapper.DoctorMapper;
 import com.Kuba2412.MedicalClinic.model.dto.SimpleDoctorDTO;
 import com.Kuba2412.MedicalClinic.model.Doctor;
-import com.Kuba2412.MedicalClinic.model.Institution;
 import com.Kuba2412.MedicalClinic.model.dto.DoctorDTO;
+import com.Kuba2412.MedicalClinic.model.dto.InstitutionDTO;
 import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.InstitutionDoctor;
+import com.Kuba2412.MedicalClinic.repository.InstitutionRepository;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -21,6 +26,9 @@ public class DoctorService {
 
     private final DoctorRepository doctorRepository;
     private final DoctorMapper doctorMapper;
+    private final InstitutionRepository institutionRepository;
+    private final BatchLoaders batchLoaders;
+    private final DirectoryCache directoryCache;
 
     /**
      * Test Case 1: Poprawne dane dla Doctor
@@ -40,6 +48,7 @@ public class DoctorService {
         }
         Doctor doctor = doctorMapper.toDoctor(doctorDTO);
         doctorRepository.save(doctor);
+        directoryCache.invalidate();
     }
 
     /**
@@ -54,12 +63,9 @@ public class DoctorService {
      * - Wynik: Metoda zwraca poprawnie paginowaną listę wszystkich lekarzy w formacie SimpleDoctorDTO.
      */
 
-    @Transactional
-    public List<SimpleDoctorDTO> getAllDoctors(Pageable pageable) {
-        List<Doctor> doctors = doctorRepository.findAll(pageable).getContent();
-        return doctors.stream()
-                .map(doctorMapper::toSimpleDoctorDTO)
-                .toList();
+    public Slice<SimpleDoctorDTO> getAllDoctors(Pageable pageable) {
+        return directoryCache.get(DirectoryCache.Region.DOCTOR_PAGE, pageable,
+                () -> doctorRepository.findAllSimpleDoctors(pageable));
     }
 
     /**
@@ -74,10 +80,25 @@ public class DoctorService {
      * - Wynik: Metoda zwraca poprawnie paginowaną listę prostych danych lekarzy.
      */
 
-    public List<SimpleDoctorDTO> getAllSimpleDoctors(Pageable pageable) {
-        return doctorRepository.findAll(pageable)
-                .map(doctorMapper::toSimpleDoctorDTO)
-                .getContent();
+    public Slice<SimpleDoctorDTO> getAllSimpleDoctors(Pageable pageable) {
+        return getAllDoctors(pageable);
+    }
+
+    /**
+     * Total number of doctors, only counted when a client asks for it and cached until the next write.
+     */
+    public long countDoctors() {
+        return directoryCache.get(DirectoryCache.Region.DOCTOR_COUNT, "all", doctorRepository::count);
+    }
+
+    /**
+     * Every doctor with the given specialization, served from the directory cache.
+     */
+    public List<SimpleDoctorDTO> getDoctorsBySpecialization(String specialization) {
+        return directoryCache.get(DirectoryCache.Region.DOCTORS_BY_SPECIALIZATION, specialization,
+                () -> doctorRepository.findBySpecialization(specialization).stream()
+                        .map(doctorMapper::toSimpleDoctorDTO)
+                        .toList());
     }
 
     /**
@@ -104,9 +125,37 @@ public class DoctorService {
      * - Wynik: Metoda powinna rzucać wyjątek, gdy identyfikator lekarza nie istnieje.
      */
 
-    public List<Institution> getAssignedInstitutionsForDoctor(Long doctorId) {
-        Doctor doctor = doctorRepository.findById(doctorId)
-                .orElseThrow(() -> new DoctorNotFoundException("Doctor not found"));
-        return doctor.getInstitutions();
+    /**
+     * One page of the doctor's institutions, each with the ids of all its doctors. The page and the
+     * doctor ids are read with one query each, so the statement count does not grow with the page.
+     */
+    public List<InstitutionDTO> getAssignedInstitutionsForDoctor(Long doctorId, Pageable pageable) {
+        return directoryCache.get(DirectoryCache.Region.INSTITUTIONS_BY_DOCTOR, List.of(doctorId, pageable),
+                () -> loadAssignedInstitutions(doctorId, pageable));
+    }
+
+    private List<InstitutionDTO> loadAssignedInstitutions(Long doctorId, Pageable pageable) {
+        List<InstitutionDTO> institutions = institutionRepository.findInstitutionDTOsByDoctorId(doctorId, pageable);
+        if (institutions.isEmpty()) {
+            if (!doctorRepository.existsById(doctorId)) {
+                throw new DoctorNotFoundException("Doctor not found");
+            }
+            return List.of();
+        }
+        Map<Long, List<Long>> doctorIds = institutionRepository.findDoctorIdsByInstitutionIdIn(
+                        institutions.stream().map(InstitutionDTO::getId).toList()).stream()
+                .collect(Collectors.groupingBy(InstitutionDoctor::getInstitutionId,
+                        Collectors.mapping(InstitutionDoctor::getDoctorId, Collectors.toList())));
+        institutions.forEach(institution -> institution.setDoctorIds(doctorIds.getOrDefault(institution.getId(), List.of())));
+        return List.copyOf(institutions);
+    }
+
+    /**
+     * Doctors with the given ids, in the order the ids were given, read with one query.
+     * Unknown and repeated ids are skipped.
+     */
+    public List<SimpleDoctorDTO> getDoctorsByIds(List<Long> ids) {
+        BatchLoaders.validateKeys(ids);
+        return List.copyOf(batchLoaders.doctors().loadMany(ids).values());
     }
 }
\ No newline at end of file
@@ -0,0 +1,218 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Institution;
+import com.Kuba2412.MedicalClinic.model.dto.InstitutionDTO;
+import com.Kuba2412.MedicalClinic.model.dto.LocalityQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * In-memory locality index of all institutions, so a search on every keystroke never scans the
+ * table. Institutions are bucketed by normalized postal code (sorted, so a prefix is a key range),
+ * by city, and by a grid of {@value #CELL_DEGREES}° cells. A radius search only visits the cells
+ * overlapping the circle's bounding box and then checks the great-circle distance.
+ * <p>
+ * As in {@link DirectoryCache}, readers use an immutable snapshot and a write publishes a rebuilt
+ * one; there are a few thousand sites and they rarely change. Returned DTOs are shared, so callers
+ * must not modify them.
+ */
+@Component
+@RequiredArgsConstructor
+public class InstitutionLocalityIndex {
+
+    static final double CELL_DEGREES = 0.1;
+
+    private static final int LONGITUDE_CELLS = (int) Math.round(360 / CELL_DEGREES);
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.of(List.of()));
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Entry> entries = new ArrayList<>();
+        jdbcTemplate.query("select id, name, city, postal_code, street, building_number, latitude, longitude " +
+                "from institution", rs -> {
+            entries.add(Entry.of(new InstitutionDTO(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                    rs.getString(5), rs.getString(6), rs.getObject(7, Double.class), rs.getObject(8, Double.class))));
+        });
+        snapshot.set(Snapshot.of(entries));
+    }
+
+    public void index(Institution institution) {
+        Entry entry = Entry.of(new InstitutionDTO(institution.getId(), institution.getName(), institution.getCity(),
+                institution.getPostalCode(), institution.getStreet(), institution.getBuildingNumber(),
+                institution.getLatitude(), institution.getLongitude()));
+        snapshot.updateAndGet(current -> {
+            Map<Long, Entry> entries = new HashMap<>(current.entriesById());
+            entries.put(institution.getId(), entry);
+            return Snapshot.of(entries.values());
+        });
+    }
+
+    /**
+     * Institutions matching every given criterion of an already validated query, nearest first when
+     * coordinates are given and by name otherwise.
+     */
+    public List<InstitutionDTO> search(LocalityQuery query) {
+        Snapshot current = snapshot.get();
+        String postalCode = normalizePostalCode(query.getPostalCode());
+        String city = normalizeCity(query.getCity());
+        Stream<Entry> candidates;
+        if (query.getLatitude() != null) {
+            candidates = current.near(query.getLatitude(), query.getLongitude(), query.getRadiusKm()).stream();
+        } else if (city != null) {
+            candidates = current.byCity().getOrDefault(city, List.of()).stream();
+        } else {
+            candidates = current.byPostalCode().subMap(postalCode, postalCode + Character.MAX_VALUE).values().stream()
+                    .flatMap(List::stream);
+        }
+        Stream<Entry> matches = candidates
+                .filter(entry -> postalCode == null || (entry.postalCode() != null && entry.postalCode().startsWith(postalCode)))
+                .filter(entry -> city == null || city.equals(entry.city()));
+        if (query.getLatitude() == null) {
+            return matches
+                    .map(Entry::institution)
+                    .sorted(Comparator.comparing(InstitutionDTO::getName, Comparator.nullsLast(Comparator.naturalOrder()))
+                            .thenComparing(InstitutionDTO::getId))
+                    .limit(query.getLimit())
+                    .toList();
+        }
+        return matches
+                .map(entry -> new Match(entry.institution(), distanceKm(query.getLatitude(), query.getLongitude(),
+                        entry.institution().getLatitude(), entry.institution().getLongitude())))
+                .filter(match -> match.distanceKm() <= query.getRadiusKm())
+                .sorted(Comparator.comparingDouble(Match::distanceKm)
+                        .thenComparing(match -> match.institution().getId()))
+                .limit(query.getLimit())
+                .map(Match::institution)
+                .toList();
+    }
+
+    public int size() {
+        return snapshot.get().entriesById().size();
+    }
+
+    static double distanceKm(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        double latitudeDelta = Math.toRadians(toLatitude - fromLatitude);
+        double longitudeDelta = Math.toRadians(toLongitude - fromLongitude);
+        double a = Math.pow(Math.sin(latitudeDelta / 2), 2) + Math.cos(Math.toRadians(fromLatitude))
+                * Math.cos(Math.toRadians(toLatitude)) * Math.pow(Math.sin(longitudeDelta / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    static String normalizePostalCode(String postalCode) {
+        if (postalCode == null) {
+            return null;
+        }
+        String normalized = postalCode.replaceAll("[^\\p{Alnum}]", "").toUpperCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    static String normalizeCity(String city) {
+        return city == null || city.isBlank() ? null : city.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / CELL_DEGREES);
+    }
+
+    private static int column(double longitude) {
+        return (int) Math.floor((longitude + 180) / CELL_DEGREES);
+    }
+
+    private static long cell(int row, int column) {
+        return (long) row * LONGITUDE_CELLS + Math.floorMod(column, LONGITUDE_CELLS);
+    }
+
+    private record Entry(InstitutionDTO institution, String postalCode, String city) {
+
+        static Entry of(InstitutionDTO institution) {
+            return new Entry(institution, normalizePostalCode(institution.getPostalCode()), normalizeCity(institution.getCity()));
+        }
+
+        boolean located() {
+            return institution.getLatitude() != null && institution.getLongitude() != null;
+        }
+    }
+
+    private record Match(InstitutionDTO institution, double distanceKm) {
+    }
+
+    /**
+     * All lookup structures of one version of the index, built together so a reader never sees
+     * them disagree.
+     */
+    private record Snapshot(Map<Long, Entry> entriesById, NavigableMap<String, List<Entry>> byPostalCode,
+                            Map<String, List<Entry>> byCity, Map<Long, List<Entry>> byCell, List<Entry> located) {
+
+        static Snapshot of(Collection<Entry> entries) {
+            Map<Long, Entry> entriesById = new HashMap<>();
+            NavigableMap<String, List<Entry>> byPostalCode = new TreeMap<>();
+            Map<String, List<Entry>> byCity = new HashMap<>();
+            Map<Long, List<Entry>> byCell = new HashMap<>();
+            List<Entry> located = new ArrayList<>();
+            for (Entry entry : entries) {
+                entriesById.put(entry.institution().getId(), entry);
+                if (entry.postalCode() != null) {
+                    byPostalCode.computeIfAbsent(entry.postalCode(), key -> new ArrayList<>()).add(entry);
+                }
+                if (entry.city() != null) {
+                    byCity.computeIfAbsent(entry.city(), key -> new ArrayList<>()).add(entry);
+                }
+                if (entry.located()) {
+                    byCell.computeIfAbsent(cell(row(entry.institution().getLatitude()), column(entry.institution().getLongitude())),
+                            key -> new ArrayList<>()).add(entry);
+                    located.add(entry);
+                }
+            }
+            return new Snapshot(entriesById, byPostalCode, byCity, byCell, located);
+        }
+
+        /**
+         * Institutions in the cells overlapping the bounding box of the circle. The longitude span
+         * widens towards the poles; when it covers every column, or more cells than there are located
+         * institutions, they are all returned instead.
+         */
+        List<Entry> near(double latitude, double longitude, double radiusKm) {
+            double angle = radiusKm / EARTH_RADIUS_KM;
+            double latitudeSpan = Math.toDegrees(angle);
+            double ratio = Math.sin(angle) / Math.cos(Math.toRadians(latitude));
+            if (Math.abs(latitude) + latitudeSpan >= 90 || ratio >= 1) {
+                return located;
+            }
+            double longitudeSpan = Math.toDegrees(Math.asin(ratio));
+            int fromRow = row(Math.max(-90, latitude - latitudeSpan));
+            int toRow = row(Math.min(90, latitude + latitudeSpan));
+            int fromColumn = column(longitude - longitudeSpan);
+            int toColumn = column(longitude + longitudeSpan);
+            long cells = (long) (toRow - fromRow + 1) * (toColumn - fromColumn + 1);
+            if (toColumn - fromColumn + 1 >= LONGITUDE_CELLS || cells > located.size()) {
+                return located;
+            }
+            List<Entry> found = new ArrayList<>();
+            for (int row = fromRow; row <= toRow; row++) {
+                for (int column = fromColumn; column <= toColumn; column++) {
+                    found.addAll(byCell.getOrDefault(cell(row, column), List.of()));
+                }
+            }
+            return found;
+        }
+    }
+}
@@ -2,14 +2,16 @@ package com.Kuba2412.MedicalClinic.service;
 
 import com.Kuba2412.MedicalClinic.handler.exception.InstitutionNotFound;
 import com.Kuba2412.MedicalClinic.model.mapper.InstitutionMapper;
-import com.Kuba2412.MedicalClinic.model.Doctor;
 import com.Kuba2412.MedicalClinic.model.Institution;
 import com.Kuba2412.MedicalClinic.model.dto.InstitutionDTO;
+import com.Kuba2412.MedicalClinic.model.dto.LocalityQuery;
+import com.Kuba2412.MedicalClinic.model.dto.SimpleDoctorDTO;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
 import com.Kuba2412.MedicalClinic.repository.InstitutionRepository;
 
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -18,8 +20,14 @@ import java.util.List;
 @RequiredArgsConstructor
 public class InstitutionService {
 
+    public static final int MAX_RADIUS_KM = 100;
+
     private final InstitutionRepository institutionRepository;
     private final InstitutionMapper institutionMapper;
+    private final DoctorRepository doctorRepository;
+    private final BatchLoaders batchLoaders;
+    private final DirectoryCache directoryCache;
+    private final InstitutionLocalityIndex institutionLocalityIndex;
 
     /**
      * Test case 1: Poprawne dodanie instytucji
@@ -36,8 +44,11 @@ public class InstitutionService {
         if (institutionDTO == null) {
             throw new IllegalArgumentException("Institution can't be null.");
         }
+        validateCoordinates(institutionDTO.getLatitude(), institutionDTO.getLongitude());
         Institution institution = institutionMapper.toInstitution(institutionDTO);
         institutionRepository.save(institution);
+        directoryCache.invalidate();
+        institutionLocalityIndex.index(institution);
     }
 
     /**
@@ -51,12 +62,16 @@ public class InstitutionService {
      * - Wynik: Lista instytucji jest poprawnie pobrana zgodnie z paginacją.
      */
 
-    @Transactional
-    public List<InstitutionDTO> getAllInstitutions(Pageable pageable) {
-        List<Institution> institutions = institutionRepository.findAll(pageable).getContent();
-        return institutions.stream()
-                .map(institutionMapper::toInstitutionDTO)
-                .toList();
+    public Slice<InstitutionDTO> getAllInstitutions(Pageable pageable) {
+        return directoryCache.get(DirectoryCache.Region.INSTITUTION_PAGE, pageable,
+                () -> institutionRepository.findAllInstitutionDTOs(pageable));
+    }
+
+    /**
+     * Total number of institutions, only counted when a client asks for it and cached until the next write.
+     */
+    public long countInstitutions() {
+        return directoryCache.get(DirectoryCache.Region.INSTITUTION_COUNT, "all", institutionRepository::count);
     }
 
     /**
@@ -71,9 +86,58 @@ public class InstitutionService {
      * - Wynik: Lista lekarzy przypisanych do instytucji jest poprawnie zwrócona.
      */
 
-    public List<Doctor> getDoctorsForInstitution(Long institutionId) {
-        Institution institution = institutionRepository.findById(institutionId)
-                .orElseThrow(() -> new InstitutionNotFound("Institution not found."));
-        return institution.getDoctors();
+    /**
+     * One page of the institution's doctors, read with a single join query. The institution itself
+     * is only looked up when the page comes back empty.
+     */
+    public List<SimpleDoctorDTO> getDoctorsForInstitution(Long institutionId, Pageable pageable) {
+        return directoryCache.get(DirectoryCache.Region.DOCTORS_BY_INSTITUTION, List.of(institutionId, pageable), () -> {
+            List<SimpleDoctorDTO> doctors = doctorRepository.findSimpleDoctorsByInstitutionId(institutionId, pageable);
+            if (doctors.isEmpty() && !institutionRepository.existsById(institutionId)) {
+                throw new InstitutionNotFound("Institution not found.");
+            }
+            return List.copyOf(doctors);
+        });
+    }
+
+    /**
+     * Institutions with the given ids, in the order the ids were given, read with one query.
+     * Unknown and repeated ids are skipped.
+     */
+    public List<InstitutionDTO> getInstitutionsByIds(List<Long> ids) {
+        BatchLoaders.validateKeys(ids);
+        return List.copyOf(batchLoaders.institutions().loadMany(ids).values());
+    }
+
+    /**
+     * Institutions matching the postal code prefix, city and radius of the query, answered from the
+     * in-memory locality index without touching the database.
+     */
+    public List<InstitutionDTO> searchByLocality(LocalityQuery query) {
+        boolean located = validateCoordinates(query.getLatitude(), query.getLongitude());
+        if (!located && InstitutionLocalityIndex.normalizePostalCode(query.getPostalCode()) == null
+                && InstitutionLocalityIndex.normalizeCity(query.getCity()) == null) {
+            throw new IllegalArgumentException("Postal code, city or coordinates are required.");
+        }
+        if (located && (query.getRadiusKm() <= 0 || query.getRadiusKm() > MAX_RADIUS_KM)) {
+            throw new IllegalArgumentException("Radius must be greater than 0 and at most " + MAX_RADIUS_KM + " km.");
+        }
+        if (query.getLimit() < 1 || query.getLimit() > 100) {
+            throw new IllegalArgumentException("Limit must be between 1 and 100.");
+        }
+        return institutionLocalityIndex.search(query);
+    }
+
+    private static boolean validateCoordinates(Double latitude, Double longitude) {
+        if (latitude == null && longitude == null) {
+            return false;
+        }
+        if (latitude == null || longitude == null) {
+            throw new IllegalArgumentException("Latitude and longitude must be given together.");
+        }
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Latitude must be between -90 and 90 and longitude between -180 and 180.");
+        }
+        return true;
     }
 }
\ No newline at end of file
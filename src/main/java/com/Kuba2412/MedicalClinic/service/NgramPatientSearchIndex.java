@@ -0,0 +1,172 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.model.dto.PatientDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory inverted index from trigrams to patient ids, for databases without pg_trgm.
+ * Words are padded the way pg_trgm pads them, and a patient's score is the share of the
+ * query's trigrams found in its text, as with pg_trgm's word similarity. The last query
+ * word is treated as a prefix, so its trailing padded trigram is not required. Posting sets
+ * are never dropped once created, which keeps removal lock-free; their number is bounded by
+ * the number of distinct trigrams. Changes made inside a transaction are applied once it commits,
+ * so a rolled-back write leaves no phantom or stale entry behind.
+ */
+@Component
+@ConditionalOnProperty(name = "patient.search.index", havingValue = "ngram", matchIfMissing = true)
+@RequiredArgsConstructor
+public class NgramPatientSearchIndex implements PatientSearchIndex {
+
+    private static final double MIN_SCORE = 0.3;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<String, Set<Long>> patientIdsByGram = new ConcurrentHashMap<>();
+    private final Map<Long, Entry> entriesByPatientId = new ConcurrentHashMap<>();
+    private final Map<String, Long> patientIdsByEmail = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        jdbcTemplate.query("select id, first_Name, last_Name, email, id_Card_No from patient", rs -> {
+            index(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5));
+        });
+    }
+
+    @Override
+    public void index(Patient patient) {
+        Long patientId = patient.getId();
+        String firstName = patient.getFirstName();
+        String lastName = patient.getLastName();
+        String email = patient.getEmail();
+        String idCardNo = patient.getIdCardNo();
+        TransactionCallbacks.afterCommit(() -> index(patientId, firstName, lastName, email, idCardNo));
+    }
+
+    @Override
+    public void update(String email, PatientDTO changes) {
+        String firstName = changes.getFirstName();
+        String lastName = changes.getLastName();
+        String newEmail = changes.getEmail();
+        String idCardNo = changes.getIdCardNo();
+        TransactionCallbacks.afterCommit(() -> apply(email, firstName, lastName, newEmail, idCardNo));
+    }
+
+    @Override
+    public void remove(Long patientId) {
+        TransactionCallbacks.afterCommit(() -> removeNow(patientId));
+    }
+
+    @Override
+    public void removeByEmail(String email) {
+        TransactionCallbacks.afterCommit(() -> {
+            Long patientId = patientIdsByEmail.get(email);
+            if (patientId != null) {
+                removeNow(patientId);
+            }
+        });
+    }
+
+    private void apply(String email, String firstName, String lastName, String newEmail, String idCardNo) {
+        Long patientId = patientIdsByEmail.get(email);
+        Entry entry = patientId == null ? null : entriesByPatientId.get(patientId);
+        if (entry == null) {
+            return;
+        }
+        index(patientId,
+                firstName != null ? firstName : entry.firstName(),
+                lastName != null ? lastName : entry.lastName(),
+                newEmail != null ? newEmail : entry.email(),
+                idCardNo != null ? idCardNo : entry.idCardNo());
+    }
+
+    @Override
+    public List<Long> search(String query, int limit) {
+        Set<String> queryGrams = grams(query, true);
+        if (queryGrams.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> hits = new HashMap<>();
+        for (String gram : queryGrams) {
+            for (Long patientId : patientIdsByGram.getOrDefault(gram, Set.of())) {
+                hits.merge(patientId, 1, Integer::sum);
+            }
+        }
+        int required = (int) Math.ceil(queryGrams.size() * MIN_SCORE);
+        return hits.entrySet().stream()
+                .filter(hit -> hit.getValue() >= required)
+                .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public int size() {
+        return entriesByPatientId.size();
+    }
+
+    private void removeNow(Long patientId) {
+        Entry entry = entriesByPatientId.remove(patientId);
+        if (entry != null) {
+            entry.postings().forEach(ids -> ids.remove(patientId));
+            if (entry.email() != null) {
+                patientIdsByEmail.remove(entry.email(), patientId);
+            }
+        }
+    }
+
+    private void index(Long patientId, String firstName, String lastName, String email, String idCardNo) {
+        removeNow(patientId);
+        Set<String> grams = grams(String.join(" ", firstName == null ? "" : firstName, lastName == null ? "" : lastName,
+                email == null ? "" : email, idCardNo == null ? "" : idCardNo), false);
+        List<Set<Long>> postings = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            Set<Long> ids = patientIdsByGram.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet());
+            ids.add(patientId);
+            postings.add(ids);
+        }
+        entriesByPatientId.put(patientId, new Entry(firstName, lastName, email, idCardNo, postings));
+        if (email != null) {
+            patientIdsByEmail.put(email, patientId);
+        }
+    }
+
+    static Set<String> grams(String text, boolean lastWordIsPrefix) {
+        Set<String> grams = new LinkedHashSet<>();
+        String[] words = text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+        for (int i = 0; i < words.length; i++) {
+            if (words[i].isEmpty()) {
+                continue;
+            }
+            String padded = "  " + words[i] + " ";
+            int end = lastWordIsPrefix && i == words.length - 1 ? padded.length() - 1 : padded.length();
+            for (int start = 0; start + 3 <= end; start++) {
+                grams.add(padded.substring(start, start + 3));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * The indexed fields, so partial updates can be applied without reading the patient, and
+     * the posting sets holding the patient, so each gram string is kept only once.
+     */
+    private record Entry(String firstName, String lastName, String email, String idCardNo, List<Set<Long>> postings) {
+    }
+}
@@ -0,0 +1,129 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.dto.PatientCacheStatsDTO;
+import com.Kuba2412.MedicalClinic.model.dto.PatientDTO;
+import com.Kuba2412.MedicalClinic.model.mapper.PatientMapper;
+import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Patient lookups by email, cached as detached {@link PatientDTO}s under the normalized email
+ * (see {@link PatientService#normalizeEmail}). The cache holds at most {@code patient.cache.max-size}
+ * entries, dropping the least recently used one when full, and an entry is reloaded once it is
+ * older than {@code patient.cache.ttl-seconds}. Callers get a copy, so changing it never touches
+ * the cache. A patient loaded before an invalidation is never cached after it.
+ */
+@Component
+public class PatientCache {
+
+    private final PatientRepository patientRepository;
+    private final PatientMapper patientMapper;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public PatientCache(PatientRepository patientRepository, PatientMapper patientMapper,
+                        @Value("${patient.cache.max-size:10000}") int maxSize,
+                        @Value("${patient.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.patientRepository = patientRepository;
+        this.patientMapper = patientMapper;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlSeconds * 1_000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > PatientCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Optional<PatientDTO> findByEmail(String email) {
+        String key = PatientService.normalizeEmail(email);
+        long now = System.currentTimeMillis();
+        long loadedGeneration;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() > now) {
+                hits.incrementAndGet();
+                return Optional.of(copy(entry.patient()));
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+            loadedGeneration = generation;
+        }
+        misses.incrementAndGet();
+        Optional<PatientDTO> patient = patientRepository.findByEmail(key).map(patientMapper::patientToPatientDTO);
+        patient.ifPresent(loaded -> {
+            synchronized (entries) {
+                if (generation == loadedGeneration) {
+                    entries.put(key, new Entry(copy(loaded), now + ttlMillis));
+                }
+            }
+        });
+        return patient;
+    }
+
+    /**
+     * Drops the email's entry now and, inside a transaction, again after commit, so a lookup
+     * running before the commit cannot leave the old state cached.
+     */
+    public void invalidate(String email) {
+        if (email == null) {
+            return;
+        }
+        String key = PatientService.normalizeEmail(email);
+        remove(key);
+        TransactionCallbacks.afterCommit(() -> remove(key));
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    public PatientCacheStatsDTO getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long requests = hitCount + missCount;
+        return new PatientCacheStatsDTO(size, maxSize, hitCount, missCount, evictions.get(),
+                requests == 0 ? 0 : (double) hitCount / requests);
+    }
+
+    private void remove(String key) {
+        synchronized (entries) {
+            generation++;
+            entries.remove(key);
+        }
+    }
+
+    private static PatientDTO copy(PatientDTO patient) {
+        return new PatientDTO(patient.getId(), patient.getEmail(), patient.getIdCardNo(), patient.getFirstName(),
+                patient.getLastName(), patient.getPhoneNumber(), patient.getBirthday());
+    }
+
+    private record Entry(PatientDTO patient, long expiresAt) {
+    }
+}
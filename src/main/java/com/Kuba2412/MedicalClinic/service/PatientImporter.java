@@ -0,0 +1,427 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.handler.exception.PatientImportNotFound;
+import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.model.dto.PatientImportDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Streams patients from a CSV or NDJSON upload into PATIENT. Records are parsed one line at a
+ * time and written in JDBC batches, each batch in its own transaction together with the
+ * import's checkpoint in PATIENT_IMPORT, so memory use does not depend on the upload size and
+ * an interrupted import can be resumed by uploading the same file again with its id: records
+ * up to the checkpoint are skipped. A record is a duplicate when its email or id card number
+ * is already taken, by an existing patient or by an earlier record of the upload. Emails are
+ * normalized as everywhere else (see {@link PatientService#normalizeEmail}) before that check.
+ */
+@Service
+@RequiredArgsConstructor
+public class PatientImporter {
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format fromContentType(String contentType) {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            if (mediaType.isCompatibleWith(MediaType.parseMediaType("text/csv"))) {
+                return CSV;
+            }
+            if (mediaType.isCompatibleWith(MediaType.parseMediaType("application/x-ndjson"))) {
+                return NDJSON;
+            }
+            throw new IllegalArgumentException("Unsupported import format: " + contentType);
+        }
+    }
+
+    private static final int BATCH_SIZE = 5_000;
+    private static final int MAX_ERRORS = 100;
+    private static final int MAX_LENGTH = 255;
+    private static final List<String> COLUMNS = List.of("email", "idCardNo", "firstName", "lastName", "phoneNumber", "birthday");
+
+    private static final String INSERT_IMPORT = "insert into patient_import (format, status, started_at, updated_at) " +
+            "values (?, 'RUNNING', ?, ?)";
+    private static final String SELECT_IMPORT = "select id, format, status, records_read, imported, duplicates, rejected, " +
+            "started_at, updated_at from patient_import where id = ?";
+    private static final String UPDATE_IMPORT = "update patient_import set status = ?, records_read = ?, imported = ?, " +
+            "duplicates = ?, rejected = ?, updated_at = ? where id = ?";
+    private static final String INSERT_PATIENT = "insert into patient " +
+            "(email, id_card_no, first_name, last_name, phone_number, birthday) values (?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_TAKEN_EMAILS = "select email from patient where email in (:values)";
+    private static final String SELECT_TAKEN_ID_CARDS = "select id_card_no from patient where id_card_no in (:values)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final PatientSearchIndex patientSearchIndex;
+
+    /**
+     * Imports the upload and returns the import's final state. Pass {@code importId} to resume
+     * an import that did not complete.
+     */
+    public PatientImportDTO importPatients(InputStream input, Format format, Long importId) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+        RecordParser parser;
+        long lineNumber = 0;
+        try {
+            if (format == Format.CSV) {
+                parser = new CsvParser(reader.readLine());
+                lineNumber++;
+            } else {
+                parser = this::parseJson;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Checkpoint checkpoint = importId == null ? createCheckpoint(format) : resumeCheckpoint(importId, format);
+        long startedAt = System.nanoTime();
+        long recordsBefore = checkpoint.recordsRead;
+        List<String> errors = new ArrayList<>();
+        try {
+            long toSkip = checkpoint.recordsRead;
+            List<ImportRecord> batch = new ArrayList<>(BATCH_SIZE);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (toSkip > 0) {
+                    toSkip--;
+                    continue;
+                }
+                batch.add(parser.parse(line, lineNumber));
+                if (batch.size() == BATCH_SIZE) {
+                    writeBatch(checkpoint, batch, errors);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(checkpoint, batch, errors);
+            }
+            checkpoint.status = "COMPLETED";
+            saveCheckpoint(checkpoint);
+        } catch (IOException e) {
+            markFailed(checkpoint);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            markFailed(checkpoint);
+            throw e;
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        return toDTO(checkpoint, (checkpoint.recordsRead - recordsBefore) * 1000 / elapsedMillis, errors);
+    }
+
+    public PatientImportDTO getImport(Long importId) {
+        Checkpoint checkpoint = loadCheckpoint(importId);
+        long elapsedMillis = Math.max(1, Duration.between(checkpoint.startedAt, checkpoint.updatedAt).toMillis());
+        return toDTO(checkpoint, checkpoint.recordsRead * 1000 / elapsedMillis, List.of());
+    }
+
+    private void writeBatch(Checkpoint checkpoint, List<ImportRecord> batch, List<String> errors) {
+        List<Patient> imported = transactionTemplate.execute(status -> {
+            List<ImportRecord> valid = new ArrayList<>(batch.size());
+            for (ImportRecord record : batch) {
+                if (record.error() != null) {
+                    checkpoint.rejected++;
+                    if (errors.size() < MAX_ERRORS) {
+                        errors.add("Line " + record.line() + ": " + record.error());
+                    }
+                } else {
+                    valid.add(record);
+                }
+            }
+            Set<String> takenEmails = findTaken(SELECT_TAKEN_EMAILS, valid, ImportRecord::email);
+            Set<String> takenIdCards = findTaken(SELECT_TAKEN_ID_CARDS, valid, ImportRecord::idCardNo);
+            List<ImportRecord> rows = new ArrayList<>(valid.size());
+            for (ImportRecord record : valid) {
+                if (takenEmails.contains(record.email()) || takenIdCards.contains(record.idCardNo())) {
+                    checkpoint.duplicates++;
+                    continue;
+                }
+                takenEmails.add(record.email());
+                takenIdCards.add(record.idCardNo());
+                rows.add(record);
+            }
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_PATIENT, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            ImportRecord record = rows.get(i);
+                            ps.setString(1, record.email());
+                            ps.setString(2, record.idCardNo());
+                            ps.setString(3, record.firstName());
+                            ps.setString(4, record.lastName());
+                            ps.setString(5, record.phoneNumber());
+                            ps.setDate(6, Date.valueOf(record.birthday()));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return rows.size();
+                        }
+                    }, keyHolder);
+            checkpoint.imported += rows.size();
+            checkpoint.recordsRead += batch.size();
+            saveCheckpoint(checkpoint);
+            return toPatients(rows, keyHolder.getKeyList());
+        });
+        imported.forEach(patientSearchIndex::index);
+    }
+
+    private Set<String> findTaken(String sql, List<ImportRecord> records, Function<ImportRecord, String> value) {
+        Set<String> taken = new HashSet<>();
+        if (!records.isEmpty()) {
+            taken.addAll(namedParameterJdbcTemplate.queryForList(sql,
+                    Map.of("values", records.stream().map(value).toList()), String.class));
+        }
+        return taken;
+    }
+
+    private static List<Patient> toPatients(List<ImportRecord> rows, List<Map<String, Object>> keys) {
+        List<Patient> patients = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            ImportRecord record = rows.get(i);
+            Long id = ((Number) keys.get(i).values().iterator().next()).longValue();
+            patients.add(new Patient(id, record.email(), record.idCardNo(), record.firstName(), record.lastName(),
+                    record.phoneNumber(), record.birthday(), null, null));
+        }
+        return patients;
+    }
+
+    private ImportRecord parseJson(String line, long lineNumber) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            return ImportRecord.rejected(lineNumber, "invalid JSON.");
+        }
+        if (!node.isObject()) {
+            return ImportRecord.rejected(lineNumber, "expected a JSON object.");
+        }
+        return toRecord(lineNumber, name -> node.path(name).isValueNode() ? node.path(name).asText() : null);
+    }
+
+    private static ImportRecord toRecord(long lineNumber, Function<String, String> field) {
+        String[] values = new String[COLUMNS.size()];
+        for (int i = 0; i < values.length; i++) {
+            String value = field.apply(COLUMNS.get(i));
+            if (value == null || value.isBlank()) {
+                return ImportRecord.rejected(lineNumber, COLUMNS.get(i) + " is required.");
+            }
+            values[i] = value.strip();
+            if (values[i].length() > MAX_LENGTH) {
+                return ImportRecord.rejected(lineNumber, COLUMNS.get(i) + " is too long.");
+            }
+        }
+        if (values[0].indexOf('@') < 1) {
+            return ImportRecord.rejected(lineNumber, "invalid email.");
+        }
+        values[0] = PatientService.normalizeEmail(values[0]);
+        LocalDate birthday;
+        try {
+            birthday = LocalDate.parse(values[5]);
+        } catch (DateTimeParseException e) {
+            return ImportRecord.rejected(lineNumber, "invalid birthday.");
+        }
+        if (birthday.isAfter(LocalDate.now())) {
+            return ImportRecord.rejected(lineNumber, "birthday can't be in the future.");
+        }
+        return new ImportRecord(lineNumber, values[0], values[1], values[2], values[3], values[4], birthday, null);
+    }
+
+    private Checkpoint createCheckpoint(Format format) {
+        LocalDateTime now = LocalDateTime.now();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_IMPORT, new String[]{"id"});
+            ps.setString(1, format.name());
+            ps.setTimestamp(2, Timestamp.valueOf(now));
+            ps.setTimestamp(3, Timestamp.valueOf(now));
+            return ps;
+        }, keyHolder);
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.id = keyHolder.getKey().longValue();
+        checkpoint.format = format.name();
+        checkpoint.status = "RUNNING";
+        checkpoint.startedAt = now;
+        checkpoint.updatedAt = now;
+        return checkpoint;
+    }
+
+    private Checkpoint resumeCheckpoint(Long importId, Format format) {
+        Checkpoint checkpoint = loadCheckpoint(importId);
+        if ("COMPLETED".equals(checkpoint.status)) {
+            throw new IllegalArgumentException("Patient import already completed.");
+        }
+        if (!format.name().equals(checkpoint.format)) {
+            throw new IllegalArgumentException("Patient import was started as " + checkpoint.format + ".");
+        }
+        checkpoint.status = "RUNNING";
+        saveCheckpoint(checkpoint);
+        return checkpoint;
+    }
+
+    private Checkpoint loadCheckpoint(Long importId) {
+        return jdbcTemplate.query(SELECT_IMPORT, rs -> {
+            if (!rs.next()) {
+                throw new PatientImportNotFound("Patient import not found.");
+            }
+            Checkpoint checkpoint = new Checkpoint();
+            checkpoint.id = rs.getLong(1);
+            checkpoint.format = rs.getString(2);
+            checkpoint.status = rs.getString(3);
+            checkpoint.recordsRead = rs.getLong(4);
+            checkpoint.imported = rs.getLong(5);
+            checkpoint.duplicates = rs.getLong(6);
+            checkpoint.rejected = rs.getLong(7);
+            checkpoint.startedAt = rs.getTimestamp(8).toLocalDateTime();
+            checkpoint.updatedAt = rs.getTimestamp(9).toLocalDateTime();
+            return checkpoint;
+        }, importId);
+    }
+
+    private void saveCheckpoint(Checkpoint checkpoint) {
+        checkpoint.updatedAt = LocalDateTime.now();
+        jdbcTemplate.update(UPDATE_IMPORT, checkpoint.status, checkpoint.recordsRead, checkpoint.imported,
+                checkpoint.duplicates, checkpoint.rejected, Timestamp.valueOf(checkpoint.updatedAt), checkpoint.id);
+    }
+
+    /**
+     * The counters of a failed batch were already advanced in memory, so the failure is recorded
+     * with the counters last committed.
+     */
+    private void markFailed(Checkpoint checkpoint) {
+        jdbcTemplate.update("update patient_import set status = 'FAILED', updated_at = ? where id = ?",
+                Timestamp.valueOf(LocalDateTime.now()), checkpoint.id);
+        checkpoint.status = "FAILED";
+    }
+
+    private static PatientImportDTO toDTO(Checkpoint checkpoint, long rowsPerSecond, List<String> errors) {
+        return new PatientImportDTO(checkpoint.id, checkpoint.format, checkpoint.status, checkpoint.recordsRead,
+                checkpoint.imported, checkpoint.duplicates, checkpoint.rejected, checkpoint.startedAt,
+                checkpoint.updatedAt, rowsPerSecond, errors);
+    }
+
+    @FunctionalInterface
+    private interface RecordParser {
+        ImportRecord parse(String line, long lineNumber);
+    }
+
+    /**
+     * Columns are matched by header name, in any order and case. Quoted fields may contain
+     * commas and doubled quotes, but a record has to fit on one line.
+     */
+    private static final class CsvParser implements RecordParser {
+
+        private final Map<String, Integer> columnIndexes = new HashMap<>();
+
+        private CsvParser(String header) {
+            if (header == null) {
+                throw new IllegalArgumentException("CSV header is missing.");
+            }
+            List<String> names = split(header);
+            for (int i = 0; i < names.size(); i++) {
+                columnIndexes.put(names.get(i).strip().toLowerCase(Locale.ROOT), i);
+            }
+            for (String column : COLUMNS) {
+                if (!columnIndexes.containsKey(column.toLowerCase(Locale.ROOT))) {
+                    throw new IllegalArgumentException("CSV header is missing column " + column + ".");
+                }
+            }
+        }
+
+        @Override
+        public ImportRecord parse(String line, long lineNumber) {
+            List<String> fields = split(line);
+            return toRecord(lineNumber, name -> {
+                int index = columnIndexes.get(name.toLowerCase(Locale.ROOT));
+                return index < fields.size() ? fields.get(index) : null;
+            });
+        }
+
+        private static List<String> split(String line) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    private record ImportRecord(long line, String email, String idCardNo, String firstName, String lastName,
+                                String phoneNumber, LocalDate birthday, String error) {
+
+        private static ImportRecord rejected(long line, String error) {
+            return new ImportRecord(line, null, null, null, null, null, null, error);
+        }
+    }
+
+    private static final class Checkpoint {
+        private Long id;
+        private String format;
+        private String status;
+        private long recordsRead;
+        private long imported;
+        private long duplicates;
+        private long rejected;
+        private LocalDateTime startedAt;
+        private LocalDateTime updatedAt;
+    }
+}
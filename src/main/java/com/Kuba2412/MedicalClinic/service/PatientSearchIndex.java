@@ -0,0 +1,34 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.model.dto.PatientDTO;
+
+import java.util.List;
+
+/**
+ * Fuzzy type-ahead search over a patient's first name, last name, email and id card number.
+ * The implementation is picked with {@code patient.search.index}: {@code trigram} uses the
+ * pg_trgm index of PostgreSQL, {@code ngram} (the default) keeps an n-gram index in memory.
+ */
+public interface PatientSearchIndex {
+
+    /**
+     * Returns the ids of the best matching patients, best match first.
+     */
+    List<Long> search(String query, int limit);
+
+    default void index(Patient patient) {
+    }
+
+    /**
+     * Applies the non-null fields of a partial update made by email without loading the patient.
+     */
+    default void update(String email, PatientDTO changes) {
+    }
+
+    default void remove(Long patientId) {
+    }
+
+    default void removeByEmail(String email) {
+    }
+}
@@ -4,14 +4,26 @@ import com.Kuba2412.MedicalClinic.handler.exception.PatientNotFound;
 import com.Kuba2412.MedicalClinic.model.mapper.PatientMapper;
 import com.Kuba2412.MedicalClinic.model.dto.PatientDTO;
 import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import com.Kuba2412.MedicalClinic.repository.UserRepository;
+import com.Kuba2412.MedicalClinic.repository.VisitRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import com.Kuba2412.MedicalClinic.model.Patient;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -19,6 +31,12 @@ public class PatientService {
 
     private final PatientRepository patientRepository;
     private final PatientMapper patientMapper;
+    private final VisitRepository visitRepository;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PatientSearchIndex patientSearchIndex;
+    private final PatientCache patientCache;
+    private final BatchLoaders batchLoaders;
 
 
     /**
@@ -34,9 +52,8 @@ public class PatientService {
      */
 
     public PatientDTO getPatientDtoByEmail(String email) {
-        Patient patient = patientRepository.findByEmail(email)
+        return patientCache.findByEmail(email)
                 .orElseThrow(() -> new PatientNotFound("Patient not found"));
-        return patientMapper.patientToPatientDTO(patient);
     }
 
     /**
@@ -51,15 +68,17 @@ public class PatientService {
      * - Wynik: Metoda zwraca poprawną listę DTO pacjentów na podstawie pierwszego imienia z paginacją.
      */
 
-    @Transactional
-    public List<PatientDTO> getPatients(String firstName, Pageable pageable) {
-        List<Patient> patients = firstName != null
-                ? patientRepository.findByFirstName(firstName, pageable).getContent()
-                : patientRepository.findAll(pageable).getContent();
+    public Slice<PatientDTO> getPatients(String firstName, Pageable pageable) {
+        return firstName != null
+                ? patientRepository.findPatientDTOsByFirstName(firstName, pageable)
+                : patientRepository.findAllPatientDTOs(pageable);
+    }
 
-        return patients.stream()
-                .map(patientMapper::patientToPatientDTO)
-                .toList();
+    /**
+     * Number of patients matched by {@link #getPatients}, counted only when a client asks for it.
+     */
+    public long countPatients(String firstName) {
+        return firstName != null ? patientRepository.countByFirstName(firstName) : patientRepository.count();
     }
 
     /**
@@ -74,7 +93,10 @@ public class PatientService {
      */
 
     public Patient addPatient(Patient patient) {
-        return patientRepository.save(patient);
+        patient.setEmail(normalizeEmail(patient.getEmail()));
+        Patient savedPatient = patientRepository.save(patient);
+        patientSearchIndex.index(savedPatient);
+        return savedPatient;
     }
 
     /**
@@ -86,13 +108,31 @@ public class PatientService {
      *   2. Uzyskaj adres e-mail tego pacjenta.
      *   3. Wywołaj metodę deletePatientByEmail z tym adresem e-mail.
      *   4. Sprawdź czy pacjent został usunięty z bazy danych.
-     * - Wynik: Metoda usuwa pacjenta na podstawie adresu e-mail.
+     * - Wynik: Metoda usuwa pacjenta na podstawie adresu e-mail, a jego przyszłe wizyty zwalnia dla listy oczekujących.
      */
 
+    @Transactional
     public void deletePatientByEmail(String email) {
-        Patient patient = patientRepository.findByEmail(email)
-                .orElseThrow(() -> new PatientNotFound("Patient not found."));
-        patientRepository.delete(patient);
+        email = normalizeEmail(email);
+        LocalDateTime now = LocalDateTime.now();
+        // The bulk deletes below skip the cascade to the patient's account, so it is removed by id afterwards.
+        Long userId = patientRepository.findUserIdByEmail(email).orElse(null);
+        // A patient without upcoming visits goes in one statement; otherwise the visits are freed first.
+        if (patientRepository.deleteByEmailWithoutFutureVisits(email, now) == 0) {
+            List<Long> freedVisitIds = visitRepository.findFutureVisitIdsByPatientEmail(email, now);
+            if (!freedVisitIds.isEmpty()) {
+                visitRepository.releaseVisits(freedVisitIds);
+            }
+            if (patientRepository.deleteAllByEmail(email) == 0) {
+                throw new PatientNotFound("Patient not found.");
+            }
+            freedVisitIds.forEach(visitId -> eventPublisher.publishEvent(new VisitFreedEvent(visitId)));
+        }
+        if (userId != null) {
+            userRepository.deleteAllByIdInBatch(List.of(userId));
+        }
+        patientCache.invalidate(email);
+        patientSearchIndex.removeByEmail(email);
     }
 
     /**
@@ -122,6 +162,7 @@ public class PatientService {
 
     @Transactional
     public PatientDTO updatePatientByEmail(String email, PatientDTO newPatientDto) {
+        email = normalizeEmail(email);
         Patient patient = patientRepository.findByEmail(email)
                 .orElseThrow(() -> new PatientNotFound("Patient not found."));
 
@@ -135,10 +176,96 @@ public class PatientService {
             patient.setPhoneNumber(newPatientDto.getPhoneNumber());
         }
         if (newPatientDto.getEmail() != null) {
-            patient.setEmail(newPatientDto.getEmail());
+            patient.setEmail(normalizeEmail(newPatientDto.getEmail()));
         }
+        patientCache.invalidate(email);
+        patientCache.invalidate(patient.getEmail());
 
         Patient updatedPatient = patientRepository.save(patient);
+        patientSearchIndex.index(updatedPatient);
         return patientMapper.patientToPatientDTO(updatedPatient);
     }
+
+    /**
+     * Applies the non-null fields of {@code changes} with a single UPDATE by email, without
+     * loading the patient. Like {@link #updatePatientByEmail}, only the name, phone number and
+     * email can be changed.
+     */
+    @Transactional
+    public void patchPatientByEmail(String email, PatientDTO changes) {
+        if (changes == null || (changes.getEmail() == null && changes.getFirstName() == null
+                && changes.getLastName() == null && changes.getPhoneNumber() == null)) {
+            throw new IllegalArgumentException("No fields to update.");
+        }
+        if (changes.getIdCardNo() != null || changes.getBirthday() != null) {
+            throw new IllegalArgumentException("Id card number and birthday can't be changed.");
+        }
+        email = normalizeEmail(email);
+        changes.setEmail(normalizeEmail(changes.getEmail()));
+        int updated;
+        try {
+            updated = patientRepository.patchByEmail(email, changes.getEmail(), changes.getFirstName(),
+                    changes.getLastName(), changes.getPhoneNumber());
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("Email is already taken.");
+        }
+        if (updated == 0) {
+            throw new PatientNotFound("Patient not found.");
+        }
+        patientCache.invalidate(email);
+        patientCache.invalidate(changes.getEmail());
+        patientSearchIndex.update(email, changes);
+    }
+
+    /**
+     * Type-ahead search over first name, last name, email and id card number. Partial and
+     * slightly misspelled input still matches; the best matches come first.
+     */
+    public List<PatientDTO> searchPatients(String query, int limit) {
+        if (query == null || query.strip().length() < 2) {
+            throw new IllegalArgumentException("Search query must have at least 2 characters.");
+        }
+        if (limit < 1 || limit > 100) {
+            throw new IllegalArgumentException("Limit must be between 1 and 100.");
+        }
+        List<Long> patientIds = patientSearchIndex.search(query.strip(), limit);
+        if (patientIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Patient> patientsById = patientRepository.findAllById(patientIds).stream()
+                .collect(Collectors.toMap(Patient::getId, Function.identity()));
+        return patientIds.stream()
+                .map(patientsById::get)
+                .filter(Objects::nonNull)
+                .map(patientMapper::patientToPatientDTO)
+                .toList();
+    }
+
+    /**
+     * Patients with the given ids, in the order the ids were given, read with one query.
+     * Unknown and repeated ids are skipped.
+     */
+    public List<PatientDTO> getPatientsByIds(List<Long> ids) {
+        BatchLoaders.validateKeys(ids);
+        return List.copyOf(batchLoaders.patients().loadMany(ids).values());
+    }
+
+    /**
+     * Patients with the given emails, in the order the emails were given, read with one query.
+     * Unknown and repeated emails are skipped.
+     */
+    public List<PatientDTO> getPatientsByEmails(List<String> emails) {
+        BatchLoaders.validateKeys(emails);
+        return List.copyOf(batchLoaders.patientsByEmail().loadMany(emails.stream()
+                .map(PatientService::normalizeEmail)
+                .toList()).values());
+    }
+
+    /**
+     * Patients are identified by their email without surrounding whitespace and in lower case;
+     * it is stored that way, and every lookup by email normalizes its argument the same way.
+     */
+    static String normalizeEmail(String email) {
+        return email == null ? null : email.strip().toLowerCase(Locale.ROOT);
+    }
 }
\ No newline at end of file
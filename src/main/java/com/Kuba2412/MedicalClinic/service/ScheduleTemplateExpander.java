@@ -0,0 +1,380 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.ScheduleTemplate;
+import com.Kuba2412.MedicalClinic.model.Visit;
+import com.Kuba2412.MedicalClinic.model.dto.SlotDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitDTO;
+import com.Kuba2412.MedicalClinic.repository.DoctorVisitInterval;
+import com.Kuba2412.MedicalClinic.repository.ScheduleTemplateRepository;
+import com.Kuba2412.MedicalClinic.repository.VisitRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Free slots of the doctors' weekly schedule templates, expanded in memory for the next
+ * {@value #HORIZON_DAYS} days so that availability reads never touch the database. A template
+ * slot is free when no visit of the doctor overlaps it, so booked visits are subtracted and free
+ * visits that were already materialized are not reported twice.
+ * <p>
+ * As in {@link VisitSlotCalendar}, templates start and end on quarter-hours and the free template
+ * slots of one doctor-day are a 96-bit bitmap of their starts. A new visit clears the slots it
+ * overlaps; cancelled or moved visits and template changes re-expand the doctor from the database.
+ * Changes made inside a transaction are applied after it commits, and everything is re-expanded
+ * periodically to move the horizon forward.
+ */
+@Component
+@RequiredArgsConstructor
+public class ScheduleTemplateExpander {
+
+    static final int HORIZON_DAYS = 90;
+
+    private static final int SLOT_MINUTES = 15;
+    private static final Duration MAX_VISIT_DURATION = Duration.ofHours(8);
+
+    private final ScheduleTemplateRepository scheduleTemplateRepository;
+    private final VisitRepository visitRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Map<Long, DoctorSchedule> schedules = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    /**
+     * Expands the templates of every doctor with two queries: the templates, and the visits of
+     * their doctors within the horizon.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long version = versions.incrementAndGet();
+        LocalDate today = LocalDate.now();
+        Map<Long, List<ScheduleTemplate>> templatesByDoctor = scheduleTemplateRepository.findAllWithDoctor().stream()
+                .collect(Collectors.groupingBy(template -> template.getDoctor().getId()));
+        Map<Long, NavigableMap<LocalDateTime, LocalDateTime>> busy = templatesByDoctor.isEmpty()
+                ? Map.of()
+                : busyIntervals(templatesByDoctor.keySet(), today);
+        List<Long> changedMeanwhile = new ArrayList<>();
+        templatesByDoctor.forEach((doctorId, templates) -> {
+            if (!publish(doctorId, version, DoctorSchedule.expand(templates, today,
+                    busy.getOrDefault(doctorId, new TreeMap<>())))) {
+                changedMeanwhile.add(doctorId);
+            }
+        });
+        schedules.keySet().stream()
+                .filter(doctorId -> !templatesByDoctor.containsKey(doctorId))
+                .toList()
+                .forEach(doctorId -> {
+                    if (!publish(doctorId, version, null)) {
+                        changedMeanwhile.add(doctorId);
+                    }
+                });
+        changedMeanwhile.forEach(this::expand);
+    }
+
+    @Scheduled(fixedDelayString = "${visit.template.refresh-interval-ms:3600000}",
+            initialDelayString = "${visit.template.refresh-interval-ms:3600000}")
+    public void refreshAll() {
+        load();
+    }
+
+    /**
+     * Re-expands the doctors' templates from the database, for changes to templates and for
+     * visits that were deleted or moved.
+     */
+    public void refresh(Collection<Long> doctorIds) {
+        List<Long> ids = List.copyOf(doctorIds);
+        TransactionCallbacks.afterCommit(() -> {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            transactionTemplate.setReadOnly(true);
+            transactionTemplate.executeWithoutResult(status -> ids.forEach(this::expand));
+        });
+    }
+
+    /**
+     * Removes the template slots overlapping new visits, free or booked.
+     */
+    public void occupy(Collection<Visit> visits) {
+        List<Visit> placed = visits.stream()
+                .filter(visit -> visit.getDoctor() != null && schedules.containsKey(visit.getDoctor().getId()))
+                .toList();
+        if (placed.isEmpty()) {
+            return;
+        }
+        List<Long> doctorIds = placed.stream().map(visit -> visit.getDoctor().getId()).toList();
+        List<LocalDateTime> starts = placed.stream().map(Visit::getStartVisit).toList();
+        List<LocalDateTime> ends = placed.stream().map(Visit::getEndVisit).toList();
+        TransactionCallbacks.afterCommit(() -> {
+            for (int i = 0; i < doctorIds.size(); i++) {
+                LocalDateTime start = starts.get(i);
+                LocalDateTime end = ends.get(i);
+                long version = versions.incrementAndGet();
+                schedules.computeIfPresent(doctorIds.get(i), (doctorId, schedule) -> schedule.occupy(start, end, version));
+            }
+        });
+    }
+
+    public List<SlotDTO> getFreeSlots(Long doctorId, LocalDate date) {
+        DoctorSchedule schedule = schedules.get(doctorId);
+        if (schedule == null) {
+            return List.of();
+        }
+        return schedule.freeStarts(date, LocalDateTime.now()).stream()
+                .map(start -> new SlotDTO(null, doctorId, start))
+                .toList();
+    }
+
+    public List<VisitDTO> getFreeVisits(String specialization, LocalDate date) {
+        LocalDateTime now = LocalDateTime.now();
+        List<VisitDTO> visits = new ArrayList<>();
+        for (DoctorSchedule schedule : schedules.values()) {
+            if (!Objects.equals(schedule.specialization(), specialization)) {
+                continue;
+            }
+            for (LocalDateTime start : schedule.freeStarts(date, now)) {
+                schedule.slotEnd(start).ifPresent(end -> visits.add(
+                        new VisitDTO(null, start, end, null, schedule.doctorId(), specialization)));
+            }
+        }
+        visits.sort(Comparator.comparing(VisitDTO::getStartVisit).thenComparing(VisitDTO::getDoctorId));
+        return visits;
+    }
+
+    /**
+     * Earliest free template slots of a specialization within the horizon, optionally limited to
+     * the given doctors. Each doctor's days are scanned only until that doctor has produced
+     * {@code limit} slots.
+     */
+    public List<SlotDTO> getFirstFreeSlots(String specialization, Collection<Long> doctorIds, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<SlotDTO> slots = new ArrayList<>();
+        for (DoctorSchedule schedule : schedules.values()) {
+            if (!Objects.equals(schedule.specialization(), specialization)
+                    || (doctorIds != null && !doctorIds.contains(schedule.doctorId()))) {
+                continue;
+            }
+            schedule.firstFreeStarts(now, limit).forEach(start -> slots.add(new SlotDTO(null, schedule.doctorId(), start)));
+        }
+        return slots.stream()
+                .sorted(Comparator.comparing(SlotDTO::getStartVisit).thenComparing(SlotDTO::getDoctorId))
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Returns the end of the template slot of the doctor starting exactly at {@code start}, if any.
+     */
+    public Optional<LocalDateTime> findSlotEnd(Long doctorId, LocalDateTime start) {
+        DoctorSchedule schedule = schedules.get(doctorId);
+        return schedule == null ? Optional.empty() : schedule.slotEnd(start);
+    }
+
+    /**
+     * Expands one doctor again until no visit was placed while it was being read, since the
+     * expansion may have missed that visit.
+     */
+    private void expand(Long doctorId) {
+        boolean published;
+        do {
+            long version = versions.incrementAndGet();
+            LocalDate today = LocalDate.now();
+            List<ScheduleTemplate> templates = scheduleTemplateRepository.findAllWithDoctorByDoctorId(doctorId);
+            published = publish(doctorId, version, templates.isEmpty() ? null : DoctorSchedule.expand(templates, today,
+                    busyIntervals(List.of(doctorId), today).getOrDefault(doctorId, new TreeMap<>())));
+        } while (!published);
+    }
+
+    /**
+     * Stores a schedule expanded from the database unless a change applied after the expansion
+     * started is already there; a {@code null} schedule removes the doctor.
+     */
+    private boolean publish(Long doctorId, long version, DoctorSchedule expanded) {
+        boolean[] published = {false};
+        schedules.compute(doctorId, (id, current) -> {
+            if (current != null && current.version() > version) {
+                return current;
+            }
+            published[0] = true;
+            return expanded == null ? null : expanded.withVersion(version);
+        });
+        return published[0];
+    }
+
+    private Map<Long, NavigableMap<LocalDateTime, LocalDateTime>> busyIntervals(Collection<Long> doctorIds, LocalDate from) {
+        Map<Long, NavigableMap<LocalDateTime, LocalDateTime>> busy = new HashMap<>();
+        for (DoctorVisitInterval interval : visitRepository.findIntervalsByDoctorIdIn(doctorIds,
+                from.atStartOfDay().minus(MAX_VISIT_DURATION), from.plusDays(HORIZON_DAYS).atStartOfDay())) {
+            busy.computeIfAbsent(interval.getDoctorId(), key -> new TreeMap<>())
+                    .put(interval.getStartVisit(), interval.getEndVisit());
+        }
+        return busy;
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private record Window(int daysMask, LocalDate validFrom, LocalDate validTo, int firstMinute, int lastMinute,
+                          int slotMinutes) {
+
+        static Window of(ScheduleTemplate template) {
+            return new Window(template.getDaysMask(), template.getValidFrom(), template.getValidTo(),
+                    minuteOfDay(template.getStartTime()), minuteOfDay(template.getEndTime()), template.getSlotMinutes());
+        }
+
+        boolean appliesTo(LocalDate date) {
+            return (daysMask & ScheduleTemplate.dayBit(date.getDayOfWeek())) != 0
+                    && !date.isBefore(validFrom)
+                    && (validTo == null || !date.isAfter(validTo));
+        }
+
+        boolean startsSlotAt(int minute) {
+            return minute >= firstMinute && minute + slotMinutes <= lastMinute && (minute - firstMinute) % slotMinutes == 0;
+        }
+    }
+
+    /**
+     * The templates of one doctor and the bitmaps of their free slot starts by epoch day. Bitmaps
+     * are replaced, never mutated, so readers never see a half-applied change.
+     */
+    private record DoctorSchedule(Long doctorId, String specialization, List<Window> windows,
+                                  NavigableMap<Long, long[]> freeByDay, long version) {
+
+        static DoctorSchedule expand(List<ScheduleTemplate> templates, LocalDate from,
+                                     NavigableMap<LocalDateTime, LocalDateTime> busy) {
+            List<Window> windows = templates.stream().map(Window::of).toList();
+            NavigableMap<Long, long[]> freeByDay = new TreeMap<>();
+            for (LocalDate date = from; date.isBefore(from.plusDays(HORIZON_DAYS)); date = date.plusDays(1)) {
+                long[] words = new long[2];
+                for (Window window : windows) {
+                    if (!window.appliesTo(date)) {
+                        continue;
+                    }
+                    for (int minute = window.firstMinute(); minute + window.slotMinutes() <= window.lastMinute();
+                         minute += window.slotMinutes()) {
+                        LocalDateTime start = date.atStartOfDay().plusMinutes(minute);
+                        if (!overlaps(busy, start, start.plusMinutes(window.slotMinutes()))) {
+                            int index = minute / SLOT_MINUTES;
+                            words[index >>> 6] |= 1L << (index & 63);
+                        }
+                    }
+                }
+                if (words[0] != 0 || words[1] != 0) {
+                    freeByDay.put(date.toEpochDay(), words);
+                }
+            }
+            ScheduleTemplate first = templates.get(0);
+            return new DoctorSchedule(first.getDoctor().getId(), first.getDoctor().getSpecialization(), windows,
+                    freeByDay, 0);
+        }
+
+        DoctorSchedule withVersion(long version) {
+            return new DoctorSchedule(doctorId, specialization, windows, freeByDay, version);
+        }
+
+        /**
+         * Clears the free slots overlapping [start, end). Template slots are at most as long as a
+         * visit, so only slots starting less than that before {@code start} can overlap.
+         */
+        DoctorSchedule occupy(LocalDateTime start, LocalDateTime end, long version) {
+            NavigableMap<Long, long[]> updated = new TreeMap<>(freeByDay);
+            LocalDate lastDate = end.toLocalDate();
+            for (LocalDate date = start.minus(MAX_VISIT_DURATION).toLocalDate(); !date.isAfter(lastDate); date = date.plusDays(1)) {
+                long[] words = updated.get(date.toEpochDay());
+                if (words == null) {
+                    continue;
+                }
+                long[] cleared = words.clone();
+                for (LocalDateTime slotStart : starts(date, words)) {
+                    Optional<LocalDateTime> slotEnd = slotEnd(slotStart);
+                    if (slotStart.isBefore(end) && slotEnd.isPresent() && slotEnd.get().isAfter(start)) {
+                        int index = minuteOfDay(slotStart.toLocalTime()) / SLOT_MINUTES;
+                        cleared[index >>> 6] &= ~(1L << (index & 63));
+                    }
+                }
+                if (cleared[0] == 0 && cleared[1] == 0) {
+                    updated.remove(date.toEpochDay());
+                } else {
+                    updated.put(date.toEpochDay(), cleared);
+                }
+            }
+            return new DoctorSchedule(doctorId, specialization, windows, updated, version);
+        }
+
+        Optional<LocalDateTime> slotEnd(LocalDateTime start) {
+            if (start.getSecond() != 0 || start.getNano() != 0) {
+                return Optional.empty();
+            }
+            int minute = minuteOfDay(start.toLocalTime());
+            return windows.stream()
+                    .filter(window -> window.appliesTo(start.toLocalDate()) && window.startsSlotAt(minute))
+                    .findFirst()
+                    .map(window -> start.plusMinutes(window.slotMinutes()));
+        }
+
+        List<LocalDateTime> freeStarts(LocalDate date, LocalDateTime after) {
+            long[] words = freeByDay.get(date.toEpochDay());
+            if (words == null) {
+                return List.of();
+            }
+            return starts(date, words).stream().filter(start -> start.isAfter(after)).toList();
+        }
+
+        List<LocalDateTime> firstFreeStarts(LocalDateTime after, int limit) {
+            List<LocalDateTime> starts = new ArrayList<>();
+            for (Map.Entry<Long, long[]> day : freeByDay.tailMap(after.toLocalDate().toEpochDay()).entrySet()) {
+                for (LocalDateTime start : starts(LocalDate.ofEpochDay(day.getKey()), day.getValue())) {
+                    if (start.isAfter(after)) {
+                        starts.add(start);
+                        if (starts.size() == limit) {
+                            return starts;
+                        }
+                    }
+                }
+            }
+            return starts;
+        }
+
+        private static List<LocalDateTime> starts(LocalDate date, long[] words) {
+            List<LocalDateTime> starts = new ArrayList<>();
+            for (int word = 0; word < words.length; word++) {
+                long bits = words[word];
+                while (bits != 0) {
+                    int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    starts.add(date.atStartOfDay().plusMinutes((long) index * SLOT_MINUTES));
+                }
+            }
+            return starts;
+        }
+
+        // Visits of one doctor never overlap, so the last visit starting before the slot ends is the only candidate.
+        private static boolean overlaps(NavigableMap<LocalDateTime, LocalDateTime> busy, LocalDateTime start,
+                                        LocalDateTime end) {
+            Map.Entry<LocalDateTime, LocalDateTime> previous = busy.lowerEntry(end);
+            return previous != null && previous.getValue().isAfter(start);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.handler.exception.DoctorNotFoundException;
+import com.Kuba2412.MedicalClinic.handler.exception.ScheduleTemplateNotFound;
+import com.Kuba2412.MedicalClinic.model.ScheduleTemplate;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleTemplateDTO;
+import com.Kuba2412.MedicalClinic.model.mapper.ScheduleTemplateMapper;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.ScheduleTemplateRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class ScheduleTemplateService {
+
+    private static final int SLOT_ALIGNMENT_MINUTES = 15;
+    private static final int MIN_SLOT_MINUTES = SLOT_ALIGNMENT_MINUTES;
+    private static final int MAX_SLOT_MINUTES = 480;
+
+    private final ScheduleTemplateRepository scheduleTemplateRepository;
+    private final DoctorRepository doctorRepository;
+    private final ScheduleTemplateMapper scheduleTemplateMapper;
+    private final ScheduleTemplateExpander scheduleTemplateExpander;
+
+    @Transactional
+    public ScheduleTemplateDTO createTemplate(Long doctorId, ScheduleTemplateDTO templateDTO) {
+        validateTemplate(templateDTO);
+        ScheduleTemplate template = new ScheduleTemplate();
+        template.setDoctor(doctorRepository.findById(doctorId)
+                .orElseThrow(() -> new DoctorNotFoundException("Doctor not found.")));
+        int daysMask = 0;
+        for (DayOfWeek day : templateDTO.getDaysOfWeek()) {
+            daysMask |= ScheduleTemplate.dayBit(day);
+        }
+        template.setDaysMask(daysMask);
+        template.setStartTime(templateDTO.getStartTime());
+        template.setEndTime(templateDTO.getEndTime());
+        template.setSlotMinutes(templateDTO.getSlotMinutes());
+        template.setValidFrom(templateDTO.getValidFrom() == null ? LocalDate.now() : templateDTO.getValidFrom());
+        template.setValidTo(templateDTO.getValidTo());
+        if (template.getValidTo() != null && template.getValidTo().isBefore(template.getValidFrom())) {
+            throw new IllegalArgumentException("Template end date must not be before its start date.");
+        }
+
+        boolean overlapping = scheduleTemplateRepository.findAllByDoctorIdOrderByStartTime(doctorId).stream()
+                .anyMatch(existing -> overlaps(existing, template));
+        if (overlapping) {
+            throw new IllegalArgumentException("Template overlaps with another template of the doctor.");
+        }
+        ScheduleTemplate saved = scheduleTemplateRepository.save(template);
+        scheduleTemplateExpander.refresh(List.of(doctorId));
+        return scheduleTemplateMapper.scheduleTemplateToScheduleTemplateDTO(saved);
+    }
+
+    public List<ScheduleTemplateDTO> getTemplates(Long doctorId) {
+        if (!doctorRepository.existsById(doctorId)) {
+            throw new DoctorNotFoundException("Doctor not found.");
+        }
+        return scheduleTemplateRepository.findAllByDoctorIdOrderByStartTime(doctorId).stream()
+                .map(scheduleTemplateMapper::scheduleTemplateToScheduleTemplateDTO)
+                .toList();
+    }
+
+    @Transactional
+    public void deleteTemplate(Long templateId) {
+        ScheduleTemplate template = scheduleTemplateRepository.findById(templateId)
+                .orElseThrow(() -> new ScheduleTemplateNotFound("Schedule template not found."));
+        scheduleTemplateRepository.delete(template);
+        scheduleTemplateExpander.refresh(List.of(template.getDoctor().getId()));
+    }
+
+    private void validateTemplate(ScheduleTemplateDTO templateDTO) {
+        if (templateDTO == null || templateDTO.getDaysOfWeek() == null || templateDTO.getDaysOfWeek().isEmpty()
+                || templateDTO.getStartTime() == null || templateDTO.getEndTime() == null
+                || templateDTO.getSlotMinutes() == null) {
+            throw new IllegalArgumentException("Days of week, start time, end time and slot length are required.");
+        }
+        if (!templateDTO.getEndTime().isAfter(templateDTO.getStartTime())) {
+            throw new IllegalArgumentException("Template end time must be after start time.");
+        }
+        if (!onQuarterHour(templateDTO.getStartTime()) || !onQuarterHour(templateDTO.getEndTime())) {
+            throw new IllegalArgumentException("Template start and end time must be on a quarter-hour.");
+        }
+        if (templateDTO.getSlotMinutes() < MIN_SLOT_MINUTES || templateDTO.getSlotMinutes() > MAX_SLOT_MINUTES
+                || templateDTO.getSlotMinutes() % SLOT_ALIGNMENT_MINUTES != 0) {
+            throw new IllegalArgumentException("Slot length must be a multiple of " + SLOT_ALIGNMENT_MINUTES
+                    + " minutes between " + MIN_SLOT_MINUTES + " and " + MAX_SLOT_MINUTES + " minutes.");
+        }
+        if (templateDTO.getStartTime().toSecondOfDay() / 60 + templateDTO.getSlotMinutes()
+                > templateDTO.getEndTime().toSecondOfDay() / 60) {
+            throw new IllegalArgumentException("Template must fit at least one slot.");
+        }
+    }
+
+    private static boolean onQuarterHour(LocalTime time) {
+        return time.getMinute() % SLOT_ALIGNMENT_MINUTES == 0 && time.getSecond() == 0 && time.getNano() == 0;
+    }
+
+    private static boolean overlaps(ScheduleTemplate existing, ScheduleTemplate template) {
+        return (existing.getDaysMask() & template.getDaysMask()) != 0
+                && existing.getStartTime().isBefore(template.getEndTime())
+                && template.getStartTime().isBefore(existing.getEndTime())
+                && (existing.getValidTo() == null || !existing.getValidTo().isBefore(template.getValidFrom()))
+                && (template.getValidTo() == null || !template.getValidTo().isBefore(existing.getValidFrom()));
+    }
+}
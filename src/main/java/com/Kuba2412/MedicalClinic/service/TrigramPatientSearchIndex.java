@@ -0,0 +1,33 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Searches with pg_trgm word similarity. The expression matches the one indexed by
+ * idx_patient_search_trgm, so the {@code <%} filter is answered from the GIN index;
+ * the database keeps the index current, nothing has to be maintained here.
+ */
+@Component
+@ConditionalOnProperty(name = "patient.search.index", havingValue = "trigram")
+@RequiredArgsConstructor
+public class TrigramPatientSearchIndex implements PatientSearchIndex {
+
+    private static final String SEARCH_TEXT =
+            "lower(first_name || ' ' || last_name || ' ' || coalesce(email, '') || ' ' || id_card_no)";
+    private static final String SEARCH = "select id from patient where ? <% " + SEARCH_TEXT +
+            " order by word_similarity(?, " + SEARCH_TEXT + ") desc, id limit ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Long> search(String query, int limit) {
+        String normalized = query.toLowerCase(Locale.ROOT);
+        return jdbcTemplate.queryForList(SEARCH, Long.class, normalized, normalized, limit);
+    }
+}
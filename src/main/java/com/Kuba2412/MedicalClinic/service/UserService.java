@@ -6,6 +6,7 @@ import com.Kuba2412.MedicalClinic.repository.UserRepository;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -63,8 +64,12 @@ public class UserService {
      * - Wynik: Metoda zwraca poprawnie paginowaną listę wszystkich użytkowników.
      */
 
-    public List<User> getAllUsers(Pageable pageable) {
-        return userRepository.findAll(pageable).getContent();
+    public Slice<User> getAllUsers(Pageable pageable) {
+        return userRepository.findAllBy(pageable);
+    }
+
+    public long countUsers() {
+        return userRepository.count();
     }
 
     /**
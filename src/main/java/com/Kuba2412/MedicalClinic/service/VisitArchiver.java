@@ -0,0 +1,72 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves finished visits out of VISIT so that the table only holds current and upcoming ones.
+ * Booked visits are copied to VISIT_ARCHIVE, visits nobody booked are dropped. Each batch is
+ * its own short transaction over a contiguous id range, and one run moves a bounded number
+ * of batches, so the job never holds locks on a large part of the table. Dropped visits also
+ * leave the slot calendar.
+ */
+@Component
+@RequiredArgsConstructor
+public class VisitArchiver {
+
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_BATCHES = 20;
+
+    private static final String SELECT_BATCH = "select id from visit where end_visit < ? order by id " +
+            "fetch first " + BATCH_SIZE + " rows only";
+    private static final String ARCHIVE_BATCH = "insert into visit_archive " +
+            "(id, start_visit, end_visit, patient_id, doctor_id, archived_at) " +
+            "select id, start_visit, end_visit, patient_id, doctor_id, ? from visit " +
+            "where end_visit < ? and patient_id is not null and id between ? and ?";
+    private static final String DELETE_BATCH = "delete from visit where end_visit < ? and id between ? and ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AvailabilityProjection availabilityProjection;
+
+    @Scheduled(fixedDelayString = "${visit.archive.interval-ms:600000}")
+    public int archiveFinishedVisits() {
+        return archiveFinishedVisits(LocalDateTime.now());
+    }
+
+    /**
+     * Archives visits that ended before {@code cutoff} and returns how many rows left VISIT.
+     */
+    public int archiveFinishedVisits(LocalDateTime cutoff) {
+        Timestamp before = Timestamp.valueOf(cutoff);
+        int moved = 0;
+        for (int batch = 0; batch < MAX_BATCHES; batch++) {
+            Integer count = transactionTemplate.execute(status -> archiveBatch(before));
+            if (count == null || count == 0) {
+                break;
+            }
+            moved += count;
+        }
+        return moved;
+    }
+
+    private int archiveBatch(Timestamp before) {
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_BATCH, Long.class, before);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        long from = ids.get(0);
+        long to = ids.get(ids.size() - 1);
+        jdbcTemplate.update(ARCHIVE_BATCH, Timestamp.valueOf(LocalDateTime.now()), before, from, to);
+        int deleted = jdbcTemplate.update(DELETE_BATCH, before, from, to);
+        availabilityProjection.slotsDeleted(ids);
+        return deleted;
+    }
+}
@@ -0,0 +1,88 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.dto.VisitDTO;
+import com.Kuba2412.MedicalClinic.repository.ArchivedVisitRepository;
+import com.Kuba2412.MedicalClinic.repository.VisitRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams visits as NDJSON straight from forward-only cursors. Rows are projected to
+ * {@link VisitDTO} in the query, so no entities accumulate in the persistence context
+ * and memory use does not depend on the number of exported rows. Archived visits keep
+ * their ids, so the VISIT and VISIT_ARCHIVE cursors are merged by id. Both cursors run in
+ * one repeatable-read transaction, so a visit archived mid-export is neither lost nor written twice.
+ */
+@Service
+@RequiredArgsConstructor
+public class VisitExportService {
+
+    private static final byte[] LINE_SEPARATOR = {'\n'};
+
+    private final VisitRepository visitRepository;
+    private final ArchivedVisitRepository archivedVisitRepository;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    public StreamingResponseBody exportVisits(LocalDate from, LocalDate to, Long doctorId, String specialization) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Export date range is required.");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Export end date can't be before start date.");
+        }
+        return outputStream -> writeVisits(from.atStartOfDay(), to.plusDays(1).atStartOfDay(),
+                doctorId, specialization, outputStream);
+    }
+
+    void writeVisits(LocalDateTime from, LocalDateTime to, Long doctorId, String specialization,
+                     OutputStream outputStream) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<VisitDTO> current = visitRepository.streamForExport(from, to, doctorId, specialization);
+                 Stream<VisitDTO> archived = archivedVisitRepository.streamForExport(from, to, doctorId, specialization)) {
+                Iterator<VisitDTO> currentVisits = current.iterator();
+                Iterator<VisitDTO> archivedVisits = archived.iterator();
+                VisitDTO nextCurrent = next(currentVisits);
+                VisitDTO nextArchived = next(archivedVisits);
+                while (nextCurrent != null || nextArchived != null) {
+                    if (nextArchived == null || (nextCurrent != null && nextCurrent.getId() < nextArchived.getId())) {
+                        writeLine(nextCurrent, outputStream);
+                        nextCurrent = next(currentVisits);
+                    } else {
+                        writeLine(nextArchived, outputStream);
+                        nextArchived = next(archivedVisits);
+                    }
+                }
+            }
+        });
+    }
+
+    private static VisitDTO next(Iterator<VisitDTO> visits) {
+        return visits.hasNext() ? visits.next() : null;
+    }
+
+    private void writeLine(VisitDTO visit, OutputStream outputStream) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(visit));
+            outputStream.write(LINE_SEPARATOR);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
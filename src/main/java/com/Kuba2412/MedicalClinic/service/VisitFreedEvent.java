@@ -0,0 +1,8 @@
+package com.Kuba2412.MedicalClinic.service;
+
+/**
+ * Published when a booked future visit loses its patient, either through a cancellation
+ * or because the patient was deleted.
+ */
+public record VisitFreedEvent(Long visitId) {
+}
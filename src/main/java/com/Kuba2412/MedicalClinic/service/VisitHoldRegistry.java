@@ -0,0 +1,132 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Short-lived holds that keep a free visit reserved while a patient fills in the booking form.
+ * Every hold is also queued in the bucket of a one-second timer wheel matching its expiry, so
+ * the expiry job only drains the buckets that came due instead of scanning all holds.
+ */
+@Component
+public class VisitHoldRegistry {
+
+    private static final long TICK_MILLIS = 1_000;
+    private static final int WHEEL_SIZE = 1 << 10;
+
+    private final long ttlMillis;
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+    private final Queue<Expiry>[] wheel;
+    private long lastTick;
+
+    @SuppressWarnings("unchecked")
+    public VisitHoldRegistry(@Value("${visit.hold.ttl-seconds:300}") long ttlSeconds) {
+        this.ttlMillis = ttlSeconds * 1_000;
+        this.wheel = new Queue[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.lastTick = System.currentTimeMillis() / TICK_MILLIS;
+    }
+
+    /**
+     * Holds the visit for the patient, or extends the patient's own hold.
+     * Returns the expiry time in epoch millis, or empty when another patient holds the visit.
+     */
+    public OptionalLong hold(Long visitId, Long patientId) {
+        long now = System.currentTimeMillis();
+        Hold requested = new Hold(patientId, now + ttlMillis);
+        Hold current = holds.compute(visitId, (id, existing) ->
+                existing == null || existing.expiresAt() <= now || existing.patientId().equals(patientId)
+                        ? requested : existing);
+        if (current != requested) {
+            return OptionalLong.empty();
+        }
+        wheel[bucket(requested.expiresAt())].add(new Expiry(visitId, requested.expiresAt()));
+        return OptionalLong.of(requested.expiresAt());
+    }
+
+    public boolean isHeld(Long visitId) {
+        Hold hold = holds.get(visitId);
+        return hold != null && hold.expiresAt() > System.currentTimeMillis();
+    }
+
+    public boolean isHeldBy(Long visitId, Long patientId) {
+        Hold hold = holds.get(visitId);
+        return hold != null && hold.expiresAt() > System.currentTimeMillis() && hold.patientId().equals(patientId);
+    }
+
+    public boolean isHeldByOther(Long visitId, Long patientId) {
+        Hold hold = holds.get(visitId);
+        return hold != null && hold.expiresAt() > System.currentTimeMillis() && !hold.patientId().equals(patientId);
+    }
+
+    public boolean release(Long visitId, Long patientId) {
+        boolean[] released = new boolean[1];
+        holds.computeIfPresent(visitId, (id, hold) -> {
+            released[0] = hold.patientId().equals(patientId);
+            return released[0] ? null : hold;
+        });
+        return released[0];
+    }
+
+    public int size() {
+        return holds.size();
+    }
+
+    @Scheduled(fixedDelayString = "${visit.hold.expiry-interval-ms:1000}")
+    public void expireHolds() {
+        expireHolds(System.currentTimeMillis());
+    }
+
+    synchronized int expireHolds(long now) {
+        long tick = now / TICK_MILLIS;
+        long ticks = Math.min(tick - lastTick, WHEEL_SIZE);
+        int expired = 0;
+        for (long i = ticks - 1; i >= 0; i--) {
+            expired += drain(tick - i, now);
+        }
+        lastTick = Math.max(lastTick, tick);
+        return expired;
+    }
+
+    private int drain(long tick, long now) {
+        Queue<Expiry> bucket = wheel[(int) (tick & (WHEEL_SIZE - 1))];
+        int expired = 0;
+        // Only entries queued before draining started are looked at. One that is not due yet goes to the
+        // bucket of its expiry, or of the next tick when it expires later within this one.
+        for (int pending = bucket.size(); pending > 0; pending--) {
+            Expiry expiry = bucket.poll();
+            if (expiry == null) {
+                break;
+            }
+            if (expiry.expiresAt() > now) {
+                wheel[bucket(Math.max(expiry.expiresAt(), (tick + 1) * TICK_MILLIS))].add(expiry);
+                continue;
+            }
+            Hold hold = holds.get(expiry.visitId());
+            // A newer hold on the same visit has its own entry; only the hold this entry was queued for expires.
+            if (hold != null && hold.expiresAt() == expiry.expiresAt() && holds.remove(expiry.visitId(), hold)) {
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    private static int bucket(long expiresAt) {
+        return (int) (expiresAt / TICK_MILLIS) & (WHEEL_SIZE - 1);
+    }
+
+    private record Hold(Long patientId, long expiresAt) {
+    }
+
+    private record Expiry(Long visitId, long expiresAt) {
+    }
+}
@@ -7,72 +7,390 @@ import com.Kuba2412.MedicalClinic.model.Doctor;
 import com.Kuba2412.MedicalClinic.model.mapper.VisitMapper;
 import com.Kuba2412.MedicalClinic.model.Patient;
 import com.Kuba2412.MedicalClinic.model.Visit;
+import com.Kuba2412.MedicalClinic.model.dto.BulkVisitChangeDTO;
+import com.Kuba2412.MedicalClinic.model.dto.PatientDTO;
+import com.Kuba2412.MedicalClinic.model.dto.RegistrationDTO;
+import com.Kuba2412.MedicalClinic.model.dto.RegistrationResultDTO;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleDTO;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleResultDTO;
+import com.Kuba2412.MedicalClinic.model.dto.SlotDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitCursor;
 import com.Kuba2412.MedicalClinic.model.dto.VisitDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitHoldDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitRescheduleDTO;
+import com.Kuba2412.MedicalClinic.repository.ArchivedVisitRepository;
+import com.Kuba2412.MedicalClinic.repository.AvailableSlotRepository;
 import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
 import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import com.Kuba2412.MedicalClinic.repository.VisitAssignment;
+import com.Kuba2412.MedicalClinic.repository.VisitInterval;
 import com.Kuba2412.MedicalClinic.repository.VisitRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class VisitService {
 
+    private static final long MAX_SCHEDULE_DAYS = 366;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final Duration MAX_VISIT_DURATION = Duration.ofHours(8);
+    private static final int MAX_REGISTRATION_BATCH = 500;
+
     private final VisitRepository visitRepository;
     private final PatientRepository patientRepository;
     private final VisitMapper visitMapper;
     private final DoctorRepository doctorRepository;
+    private final VisitSlotCalendar visitSlotCalendar;
+    private final AvailabilityProjection availabilityProjection;
+    private final AvailableSlotRepository availableSlotRepository;
+    private final VisitHoldRegistry visitHoldRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ArchivedVisitRepository archivedVisitRepository;
+    private final ScheduleTemplateExpander scheduleTemplateExpander;
+    private final PatientCache patientCache;
+    private final BatchLoaders batchLoaders;
 
     @Transactional
     public VisitDTO createVisit(VisitDTO visitDTO) {
         if (visitDTO == null) {
             throw new IllegalArgumentException("Visit can't be null.");
         }
+        validateVisitTimes(visitDTO.getStartVisit(), visitDTO.getEndVisit());
         Visit visit = visitMapper.visitDTOToVisit(visitDTO);
-        Visit savedVisit = visitRepository.save(visit);
+        if (visitDTO.getDoctorId() != null) {
+            visit.setDoctor(doctorRepository.findById(visitDTO.getDoctorId())
+                    .orElseThrow(() -> new DoctorNotFoundException("Doctor not found.")));
+            if (visitRepository.existsOverlappingVisit(visitDTO.getDoctorId(),
+                    visit.getStartVisit().minus(MAX_VISIT_DURATION), visit.getStartVisit(), visit.getEndVisit())) {
+                throw new IllegalArgumentException("Visit overlaps with another visit of the doctor.");
+            }
+        }
+        Visit savedVisit;
+        try {
+            savedVisit = visitRepository.saveAndFlush(visit);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("Visit overlaps with another visit of the doctor.");
+        }
+        availabilityProjection.slotOpened(savedVisit);
+        scheduleTemplateExpander.occupy(List.of(savedVisit));
         return visitMapper.visitToVisitDTO(savedVisit);
     }
 
-    public List<VisitDTO> getAllVisitsForPatient(Long patientId) {
-        List<Visit> visits = visitRepository.findAllByPatientId(patientId);
-        if (visits.isEmpty()) {
+    @Transactional
+    public ScheduleResultDTO generateSchedule(ScheduleDTO scheduleDTO) {
+        validateSchedule(scheduleDTO);
+        Doctor doctor = doctorRepository.findById(scheduleDTO.getDoctorId())
+                .orElseThrow(() -> new DoctorNotFoundException("Doctor not found."));
+        long startedAt = System.nanoTime();
+
+        NavigableMap<LocalDateTime, LocalDateTime> busyIntervals = new TreeMap<>();
+        for (VisitInterval interval : visitRepository.findIntervalsByDoctorId(doctor.getId(),
+                scheduleDTO.getStartDate().atStartOfDay().minus(MAX_VISIT_DURATION),
+                scheduleDTO.getEndDate().plusDays(1).atStartOfDay())) {
+            busyIntervals.merge(interval.getStartVisit(), interval.getEndVisit(),
+                    (first, second) -> first.isAfter(second) ? first : second);
+        }
+        int slotMinutes = scheduleDTO.getSlotMinutes();
+        int firstMinute = scheduleDTO.getStartTime().toSecondOfDay() / 60;
+        int lastMinute = scheduleDTO.getEndTime().toSecondOfDay() / 60;
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Visit> visits = new ArrayList<>();
+        int skippedSlots = 0;
+        for (LocalDate date = scheduleDTO.getStartDate(); !date.isAfter(scheduleDTO.getEndDate()); date = date.plusDays(1)) {
+            for (int minute = firstMinute; minute + slotMinutes <= lastMinute; minute += slotMinutes) {
+                LocalDateTime start = date.atStartOfDay().plusMinutes(minute);
+                LocalDateTime end = start.plusMinutes(slotMinutes);
+                if (!start.isAfter(now) || overlaps(busyIntervals, start, end)) {
+                    skippedSlots++;
+                    continue;
+                }
+                visits.add(new Visit(null, start, end, null, doctor));
+            }
+        }
+
+        List<Visit> savedVisits = visitRepository.saveAll(visits);
+        visitRepository.flush();
+        availabilityProjection.slotsOpened(savedVisits);
+        scheduleTemplateExpander.occupy(savedVisits);
+
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        return new ScheduleResultDTO(savedVisits.size(), skippedSlots, elapsedMillis,
+                savedVisits.size() * 1000L / elapsedMillis);
+    }
+
+    public List<VisitDTO> getAllVisitsForPatient(Long patientId, VisitCursor cursor) {
+        List<VisitDTO> visits = findPatientVisits(patientId, cursor);
+        if (visits.isEmpty() && cursor.isFirstPage()) {
             throw new PatientNotFound("Patient not found.");
         }
-        return visits.stream()
-                .map(visitMapper::visitToVisitDTO)
-                .toList();
+        return visits;
     }
 
+    @Transactional
     public void registerPatientForVisit(Long visitId, Long patientId) {
-        Visit visit = visitRepository.findById(visitId)
-                .orElseThrow(() -> new VisitNotFound("Visit not found."));
+        if (visitHoldRegistry.isHeldByOther(visitId, patientId)) {
+            throw new IllegalArgumentException("Visit is temporarily held by another patient.");
+        }
+        int updated = visitRepository.registerPatient(visitId, patientId, LocalDateTime.now());
+        if (updated == 0) {
+            throw registrationFailure(visitId, patientId);
+        }
+        availabilityProjection.slotBooked(visitId);
+        visitHoldRegistry.release(visitId, patientId);
+    }
 
-        if (visit.getStartVisit().isBefore(LocalDateTime.now())) {
-            throw new IllegalArgumentException("Cannot register for past visit.");
+    /**
+     * Registers many patients at once. Visits are locked and patients loaded with one IN query each,
+     * and the changed visits are written as one JDBC batch on commit. Conflicting pairs are reported
+     * in the result instead of failing the whole batch.
+     */
+    @Transactional
+    public List<RegistrationResultDTO> registerPatients(List<RegistrationDTO> registrations) {
+        if (registrations == null || registrations.isEmpty()) {
+            throw new IllegalArgumentException("Registrations can't be empty.");
         }
+        if (registrations.size() > MAX_REGISTRATION_BATCH) {
+            throw new IllegalArgumentException("Can't register more than " + MAX_REGISTRATION_BATCH + " visits at once.");
+        }
+        Set<Long> visitIds = new HashSet<>();
+        Set<Long> patientIds = new HashSet<>();
+        for (RegistrationDTO registration : registrations) {
+            if (registration == null || registration.getVisitId() == null || registration.getPatientId() == null) {
+                throw new IllegalArgumentException("Every registration needs a visit and a patient.");
+            }
+            visitIds.add(registration.getVisitId());
+            patientIds.add(registration.getPatientId());
+        }
+        Map<Long, Patient> patients = patientRepository.findAllWithUserByIdIn(patientIds).stream()
+                .collect(Collectors.toMap(Patient::getId, Function.identity()));
+        List<Long> lockedVisitIds = visitRepository.lockAllById(visitIds);
+        Map<Long, Visit> visits = visitRepository.findAllWithPatientAndDoctorByIdIn(lockedVisitIds).stream()
+                .collect(Collectors.toMap(Visit::getId, Function.identity()));
 
-        Patient patient = patientRepository.findById(patientId)
-                .orElseThrow(() -> new PatientNotFound("Patient not found."));
+        LocalDateTime now = LocalDateTime.now();
+        List<RegistrationResultDTO> results = new ArrayList<>(registrations.size());
+        for (RegistrationDTO registration : registrations) {
+            Visit visit = visits.get(registration.getVisitId());
+            Patient patient = patients.get(registration.getPatientId());
+            String conflict = registrationConflict(visit, patient, registration.getPatientId(), now);
+            if (conflict == null) {
+                visit.setPatient(patient);
+            }
+            results.add(new RegistrationResultDTO(registration.getVisitId(), registration.getPatientId(),
+                    conflict == null, conflict == null ? "Registered." : conflict));
+        }
+        List<Long> bookedVisitIds = new ArrayList<>();
+        for (RegistrationResultDTO result : results) {
+            if (result.isRegistered()) {
+                bookedVisitIds.add(result.getVisitId());
+                visitHoldRegistry.release(result.getVisitId(), result.getPatientId());
+            }
+        }
+        availabilityProjection.slotsBooked(bookedVisitIds);
+        return results;
+    }
+
+    private String registrationConflict(Visit visit, Patient patient, Long patientId, LocalDateTime now) {
+        if (visit == null) {
+            return "Visit not found.";
+        }
+        if (patient == null) {
+            return "Patient not found.";
+        }
+        if (!visit.getStartVisit().isAfter(now)) {
+            return "Cannot register for past visit.";
+        }
+        if (visit.getPatient() != null) {
+            return "Visit already has registered patient.";
+        }
+        if (visitHoldRegistry.isHeldByOther(visit.getId(), patientId)) {
+            return "Visit is temporarily held by another patient.";
+        }
+        return null;
+    }
+
+    @Transactional
+    public void cancelRegistration(Long visitId, Long patientId) {
+        if (visitRepository.cancelRegistration(visitId, patientId, LocalDateTime.now()) == 0) {
+            Visit visit = visitRepository.findById(visitId)
+                    .orElseThrow(() -> new VisitNotFound("Visit not found."));
+            if (!visit.getStartVisit().isAfter(LocalDateTime.now())) {
+                throw new IllegalArgumentException("Cannot cancel past visit.");
+            }
+            throw new IllegalArgumentException("Visit is not registered to this patient.");
+        }
+        eventPublisher.publishEvent(new VisitFreedEvent(visitId));
+    }
+
+    /**
+     * Cancels every upcoming visit of a doctor in [from, to) with one delete. Visits that
+     * already started are left alone.
+     */
+    @Transactional
+    public BulkVisitChangeDTO cancelDoctorVisits(Long doctorId, LocalDateTime from, LocalDateTime to) {
+        validateRange(from, to);
+        if (batchLoaders.doctors().load(doctorId).isEmpty()) {
+            throw new DoctorNotFoundException("Doctor not found.");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<VisitAssignment> visits = visitRepository.findAssignmentsByDoctorId(doctorId, from, to, now);
+        if (visits.isEmpty()) {
+            return new BulkVisitChangeDTO(0, List.of());
+        }
+        visitRepository.deleteByDoctorId(doctorId, from, to, now);
+        scheduleTemplateExpander.refresh(List.of(doctorId));
+        return publishChange(VisitsChangedEvent.Change.CANCELLED, visits, availabilityProjection::slotsDeleted);
+    }
 
+    /**
+     * Moves every upcoming visit of a doctor in [from, to) to another doctor and/or day with one
+     * update, after a single query made sure none of the moved visits would overlap a visit of
+     * the target doctor. Patients stay registered on the moved visits.
+     */
+    @Transactional
+    public BulkVisitChangeDTO rescheduleDoctorVisits(Long doctorId, VisitRescheduleDTO rescheduleDTO) {
+        if (rescheduleDTO == null) {
+            throw new IllegalArgumentException("Time range is required.");
+        }
+        validateRange(rescheduleDTO.getFrom(), rescheduleDTO.getTo());
+        if (rescheduleDTO.getTargetDoctorId() == null && rescheduleDTO.getTargetDate() == null) {
+            throw new IllegalArgumentException("Target doctor or target date is required.");
+        }
+        if (batchLoaders.doctors().load(doctorId).isEmpty()) {
+            throw new DoctorNotFoundException("Doctor not found.");
+        }
+        Doctor targetDoctor = rescheduleDTO.getTargetDoctorId() == null
+                ? doctorRepository.getReferenceById(doctorId)
+                : doctorRepository.findById(rescheduleDTO.getTargetDoctorId())
+                .orElseThrow(() -> new DoctorNotFoundException("Doctor not found."));
+        long shiftDays = rescheduleDTO.getTargetDate() == null ? 0
+                : ChronoUnit.DAYS.between(rescheduleDTO.getFrom().toLocalDate(), rescheduleDTO.getTargetDate());
+        LocalDateTime now = LocalDateTime.now();
+        if (shiftDays < 0 && !rescheduleDTO.getFrom().plusDays(shiftDays).isAfter(now)) {
+            throw new IllegalArgumentException("Visits can't be moved into the past.");
+        }
+        // The update moves the rows one by one, so a same-doctor target overlapping the source would
+        // collide with visits that are still waiting to be moved.
+        if (targetDoctor.getId().equals(doctorId) && Duration.ofDays(Math.abs(shiftDays))
+                .compareTo(Duration.between(rescheduleDTO.getFrom(), rescheduleDTO.getTo()).plus(MAX_VISIT_DURATION)) < 0) {
+            throw new IllegalArgumentException("Target window overlaps the visits being moved.");
+        }
+
+        List<VisitAssignment> visits = visitRepository.findAssignmentsByDoctorId(doctorId,
+                rescheduleDTO.getFrom(), rescheduleDTO.getTo(), now);
+        if (visits.isEmpty()) {
+            return new BulkVisitChangeDTO(0, List.of());
+        }
+        if (visitRepository.existsRescheduleConflict(doctorId, rescheduleDTO.getFrom(), rescheduleDTO.getTo(), now,
+                targetDoctor.getId(), shiftDays)) {
+            throw new IllegalArgumentException("Rescheduled visits overlap with visits of the target doctor.");
+        }
+        try {
+            visitRepository.rescheduleVisits(doctorId, rescheduleDTO.getFrom(), rescheduleDTO.getTo(), now,
+                    targetDoctor, shiftDays);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("Rescheduled visits overlap with visits of the target doctor.");
+        }
+        scheduleTemplateExpander.refresh(new HashSet<>(List.of(doctorId, targetDoctor.getId())));
+        return publishChange(VisitsChangedEvent.Change.RESCHEDULED, visits, availabilityProjection::slotsMoved);
+    }
+
+    private BulkVisitChangeDTO publishChange(VisitsChangedEvent.Change change, List<VisitAssignment> visits,
+                                             Consumer<List<Long>> projectionUpdate) {
+        List<Long> visitIds = visits.stream().map(VisitAssignment::getId).toList();
+        List<Long> patientIds = visits.stream()
+                .map(VisitAssignment::getPatientId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        projectionUpdate.accept(visitIds);
+        eventPublisher.publishEvent(new VisitsChangedEvent(change, visitIds, patientIds));
+        return new BulkVisitChangeDTO(visitIds.size(), patientIds);
+    }
+
+    public VisitHoldDTO holdVisit(Long visitId, Long patientId) {
+        Visit visit = visitRepository.findById(visitId)
+                .orElseThrow(() -> new VisitNotFound("Visit not found."));
+        if (!visit.getStartVisit().isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Cannot register for past visit.");
+        }
         if (visit.getPatient() != null) {
             throw new IllegalArgumentException("Visit already has registered patient.");
         }
+        if (!patientRepository.existsById(patientId)) {
+            throw new PatientNotFound("Patient not found.");
+        }
+        long expiresAt = visitHoldRegistry.hold(visitId, patientId)
+                .orElseThrow(() -> new IllegalArgumentException("Visit is temporarily held by another patient."));
+        return new VisitHoldDTO(visitId, patientId,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAt), ZoneId.systemDefault()));
+    }
+
+    @Transactional
+    public void confirmHold(Long visitId, Long patientId) {
+        if (!visitHoldRegistry.isHeldBy(visitId, patientId)) {
+            throw new IllegalArgumentException("Visit hold has expired.");
+        }
+        registerPatientForVisit(visitId, patientId);
+    }
+
+    public void releaseHold(Long visitId, Long patientId) {
+        if (!visitHoldRegistry.release(visitId, patientId)) {
+            throw new VisitNotFound("Visit hold not found.");
+        }
+    }
 
-        visit.setPatient(patient);
-        visitRepository.save(visit);
+    private RuntimeException registrationFailure(Long visitId, Long patientId) {
+        Visit visit = visitRepository.findById(visitId)
+                .orElseThrow(() -> new VisitNotFound("Visit not found."));
+
+        if (!visit.getStartVisit().isAfter(LocalDateTime.now())) {
+            return new IllegalArgumentException("Cannot register for past visit.");
+        }
+        if (!patientRepository.existsById(patientId)) {
+            return new PatientNotFound("Patient not found.");
+        }
+        return new IllegalArgumentException("Visit already has registered patient.");
     }
 
     public List<VisitDTO> getAvailableVisitsByDoctorSpecializationAndByDate(String specialization, LocalDate date) {
-        List<Doctor> doctors = doctorRepository.findBySpecialization(specialization);
-        List<VisitDTO> visitDTOs = doctors.stream()
-                .flatMap(doctor -> doctor.getVisits().stream())
-                .filter(visit -> visit.getStartVisit().toLocalDate().equals(date))
-                .map(visitMapper::visitToVisitDTO)
+        List<VisitDTO> visitDTOs = Stream.concat(
+                        availableSlotRepository.findAllBySpecializationInRange(specialization,
+                                        date.atStartOfDay(), date.plusDays(1).atStartOfDay())
+                                .stream()
+                                .filter(slot -> !visitHoldRegistry.isHeld(slot.getVisitId()))
+                                .map(visitMapper::availableSlotToVisitDTO),
+                        scheduleTemplateExpander.getFreeVisits(specialization, date).stream())
+                .sorted(Comparator.comparing(VisitDTO::getStartVisit))
                 .toList();
 
         if (visitDTOs.isEmpty()) {
@@ -82,25 +400,190 @@ public class VisitService {
         return visitDTOs;
     }
 
-    public List<VisitDTO> getVisitsByDoctorId(Long doctorId) {
+    public List<SlotDTO> getFreeSlotsForDoctor(Long doctorId, LocalDate date) {
+        return mergeSlots(visitSlotCalendar.getFreeSlots(doctorId, date),
+                scheduleTemplateExpander.getFreeSlots(doctorId, date), Integer.MAX_VALUE);
+    }
+
+    public SlotDTO getFirstFreeSlotBySpecialization(String specialization) {
+        return mergeSlots(visitSlotCalendar.getFirstFreeSlot(specialization).stream().toList(),
+                scheduleTemplateExpander.getFirstFreeSlots(specialization, null, 1), 1).stream()
+                .findFirst()
+                .orElseThrow(() -> new VisitNotFound("Visit not found."));
+    }
+
+    public List<SlotDTO> getNextAvailableSlots(String specialization, String city, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        boolean anyCity = city == null || city.isBlank();
+        Collection<Long> doctorIds = anyCity
+                ? visitSlotCalendar.getDoctorIds(specialization)
+                : doctorRepository.findIdsBySpecializationAndInstitutionCity(specialization, city);
+        return mergeSlots(visitSlotCalendar.getFirstFreeSlots(doctorIds, limit),
+                scheduleTemplateExpander.getFirstFreeSlots(specialization, anyCity ? null : doctorIds, limit), limit);
+    }
+
+    /**
+     * Books a slot of a doctor's schedule template. The visit row is created here, already
+     * registered to the patient; the unique doctor/start constraint settles concurrent bookings.
+     */
+    @Transactional
+    public VisitDTO registerPatientForTemplateSlot(Long doctorId, LocalDateTime start, Long patientId) {
+        if (start == null) {
+            throw new IllegalArgumentException("Visit start date is required.");
+        }
+        if (!start.isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Cannot register for past visit.");
+        }
+        validateVisitDateTime(start);
         Doctor doctor = doctorRepository.findById(doctorId)
                 .orElseThrow(() -> new DoctorNotFoundException("Doctor not found."));
-        return doctor.getVisits().stream()
-                .map(visitMapper::visitToVisitDTO)
+        Patient patient = patientRepository.findById(patientId)
+                .orElseThrow(() -> new PatientNotFound("Patient not found."));
+        LocalDateTime end = scheduleTemplateExpander.findSlotEnd(doctorId, start)
+                .orElseThrow(() -> new VisitNotFound("Visit not found."));
+        List<Long> overlappingVisitIds = visitRepository.findOverlappingVisitIds(doctorId,
+                start.minus(MAX_VISIT_DURATION), start, end);
+        if (overlappingVisitIds.stream().anyMatch(visitHoldRegistry::isHeld)) {
+            throw new IllegalArgumentException("Visit is temporarily held by another patient.");
+        }
+        if (!overlappingVisitIds.isEmpty()) {
+            throw new IllegalArgumentException("Visit already has registered patient.");
+        }
+        Visit savedVisit;
+        try {
+            savedVisit = visitRepository.saveAndFlush(new Visit(null, start, end, patient, doctor));
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("Visit already has registered patient.");
+        }
+        scheduleTemplateExpander.occupy(List.of(savedVisit));
+        return visitMapper.visitToVisitDTO(savedVisit);
+    }
+
+    private static List<SlotDTO> mergeSlots(List<SlotDTO> visitSlots, List<SlotDTO> templateSlots, int limit) {
+        if (templateSlots.isEmpty()) {
+            return visitSlots;
+        }
+        return Stream.concat(visitSlots.stream(), templateSlots.stream())
+                .sorted(Comparator.comparing(SlotDTO::getStartVisit))
+                .limit(limit)
                 .toList();
     }
 
-    public List<VisitDTO> getVisitsByPatientEmail(String email) {
-        Patient patient = patientRepository.findByEmail(email)
+    public List<VisitDTO> getVisitsByDoctorId(Long doctorId, VisitCursor cursor) {
+        if (batchLoaders.doctors().load(doctorId).isEmpty()) {
+            throw new DoctorNotFoundException("Doctor not found.");
+        }
+        Pageable page = toPage(cursor);
+        List<Visit> current = cursor.isFirstPage()
+                ? visitRepository.findAllByDoctorIdOrderByStartVisitAscIdAsc(doctorId, page)
+                : visitRepository.findAllByDoctorIdAfter(doctorId, cursor.getAfterStart(), cursor.getAfterId(), page);
+        List<VisitDTO> archived = cursor.isFirstPage()
+                ? archivedVisitRepository.findAllByDoctorId(doctorId, page)
+                : archivedVisitRepository.findAllByDoctorIdAfter(doctorId, cursor.getAfterStart(), cursor.getAfterId(), page);
+        return mergeHistory(archived, current, cursor.getSize());
+    }
+
+    public List<VisitDTO> getVisitsByPatientEmail(String email, VisitCursor cursor) {
+        PatientDTO patient = patientCache.findByEmail(email)
                 .orElseThrow(() -> new PatientNotFound("Patient not found."));
 
-        List<Visit> visits = visitRepository.findAllByPatientId(patient.getId());
+        return findPatientVisits(patient.getId(), cursor);
+    }
+
+    private List<VisitDTO> findPatientVisits(Long patientId, VisitCursor cursor) {
+        Pageable page = toPage(cursor);
+        List<Visit> current = cursor.isFirstPage()
+                ? visitRepository.findAllByPatientIdOrderByStartVisitAscIdAsc(patientId, page)
+                : visitRepository.findAllByPatientIdAfter(patientId, cursor.getAfterStart(), cursor.getAfterId(), page);
+        List<VisitDTO> archived = cursor.isFirstPage()
+                ? archivedVisitRepository.findAllByPatientId(patientId, page)
+                : archivedVisitRepository.findAllByPatientIdAfter(patientId, cursor.getAfterStart(), cursor.getAfterId(), page);
+        return mergeHistory(archived, current, cursor.getSize());
+    }
 
-        return visits.stream()
-                .map(visitMapper::visitToVisitDTO)
+    /**
+     * Patient and doctor histories span VISIT and VISIT_ARCHIVE. Both are read with the same
+     * keyset and page size, and the two ordered pages are merged, so a page may mix archived and
+     * current visits while the cursor keeps working across the boundary.
+     */
+    private List<VisitDTO> mergeHistory(List<VisitDTO> archived, List<Visit> current, int size) {
+        if (archived.isEmpty()) {
+            return current.stream()
+                    .map(visitMapper::visitToVisitDTO)
+                    .toList();
+        }
+        return Stream.concat(archived.stream(), current.stream().map(visitMapper::visitToVisitDTO))
+                .sorted(Comparator.comparing(VisitDTO::getStartVisit).thenComparing(VisitDTO::getId))
+                .limit(size)
                 .toList();
     }
 
+    private Pageable toPage(VisitCursor cursor) {
+        if (cursor.getSize() <= 0 || cursor.getSize() > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        if (!cursor.isFirstPage() && cursor.getAfterId() == null) {
+            throw new IllegalArgumentException("Cursor requires both afterStart and afterId.");
+        }
+        return PageRequest.ofSize(cursor.getSize());
+    }
+
+    private void validateSchedule(ScheduleDTO scheduleDTO) {
+        if (scheduleDTO == null || scheduleDTO.getDoctorId() == null || scheduleDTO.getStartDate() == null
+                || scheduleDTO.getEndDate() == null || scheduleDTO.getStartTime() == null
+                || scheduleDTO.getEndTime() == null || scheduleDTO.getSlotMinutes() == null) {
+            throw new IllegalArgumentException("Schedule is incomplete.");
+        }
+        if (scheduleDTO.getEndDate().isBefore(scheduleDTO.getStartDate())) {
+            throw new IllegalArgumentException("Schedule end date can't be before start date.");
+        }
+        if (ChronoUnit.DAYS.between(scheduleDTO.getStartDate(), scheduleDTO.getEndDate()) > MAX_SCHEDULE_DAYS) {
+            throw new IllegalArgumentException("Schedule can't span more than a year.");
+        }
+        if (!scheduleDTO.getStartTime().isBefore(scheduleDTO.getEndTime())) {
+            throw new IllegalArgumentException("Working hours must end after they start.");
+        }
+        if (scheduleDTO.getSlotMinutes() <= 0 || scheduleDTO.getSlotMinutes() % 15 != 0
+                || scheduleDTO.getStartTime().getMinute() % 15 != 0 || scheduleDTO.getStartTime().getSecond() != 0) {
+            throw new IllegalArgumentException("Visit time must be in full quarter-hour intervals.");
+        }
+        if (scheduleDTO.getSlotMinutes() > MAX_VISIT_DURATION.toMinutes()) {
+            throw new IllegalArgumentException("Visit can't be longer than 8 hours.");
+        }
+    }
+
+    private void validateRange(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Time range is required.");
+        }
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("Range end must be after range start.");
+        }
+    }
+
+    private void validateVisitTimes(LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null) {
+            throw new IllegalArgumentException("Visit start and end dates are required.");
+        }
+        validateVisitDateTime(start);
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("Visit end date must be after start date.");
+        }
+        if (Duration.between(start, end).compareTo(MAX_VISIT_DURATION) > 0) {
+            throw new IllegalArgumentException("Visit can't be longer than 8 hours.");
+        }
+    }
+
+    // Existing visits of a doctor never overlap each other, so only the interval starting
+    // latest before the candidate's end can collide with it.
+    private boolean overlaps(NavigableMap<LocalDateTime, LocalDateTime> busyIntervals,
+                             LocalDateTime start, LocalDateTime end) {
+        Map.Entry<LocalDateTime, LocalDateTime> previous = busyIntervals.lowerEntry(end);
+        return previous != null && previous.getValue().isAfter(start);
+    }
+
     private void validateVisitDateTime(LocalDateTime dateTime) {
         if (dateTime.isBefore(LocalDateTime.now())) {
             throw new IllegalArgumentException("Invalid visit start date.");
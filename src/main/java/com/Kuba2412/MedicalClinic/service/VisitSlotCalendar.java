@@ -0,0 +1,283 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.AvailableSlot;
+import com.Kuba2412.MedicalClinic.model.Visit;
+import com.Kuba2412.MedicalClinic.model.dto.SlotDTO;
+import com.Kuba2412.MedicalClinic.repository.AvailableSlotRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory index of free visits. Visits start on quarter-hour boundaries, so the free
+ * slots of one doctor-day are kept as a 96-bit bitmap in two longs. Day bitmaps are
+ * replaced, never mutated, so readers never see a half-applied update. Slots under a
+ * temporary hold stay in the bitmap but are skipped by the lookups.
+ * <p>
+ * Changes made inside a transaction are applied once it commits, so a rolled back booking
+ * or schedule never shows up here. Days that are over are evicted periodically.
+ */
+@Component
+@RequiredArgsConstructor
+public class VisitSlotCalendar {
+
+    private static final int SLOT_MINUTES = 15;
+
+    private final AvailableSlotRepository availableSlotRepository;
+    private final VisitHoldRegistry visitHoldRegistry;
+
+    private final Map<Long, ConcurrentSkipListMap<Long, long[]>> daysByDoctor = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> doctorsBySpecialization = new ConcurrentHashMap<>();
+    private final Map<Long, Slot> slotsByVisitId = new ConcurrentHashMap<>();
+    private final Map<Slot, Long> visitIdsBySlot = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        availableSlotRepository.findAllByStartVisitAfter(LocalDateTime.now()).forEach(this::addFreeSlot);
+    }
+
+    public void reload() {
+        daysByDoctor.clear();
+        doctorsBySpecialization.clear();
+        slotsByVisitId.clear();
+        visitIdsBySlot.clear();
+        load();
+    }
+
+    public void addFreeVisit(Visit visit) {
+        if (visit.getId() == null || visit.getDoctor() == null || visit.getPatient() != null) {
+            return;
+        }
+        Long visitId = visit.getId();
+        Long doctorId = visit.getDoctor().getId();
+        String specialization = visit.getDoctor().getSpecialization();
+        LocalDateTime start = visit.getStartVisit();
+        TransactionCallbacks.afterCommit(() -> addFreeSlot(visitId, doctorId, specialization, start));
+    }
+
+    public void addFreeSlot(AvailableSlot slot) {
+        Long visitId = slot.getVisitId();
+        Long doctorId = slot.getDoctorId();
+        String specialization = slot.getSpecialization();
+        LocalDateTime start = slot.getStartVisit();
+        TransactionCallbacks.afterCommit(() -> addFreeSlot(visitId, doctorId, specialization, start));
+    }
+
+    private void addFreeSlot(Long visitId, Long doctorId, String specialization, LocalDateTime start) {
+        if (!isOnSlotBoundary(start)) {
+            return;
+        }
+        Slot slot = new Slot(doctorId, start);
+        slotsByVisitId.put(visitId, slot);
+        visitIdsBySlot.put(slot, visitId);
+        if (specialization != null) {
+            doctorsBySpecialization
+                    .computeIfAbsent(specialization, key -> ConcurrentHashMap.newKeySet())
+                    .add(doctorId);
+        }
+        int index = slotIndex(slot.start());
+        daysByDoctor.computeIfAbsent(doctorId, key -> new ConcurrentSkipListMap<>())
+                .compute(slot.start().toLocalDate().toEpochDay(), (day, words) -> {
+                    long[] updated = words == null ? new long[2] : words.clone();
+                    updated[index >>> 6] |= 1L << (index & 63);
+                    return updated;
+                });
+    }
+
+    public void markBooked(Long visitId) {
+        TransactionCallbacks.afterCommit(() -> removeSlot(visitId));
+    }
+
+    private void removeSlot(Long visitId) {
+        Slot slot = slotsByVisitId.remove(visitId);
+        if (slot == null) {
+            return;
+        }
+        visitIdsBySlot.remove(slot);
+        int index = slotIndex(slot.start());
+        ConcurrentSkipListMap<Long, long[]> days = daysByDoctor.get(slot.doctorId());
+        if (days == null) {
+            return;
+        }
+        days.computeIfPresent(slot.start().toLocalDate().toEpochDay(), (day, words) -> {
+            long[] updated = words.clone();
+            updated[index >>> 6] &= ~(1L << (index & 63));
+            return updated[0] == 0 && updated[1] == 0 ? null : updated;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${visit.calendar.eviction-interval-ms:3600000}")
+    public void evictPastDays() {
+        evictBefore(LocalDate.now());
+    }
+
+    /**
+     * Drops the bitmaps of days before {@code date} and the slots starting on them, and returns
+     * how many slots were dropped.
+     */
+    int evictBefore(LocalDate date) {
+        long firstDay = date.toEpochDay();
+        daysByDoctor.values().forEach(days -> days.headMap(firstDay).clear());
+        int evicted = 0;
+        Iterator<Map.Entry<Long, Slot>> slots = slotsByVisitId.entrySet().iterator();
+        while (slots.hasNext()) {
+            Map.Entry<Long, Slot> slot = slots.next();
+            if (slot.getValue().start().toLocalDate().isBefore(date)) {
+                slots.remove();
+                visitIdsBySlot.remove(slot.getValue(), slot.getKey());
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public int size() {
+        return slotsByVisitId.size();
+    }
+
+    public List<SlotDTO> getFreeSlots(Long doctorId, LocalDate date) {
+        ConcurrentSkipListMap<Long, long[]> days = daysByDoctor.get(doctorId);
+        long[] words = days == null ? null : days.get(date.toEpochDay());
+        if (words == null) {
+            return List.of();
+        }
+        return freeStarts(doctorId, date, words, LocalDateTime.now()).stream()
+                .map(start -> toSlotDTO(doctorId, start))
+                .toList();
+    }
+
+    public Optional<SlotDTO> getFirstFreeSlot(String specialization) {
+        return getFirstFreeSlots(getDoctorIds(specialization), 1).stream().findFirst();
+    }
+
+    public Set<Long> getDoctorIds(String specialization) {
+        return doctorsBySpecialization.getOrDefault(specialization, Set.of());
+    }
+
+    /**
+     * Merges the per-doctor slot sequences, which are already ordered by time, through a heap
+     * holding one cursor per doctor, and stops as soon as {@code limit} slots were taken.
+     */
+    public List<SlotDTO> getFirstFreeSlots(Collection<Long> doctorIds, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        PriorityQueue<DoctorSlots> cursors = new PriorityQueue<>(Comparator.comparing(DoctorSlots::current));
+        for (Long doctorId : doctorIds) {
+            ConcurrentSkipListMap<Long, long[]> days = daysByDoctor.get(doctorId);
+            if (days == null) {
+                continue;
+            }
+            DoctorSlots cursor = new DoctorSlots(doctorId, days.tailMap(now.toLocalDate().toEpochDay()).entrySet().iterator(), now);
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        List<SlotDTO> slots = new ArrayList<>();
+        while (!cursors.isEmpty() && slots.size() < limit) {
+            DoctorSlots cursor = cursors.poll();
+            slots.add(toSlotDTO(cursor.doctorId, cursor.current));
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        return slots;
+    }
+
+    private List<LocalDateTime> freeStarts(Long doctorId, LocalDate date, long[] words, LocalDateTime after) {
+        List<LocalDateTime> starts = new ArrayList<>();
+        for (int word = 0; word < words.length; word++) {
+            long bits = words[word];
+            while (bits != 0) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                LocalDateTime start = date.atStartOfDay().plusMinutes((long) index * SLOT_MINUTES);
+                if (start.isAfter(after) && !isHeld(doctorId, start)) {
+                    starts.add(start);
+                }
+            }
+        }
+        return starts;
+    }
+
+    private boolean isHeld(Long doctorId, LocalDateTime start) {
+        Long visitId = visitIdsBySlot.get(new Slot(doctorId, start));
+        return visitId != null && visitHoldRegistry.isHeld(visitId);
+    }
+
+    private SlotDTO toSlotDTO(Long doctorId, LocalDateTime start) {
+        return new SlotDTO(visitIdsBySlot.get(new Slot(doctorId, start)), doctorId, start);
+    }
+
+    private static boolean isOnSlotBoundary(LocalDateTime dateTime) {
+        return dateTime != null && dateTime.getMinute() % SLOT_MINUTES == 0
+                && dateTime.getSecond() == 0 && dateTime.getNano() == 0;
+    }
+
+    private static int slotIndex(LocalDateTime dateTime) {
+        return (dateTime.getHour() * 60 + dateTime.getMinute()) / SLOT_MINUTES;
+    }
+
+    private record Slot(Long doctorId, LocalDateTime start) {
+    }
+
+    private final class DoctorSlots {
+
+        private final Long doctorId;
+        private final Iterator<Map.Entry<Long, long[]>> days;
+        private final LocalDateTime after;
+        private LocalDate date;
+        private long[] words;
+        private int word;
+        private LocalDateTime current;
+
+        private DoctorSlots(Long doctorId, Iterator<Map.Entry<Long, long[]>> days, LocalDateTime after) {
+            this.doctorId = doctorId;
+            this.days = days;
+            this.after = after;
+        }
+
+        private LocalDateTime current() {
+            return current;
+        }
+
+        private boolean advance() {
+            while (true) {
+                while (words != null && word < words.length) {
+                    if (words[word] == 0) {
+                        word++;
+                        continue;
+                    }
+                    int index = (word << 6) + Long.numberOfTrailingZeros(words[word]);
+                    words[word] &= words[word] - 1;
+                    LocalDateTime start = date.atStartOfDay().plusMinutes((long) index * SLOT_MINUTES);
+                    if (start.isAfter(after) && !isHeld(doctorId, start)) {
+                        current = start;
+                        return true;
+                    }
+                }
+                if (!days.hasNext()) {
+                    return false;
+                }
+                Map.Entry<Long, long[]> day = days.next();
+                date = LocalDate.ofEpochDay(day.getKey());
+                words = day.getValue().clone();
+                word = 0;
+            }
+        }
+    }
+}
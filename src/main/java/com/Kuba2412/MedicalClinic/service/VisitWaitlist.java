@@ -0,0 +1,82 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.dto.WaitlistDTO;
+import com.Kuba2412.MedicalClinic.repository.WaitlistEntryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+
+/**
+ * In-memory view of the waitlist table. Patients waiting for a specific doctor and patients
+ * waiting for any doctor of a specialization are kept in separate queues ordered by arrival,
+ * and a freed visit goes to whoever has waited longest across both.
+ */
+@Component
+@RequiredArgsConstructor
+public class VisitWaitlist {
+
+    private static final Comparator<WaitlistDTO> BY_ARRIVAL = Comparator
+            .comparing(WaitlistDTO::getCreatedAt)
+            .thenComparing(WaitlistDTO::getId);
+
+    private final WaitlistEntryRepository waitlistEntryRepository;
+
+    private final Map<Long, PriorityBlockingQueue<WaitlistDTO>> byDoctor = new ConcurrentHashMap<>();
+    private final Map<String, PriorityBlockingQueue<WaitlistDTO>> bySpecialization = new ConcurrentHashMap<>();
+    private final Map<Long, WaitlistDTO> entriesById = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        waitlistEntryRepository.findAllWaiting().forEach(this::add);
+    }
+
+    public void add(WaitlistDTO entry) {
+        entriesById.put(entry.getId(), entry);
+        queueOf(entry).offer(entry);
+    }
+
+    public boolean remove(Long entryId) {
+        WaitlistDTO entry = entriesById.remove(entryId);
+        return entry != null && queueOf(entry).remove(entry);
+    }
+
+    /**
+     * Takes the longest-waiting patient who accepts a visit with the given doctor. Meant to be
+     * called from the single promotion job, which is the only consumer of the queues.
+     */
+    public Optional<WaitlistDTO> poll(Long doctorId, String specialization) {
+        PriorityBlockingQueue<WaitlistDTO> doctorQueue = byDoctor.get(doctorId);
+        PriorityBlockingQueue<WaitlistDTO> specializationQueue = specialization == null
+                ? null : bySpecialization.get(specialization);
+        WaitlistDTO doctorHead = doctorQueue == null ? null : doctorQueue.peek();
+        WaitlistDTO specializationHead = specializationQueue == null ? null : specializationQueue.peek();
+        if (doctorHead == null && specializationHead == null) {
+            return Optional.empty();
+        }
+        PriorityBlockingQueue<WaitlistDTO> chosen = specializationHead == null
+                || (doctorHead != null && BY_ARRIVAL.compare(doctorHead, specializationHead) <= 0)
+                ? doctorQueue : specializationQueue;
+        WaitlistDTO entry = chosen.poll();
+        if (entry != null) {
+            entriesById.remove(entry.getId());
+        }
+        return Optional.ofNullable(entry);
+    }
+
+    public int size() {
+        return entriesById.size();
+    }
+
+    private PriorityBlockingQueue<WaitlistDTO> queueOf(WaitlistDTO entry) {
+        return entry.getDoctorId() != null
+                ? byDoctor.computeIfAbsent(entry.getDoctorId(), key -> new PriorityBlockingQueue<>(16, BY_ARRIVAL))
+                : bySpecialization.computeIfAbsent(entry.getSpecialization(), key -> new PriorityBlockingQueue<>(16, BY_ARRIVAL));
+    }
+}
@@ -0,0 +1,15 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import java.util.List;
+
+/**
+ * Published after a bulk cancellation or rescheduling, with the affected visits and the
+ * patients that were booked on them, so they can be notified.
+ */
+public record VisitsChangedEvent(Change change, List<Long> visitIds, List<Long> patientIds) {
+
+    public enum Change {
+        CANCELLED,
+        RESCHEDULED
+    }
+}
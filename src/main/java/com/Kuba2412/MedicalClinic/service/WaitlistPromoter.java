@@ -0,0 +1,101 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Visit;
+import com.Kuba2412.MedicalClinic.model.dto.WaitlistDTO;
+import com.Kuba2412.MedicalClinic.repository.VisitRepository;
+import com.Kuba2412.MedicalClinic.repository.WaitlistEntryRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Hands freed visits to waitlisted patients. Freeing a visit records it in FREED_VISIT within the
+ * freeing transaction, so a freed visit survives a restart; the scheduled job then claims those
+ * rows in batches and promotes them, so cancellations never wait on the waitlist. Visits nobody
+ * waits for are opened for booking. If a promotion batch rolls back, its rows are back in
+ * FREED_VISIT and the waitlist entries it took are put back in memory.
+ */
+@Component
+@RequiredArgsConstructor
+public class WaitlistPromoter {
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final String INSERT_FREED = "insert into freed_visit (visit_id, freed_at) " +
+            "select ?, ? where not exists (select 1 from freed_visit where visit_id = ?)";
+    private static final String SELECT_FREED = "select visit_id from freed_visit order by freed_at, visit_id " +
+            "limit " + BATCH_SIZE + " for update";
+
+    private final VisitRepository visitRepository;
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final VisitWaitlist visitWaitlist;
+    private final AvailabilityProjection availabilityProjection;
+    private final VisitHoldRegistry visitHoldRegistry;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Runs in the freeing transaction, so the visit is recorded exactly when it is freed.
+     */
+    @EventListener
+    public void onVisitFreed(VisitFreedEvent event) {
+        jdbcTemplate.update(INSERT_FREED, event.visitId(), Timestamp.valueOf(LocalDateTime.now()), event.visitId());
+    }
+
+    @Scheduled(fixedDelayString = "${visit.waitlist.promotion-interval-ms:1000}")
+    @Transactional
+    public int promoteWaitlisted() {
+        List<Long> batch = jdbcTemplate.queryForList(SELECT_FREED, Long.class);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate("delete from freed_visit where visit_id = ?",
+                batch.stream().map(visitId -> new Object[]{visitId}).toList());
+
+        LocalDateTime now = LocalDateTime.now();
+        List<WaitlistDTO> promotedEntries = new ArrayList<>();
+        TransactionCallbacks.afterRollback(() -> promotedEntries.forEach(visitWaitlist::add));
+        for (Visit visit : visitRepository.findAllByIdIn(batch)) {
+            if (visit.getPatient() != null || visit.getDoctor() == null || !visit.getStartVisit().isAfter(now)) {
+                continue;
+            }
+            if (visitHoldRegistry.isHeld(visit.getId())) {
+                availabilityProjection.slotOpened(visit);
+                continue;
+            }
+            promote(visit, now).ifPresent(promotedEntries::add);
+        }
+        waitlistEntryRepository.deleteAllByIdInBatch(promotedEntries.stream().map(WaitlistDTO::getId).toList());
+        return promotedEntries.size();
+    }
+
+    public int pendingVisits() {
+        return jdbcTemplate.queryForObject("select count(*) from freed_visit", Integer.class);
+    }
+
+    private Optional<WaitlistDTO> promote(Visit visit, LocalDateTime now) {
+        Optional<WaitlistDTO> next = visitWaitlist.poll(visit.getDoctor().getId(), visit.getDoctor().getSpecialization());
+        while (next.isPresent()) {
+            WaitlistDTO entry = next.get();
+            if (visitRepository.registerPatient(visit.getId(), entry.getPatientId(), now) == 1) {
+                return next;
+            }
+            // Entries of deleted patients are removed by the database; anything else means the visit was taken.
+            if (waitlistEntryRepository.existsById(entry.getId())) {
+                visitWaitlist.add(entry);
+                return Optional.empty();
+            }
+            next = visitWaitlist.poll(visit.getDoctor().getId(), visit.getDoctor().getSpecialization());
+        }
+        availabilityProjection.slotOpened(visit);
+        return Optional.empty();
+    }
+}
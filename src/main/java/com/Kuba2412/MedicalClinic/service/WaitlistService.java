@@ -0,0 +1,63 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.handler.exception.DoctorNotFoundException;
+import com.Kuba2412.MedicalClinic.handler.exception.PatientNotFound;
+import com.Kuba2412.MedicalClinic.handler.exception.WaitlistEntryNotFound;
+import com.Kuba2412.MedicalClinic.model.Doctor;
+import com.Kuba2412.MedicalClinic.model.WaitlistEntry;
+import com.Kuba2412.MedicalClinic.model.dto.WaitlistDTO;
+import com.Kuba2412.MedicalClinic.model.mapper.WaitlistMapper;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import com.Kuba2412.MedicalClinic.repository.WaitlistEntryRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+public class WaitlistService {
+
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final PatientRepository patientRepository;
+    private final DoctorRepository doctorRepository;
+    private final WaitlistMapper waitlistMapper;
+    private final VisitWaitlist visitWaitlist;
+
+    @Transactional
+    public WaitlistDTO joinWaitlist(WaitlistDTO waitlistDTO) {
+        if (waitlistDTO == null || waitlistDTO.getPatientId() == null) {
+            throw new IllegalArgumentException("Patient is required.");
+        }
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setPatient(patientRepository.findById(waitlistDTO.getPatientId())
+                .orElseThrow(() -> new PatientNotFound("Patient not found.")));
+        if (waitlistDTO.getDoctorId() != null) {
+            Doctor doctor = doctorRepository.findById(waitlistDTO.getDoctorId())
+                    .orElseThrow(() -> new DoctorNotFoundException("Doctor not found."));
+            entry.setDoctor(doctor);
+            entry.setSpecialization(doctor.getSpecialization());
+        } else if (waitlistDTO.getSpecialization() == null || waitlistDTO.getSpecialization().isBlank()) {
+            throw new IllegalArgumentException("Doctor or specialization is required.");
+        } else {
+            entry.setSpecialization(waitlistDTO.getSpecialization());
+        }
+        entry.setCreatedAt(LocalDateTime.now());
+
+        WaitlistDTO savedEntry = waitlistMapper.waitlistEntryToWaitlistDTO(waitlistEntryRepository.save(entry));
+        // The promotion job must not hand a visit to an entry whose row may still be rolled back.
+        TransactionCallbacks.afterCommit(() -> visitWaitlist.add(savedEntry));
+        return savedEntry;
+    }
+
+    @Transactional
+    public void leaveWaitlist(Long entryId) {
+        if (!waitlistEntryRepository.existsById(entryId)) {
+            throw new WaitlistEntryNotFound("Waitlist entry not found.");
+        }
+        waitlistEntryRepository.deleteById(entryId);
+        TransactionCallbacks.afterCommit(() -> visitWaitlist.remove(entryId));
+    }
+}
@@ -0,0 +1,52 @@
+package com.Kuba2412.MedicalClinic.controller;
+
+import com.Kuba2412.MedicalClinic.model.dto.DirectoryCacheStatsDTO;
+import com.Kuba2412.MedicalClinic.service.DirectoryCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class DirectoryControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private DirectoryCache directoryCache;
+
+    @Test
+    void refresh_CacheCleared_StatsReturned() throws Exception {
+        when(directoryCache.refresh()).thenReturn(
+                new DirectoryCacheStatsDTO(0, 10000, 5, 1, 0, 0.8, LocalDateTime.of(2024, 5, 1, 12, 0)));
+
+        mockMvc.perform(post("/directory/refresh"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(0))
+                .andExpect(jsonPath("$.hits").value(5));
+
+        verify(directoryCache, times(1)).refresh();
+    }
+
+    @Test
+    void getStats_CacheUsed_StatsReturned() throws Exception {
+        when(directoryCache.getStats()).thenReturn(
+                new DirectoryCacheStatsDTO(12, 10000, 30, 12, 0, 0.71, LocalDateTime.of(2024, 5, 1, 12, 0)));
+
+        mockMvc.perform(get("/directory/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(12))
+                .andExpect(jsonPath("$.maxSize").value(10000))
+                .andExpect(jsonPath("$.hitRate").value(0.71));
+    }
+}
@@ -1,20 +1,29 @@
 package com.Kuba2412.MedicalClinic.controller;
 
 import com.Kuba2412.MedicalClinic.handler.exception.DoctorNotFoundException;
-import com.Kuba2412.MedicalClinic.model.Institution;
+import com.Kuba2412.MedicalClinic.handler.exception.ScheduleTemplateNotFound;
 import com.Kuba2412.MedicalClinic.model.dto.DoctorDTO;
+import com.Kuba2412.MedicalClinic.model.dto.InstitutionDTO;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleTemplateDTO;
 import com.Kuba2412.MedicalClinic.model.dto.SimpleDoctorDTO;
 import com.Kuba2412.MedicalClinic.service.DoctorService;
+import com.Kuba2412.MedicalClinic.service.ScheduleTemplateService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.EnumSet;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -36,6 +45,9 @@ public class DoctorControllerTest {
     @MockBean
     private DoctorService doctorService;
 
+    @MockBean
+    private ScheduleTemplateService scheduleTemplateService;
+
     @MockBean
     private DoctorDTO doctorDTO;
 
@@ -43,7 +55,7 @@ public class DoctorControllerTest {
     private SimpleDoctorDTO simpleDoctorDTO;
 
     @MockBean
-    private Institution institution;
+    private InstitutionDTO institution;
 
     @BeforeEach
     void setup() {
@@ -56,7 +68,7 @@ public class DoctorControllerTest {
         simpleDoctorDTO.setFirstName("Kuba");
         simpleDoctorDTO.setLastName("Ppp");
 
-        institution = new Institution();
+        institution = new InstitutionDTO();
         institution.setId(1L);
         institution.setName("Szpital 1");
     }
@@ -84,6 +96,34 @@ public class DoctorControllerTest {
                 .andExpect(content().string("Doctor can't be null."));
     }
 
+    @Test
+    void getDoctorsBatch_IdsGiven_DoctorsReturnedInRequestOrder() throws Exception {
+
+        SimpleDoctorDTO second = new SimpleDoctorDTO(2L, "Anna", "Nowak", "Cardiology");
+        SimpleDoctorDTO first = new SimpleDoctorDTO(1L, "Kuba", "Ppp", "Dermatology");
+        when(doctorService.getDoctorsByIds(List.of(2L, 1L))).thenReturn(List.of(second, first));
+
+        mockMvc.perform(get("/doctors/batch")
+                        .param("ids", "2,1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[1].id").value(1));
+    }
+
+    @Test
+    void getDoctorsBySpecialization_DoctorsExist_DoctorsReturned() throws Exception {
+
+        SimpleDoctorDTO doctor = new SimpleDoctorDTO(1L, "Kuba", "Ppp", "Neurology");
+        when(doctorService.getDoctorsBySpecialization("Neurology")).thenReturn(List.of(doctor));
+
+        mockMvc.perform(get("/doctors/specializations/Neurology")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].specialization").value("Neurology"));
+    }
+
     @Test
     void getAllDoctors_DoctorsExist_DoctorsReturned() throws Exception {
 
@@ -92,7 +132,7 @@ public class DoctorControllerTest {
         doctorDTO.setLastName("Ppp");
         List<SimpleDoctorDTO> doctors = List.of(doctorDTO);
 
-        when(doctorService.getAllDoctors(any())).thenReturn(doctors);
+        when(doctorService.getAllDoctors(any())).thenReturn(new SliceImpl<>(doctors));
 
         mockMvc.perform(get("/doctors")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -102,10 +142,36 @@ public class DoctorControllerTest {
                 .andExpect(jsonPath("$[0].lastName").value("Ppp"));
     }
 
+    @Test
+    void getAllDoctors_TotalRequested_HeadersReturned() throws Exception {
+        when(doctorService.getAllDoctors(any())).thenReturn(new SliceImpl<>(List.of(simpleDoctorDTO), PageRequest.of(0, 1), true));
+        when(doctorService.countDoctors()).thenReturn(7L);
+
+        mockMvc.perform(get("/doctors")
+                        .param("includeTotal", "true")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Has-Next", "true"))
+                .andExpect(header().string("X-Total-Count", "7"));
+    }
+
+    @Test
+    void getAllDoctors_TotalNotRequested_NotCounted() throws Exception {
+        when(doctorService.getAllDoctors(any())).thenReturn(new SliceImpl<>(List.of(simpleDoctorDTO)));
+
+        mockMvc.perform(get("/doctors")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Has-Next", "false"))
+                .andExpect(header().doesNotExist("X-Total-Count"));
+
+        verify(doctorService, never()).countDoctors();
+    }
+
     @Test
     void getAllSimpleDoctors_DoctorsExist_DoctorsReturned() throws Exception {
         List<SimpleDoctorDTO> doctors = List.of(simpleDoctorDTO);
-        when(doctorService.getAllSimpleDoctors(any())).thenReturn(doctors);
+        when(doctorService.getAllSimpleDoctors(any())).thenReturn(new SliceImpl<>(doctors));
 
         mockMvc.perform(get("/doctors/simple")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -117,19 +183,21 @@ public class DoctorControllerTest {
 
     @Test
     void getAssignedInstitutionsForDoctor_DoctorExists_InstitutionsReturned() throws Exception {
-        List<Institution> institutions = List.of(institution);
-        when(doctorService.getAssignedInstitutionsForDoctor(anyLong())).thenReturn(institutions);
+        institution.setDoctorIds(List.of(1L, 2L));
+        List<InstitutionDTO> institutions = List.of(institution);
+        when(doctorService.getAssignedInstitutionsForDoctor(anyLong(), any())).thenReturn(institutions);
 
         mockMvc.perform(get("/doctors/1/institutions")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.size()").value(institutions.size()))
-                .andExpect(jsonPath("$[0].name").value(institution.getName()));
+                .andExpect(jsonPath("$[0].name").value(institution.getName()))
+                .andExpect(jsonPath("$[0].doctorIds.size()").value(2));
     }
 
     @Test
     void getAssignedInstitutionsForDoctor_DoctorNotFound_ThrowException() throws Exception {
-        when(doctorService.getAssignedInstitutionsForDoctor(anyLong()))
+        when(doctorService.getAssignedInstitutionsForDoctor(anyLong(), any()))
                 .thenThrow(new DoctorNotFoundException("Doctor not found."));
 
         mockMvc.perform(get("/doctors/12345/institutions")
@@ -137,4 +205,31 @@ public class DoctorControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(content().string("Doctor not found."));
     }
-}
\ No newline at end of file
+
+    @Test
+    void createScheduleTemplate_ValidInput_Created() throws Exception {
+        // given
+        ScheduleTemplateDTO templateDTO = new ScheduleTemplateDTO(null, null,
+                EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), LocalTime.of(8, 0), LocalTime.of(14, 0), 15, null, null);
+        ScheduleTemplateDTO saved = new ScheduleTemplateDTO(7L, 1L, templateDTO.getDaysOfWeek(),
+                templateDTO.getStartTime(), templateDTO.getEndTime(), 15, LocalDate.of(2030, 1, 1), null);
+        when(scheduleTemplateService.createTemplate(1L, templateDTO)).thenReturn(saved);
+
+        mockMvc.perform(post("/doctors/1/schedule-templates")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(templateDTO)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(7))
+                .andExpect(jsonPath("$.daysOfWeek.size()").value(5));
+    }
+
+    @Test
+    void deleteScheduleTemplate_TemplateNotFound_ThrowException() throws Exception {
+        doThrow(new ScheduleTemplateNotFound("Schedule template not found."))
+                .when(scheduleTemplateService).deleteTemplate(5L);
+
+        mockMvc.perform(delete("/doctors/schedule-templates/5"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string("Schedule template not found."));
+    }
+}
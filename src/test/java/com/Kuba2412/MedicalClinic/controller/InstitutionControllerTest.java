@@ -1,8 +1,9 @@
 package com.Kuba2412.MedicalClinic.controller;
 
 import com.Kuba2412.MedicalClinic.handler.exception.InstitutionNotFound;
-import com.Kuba2412.MedicalClinic.model.Doctor;
 import com.Kuba2412.MedicalClinic.model.dto.InstitutionDTO;
+import com.Kuba2412.MedicalClinic.model.dto.LocalityQuery;
+import com.Kuba2412.MedicalClinic.model.dto.SimpleDoctorDTO;
 import com.Kuba2412.MedicalClinic.service.InstitutionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,6 +13,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -38,18 +40,30 @@ public class InstitutionControllerTest {
     private InstitutionService institutionService;
 
     private InstitutionDTO institutionDTO;
-    private Doctor doctor;
+    private SimpleDoctorDTO doctor;
 
     @BeforeEach
     void setup() {
         institutionDTO = new InstitutionDTO();
         institutionDTO.setName("Szpital 1");
 
-        doctor = new Doctor();
+        doctor = new SimpleDoctorDTO();
         doctor.setFirstName("Kuba");
         doctor.setLastName("Ppp");
     }
 
+    @Test
+    void getInstitutionsBatch_IdsGiven_InstitutionsReturned() throws Exception {
+        institutionDTO.setId(2L);
+        when(institutionService.getInstitutionsByIds(List.of(2L, 1L))).thenReturn(List.of(institutionDTO));
+
+        mockMvc.perform(get("/institutions/batch")
+                        .param("ids", "2", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[0].name").value("Szpital 1"));
+    }
+
     @Test
     void createInstitution_ValidInput_InstitutionCreated() throws Exception {
         mockMvc.perform(post("/institutions")
@@ -75,7 +89,7 @@ public class InstitutionControllerTest {
     @Test
     void getAllInstitutions_InstitutionsExist_InstitutionsReturned() throws Exception {
         List<InstitutionDTO> institutions = Arrays.asList(institutionDTO);
-        when(institutionService.getAllInstitutions(any(Pageable.class))).thenReturn(institutions);
+        when(institutionService.getAllInstitutions(any(Pageable.class))).thenReturn(new SliceImpl<>(institutions));
 
         mockMvc.perform(get("/institutions")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -83,10 +97,38 @@ public class InstitutionControllerTest {
                 .andExpect(jsonPath("$.size()").value(institutions.size()));
     }
 
+    @Test
+    void searchInstitutions_CoordinatesGiven_InstitutionsReturned() throws Exception {
+        institutionDTO.setId(1L);
+        LocalityQuery query = new LocalityQuery("00", "Warszawa", 52.23, 21.01, 5, 10);
+        when(institutionService.searchByLocality(query)).thenReturn(List.of(institutionDTO));
+
+        mockMvc.perform(get("/institutions/search")
+                        .param("postalCode", "00")
+                        .param("city", "Warszawa")
+                        .param("latitude", "52.23")
+                        .param("longitude", "21.01")
+                        .param("radiusKm", "5")
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].name").value("Szpital 1"));
+    }
+
+    @Test
+    void searchInstitutions_NoCriteria_BadRequest() throws Exception {
+        when(institutionService.searchByLocality(any(LocalityQuery.class)))
+                .thenThrow(new IllegalArgumentException("Postal code, city or coordinates are required."));
+
+        mockMvc.perform(get("/institutions/search"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Postal code, city or coordinates are required."));
+    }
+
     @Test
     void getDoctorsForInstitution_InstitutionExists_DoctorsReturned() throws Exception {
-        List<Doctor> doctors = Arrays.asList(doctor);
-        when(institutionService.getDoctorsForInstitution(anyLong())).thenReturn(doctors);
+        List<SimpleDoctorDTO> doctors = Arrays.asList(doctor);
+        when(institutionService.getDoctorsForInstitution(anyLong(), any())).thenReturn(doctors);
 
         mockMvc.perform(get("/institutions/1/doctors")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -97,7 +139,7 @@ public class InstitutionControllerTest {
     @Test
     void getDoctorsForInstitution_InstitutionNotFound_ThrowException() throws Exception {
 
-        when(institutionService.getDoctorsForInstitution(anyLong()))
+        when(institutionService.getDoctorsForInstitution(anyLong(), any()))
                 .thenThrow(new InstitutionNotFound("Institution not found."));
 
         mockMvc.perform(get("/institutions/12345/doctors")
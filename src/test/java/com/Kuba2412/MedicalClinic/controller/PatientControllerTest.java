@@ -1,8 +1,11 @@
 package com.Kuba2412.MedicalClinic.controller;
 
+import com.Kuba2412.MedicalClinic.handler.exception.PatientImportNotFound;
 import com.Kuba2412.MedicalClinic.handler.exception.PatientNotFound;
 import com.Kuba2412.MedicalClinic.model.Patient;
 import com.Kuba2412.MedicalClinic.model.dto.PatientDTO;
+import com.Kuba2412.MedicalClinic.model.dto.PatientImportDTO;
+import com.Kuba2412.MedicalClinic.service.PatientImporter;
 import com.Kuba2412.MedicalClinic.service.PatientService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -21,6 +24,10 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -38,6 +45,9 @@ public class PatientControllerTest {
     @MockBean
     private PatientService patientService;
 
+    @MockBean
+    private PatientImporter patientImporter;
+
     private Patient patient;
     private PatientDTO patientDTO;
 
@@ -67,6 +77,80 @@ public class PatientControllerTest {
                 .andExpect(jsonPath("$.email").value(patientDTO.getEmail()));
     }
 
+    @Test
+    void searchPatients_QueryGiven_MatchesReturned() throws Exception {
+
+        when(patientService.searchPatients("kub", 5)).thenReturn(List.of(patientDTO));
+
+        mockMvc.perform(get("/patients/search")
+                        .param("q", "kub")
+                        .param("limit", "5")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].email").value(patientDTO.getEmail()));
+    }
+
+    @Test
+    void getPatientsBatch_EmailsGiven_PatientsReturned() throws Exception {
+
+        when(patientService.getPatientsByEmails(List.of("kuba@gmail.com", "anna@gmail.com"))).thenReturn(List.of(patientDTO));
+
+        mockMvc.perform(get("/patients/batch")
+                        .param("emails", "kuba@gmail.com,anna@gmail.com")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].email").value(patientDTO.getEmail()));
+    }
+
+    @Test
+    void getPatientsBatch_IdsAndEmailsGiven_BadRequest() throws Exception {
+
+        mockMvc.perform(get("/patients/batch")
+                        .param("ids", "1")
+                        .param("emails", "kuba@gmail.com")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(patientService);
+    }
+
+    @Test
+    void importPatients_CsvUploaded_ImportReturned() throws Exception {
+
+        PatientImportDTO patientImportDTO = new PatientImportDTO(1L, "CSV", "COMPLETED", 1, 1, 0, 0, null, null, 100, List.of());
+        when(patientImporter.importPatients(any(), eq(PatientImporter.Format.CSV), isNull())).thenReturn(patientImportDTO);
+
+        mockMvc.perform(post("/patients/import")
+                        .contentType("text/csv")
+                        .content("email,idCardNo,firstName,lastName,phoneNumber,birthday\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.imported").value(1));
+    }
+
+    @Test
+    void getImport_ImportNotFound_NotFoundReturned() throws Exception {
+
+        when(patientImporter.getImport(5L)).thenThrow(new PatientImportNotFound("Patient import not found."));
+
+        mockMvc.perform(get("/patients/import/5"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string("Patient import not found."));
+    }
+
+    @Test
+    void patchPatientByEmail_FieldsGiven_NoContentReturned() throws Exception {
+
+        PatientDTO changes = new PatientDTO();
+        changes.setPhoneNumber("987654321");
+
+        mockMvc.perform(patch("/patients/kuba123@gmail.com")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(changes)))
+                .andExpect(status().isNoContent());
+        verify(patientService).patchPatientByEmail("kuba123@gmail.com", changes);
+    }
+
     @Test
     void getPatientByEmail_PatientNotFound_ThrowException() throws Exception {
 
@@ -11,6 +11,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -78,7 +79,7 @@ public class UserControllerTest {
     @Test
     void getAllUsers_UsersExist_UsersReturned() throws Exception {
         List<User> users = Arrays.asList(user);
-        when(userService.getAllUsers(any(Pageable.class))).thenReturn(users);
+        when(userService.getAllUsers(any(Pageable.class))).thenReturn(new SliceImpl<>(users));
 
         mockMvc.perform(get("/users")
                         .contentType(MediaType.APPLICATION_JSON)
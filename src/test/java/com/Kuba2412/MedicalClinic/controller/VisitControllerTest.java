@@ -5,10 +5,24 @@ import com.Kuba2412.MedicalClinic.handler.exception.PatientNotFound;
 import com.Kuba2412.MedicalClinic.handler.exception.VisitNotFound;
 import com.Kuba2412.MedicalClinic.model.Patient;
 import com.Kuba2412.MedicalClinic.model.Visit;
+import com.Kuba2412.MedicalClinic.model.dto.AvailabilityRebuildDTO;
+import com.Kuba2412.MedicalClinic.model.dto.BulkVisitChangeDTO;
+import com.Kuba2412.MedicalClinic.model.dto.RegistrationDTO;
+import com.Kuba2412.MedicalClinic.model.dto.RegistrationResultDTO;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleDTO;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleResultDTO;
+import com.Kuba2412.MedicalClinic.model.dto.SlotDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitCursor;
 import com.Kuba2412.MedicalClinic.model.dto.VisitDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitHoldDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitRescheduleDTO;
+import com.Kuba2412.MedicalClinic.model.dto.WaitlistDTO;
 import com.Kuba2412.MedicalClinic.repository.PatientRepository;
 import com.Kuba2412.MedicalClinic.repository.VisitRepository;
+import com.Kuba2412.MedicalClinic.service.AvailabilityProjection;
+import com.Kuba2412.MedicalClinic.service.VisitExportService;
 import com.Kuba2412.MedicalClinic.service.VisitService;
+import com.Kuba2412.MedicalClinic.service.WaitlistService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,9 +31,11 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -42,6 +58,15 @@ public class VisitControllerTest {
     @MockBean
     private VisitService visitService;
 
+    @MockBean
+    private VisitExportService visitExportService;
+
+    @MockBean
+    private WaitlistService waitlistService;
+
+    @MockBean
+    private AvailabilityProjection availabilityProjection;
+
     @MockBean
     private VisitRepository visitRepository;
 
@@ -112,7 +137,7 @@ public class VisitControllerTest {
         visitDTO2.setEndVisit(endDate2);
 
         List<VisitDTO> visitDTOs = Arrays.asList(visitDTO1, visitDTO2);
-        when(visitService.getAllVisitsForPatient(patientId)).thenReturn(visitDTOs);
+        when(visitService.getAllVisitsForPatient(patientId, new VisitCursor())).thenReturn(visitDTOs);
 
         // when + then
         mockMvc.perform(get("/visits/patient/{patientId}", patientId)
@@ -128,7 +153,7 @@ public class VisitControllerTest {
         // given
         Long nonExistentPatientId = 12345L;
 
-        when(visitService.getAllVisitsForPatient(nonExistentPatientId))
+        when(visitService.getAllVisitsForPatient(nonExistentPatientId, new VisitCursor()))
                 .thenThrow(new PatientNotFound("Patient not found."));
 
         // when + then
@@ -146,7 +171,7 @@ public class VisitControllerTest {
                 new VisitDTO(2L, LocalDateTime.now(), LocalDateTime.now().plusHours(1), 1L, doctorId, "Cardiology")
         );
 
-        when(visitService.getVisitsByDoctorId(doctorId)).thenReturn(visits);
+        when(visitService.getVisitsByDoctorId(doctorId, new VisitCursor())).thenReturn(visits);
 
         mockMvc.perform(get("/visits/doctor/{doctorId}", doctorId)
                         .contentType(MediaType.APPLICATION_JSON))
@@ -160,7 +185,7 @@ public class VisitControllerTest {
     void getVisitsByDoctorId_DoctorNotFound_NotFound() throws Exception {
         Long doctorId = 1L;
 
-        when(visitService.getVisitsByDoctorId(doctorId)).thenThrow(new DoctorNotFoundException("Doctor not found."));
+        when(visitService.getVisitsByDoctorId(doctorId, new VisitCursor())).thenThrow(new DoctorNotFoundException("Doctor not found."));
 
         mockMvc.perform(get("/visits/doctor/{doctorId}", doctorId)
                         .contentType(MediaType.APPLICATION_JSON))
@@ -203,4 +228,230 @@ public class VisitControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(content().string("Visit not found."));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getFreeSlotsForDoctor_SlotsExist_SlotsReturned() throws Exception {
+        Long doctorId = 2L;
+        LocalDate date = LocalDate.now().plusDays(1);
+        List<SlotDTO> slots = Arrays.asList(
+                new SlotDTO(1L, doctorId, date.atTime(9, 0)),
+                new SlotDTO(2L, doctorId, date.atTime(9, 15))
+        );
+
+        when(visitService.getFreeSlotsForDoctor(doctorId, date)).thenReturn(slots);
+
+        mockMvc.perform(get("/visits/doctor/{doctorId}/free-slots", doctorId)
+                        .param("date", date.toString())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(slots.size()))
+                .andExpect(jsonPath("$[0].visitId").value(1L))
+                .andExpect(jsonPath("$[1].visitId").value(2L));
+    }
+
+    @Test
+    void getFirstFreeSlotBySpecialization_NoSlot_NotFound() throws Exception {
+        String specialization = "Cardiology";
+
+        when(visitService.getFirstFreeSlotBySpecialization(specialization))
+                .thenThrow(new VisitNotFound("Visit not found."));
+
+        mockMvc.perform(get("/visits/doctor/specialization/{specialization}/first-free-slot", specialization)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string("Visit not found."));
+    }
+
+    @Test
+    void generateSchedule_ValidSchedule_Created() throws Exception {
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        ScheduleDTO scheduleDTO = new ScheduleDTO(1L, startDate, startDate.plusDays(29),
+                LocalTime.of(8, 0), LocalTime.of(16, 0), 15);
+
+        when(visitService.generateSchedule(scheduleDTO)).thenReturn(new ScheduleResultDTO(960, 0, 120, 8000));
+
+        mockMvc.perform(post("/visits/schedule")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(scheduleDTO)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.createdVisits").value(960))
+                .andExpect(jsonPath("$.rowsPerSecond").value(8000));
+    }
+
+    @Test
+    void getVisitsByDoctorId_CursorGiven_NextPageReturned() throws Exception {
+        Long doctorId = 1L;
+        LocalDateTime afterStart = LocalDateTime.of(2030, 1, 1, 9, 0);
+        VisitCursor cursor = new VisitCursor(afterStart, 5L, 2);
+        List<VisitDTO> visits = List.of(
+                new VisitDTO(6L, afterStart.plusMinutes(15), afterStart.plusMinutes(30), null, doctorId, "Cardiology"));
+
+        when(visitService.getVisitsByDoctorId(doctorId, cursor)).thenReturn(visits);
+
+        mockMvc.perform(get("/visits/doctor/{doctorId}", doctorId)
+                        .param("afterStart", afterStart.toString())
+                        .param("afterId", "5")
+                        .param("size", "2")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(6L));
+    }
+
+    @Test
+    void exportVisits_ValidRange_NdjsonStreamed() throws Exception {
+        LocalDate from = LocalDate.of(2030, 1, 1);
+        LocalDate to = LocalDate.of(2030, 1, 31);
+        String body = "{\"id\":1}\n{\"id\":2}\n";
+
+        when(visitExportService.exportVisits(from, to, null, "Cardiology"))
+                .thenReturn(outputStream -> outputStream.write(body.getBytes()));
+
+        MvcResult result = mockMvc.perform(get("/visits/export")
+                        .param("from", from.toString())
+                        .param("to", to.toString())
+                        .param("specialization", "Cardiology"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(body));
+    }
+
+    @Test
+    void holdVisit_FreeVisit_Created() throws Exception {
+        // given
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(5);
+        when(visitService.holdVisit(1L, 2L)).thenReturn(new VisitHoldDTO(1L, 2L, expiresAt));
+
+        mockMvc.perform(post("/visits/{visitId}/hold", 1L)
+                        .param("patientId", "2"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.visitId").value(1L))
+                .andExpect(jsonPath("$.patientId").value(2L));
+    }
+
+    @Test
+    void releaseHold_NoHold_NotFound() throws Exception {
+        // given
+        doThrow(new VisitNotFound("Visit hold not found.")).when(visitService).releaseHold(1L, 2L);
+
+        mockMvc.perform(delete("/visits/{visitId}/hold", 1L)
+                        .param("patientId", "2"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string("Visit hold not found."));
+    }
+
+    @Test
+    void cancelRegistration_RegisteredPatient_NoContent() throws Exception {
+        mockMvc.perform(delete("/visits/{visitId}/patient/{patientId}", 1L, 2L))
+                .andExpect(status().isNoContent());
+
+        verify(visitService, times(1)).cancelRegistration(1L, 2L);
+    }
+
+    @Test
+    void registerPatientForTemplateSlot_ValidSlot_Created() throws Exception {
+        // given
+        LocalDateTime start = LocalDateTime.of(2030, 3, 4, 8, 15);
+        when(visitService.registerPatientForTemplateSlot(1L, start, 2L))
+                .thenReturn(new VisitDTO(40L, start, start.plusMinutes(15), 2L, 1L, "Cardiology"));
+
+        mockMvc.perform(post("/visits/doctor/{doctorId}/template-slots/register", 1L)
+                        .param("start", "2030-03-04T08:15:00")
+                        .param("patientId", "2"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(40))
+                .andExpect(jsonPath("$.patientId").value(2));
+    }
+
+    @Test
+    void cancelDoctorVisits_ValidRange_AffectedPatientsReturned() throws Exception {
+        // given
+        LocalDateTime from = LocalDateTime.of(2030, 3, 4, 0, 0);
+        when(visitService.cancelDoctorVisits(1L, from, from.plusDays(1)))
+                .thenReturn(new BulkVisitChangeDTO(12, List.of(3L, 4L)));
+
+        mockMvc.perform(delete("/visits/doctor/{doctorId}", 1L)
+                        .param("from", "2030-03-04T00:00:00")
+                        .param("to", "2030-03-05T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affectedVisits").value(12))
+                .andExpect(jsonPath("$.patientIds[1]").value(4));
+    }
+
+    @Test
+    void rescheduleDoctorVisits_ValidInput_AffectedPatientsReturned() throws Exception {
+        // given
+        LocalDateTime from = LocalDateTime.of(2030, 3, 4, 0, 0);
+        VisitRescheduleDTO rescheduleDTO = new VisitRescheduleDTO(from, from.plusDays(1), 2L, LocalDate.of(2030, 3, 11));
+        when(visitService.rescheduleDoctorVisits(1L, rescheduleDTO))
+                .thenReturn(new BulkVisitChangeDTO(30, List.of(3L)));
+
+        mockMvc.perform(post("/visits/doctor/{doctorId}/reschedule", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(rescheduleDTO)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affectedVisits").value(30))
+                .andExpect(jsonPath("$.patientIds[0]").value(3));
+    }
+
+    @Test
+    void joinWaitlist_ValidInput_Created() throws Exception {
+        // given
+        WaitlistDTO waitlistDTO = new WaitlistDTO(null, 2L, null, "Cardiology", null);
+        when(waitlistService.joinWaitlist(waitlistDTO))
+                .thenReturn(new WaitlistDTO(5L, 2L, null, "Cardiology", LocalDateTime.now()));
+
+        mockMvc.perform(post("/visits/waitlist")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(waitlistDTO)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(5L))
+                .andExpect(jsonPath("$.specialization").value("Cardiology"));
+    }
+
+    @Test
+    void getNextAvailableSlots_CityGiven_SlotsReturned() throws Exception {
+        // given
+        LocalDateTime start = LocalDate.now().plusWeeks(3).atTime(9, 0);
+        when(visitService.getNextAvailableSlots("Neurology", "Warszawa", 2))
+                .thenReturn(List.of(new SlotDTO(10L, 1L, start), new SlotDTO(11L, 2L, start.plusMinutes(15))));
+
+        mockMvc.perform(get("/visits/doctor/specialization/{specialization}/next-available", "Neurology")
+                        .param("city", "Warszawa")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].visitId").value(11L));
+    }
+
+    @Test
+    void registerPatients_Batch_ResultPerPairReturned() throws Exception {
+        // given
+        List<RegistrationDTO> registrations = List.of(new RegistrationDTO(1L, 2L), new RegistrationDTO(1L, 3L));
+        when(visitService.registerPatients(registrations)).thenReturn(List.of(
+                new RegistrationResultDTO(1L, 2L, true, "Registered."),
+                new RegistrationResultDTO(1L, 3L, false, "Visit already has registered patient.")));
+
+        mockMvc.perform(post("/visits/register/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(registrations)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].registered").value(true))
+                .andExpect(jsonPath("$[1].message").value("Visit already has registered patient."));
+    }
+
+    @Test
+    void rebuildAvailability_Rebuilt_SummaryReturned() throws Exception {
+        // given
+        when(availabilityProjection.rebuild()).thenReturn(new AvailabilityRebuildDTO(120, 1, 15));
+
+        mockMvc.perform(post("/visits/available-slots/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.slots").value(120))
+                .andExpect(jsonPath("$.chunks").value(1));
+    }
+}
@@ -0,0 +1,77 @@
+package com.Kuba2412.MedicalClinic.repository;
+
+import com.Kuba2412.MedicalClinic.model.Patient;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomPreconditionFailedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class PatientEmailCollisionPreconditionTest {
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @AfterEach
+    void cleanup() {
+        patientRepository.deleteAll();
+    }
+
+    @Test
+    void check_EmailsDifferOnlyByCaseAndWhitespace_FailsListingPatientIds() throws Exception {
+        // given
+        Long first = createPatient("Collision@gmail.com", "ABC1").getId();
+        Long second = createPatient(" collision@gmail.com", "ABC2").getId();
+        createPatient("other@gmail.com", "ABC3");
+
+        try (Connection connection = dataSource.getConnection()) {
+            Database database = DatabaseFactory.getInstance()
+                    .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+
+            // when + then
+            CustomPreconditionFailedException exception = assertThrows(CustomPreconditionFailedException.class,
+                    () -> new PatientEmailCollisionPrecondition().check(database));
+            assertTrue(exception.getMessage().contains("collision@gmail.com=[" + first + ", " + second + "]"));
+            assertFalse(exception.getMessage().contains("other@gmail.com"));
+        }
+    }
+
+    @Test
+    void check_EmailsDistinctOnceNormalized_Passes() throws Exception {
+        // given
+        createPatient("First@gmail.com", "ABC1");
+        createPatient("second@gmail.com", "ABC2");
+
+        try (Connection connection = dataSource.getConnection()) {
+            Database database = DatabaseFactory.getInstance()
+                    .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+
+            // when + then
+            assertDoesNotThrow(() -> new PatientEmailCollisionPrecondition().check(database));
+        }
+    }
+
+    private Patient createPatient(String email, String idCardNo) {
+        Patient patient = new Patient();
+        patient.setEmail(email);
+        patient.setIdCardNo(idCardNo);
+        patient.setFirstName("Kuba");
+        patient.setLastName("Ppp");
+        patient.setPhoneNumber("123456789");
+        patient.setBirthday(LocalDate.of(1990, 1, 1));
+        return patientRepository.save(patient);
+    }
+}
@@ -0,0 +1,194 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Doctor;
+import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.model.dto.AvailabilityRebuildDTO;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitDTO;
+import com.Kuba2412.MedicalClinic.repository.AvailableSlotRepository;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import com.Kuba2412.MedicalClinic.repository.VisitRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class AvailabilityProjectionTest {
+
+    @Autowired
+    private VisitService visitService;
+
+    @Autowired
+    private AvailabilityProjection availabilityProjection;
+
+    @Autowired
+    private AvailableSlotRepository availableSlotRepository;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Doctor doctor;
+    private LocalDate tomorrow;
+
+    @BeforeEach
+    void setup() {
+        doctor = new Doctor();
+        doctor.setFirstName("Kuba");
+        doctor.setLastName("Ppp");
+        doctor.setSpecialization("Neurology");
+        doctor = doctorRepository.save(doctor);
+        tomorrow = LocalDate.now().plusDays(1);
+    }
+
+    @AfterEach
+    void cleanup() {
+        visitRepository.deleteAll();
+        patientRepository.deleteAll();
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void registerPatientForVisit_FreeVisit_SlotRemovedFromProjection() {
+        // given
+        visitService.generateSchedule(new ScheduleDTO(doctor.getId(), tomorrow, tomorrow,
+                LocalTime.of(8, 0), LocalTime.of(9, 0), 15));
+        List<VisitDTO> available = visitService.getAvailableVisitsByDoctorSpecializationAndByDate("Neurology", tomorrow);
+        Patient patient = new Patient();
+        patient.setEmail("projection@gmail.com");
+        patient.setIdCardNo("ABC1");
+        patient.setFirstName("Kuba");
+        patient.setLastName("Ppp");
+        patient.setPhoneNumber("123456789");
+        patient.setBirthday(LocalDate.of(1990, 1, 1));
+        patient = patientRepository.save(patient);
+
+        // when
+        visitService.registerPatientForVisit(available.get(0).getId(), patient.getId());
+
+        // then
+        assertEquals(4, available.size());
+        assertEquals(3, availableSlotRepository.count());
+        assertEquals(3, visitService.getAvailableVisitsByDoctorSpecializationAndByDate("Neurology", tomorrow).size());
+        assertEquals(3, visitService.getFreeSlotsForDoctor(doctor.getId(), tomorrow).size());
+    }
+
+    @Test
+    void registerPatientForVisit_TransactionRolledBack_ProjectionUnchanged() {
+        // given
+        visitService.generateSchedule(new ScheduleDTO(doctor.getId(), tomorrow, tomorrow,
+                LocalTime.of(8, 0), LocalTime.of(9, 0), 15));
+        Long visitId = visitService.getFreeSlotsForDoctor(doctor.getId(), tomorrow).get(0).getVisitId();
+        Patient patient = new Patient();
+        patient.setEmail("rollback@gmail.com");
+        patient.setIdCardNo("ABC2");
+        patient.setFirstName("Kuba");
+        patient.setLastName("Ppp");
+        patient.setPhoneNumber("123456789");
+        patient.setBirthday(LocalDate.of(1990, 1, 1));
+        Long patientId = patientRepository.save(patient).getId();
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            visitService.registerPatientForVisit(visitId, patientId);
+            status.setRollbackOnly();
+        });
+
+        // then
+        assertTrue(availableSlotRepository.existsById(visitId));
+        assertEquals(4, visitService.getFreeSlotsForDoctor(doctor.getId(), tomorrow).size());
+    }
+
+    @Test
+    void generateSchedule_TransactionRolledBack_NoSlotsProjected() {
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            visitService.generateSchedule(new ScheduleDTO(doctor.getId(), tomorrow, tomorrow,
+                    LocalTime.of(8, 0), LocalTime.of(9, 0), 15));
+            status.setRollbackOnly();
+        });
+
+        // then
+        assertEquals(0, availableSlotRepository.count());
+        assertTrue(visitService.getFreeSlotsForDoctor(doctor.getId(), tomorrow).isEmpty());
+    }
+
+    @Test
+    void rebuild_ProjectionLost_RegeneratedFromVisits() {
+        // given
+        visitService.generateSchedule(new ScheduleDTO(doctor.getId(), tomorrow, tomorrow.plusDays(59),
+                LocalTime.of(8, 0), LocalTime.of(16, 0), 15));
+        long visits = visitRepository.count();
+        jdbcTemplate.update("delete from available_slot");
+
+        // when
+        AvailabilityRebuildDTO result = availabilityProjection.rebuild();
+
+        // then
+        assertEquals(visits, result.getSlots());
+        assertEquals(visits, availableSlotRepository.count());
+        assertEquals(32, visitService.getFreeSlotsForDoctor(doctor.getId(), tomorrow).size());
+    }
+
+    @Test
+    void rebuild_BookingInFlight_BookedVisitNotRestored() throws Exception {
+        // given
+        visitService.generateSchedule(new ScheduleDTO(doctor.getId(), tomorrow, tomorrow,
+                LocalTime.of(8, 0), LocalTime.of(9, 0), 15));
+        Long visitId = visitService.getFreeSlotsForDoctor(doctor.getId(), tomorrow).get(0).getVisitId();
+        Patient patient = new Patient();
+        patient.setEmail("inflight@gmail.com");
+        patient.setIdCardNo("ABC3");
+        patient.setFirstName("Kuba");
+        patient.setLastName("Ppp");
+        patient.setPhoneNumber("123456789");
+        patient.setBirthday(LocalDate.of(1990, 1, 1));
+        Long patientId = patientRepository.save(patient).getId();
+        CountDownLatch booked = new CountDownLatch(1);
+
+        // when
+        CompletableFuture<Void> booking = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            visitService.registerPatientForVisit(visitId, patientId);
+            booked.countDown();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(booked.await(10, TimeUnit.SECONDS));
+        AvailabilityRebuildDTO result = availabilityProjection.rebuild();
+        booking.get(10, TimeUnit.SECONDS);
+
+        // then
+        assertEquals(3, result.getSlots());
+        assertFalse(availableSlotRepository.existsById(visitId));
+        assertEquals(3, visitService.getFreeSlotsForDoctor(doctor.getId(), tomorrow).size());
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from available_slot_rebuild", Integer.class));
+    }
+}
@@ -0,0 +1,132 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Doctor;
+import com.Kuba2412.MedicalClinic.model.Visit;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitDTO;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.VisitRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Availability search for one day reads a single index range, so its latency should not grow with
+ * the visit history around that day. The same search is timed before and after years of past
+ * visits and months of free future visits are added; the timings are logged.
+ */
+@SpringBootTest
+@Import(StatementCounter.class)
+public class AvailabilitySearchBenchmarkTest {
+
+    private static final int DOCTORS = 3;
+    private static final int HISTORY_DAYS = 730;
+    private static final int FUTURE_DAYS = 120;
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    private VisitService visitService;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    private final List<Doctor> doctors = new ArrayList<>();
+    private LocalDate day;
+
+    @BeforeEach
+    void setup() {
+        for (int i = 0; i < DOCTORS; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setFirstName("Kuba");
+            doctor.setLastName("Ppp" + i);
+            doctor.setSpecialization("Dermatology");
+            doctors.add(doctorRepository.save(doctor));
+        }
+        day = LocalDate.now().plusDays(2);
+        for (Doctor doctor : doctors) {
+            visitService.generateSchedule(new ScheduleDTO(doctor.getId(), day, day, LocalTime.of(8, 0), LocalTime.of(16, 0), 15));
+        }
+    }
+
+    @AfterEach
+    void cleanup() {
+        visitRepository.deleteAll();
+        doctorRepository.deleteAll();
+    }
+
+    @Benchmark
+    void getAvailableVisitsByDoctorSpecializationAndByDate_HistoryGrows_OneStatementAndSameResult() {
+        // given
+        long emptyNanos = measure();
+        List<VisitDTO> before = visitService.getAvailableVisitsByDoctorSpecializationAndByDate("Dermatology", day);
+
+        List<Visit> history = new ArrayList<>();
+        for (Doctor doctor : doctors) {
+            for (int i = 1; i <= HISTORY_DAYS; i++) {
+                LocalDateTime start = LocalDate.now().minusDays(i).atTime(9, 0);
+                history.add(new Visit(null, start, start.plusMinutes(15), null, doctor));
+            }
+            visitService.generateSchedule(new ScheduleDTO(doctor.getId(), day.plusDays(1), day.plusDays(FUTURE_DAYS),
+                    LocalTime.of(8, 0), LocalTime.of(16, 0), 15));
+        }
+        visitRepository.saveAll(history);
+
+        // when
+        long historyNanos = measure();
+        StatementCounter.reset();
+        List<VisitDTO> after = visitService.getAvailableVisitsByDoctorSpecializationAndByDate("Dermatology", day);
+        int statements = StatementCounter.count();
+
+        // then
+        assertEquals(1, statements);
+        assertEquals(DOCTORS * 32, after.size());
+        assertEquals(before.stream().map(VisitDTO::getId).toList(), after.stream().map(VisitDTO::getId).toList());
+        BenchmarkReport.log("Availability search for one day: {} us with {} visits, {} us with {} visits",
+                emptyNanos / 1_000, DOCTORS * 32, historyNanos / 1_000, visitRepository.count());
+    }
+
+    @Test
+    void getAvailableVisitsByDoctorSpecializationAndByDate_VisitAtMidnight_OnlyOnItsOwnDay() {
+        // given
+        Long doctorId = doctors.get(0).getId();
+        visitService.createVisit(new VisitDTO(null, day.atTime(23, 45), day.plusDays(1).atStartOfDay(), null, doctorId, null));
+        visitService.createVisit(new VisitDTO(null, day.plusDays(1).atStartOfDay(), day.plusDays(1).atTime(0, 15), null,
+                doctorId, null));
+
+        // when
+        List<VisitDTO> visits = visitService.getAvailableVisitsByDoctorSpecializationAndByDate("Dermatology", day);
+        List<VisitDTO> nextDayVisits = visitService.getAvailableVisitsByDoctorSpecializationAndByDate("Dermatology",
+                day.plusDays(1));
+
+        // then
+        assertEquals(day.atTime(23, 45), visits.get(visits.size() - 1).getStartVisit());
+        assertEquals(day.plusDays(1).atStartOfDay(), nextDayVisits.get(0).getStartVisit());
+        assertEquals(1, nextDayVisits.size());
+    }
+
+    private long measure() {
+        for (int i = 0; i < WARMUP; i++) {
+            visitService.getAvailableVisitsByDoctorSpecializationAndByDate("Dermatology", day);
+        }
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            visitService.getAvailableVisitsByDoctorSpecializationAndByDate("Dermatology", day);
+        }
+        return (System.nanoTime() - startedAt) / ITERATIONS;
+    }
+}
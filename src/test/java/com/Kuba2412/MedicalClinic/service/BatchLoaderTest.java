@@ -0,0 +1,63 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchLoaderTest {
+
+    private final List<List<Long>> batches = new ArrayList<>();
+
+    private final BatchLoader<Long, String> loader = new BatchLoader<>(this::loadEven);
+
+    @Test
+    void loadMany_DuplicatedAndUnknownKeys_OneBatchInRequestOrder() {
+        // when
+        Map<Long, String> result = loader.loadMany(List.of(6L, 3L, 2L, 6L));
+
+        // then
+        assertEquals(List.of(6L, 2L), List.copyOf(result.keySet()));
+        assertEquals(List.of(List.of(6L, 3L, 2L)), batches);
+    }
+
+    @Test
+    void loadMany_KeysLoadedBefore_OnlyNewKeysFetched() {
+        // given
+        loader.loadMany(List.of(2L, 3L));
+
+        // when
+        Map<Long, String> result = loader.loadMany(List.of(3L, 4L, 2L));
+
+        // then
+        assertEquals(Map.of(4L, "4", 2L, "2"), result);
+        assertEquals(List.of(List.of(2L, 3L), List.of(4L)), batches);
+    }
+
+    @Test
+    void load_PrimedKey_NothingFetched() {
+        // given
+        loader.prime(5L, "five");
+
+        // when
+        Optional<String> result = loader.load(5L);
+
+        // then
+        assertEquals(Optional.of("five"), result);
+        assertTrue(batches.isEmpty());
+    }
+
+    private Map<Long, String> loadEven(Collection<Long> keys) {
+        batches.add(List.copyOf(keys));
+        return keys.stream()
+                .filter(key -> key % 2 == 0)
+                .collect(Collectors.toMap(Function.identity(), String::valueOf));
+    }
+}
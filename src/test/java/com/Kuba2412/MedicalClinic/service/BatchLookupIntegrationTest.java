@@ -0,0 +1,149 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Doctor;
+import com.Kuba2412.MedicalClinic.model.Institution;
+import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.model.dto.InstitutionDTO;
+import com.Kuba2412.MedicalClinic.model.dto.PatientDTO;
+import com.Kuba2412.MedicalClinic.model.dto.SimpleDoctorDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitCursor;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.InstitutionRepository;
+import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Import(StatementCounter.class)
+public class BatchLookupIntegrationTest {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private InstitutionService institutionService;
+
+    @Autowired
+    private VisitService visitService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private InstitutionRepository institutionRepository;
+
+    @BeforeEach
+    void startRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void cleanup() {
+        RequestContextHolder.resetRequestAttributes();
+        patientRepository.deleteAll();
+        doctorRepository.deleteAll();
+        institutionRepository.deleteAll();
+    }
+
+    @Test
+    void getPatientsByIds_ThenByEmails_OneStatementForBoth() {
+        // given
+        Patient first = patientRepository.save(createPatient("first@gmail.com"));
+        Patient second = patientRepository.save(createPatient("second@gmail.com"));
+
+        // when
+        StatementCounter.reset();
+        List<PatientDTO> byIds = patientService.getPatientsByIds(List.of(second.getId(), -1L, first.getId(), second.getId()));
+        List<PatientDTO> byEmails = patientService.getPatientsByEmails(List.of("first@gmail.com", "second@gmail.com"));
+        int statements = StatementCounter.count();
+
+        // then
+        assertEquals(1, statements);
+        assertEquals(List.of("second@gmail.com", "first@gmail.com"), byIds.stream().map(PatientDTO::getEmail).toList());
+        assertEquals(List.of(first.getId(), second.getId()), byEmails.stream().map(PatientDTO::getId).toList());
+    }
+
+    @Test
+    void getVisitsByDoctorId_DoctorsLoadedInSameRequest_NoDoctorLookup() {
+        // given
+        Doctor first = doctorRepository.save(createDoctor("First"));
+        Doctor second = doctorRepository.save(createDoctor("Second"));
+
+        // when
+        StatementCounter.reset();
+        List<SimpleDoctorDTO> doctors = doctorService.getDoctorsByIds(List.of(second.getId(), first.getId()));
+        int batchStatements = StatementCounter.count();
+        StatementCounter.reset();
+        visitService.getVisitsByDoctorId(first.getId(), new VisitCursor());
+        visitService.getVisitsByDoctorId(second.getId(), new VisitCursor());
+        int visitStatements = StatementCounter.count();
+
+        // then
+        assertEquals(1, batchStatements);
+        assertEquals(4, visitStatements);
+        assertEquals(List.of("Second", "First"), doctors.stream().map(SimpleDoctorDTO::getLastName).toList());
+    }
+
+    @Test
+    void getInstitutionsByIds_IdsGiven_OneStatement() {
+        // given
+        Institution first = institutionRepository.save(createInstitution("Szpital 1"));
+        Institution second = institutionRepository.save(createInstitution("Szpital 2"));
+
+        // when
+        StatementCounter.reset();
+        List<InstitutionDTO> institutions = institutionService.getInstitutionsByIds(List.of(second.getId(), first.getId()));
+        int statements = StatementCounter.count();
+
+        // then
+        assertEquals(1, statements);
+        assertEquals(List.of("Szpital 2", "Szpital 1"), institutions.stream().map(InstitutionDTO::getName).toList());
+    }
+
+    private Patient createPatient(String email) {
+        Patient patient = new Patient();
+        patient.setEmail(email);
+        patient.setIdCardNo("ID-" + email);
+        patient.setFirstName("Kuba");
+        patient.setLastName("Ppp");
+        patient.setPhoneNumber("123456789");
+        patient.setBirthday(LocalDate.of(1990, 1, 1));
+        return patient;
+    }
+
+    private Doctor createDoctor(String lastName) {
+        Doctor doctor = new Doctor();
+        doctor.setFirstName("Kuba");
+        doctor.setLastName(lastName);
+        doctor.setSpecialization("Neurology");
+        return doctor;
+    }
+
+    private Institution createInstitution(String name) {
+        Institution institution = new Institution();
+        institution.setName(name);
+        institution.setCity("Warszawa");
+        institution.setPostalCode("00-001");
+        institution.setStreet("Marszałkowska");
+        institution.setBuildingNumber("1");
+        return institution;
+    }
+}
@@ -0,0 +1,20 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a test that measures latency or throughput. Benchmarks are left out of the default build
+ * and run with {@code mvn test -Pbenchmark}; they report their numbers through {@link BenchmarkReport}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Test
+@Tag("benchmark")
+public @interface Benchmark {
+}
@@ -0,0 +1,20 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs the numbers measured by {@link Benchmark} tests under a single logger, so they can be
+ * collected from the build output or silenced like any other log.
+ */
+final class BenchmarkReport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BenchmarkReport.class);
+
+    private BenchmarkReport() {
+    }
+
+    static void log(String format, Object... arguments) {
+        LOG.info(format, arguments);
+    }
+}
@@ -0,0 +1,154 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.dto.DirectoryCacheStatsDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DirectoryCacheTest {
+
+    private final DirectoryCache cache = new DirectoryCache(3);
+
+    @Test
+    void get_SameKeyTwice_LoadedOnce() {
+        // given
+        AtomicInteger loads = new AtomicInteger();
+
+        // when
+        cache.get(DirectoryCache.Region.DOCTOR, 1L, () -> "doctor" + loads.incrementAndGet());
+        String result = cache.get(DirectoryCache.Region.DOCTOR, 1L, () -> "doctor" + loads.incrementAndGet());
+
+        // then
+        assertEquals("doctor1", result);
+        assertEquals(1, loads.get());
+        DirectoryCacheStatsDTO stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.5, stats.getHitRate());
+    }
+
+    @Test
+    void get_SameKeyInOtherRegion_LoadedSeparately() {
+        // given
+        cache.get(DirectoryCache.Region.DOCTOR, 1L, () -> "doctor");
+
+        // when
+        String result = cache.get(DirectoryCache.Region.INSTITUTION, 1L, () -> "institution");
+
+        // then
+        assertEquals("institution", result);
+    }
+
+    @Test
+    void getAll_SomeKeysCached_MissingKeysLoadedInOneCall() {
+        // given
+        List<Collection<Long>> calls = new ArrayList<>();
+        Function<Collection<Long>, Map<Long, String>> loader = ids -> {
+            calls.add(List.copyOf(ids));
+            return ids.stream().filter(id -> id != 9L).collect(Collectors.toMap(Function.identity(), String::valueOf));
+        };
+        cache.getAll(DirectoryCache.Region.DOCTOR, List.of(1L), loader);
+
+        // when
+        Map<Long, String> result = cache.getAll(DirectoryCache.Region.DOCTOR, List.of(1L, 2L, 9L), loader);
+
+        // then
+        assertEquals(Map.of(1L, "1", 2L, "2"), result);
+        assertEquals(List.of(List.of(1L), List.of(2L, 9L)), calls);
+    }
+
+    @Test
+    void get_MoreEntriesThanMaxSize_OldestEvicted() {
+        // given
+        for (long id = 1; id <= 4; id++) {
+            long value = id;
+            cache.get(DirectoryCache.Region.DOCTOR, id, () -> value);
+        }
+
+        // when
+        Long result = cache.get(DirectoryCache.Region.DOCTOR, 1L, () -> 100L);
+
+        // then
+        assertEquals(100L, result);
+        assertEquals(3, cache.getStats().getSize());
+        assertEquals(2, cache.getStats().getEvictions());
+    }
+
+    @Test
+    void get_InvalidatedWhileLoading_ValueNotCached() {
+        // given
+        cache.get(DirectoryCache.Region.DOCTOR_PAGE, "page", () -> {
+            cache.invalidate();
+            return "stale";
+        });
+
+        // when
+        String result = cache.get(DirectoryCache.Region.DOCTOR_PAGE, "page", () -> "fresh");
+
+        // then
+        assertEquals("fresh", result);
+    }
+
+    @Test
+    void refresh_EntriesCached_CacheEmptied() {
+        // given
+        cache.get(DirectoryCache.Region.DOCTOR, 1L, () -> "doctor");
+
+        // when
+        DirectoryCacheStatsDTO stats = cache.refresh();
+
+        // then
+        assertEquals(0, stats.getSize());
+        assertEquals(3, stats.getMaxSize());
+        assertNotNull(stats.getRefreshedAt());
+    }
+
+    @Test
+    void get_ConcurrentReadersDuringRefresh_AlwaysCurrentValue() throws Exception {
+        // given
+        DirectoryCache shared = new DirectoryCache(1_000);
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> readers = new ArrayList<>();
+
+        // when
+        for (int thread = 0; thread < 8; thread++) {
+            readers.add(executor.submit(() -> {
+                int reads = 0;
+                while (running.get()) {
+                    long id = reads % 50;
+                    Long value = shared.get(DirectoryCache.Region.DOCTOR, id, () -> id * 10);
+                    assertEquals(id * 10, value);
+                    reads++;
+                }
+                return reads;
+            }));
+        }
+        for (int i = 0; i < 200; i++) {
+            shared.refresh();
+            Thread.sleep(1);
+        }
+        running.set(false);
+        executor.shutdown();
+
+        // then
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        for (Future<Integer> reader : readers) {
+            assertTrue(reader.get() > 0);
+        }
+        assertTrue(shared.getStats().getSize() <= 50);
+    }
+}
@@ -0,0 +1,133 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Doctor;
+import com.Kuba2412.MedicalClinic.model.Institution;
+import com.Kuba2412.MedicalClinic.model.dto.InstitutionDTO;
+import com.Kuba2412.MedicalClinic.model.dto.SimpleDoctorDTO;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.InstitutionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Import(StatementCounter.class)
+public class DoctorInstitutionQueryCountTest {
+
+    private static final Pageable PAGE = PageRequest.of(0, 50, Sort.by("id"));
+
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private InstitutionService institutionService;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private InstitutionRepository institutionRepository;
+
+    @AfterEach
+    void cleanup() {
+        doctorRepository.deleteAll();
+        institutionRepository.deleteAll();
+    }
+
+    @Test
+    void getAssignedInstitutionsForDoctor_FewAndManyInstitutions_SameStatementCount() {
+        // given
+        List<Institution> institutions = createInstitutions(40);
+        Doctor colleague = createDoctor("Colleague", institutions);
+        Doctor few = createDoctor("Few", institutions.subList(0, 2));
+        Doctor many = createDoctor("Many", institutions);
+
+        // when
+        StatementCounter.reset();
+        List<InstitutionDTO> fewResult = doctorService.getAssignedInstitutionsForDoctor(few.getId(), PAGE);
+        int fewStatements = StatementCounter.count();
+        StatementCounter.reset();
+        List<InstitutionDTO> manyResult = doctorService.getAssignedInstitutionsForDoctor(many.getId(), PAGE);
+        int manyStatements = StatementCounter.count();
+
+        // then
+        assertEquals(2, fewResult.size());
+        assertEquals(40, manyResult.size());
+        assertEquals(fewStatements, manyStatements);
+        assertEquals(2, manyStatements);
+        assertEquals(List.of(colleague.getId(), few.getId(), many.getId()), fewResult.get(0).getDoctorIds());
+        assertEquals(List.of(colleague.getId(), many.getId()), manyResult.get(39).getDoctorIds());
+    }
+
+    @Test
+    void getDoctorsForInstitution_FewAndManyDoctors_SameStatementCount() {
+        // given
+        List<Institution> institutions = createInstitutions(2);
+        for (int i = 0; i < 40; i++) {
+            createDoctor("Doctor" + i, i < 3 ? institutions : institutions.subList(1, 2));
+        }
+
+        // when
+        StatementCounter.reset();
+        List<SimpleDoctorDTO> fewResult = institutionService.getDoctorsForInstitution(institutions.get(0).getId(), PAGE);
+        int fewStatements = StatementCounter.count();
+        StatementCounter.reset();
+        List<SimpleDoctorDTO> manyResult = institutionService.getDoctorsForInstitution(institutions.get(1).getId(), PAGE);
+        int manyStatements = StatementCounter.count();
+
+        // then
+        assertEquals(3, fewResult.size());
+        assertEquals(40, manyResult.size());
+        assertEquals(1, fewStatements);
+        assertEquals(1, manyStatements);
+    }
+
+    @Test
+    void getDoctorsForInstitution_SecondPage_OnlyPageReturned() {
+        // given
+        List<Institution> institutions = createInstitutions(1);
+        for (int i = 0; i < 5; i++) {
+            createDoctor("Doctor" + i, institutions);
+        }
+
+        // when
+        List<SimpleDoctorDTO> result = institutionService.getDoctorsForInstitution(institutions.get(0).getId(),
+                PageRequest.of(1, 2, Sort.by("lastName")));
+
+        // then
+        assertEquals(List.of("Doctor2", "Doctor3"), result.stream().map(SimpleDoctorDTO::getLastName).toList());
+    }
+
+    private List<Institution> createInstitutions(int count) {
+        List<Institution> institutions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Institution institution = new Institution();
+            institution.setName("Szpital " + i);
+            institution.setCity("Warszawa");
+            institution.setPostalCode("00-001");
+            institution.setStreet("Marszałkowska");
+            institution.setBuildingNumber(String.valueOf(i));
+            institutions.add(institution);
+        }
+        return institutionRepository.saveAll(institutions);
+    }
+
+    private Doctor createDoctor(String lastName, List<Institution> institutions) {
+        Doctor doctor = new Doctor();
+        doctor.setFirstName("Kuba");
+        doctor.setLastName(lastName);
+        doctor.setSpecialization("Neurology");
+        doctor.setInstitutions(new ArrayList<>(institutions));
+        return doctorRepository.save(doctor);
+    }
+}
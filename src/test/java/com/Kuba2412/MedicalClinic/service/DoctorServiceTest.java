@@ -2,18 +2,20 @@ package com.Kuba2412.MedicalClinic.service;
 
 import com.Kuba2412.MedicalClinic.handler.exception.DoctorNotFoundException;
 import com.Kuba2412.MedicalClinic.model.Doctor;
-import com.Kuba2412.MedicalClinic.model.Institution;
 import com.Kuba2412.MedicalClinic.model.dto.DoctorDTO;
+import com.Kuba2412.MedicalClinic.model.dto.InstitutionDTO;
 import com.Kuba2412.MedicalClinic.model.mapper.DoctorMapper;
 import com.Kuba2412.MedicalClinic.model.dto.SimpleDoctorDTO;
 import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.InstitutionDoctor;
+import com.Kuba2412.MedicalClinic.repository.InstitutionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import java.util.*;
 
@@ -25,12 +27,17 @@ public class DoctorServiceTest {
     private DoctorService doctorService;
     private DoctorRepository doctorRepository;
     private DoctorMapper doctorMapper;
+    private InstitutionRepository institutionRepository;
+    private BatchLoaders batchLoaders;
 
     @BeforeEach
     void setup() {
         doctorRepository = Mockito.mock(DoctorRepository.class);
         doctorMapper = Mockito.mock(DoctorMapper.class);
-        doctorService = new DoctorService(doctorRepository, doctorMapper);
+        batchLoaders = Mockito.mock(BatchLoaders.class);
+        institutionRepository = Mockito.mock(InstitutionRepository.class);
+        doctorService = new DoctorService(doctorRepository, doctorMapper, institutionRepository, batchLoaders,
+                new DirectoryCache(100));
     }
 
     @Test
@@ -71,15 +78,14 @@ public class DoctorServiceTest {
     void getAllDoctors_NoDoctorsExist_EmptyListReturned() {
         // given
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Doctor> doctorPage = new PageImpl<>(new ArrayList<>(), pageable, 0);
-        when(doctorRepository.findAll(pageable)).thenReturn(doctorPage);
+        when(doctorRepository.findAllSimpleDoctors(pageable)).thenReturn(new SliceImpl<>(List.of()));
 
         // when
-        List<SimpleDoctorDTO> result = doctorService.getAllDoctors(pageable);
+        Slice<SimpleDoctorDTO> result = doctorService.getAllDoctors(pageable);
 
         // then
         assertNotNull(result);
-        assertEquals(0, result.size());
+        assertEquals(0, result.getNumberOfElements());
 
         verify(doctorMapper, never()).toSimpleDoctorDTO(any(Doctor.class));
     }
@@ -88,28 +94,27 @@ public class DoctorServiceTest {
     void getAllSimpleDoctors_DoctorsExist_DoctorsReturned() {
         // given
         Pageable pageable = PageRequest.of(0, 10);
-        List<Doctor> doctors = Arrays.asList(new Doctor(), new Doctor());
-        Page<Doctor> doctorPage = new PageImpl<>(doctors, pageable, doctors.size());
-        when(doctorRepository.findAll(pageable)).thenReturn(doctorPage);
+        List<SimpleDoctorDTO> doctors = Arrays.asList(new SimpleDoctorDTO(), new SimpleDoctorDTO());
+        when(doctorRepository.findAllSimpleDoctors(pageable)).thenReturn(new SliceImpl<>(doctors));
 
         // when
-        List<SimpleDoctorDTO> result = doctorService.getAllSimpleDoctors(pageable);
+        Slice<SimpleDoctorDTO> result = doctorService.getAllSimpleDoctors(pageable);
 
         // then
         assertNotNull(result);
-        assertEquals(doctors.size(), result.size());
-        verify(doctorMapper, times(doctors.size())).toSimpleDoctorDTO(any(Doctor.class));
+        assertEquals(doctors.size(), result.getNumberOfElements());
+        verify(doctorRepository, never()).findAll(any(Pageable.class));
+        verify(doctorMapper, never()).toSimpleDoctorDTO(any(Doctor.class));
     }
 
     @Test
     void getAllSimpleDoctors_NoDoctorsExist_EmptyListReturned() {
         // given
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Doctor> doctorPage = new PageImpl<>(new ArrayList<>(), pageable, 0);
-        when(doctorRepository.findAll(pageable)).thenReturn(doctorPage);
+        when(doctorRepository.findAllSimpleDoctors(pageable)).thenReturn(new SliceImpl<>(List.of()));
 
         // when
-        List<SimpleDoctorDTO> result = doctorService.getAllSimpleDoctors(pageable);
+        Slice<SimpleDoctorDTO> result = doctorService.getAllSimpleDoctors(pageable);
 
         // then
         assertNotNull(result);
@@ -121,50 +126,21 @@ public class DoctorServiceTest {
     void getAssignedInstitutionsForDoctor_DoctorExists_InstitutionsReturned() {
         // given
         Long doctorId = 1L;
-        Doctor doctor = new Doctor();
-
-        Institution institution1 = new Institution();
-        institution1.setId(1L);
-        institution1.setName("Szpital 1");
-        institution1.setCity("Wrocław");
-        institution1.setPostalCode("01-123");
-        institution1.setStreet("Górna");
-        institution1.setBuildingNumber("10");
-
-        Institution institution2 = new Institution();
-        institution2.setId(2L);
-        institution2.setName("Szpital 2");
-        institution2.setCity("Wrocław");
-        institution2.setPostalCode("01-123");
-        institution2.setStreet("Mała");
-        institution2.setBuildingNumber("42");
-
-        List<Institution> institutions = Arrays.asList(institution1, institution2);
-        doctor.setInstitutions(institutions);
-        when(doctorRepository.findById(doctorId)).thenReturn(Optional.of(doctor));
+        Pageable pageable = PageRequest.of(0, 10);
+        InstitutionDTO institution1 = new InstitutionDTO(1L, "Szpital 1", "Wrocław", "01-123", "Górna", "10");
+        InstitutionDTO institution2 = new InstitutionDTO(2L, "Szpital 2", "Wrocław", "01-123", "Mała", "42");
+        when(institutionRepository.findInstitutionDTOsByDoctorId(doctorId, pageable)).thenReturn(List.of(institution1, institution2));
+        when(institutionRepository.findDoctorIdsByInstitutionIdIn(List.of(1L, 2L)))
+                .thenReturn(List.of(institutionDoctor(1L, 1L), institutionDoctor(2L, 1L), institutionDoctor(2L, 3L)));
 
         // when
-        List<Institution> result = doctorService.getAssignedInstitutionsForDoctor(doctorId);
+        List<InstitutionDTO> result = doctorService.getAssignedInstitutionsForDoctor(doctorId, pageable);
 
         // then
-        assertNotNull(result);
-        assertEquals(institutions.size(), result.size());
-
-        Institution resultInstitution1 = result.get(0);
-        assertEquals(institution1.getId(), resultInstitution1.getId());
-        assertEquals(institution1.getName(), resultInstitution1.getName());
-        assertEquals(institution1.getCity(), resultInstitution1.getCity());
-        assertEquals(institution1.getPostalCode(), resultInstitution1.getPostalCode());
-        assertEquals(institution1.getStreet(), resultInstitution1.getStreet());
-        assertEquals(institution1.getBuildingNumber(), resultInstitution1.getBuildingNumber());
-
-        Institution resultInstitution2 = result.get(1);
-        assertEquals(institution2.getId(), resultInstitution2.getId());
-        assertEquals(institution2.getName(), resultInstitution2.getName());
-        assertEquals(institution2.getCity(), resultInstitution2.getCity());
-        assertEquals(institution2.getPostalCode(), resultInstitution2.getPostalCode());
-        assertEquals(institution2.getStreet(), resultInstitution2.getStreet());
-        assertEquals(institution2.getBuildingNumber(), resultInstitution2.getBuildingNumber());
+        assertEquals(List.of(institution1, institution2), result);
+        assertEquals(List.of(1L), result.get(0).getDoctorIds());
+        assertEquals(List.of(1L, 3L), result.get(1).getDoctorIds());
+        verify(doctorRepository, never()).existsById(anyLong());
     }
 
     @Test
@@ -173,8 +149,71 @@ public class DoctorServiceTest {
         Long nonExsitenId = 12345L;
 
         // when + then
-        Exception exception = assertThrows(DoctorNotFoundException.class, () -> doctorService.getAssignedInstitutionsForDoctor(nonExsitenId));
+        Exception exception = assertThrows(DoctorNotFoundException.class,
+                () -> doctorService.getAssignedInstitutionsForDoctor(nonExsitenId, PageRequest.of(0, 10)));
         assertEquals("Doctor not found" , exception.getMessage());
-        verify(doctorRepository, times(1)).findById(nonExsitenId);
+        verify(doctorRepository, times(1)).existsById(nonExsitenId);
+    }
+
+    @Test
+    void getDoctorsByIds_IdsGiven_DoctorsReturnedInRequestOrder() {
+        // given
+        SimpleDoctorDTO first = new SimpleDoctorDTO(1L, "Kuba", "Ppp", "Dermatology");
+        SimpleDoctorDTO second = new SimpleDoctorDTO(2L, "Anna", "Nowak", "Cardiology");
+        when(batchLoaders.doctors()).thenReturn(new BatchLoader<>(ids -> Map.of(1L, first, 2L, second)));
+
+        // when
+        List<SimpleDoctorDTO> result = doctorService.getDoctorsByIds(List.of(2L, 1L, 9L));
+
+        // then
+        assertEquals(List.of(second, first), result);
+    }
+
+    @Test
+    void getDoctorsBySpecialization_CalledTwice_RepositoryQueriedOnce() {
+        // given
+        Doctor doctor = new Doctor();
+        SimpleDoctorDTO simpleDoctor = new SimpleDoctorDTO(1L, "Kuba", "Ppp", "Neurology");
+        when(doctorRepository.findBySpecialization("Neurology")).thenReturn(List.of(doctor));
+        when(doctorMapper.toSimpleDoctorDTO(doctor)).thenReturn(simpleDoctor);
+
+        // when
+        doctorService.getDoctorsBySpecialization("Neurology");
+        List<SimpleDoctorDTO> result = doctorService.getDoctorsBySpecialization("Neurology");
+
+        // then
+        assertEquals(List.of(simpleDoctor), result);
+        verify(doctorRepository, times(1)).findBySpecialization("Neurology");
+    }
+
+    @Test
+    void createDoctor_DoctorsCached_CacheInvalidated() {
+        // given
+        Pageable pageable = PageRequest.of(0, 10);
+        DoctorDTO doctorDTO = new DoctorDTO();
+        when(doctorMapper.toDoctor(doctorDTO)).thenReturn(new Doctor());
+        when(doctorRepository.findAllSimpleDoctors(pageable)).thenReturn(new SliceImpl<>(List.of()));
+        doctorService.getAllDoctors(pageable);
+
+        // when
+        doctorService.createDoctor(doctorDTO);
+        doctorService.getAllDoctors(pageable);
+
+        // then
+        verify(doctorRepository, times(2)).findAllSimpleDoctors(pageable);
+    }
+
+    private InstitutionDoctor institutionDoctor(Long institutionId, Long doctorId) {
+        return new InstitutionDoctor() {
+            @Override
+            public Long getInstitutionId() {
+                return institutionId;
+            }
+
+            @Override
+            public Long getDoctorId() {
+                return doctorId;
+            }
+        };
     }
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Institution;
+import com.Kuba2412.MedicalClinic.model.dto.InstitutionDTO;
+import com.Kuba2412.MedicalClinic.model.dto.LocalityQuery;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InstitutionLocalityIndexTest {
+
+    private final InstitutionLocalityIndex index = new InstitutionLocalityIndex(Mockito.mock(JdbcTemplate.class));
+
+    @Test
+    void search_CoordinatesGiven_WithinRadiusNearestFirst() {
+        // given
+        index.index(institution(1L, "Centrum", "Warszawa", "00-001", 52.2297, 21.0122));
+        index.index(institution(2L, "Mokotów", "Warszawa", "02-001", 52.1935, 21.0353));
+        index.index(institution(3L, "Kraków", "Kraków", "30-001", 50.0647, 19.9450));
+        index.index(institution(4L, "Bez adresu", "Warszawa", "00-002", null, null));
+
+        // when
+        List<InstitutionDTO> result = index.search(new LocalityQuery(null, null, 52.1940, 21.0350, 5, 20));
+
+        // then
+        assertEquals(List.of(2L, 1L), ids(result));
+    }
+
+    @Test
+    void search_PostalCodePrefixAndCity_AllCriteriaMatched() {
+        // given
+        index.index(institution(1L, "B", "Warszawa", "00-001", null, null));
+        index.index(institution(2L, "A", "warszawa", "00 950", null, null));
+        index.index(institution(3L, "C", "Warszawa", "01-001", null, null));
+        index.index(institution(4L, "D", "Łódź", "00-003", null, null));
+
+        // when
+        List<InstitutionDTO> byPostalCode = index.search(new LocalityQuery("00-", null, null, null, 10, 20));
+        List<InstitutionDTO> byBoth = index.search(new LocalityQuery("00", " WARSZAWA ", null, null, 10, 20));
+
+        // then
+        assertEquals(List.of(2L, 1L, 4L), ids(byPostalCode));
+        assertEquals(List.of(2L, 1L), ids(byBoth));
+    }
+
+    @Test
+    void index_InstitutionIndexedAgain_OldLocalityDropped() {
+        // given
+        index.index(institution(1L, "Szpital", "Warszawa", "00-001", 52.2297, 21.0122));
+
+        // when
+        index.index(institution(1L, "Szpital", "Kraków", "30-001", 50.0647, 19.9450));
+
+        // then
+        assertEquals(1, index.size());
+        assertTrue(index.search(new LocalityQuery(null, "Warszawa", null, null, 10, 20)).isEmpty());
+        assertEquals(List.of(1L), ids(index.search(new LocalityQuery(null, null, 50.06, 19.94, 5, 20))));
+    }
+
+    @Test
+    void search_AcrossAntimeridian_BothSidesFound() {
+        // given
+        for (long id = 1; id <= 10; id++) {
+            index.index(institution(id, "Daleko " + id, "Suva", "679", -18.0 + id, 178.0));
+        }
+        index.index(institution(11L, "Wschód", "Taveuni", "679", 0.0, 179.99));
+        index.index(institution(12L, "Zachód", "Rabi", "679", 0.0, -179.99));
+
+        // when
+        List<InstitutionDTO> result = index.search(new LocalityQuery(null, null, 0.0, 179.999, 5, 20));
+
+        // then
+        assertEquals(List.of(11L, 12L), ids(result));
+    }
+
+    @Test
+    void search_RandomSites_SameResultAsFullScan() {
+        // given
+        Random random = new Random(42);
+        List<Institution> institutions = new ArrayList<>();
+        for (long id = 1; id <= 3_000; id++) {
+            Institution institution = institution(id, "Szpital " + id, "Miasto", "00-001",
+                    49 + random.nextDouble() * 6, 14 + random.nextDouble() * 10);
+            institutions.add(institution);
+            index.index(institution);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            double latitude = 49 + random.nextDouble() * 6;
+            double longitude = 14 + random.nextDouble() * 10;
+            double radiusKm = 1 + random.nextDouble() * 30;
+
+            // when
+            List<InstitutionDTO> result = index.search(new LocalityQuery(null, null, latitude, longitude, radiusKm, 100));
+
+            // then
+            List<Long> expected = institutions.stream()
+                    .filter(institution -> distance(institution, latitude, longitude) <= radiusKm)
+                    .sorted(Comparator.comparingDouble(institution -> distance(institution, latitude, longitude)))
+                    .limit(100)
+                    .map(Institution::getId)
+                    .toList();
+            assertEquals(expected, ids(result));
+        }
+    }
+
+    private static double distance(Institution institution, double latitude, double longitude) {
+        return InstitutionLocalityIndex.distanceKm(latitude, longitude, institution.getLatitude(), institution.getLongitude());
+    }
+
+    private static List<Long> ids(List<InstitutionDTO> institutions) {
+        return institutions.stream().map(InstitutionDTO::getId).toList();
+    }
+
+    private static Institution institution(Long id, String name, String city, String postalCode, Double latitude, Double longitude) {
+        Institution institution = new Institution();
+        institution.setId(id);
+        institution.setName(name);
+        institution.setCity(city);
+        institution.setPostalCode(postalCode);
+        institution.setStreet("Marszałkowska");
+        institution.setBuildingNumber("1");
+        institution.setLatitude(latitude);
+        institution.setLongitude(longitude);
+        return institution;
+    }
+}
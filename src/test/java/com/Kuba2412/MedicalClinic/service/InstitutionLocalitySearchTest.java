@@ -0,0 +1,81 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Institution;
+import com.Kuba2412.MedicalClinic.model.dto.InstitutionDTO;
+import com.Kuba2412.MedicalClinic.model.dto.LocalityQuery;
+import com.Kuba2412.MedicalClinic.repository.InstitutionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Import(StatementCounter.class)
+public class InstitutionLocalitySearchTest {
+
+    @Autowired
+    private InstitutionService institutionService;
+
+    @Autowired
+    private InstitutionLocalityIndex institutionLocalityIndex;
+
+    @Autowired
+    private InstitutionRepository institutionRepository;
+
+    @AfterEach
+    void cleanup() {
+        institutionRepository.deleteAll();
+        institutionLocalityIndex.load();
+    }
+
+    @Test
+    void load_CoordinatesPersisted_InstitutionsFoundByRadius() {
+        // given
+        institutionRepository.save(createInstitution("Centrum", "Warszawa", "00-001", 52.2297, 21.0122));
+        institutionRepository.save(createInstitution("Mokotów", "Warszawa", "02-001", 52.1935, 21.0353));
+        institutionRepository.save(createInstitution("Kraków", "Kraków", "30-001", 50.0647, 19.9450));
+
+        // when
+        institutionLocalityIndex.load();
+        List<InstitutionDTO> result = institutionService.searchByLocality(new LocalityQuery(null, null, 52.2297, 21.0122, 10, 20));
+
+        // then
+        assertEquals(List.of("Centrum", "Mokotów"), result.stream().map(InstitutionDTO::getName).toList());
+        assertEquals(52.1935, result.get(1).getLatitude());
+    }
+
+    @Test
+    void createInstitution_NewInstitution_SearchableWithoutStatements() {
+        // given
+        institutionLocalityIndex.load();
+        institutionService.createInstitution(new InstitutionDTO(null, "Nowy Szpital", "Gdańsk", "80-001", "Długa", "1",
+                54.3520, 18.6466));
+
+        // when
+        StatementCounter.reset();
+        List<InstitutionDTO> result = institutionService.searchByLocality(new LocalityQuery("80", "gdańsk", null, null, 10, 20));
+        int statements = StatementCounter.count();
+
+        // then
+        assertEquals(0, statements);
+        assertEquals(List.of("Nowy Szpital"), result.stream().map(InstitutionDTO::getName).toList());
+        assertNotNull(result.get(0).getId());
+    }
+
+    private Institution createInstitution(String name, String city, String postalCode, double latitude, double longitude) {
+        Institution institution = new Institution();
+        institution.setName(name);
+        institution.setCity(city);
+        institution.setPostalCode(postalCode);
+        institution.setStreet("Marszałkowska");
+        institution.setBuildingNumber("1");
+        institution.setLatitude(latitude);
+        institution.setLongitude(longitude);
+        return institution;
+    }
+}
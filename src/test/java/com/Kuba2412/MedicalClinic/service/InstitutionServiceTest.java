@@ -1,20 +1,21 @@
 package com.Kuba2412.MedicalClinic.service;
 
 import com.Kuba2412.MedicalClinic.handler.exception.InstitutionNotFound;
-import com.Kuba2412.MedicalClinic.model.Doctor;
 import com.Kuba2412.MedicalClinic.model.Institution;
 import com.Kuba2412.MedicalClinic.model.dto.InstitutionDTO;
+import com.Kuba2412.MedicalClinic.model.dto.LocalityQuery;
+import com.Kuba2412.MedicalClinic.model.dto.SimpleDoctorDTO;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
 import com.Kuba2412.MedicalClinic.model.mapper.InstitutionMapper;
 import com.Kuba2412.MedicalClinic.repository.InstitutionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -27,12 +28,19 @@ public class InstitutionServiceTest {
     private InstitutionService institutionService;
     private InstitutionRepository institutionRepository;
     private InstitutionMapper institutionMapper;
+    private DoctorRepository doctorRepository;
+    private BatchLoaders batchLoaders;
+    private InstitutionLocalityIndex institutionLocalityIndex;
 
     @BeforeEach
     void setup() {
         institutionRepository = Mockito.mock(InstitutionRepository.class);
         institutionMapper = Mockito.mock(InstitutionMapper.class);
-        institutionService = new InstitutionService(institutionRepository, institutionMapper);
+        batchLoaders = Mockito.mock(BatchLoaders.class);
+        doctorRepository = Mockito.mock(DoctorRepository.class);
+        institutionLocalityIndex = Mockito.mock(InstitutionLocalityIndex.class);
+        institutionService = new InstitutionService(institutionRepository, institutionMapper, doctorRepository, batchLoaders,
+                new DirectoryCache(100), institutionLocalityIndex);
     }
 
     @Test
@@ -60,6 +68,56 @@ public class InstitutionServiceTest {
         // then
         verify(institutionMapper, times(1)).toInstitution(institutionDTO);
         verify(institutionRepository, times(1)).save(institution);
+        verify(institutionLocalityIndex, times(1)).index(institution);
+    }
+
+    @Test
+    void createInstitution_LatitudeWithoutLongitude_ThrowsException() {
+        // given
+        InstitutionDTO institutionDTO = new InstitutionDTO();
+        institutionDTO.setLatitude(52.23);
+
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> institutionService.createInstitution(institutionDTO));
+        assertEquals("Latitude and longitude must be given together.", exception.getMessage());
+        verify(institutionRepository, never()).save(any(Institution.class));
+    }
+
+    @Test
+    void searchByLocality_NoCriteria_ThrowsException() {
+        // given
+        LocalityQuery query = new LocalityQuery();
+        query.setPostalCode(" - ");
+
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> institutionService.searchByLocality(query));
+        assertEquals("Postal code, city or coordinates are required.", exception.getMessage());
+        verify(institutionLocalityIndex, never()).search(any());
+    }
+
+    @Test
+    void searchByLocality_RadiusTooLarge_ThrowsException() {
+        // given
+        LocalityQuery query = new LocalityQuery(null, null, 52.23, 21.01, 500, 20);
+
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> institutionService.searchByLocality(query));
+        assertEquals("Radius must be greater than 0 and at most 100 km.", exception.getMessage());
+    }
+
+    @Test
+    void searchByLocality_CityGiven_IndexSearched() {
+        // given
+        LocalityQuery query = new LocalityQuery(null, "Kraków", null, null, 10, 20);
+        InstitutionDTO institution = new InstitutionDTO(1L, "Szpital 1", "Kraków", "30-001", "Długa", "1");
+        when(institutionLocalityIndex.search(query)).thenReturn(List.of(institution));
+
+        // when
+        List<InstitutionDTO> result = institutionService.searchByLocality(query);
+
+        // then
+        assertEquals(List.of(institution), result);
+        verifyNoInteractions(institutionRepository);
     }
 
     @Test
@@ -78,11 +136,10 @@ public class InstitutionServiceTest {
     void getAllInstitutions_NoInstitutionsExist_EmptyListReturned() {
         // given
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Institution> institutionPage = new PageImpl<>(new ArrayList<>(), pageable, 0);
-        when(institutionRepository.findAll(pageable)).thenReturn(institutionPage);
+        when(institutionRepository.findAllInstitutionDTOs(pageable)).thenReturn(new SliceImpl<>(List.of()));
 
         // when
-        List<InstitutionDTO> result = institutionService.getAllInstitutions(pageable);
+        Slice<InstitutionDTO> result = institutionService.getAllInstitutions(pageable);
 
         // then
         assertNotNull(result);
@@ -91,45 +148,37 @@ public class InstitutionServiceTest {
     }
 
     @Test
-    void getDoctorsForInstitution_InstitutionExists_DoctorsReturned() {
+    void getAllInstitutions_CalledTwice_RepositoryQueriedOnce() {
         // given
-        Long institutionId = 1L;
-
-        Doctor doctor1 = new Doctor();
-        doctor1.setId(1L);
-        doctor1.setFirstName("Kuba");
-        doctor1.setLastName("Ppp");
-        doctor1.setSpecialization("Kardiologia");
+        Pageable pageable = PageRequest.of(0, 10);
+        InstitutionDTO institution = new InstitutionDTO();
+        when(institutionRepository.findAllInstitutionDTOs(pageable)).thenReturn(new SliceImpl<>(List.of(institution)));
 
-        Doctor doctor2 = new Doctor();
-        doctor2.setId(2L);
-        doctor2.setFirstName("Anna");
-        doctor2.setLastName("Sss");
-        doctor2.setSpecialization("Neurologia");
+        // when
+        institutionService.getAllInstitutions(pageable);
+        Slice<InstitutionDTO> result = institutionService.getAllInstitutions(pageable);
 
-        Institution institution = new Institution();
-        institution.setId(institutionId);
-        List<Doctor> doctors = Arrays.asList(doctor1, doctor2);
-        institution.setDoctors(doctors);
+        // then
+        assertEquals(List.of(institution), result.getContent());
+        verify(institutionRepository, times(1)).findAllInstitutionDTOs(pageable);
+    }
 
-        when(institutionRepository.findById(institutionId)).thenReturn(Optional.of(institution));
+    @Test
+    void getDoctorsForInstitution_InstitutionExists_DoctorsReturned() {
+        // given
+        Long institutionId = 1L;
+        Pageable pageable = PageRequest.of(0, 10);
+        SimpleDoctorDTO doctor1 = new SimpleDoctorDTO(1L, "Kuba", "Ppp", "Kardiologia");
+        SimpleDoctorDTO doctor2 = new SimpleDoctorDTO(2L, "Anna", "Sss", "Neurologia");
+        List<SimpleDoctorDTO> doctors = Arrays.asList(doctor1, doctor2);
+        when(doctorRepository.findSimpleDoctorsByInstitutionId(institutionId, pageable)).thenReturn(doctors);
 
         // when
-        List<Doctor> result = institutionService.getDoctorsForInstitution(institutionId);
+        List<SimpleDoctorDTO> result = institutionService.getDoctorsForInstitution(institutionId, pageable);
 
         // then
-        assertNotNull(result);
-        assertEquals(doctors.size(), result.size());
-
-        assertEquals(doctor1.getId(), result.get(0).getId());
-        assertEquals(doctor1.getFirstName(), result.get(0).getFirstName());
-        assertEquals(doctor1.getLastName(), result.get(0).getLastName());
-        assertEquals(doctor1.getSpecialization(), result.get(0).getSpecialization());
-
-        assertEquals(doctor2.getId(), result.get(1).getId());
-        assertEquals(doctor2.getFirstName(), result.get(1).getFirstName());
-        assertEquals(doctor2.getLastName(), result.get(1).getLastName());
-        assertEquals(doctor2.getSpecialization(), result.get(1).getSpecialization());
+        assertEquals(doctors, result);
+        verify(institutionRepository, never()).existsById(anyLong());
     }
 
     @Test
@@ -138,8 +187,17 @@ public class InstitutionServiceTest {
         Long nonExsistenInstituionId = 12345L;
 
         // when + then
-        Exception exception = assertThrows(InstitutionNotFound.class, () -> institutionService.getDoctorsForInstitution(nonExsistenInstituionId));
+        Exception exception = assertThrows(InstitutionNotFound.class,
+                () -> institutionService.getDoctorsForInstitution(nonExsistenInstituionId, PageRequest.of(0, 10)));
         assertEquals("Institution not found." , exception.getMessage());
-        verify(institutionRepository, times(1)).findById(nonExsistenInstituionId);
+        verify(institutionRepository, times(1)).existsById(nonExsistenInstituionId);
+    }
+
+    @Test
+    void getInstitutionsByIds_NoIds_IllegalArgumentExceptionThrown() {
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> institutionService.getInstitutionsByIds(List.of()));
+        assertEquals("At least one key is required.", exception.getMessage());
+        verifyNoInteractions(batchLoaders);
     }
 }
\ No newline at end of file
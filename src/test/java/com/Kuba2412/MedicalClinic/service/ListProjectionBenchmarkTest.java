@@ -0,0 +1,211 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Doctor;
+import com.Kuba2412.MedicalClinic.model.Institution;
+import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.model.User;
+import com.Kuba2412.MedicalClinic.model.dto.PatientDTO;
+import com.Kuba2412.MedicalClinic.model.mapper.DoctorMapper;
+import com.Kuba2412.MedicalClinic.model.mapper.InstitutionMapper;
+import com.Kuba2412.MedicalClinic.model.mapper.PatientMapper;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.InstitutionRepository;
+import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the DTO projections behind the list endpoints with the previous path, which loaded
+ * managed entities and mapped them. Both run the same pages; statements are asserted, and the
+ * benchmark logs latency and allocated bytes per page.
+ */
+@SpringBootTest
+@Import(StatementCounter.class)
+public class ListProjectionBenchmarkTest {
+
+    private static final int ROWS = 200;
+    private static final int PAGE_SIZE = 50;
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 200;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private InstitutionService institutionService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private InstitutionRepository institutionRepository;
+
+    @Autowired
+    private PatientMapper patientMapper;
+
+    @Autowired
+    private DoctorMapper doctorMapper;
+
+    @Autowired
+    private InstitutionMapper institutionMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DirectoryCache directoryCache;
+
+    private final Pageable page = PageRequest.of(1, PAGE_SIZE, Sort.by("id"));
+
+    @BeforeEach
+    void setup() {
+        List<Patient> patients = new ArrayList<>();
+        List<Doctor> doctors = new ArrayList<>();
+        List<Institution> institutions = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            patients.add(createPatient(i));
+            doctors.add(createDoctor(i));
+            institutions.add(createInstitution(i));
+        }
+        patientRepository.saveAll(patients);
+        doctorRepository.saveAll(doctors);
+        institutionRepository.saveAll(institutions);
+        directoryCache.refresh();
+    }
+
+    @AfterEach
+    void cleanup() {
+        patientRepository.deleteAll();
+        doctorRepository.deleteAll();
+        institutionRepository.deleteAll();
+    }
+
+    @Test
+    void getPatients_Projection_OneStatementAndSameResultAsEntities() {
+        // when
+        List<PatientDTO> viaEntities = entityPatients();
+        StatementCounter.reset();
+        List<PatientDTO> viaProjection = patientService.getPatients(null, page).getContent();
+        int statements = StatementCounter.count();
+
+        // then
+        assertEquals(1, statements);
+        assertEquals(viaEntities, viaProjection);
+        assertTrue(measure(this::entityPatients) > 1);
+    }
+
+    @Test
+    void getAllDoctorsAndInstitutions_Projection_OneStatementPerPage() {
+        // when
+        StatementCounter.reset();
+        doctorService.getAllDoctors(page);
+        int doctorStatements = StatementCounter.count();
+        StatementCounter.reset();
+        institutionService.getAllInstitutions(page);
+        int institutionStatements = StatementCounter.count();
+
+        // then
+        assertEquals(1, doctorStatements);
+        assertEquals(1, institutionStatements);
+        assertEquals(institutionRepository.findAll(page).map(institutionMapper::toInstitutionDTO).getContent(),
+                institutionService.getAllInstitutions(page).getContent());
+    }
+
+    @Benchmark
+    void listPages_EntitiesVersusProjection_CostReported() {
+        report("patients", this::entityPatients, () -> patientService.getPatients(null, page));
+        report("doctors", () -> transactionTemplate.execute(status -> doctorRepository.findAll(page)
+                .map(doctorMapper::toSimpleDoctorDTO).getContent()), () -> doctorRepository.findAllSimpleDoctors(page));
+        report("institutions", () -> transactionTemplate.execute(status -> institutionRepository.findAll(page)
+                .map(institutionMapper::toInstitutionDTO).getContent()), () -> institutionRepository.findAllInstitutionDTOs(page));
+    }
+
+    private List<PatientDTO> entityPatients() {
+        return transactionTemplate.execute(status -> patientRepository.findAll(page)
+                .map(patientMapper::patientToPatientDTO)
+                .getContent());
+    }
+
+    private int measure(Supplier<?> pageLoader) {
+        StatementCounter.reset();
+        pageLoader.get();
+        return StatementCounter.count();
+    }
+
+    private void report(String name, Supplier<?> entities, Supplier<?> projection) {
+        run(entities, WARMUP);
+        run(projection, WARMUP);
+        long[] entityCost = run(entities, ITERATIONS);
+        long[] projectionCost = run(projection, ITERATIONS);
+        BenchmarkReport.log("{} page of {}: entities {} us / {} KB, projection {} us / {} KB", name, PAGE_SIZE,
+                entityCost[0] / 1_000, entityCost[1] / 1_024, projectionCost[0] / 1_000, projectionCost[1] / 1_024);
+    }
+
+    private static long[] run(Supplier<?> pageLoader, int iterations) {
+        long bytes = THREADS.getCurrentThreadAllocatedBytes();
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            pageLoader.get();
+        }
+        long nanos = System.nanoTime() - startedAt;
+        return new long[]{nanos / iterations, (THREADS.getCurrentThreadAllocatedBytes() - bytes) / iterations};
+    }
+
+    private static Patient createPatient(int i) {
+        User user = new User();
+        user.setUsername("user" + i);
+        user.setPassword("password");
+        Patient patient = new Patient();
+        patient.setEmail("projection" + i + "@gmail.com");
+        patient.setIdCardNo("PRJ" + i);
+        patient.setFirstName("Kuba");
+        patient.setLastName("Ppp" + i);
+        patient.setPhoneNumber("123456789");
+        patient.setBirthday(LocalDate.of(1990, 1, 1).plusDays(i));
+        patient.setUser(user);
+        return patient;
+    }
+
+    private static Doctor createDoctor(int i) {
+        Doctor doctor = new Doctor();
+        doctor.setFirstName("Kuba");
+        doctor.setLastName("Ppp" + i);
+        doctor.setSpecialization("Neurology");
+        return doctor;
+    }
+
+    private static Institution createInstitution(int i) {
+        Institution institution = new Institution();
+        institution.setName("Szpital " + i);
+        institution.setCity("Warszawa");
+        institution.setPostalCode("00-001");
+        institution.setStreet("Marszałkowska");
+        institution.setBuildingNumber(String.valueOf(i));
+        return institution;
+    }
+}
@@ -0,0 +1,158 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.model.dto.PatientCacheStatsDTO;
+import com.Kuba2412.MedicalClinic.model.dto.PatientDTO;
+import com.Kuba2412.MedicalClinic.model.mapper.PatientMapper;
+import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class PatientCacheTest {
+
+    private PatientRepository patientRepository;
+    private PatientMapper patientMapper;
+
+    @BeforeEach
+    void setup() {
+        patientRepository = Mockito.mock(PatientRepository.class);
+        patientMapper = Mappers.getMapper(PatientMapper.class);
+        when(patientRepository.findByEmail(anyString()))
+                .thenAnswer(invocation -> Optional.of(createPatient(invocation.getArgument(0))));
+    }
+
+    @Test
+    void findByEmail_RepeatedLookupWithDifferentCase_ServedFromCache() {
+        // given
+        PatientCache patientCache = new PatientCache(patientRepository, patientMapper, 10, 300);
+
+        // when
+        patientCache.findByEmail("kuba@gmail.com");
+        Optional<PatientDTO> result = patientCache.findByEmail(" KUBA@gmail.com");
+
+        // then
+        assertEquals("kuba@gmail.com", result.orElseThrow().getEmail());
+        verify(patientRepository, times(1)).findByEmail(anyString());
+        PatientCacheStatsDTO stats = patientCache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.5, stats.getHitRate());
+    }
+
+    @Test
+    void findByEmail_ReturnedDtoChanged_CachedEntryUnchanged() {
+        // given
+        PatientCache patientCache = new PatientCache(patientRepository, patientMapper, 10, 300);
+        patientCache.findByEmail("kuba@gmail.com").orElseThrow().setFirstName("Changed");
+
+        // when
+        PatientDTO result = patientCache.findByEmail("kuba@gmail.com").orElseThrow();
+
+        // then
+        assertEquals("Kuba", result.getFirstName());
+    }
+
+    @Test
+    void findByEmail_CacheFull_LeastRecentlyUsedEvicted() {
+        // given
+        PatientCache patientCache = new PatientCache(patientRepository, patientMapper, 2, 300);
+        patientCache.findByEmail("a@gmail.com");
+        patientCache.findByEmail("b@gmail.com");
+        patientCache.findByEmail("a@gmail.com");
+
+        // when
+        patientCache.findByEmail("c@gmail.com");
+        patientCache.findByEmail("a@gmail.com");
+        patientCache.findByEmail("b@gmail.com");
+
+        // then
+        verify(patientRepository, times(1)).findByEmail("a@gmail.com");
+        verify(patientRepository, times(2)).findByEmail("b@gmail.com");
+        assertEquals(2, patientCache.getStats().getSize());
+        assertEquals(2, patientCache.getStats().getEvictions());
+    }
+
+    @Test
+    void findByEmail_EntryExpired_Reloaded() {
+        // given
+        PatientCache patientCache = new PatientCache(patientRepository, patientMapper, 10, 0);
+        patientCache.findByEmail("kuba@gmail.com");
+
+        // when
+        patientCache.findByEmail("kuba@gmail.com");
+
+        // then
+        verify(patientRepository, times(2)).findByEmail("kuba@gmail.com");
+        assertEquals(0, patientCache.getStats().getHits());
+    }
+
+    @Test
+    void invalidate_EntryCached_NextLookupReloads() {
+        // given
+        PatientCache patientCache = new PatientCache(patientRepository, patientMapper, 10, 300);
+        patientCache.findByEmail("kuba@gmail.com");
+
+        // when
+        patientCache.invalidate("Kuba@gmail.com");
+        patientCache.findByEmail("kuba@gmail.com");
+
+        // then
+        verify(patientRepository, times(2)).findByEmail("kuba@gmail.com");
+    }
+
+    @Test
+    void findByEmail_MixedCaseEmail_NormalizedEmailQueried() {
+        // given
+        PatientCache patientCache = new PatientCache(patientRepository, patientMapper, 10, 300);
+
+        // when
+        patientCache.findByEmail(" Kuba@Gmail.com ");
+
+        // then
+        verify(patientRepository).findByEmail("kuba@gmail.com");
+    }
+
+    @Test
+    void findByEmail_InvalidatedWhileLoading_StaleRowNotCached() {
+        // given
+        PatientCache patientCache = new PatientCache(patientRepository, patientMapper, 10, 300);
+        when(patientRepository.findByEmail("kuba@gmail.com")).thenAnswer(invocation -> {
+            Optional<Patient> stale = Optional.of(createPatient("kuba@gmail.com"));
+            patientCache.invalidate("kuba@gmail.com");
+            return stale;
+        });
+
+        // when
+        patientCache.findByEmail("kuba@gmail.com");
+
+        // then
+        assertEquals(0, patientCache.getStats().getSize());
+    }
+
+    @Test
+    void findByEmail_PatientNotFound_NothingCached() {
+        // given
+        PatientCache patientCache = new PatientCache(patientRepository, patientMapper, 10, 300);
+        when(patientRepository.findByEmail("missing@gmail.com")).thenReturn(Optional.empty());
+
+        // when
+        Optional<PatientDTO> result = patientCache.findByEmail("missing@gmail.com");
+
+        // then
+        assertTrue(result.isEmpty());
+        assertEquals(0, patientCache.getStats().getSize());
+    }
+
+    private Patient createPatient(String email) {
+        return new Patient(1L, email, "ABC123", "Kuba", "Pp", "1234567890", LocalDate.of(2001, 1, 1), null, null);
+    }
+}
@@ -0,0 +1,207 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.model.dto.PatientDTO;
+import com.Kuba2412.MedicalClinic.model.dto.PatientImportDTO;
+import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class PatientImportIntegrationTest {
+
+    private static final String HEADER = "email,idCardNo,firstName,lastName,phoneNumber,birthday\n";
+
+    @Autowired
+    private PatientImporter patientImporter;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private PatientSearchIndex patientSearchIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanup() {
+        jdbcTemplate.queryForList("select id from patient", Long.class).forEach(patientSearchIndex::remove);
+        jdbcTemplate.update("delete from patient");
+        jdbcTemplate.update("delete from patient_import");
+    }
+
+    @Test
+    void importPatients_CsvWithDuplicatesAndInvalidRows_ValidRowsImported() {
+        // given
+        Patient existing = new Patient();
+        existing.setEmail("taken@gmail.com");
+        existing.setIdCardNo("TAKEN1");
+        existing.setFirstName("Kuba");
+        existing.setLastName("Ppp");
+        existing.setPhoneNumber("123456789");
+        existing.setBirthday(LocalDate.of(1990, 1, 1));
+        patientRepository.save(existing);
+        String csv = "lastName,firstName,email,idCardNo,phoneNumber,birthday\n" +
+                "\"Kowalski, Jr\",Jakub,jakub@gmail.com,ABC1,123456789,1990-01-01\n" +
+                "Nowak,Anna,anna@gmail.com,ABC2,123456789,1985-05-05\n" +
+                "Nowak,Anna,anna@gmail.com,ABC3,123456789,1985-05-05\n" +
+                "Nowak,Ewa,ewa@gmail.com,ABC2,123456789,1985-05-05\n" +
+                "Ppp,Kuba,taken@gmail.com,ABC4,123456789,1990-01-01\n" +
+                "Ppp,Kuba,kuba@gmail.com,ABC5,123456789,not-a-date\n" +
+                "\n" +
+                "Ppp,,empty@gmail.com,ABC6,123456789,1990-01-01\n";
+
+        // when
+        PatientImportDTO result = patientImporter.importPatients(stream(csv), PatientImporter.Format.CSV, null);
+
+        // then
+        assertEquals("COMPLETED", result.getStatus());
+        assertEquals(7, result.getRecordsRead());
+        assertEquals(2, result.getImported());
+        assertEquals(3, result.getDuplicates());
+        assertEquals(2, result.getRejected());
+        assertEquals(List.of("Line 7: invalid birthday.", "Line 9: firstName is required."), result.getErrors());
+        assertEquals("Kowalski, Jr", patientRepository.findByEmail("jakub@gmail.com").orElseThrow().getLastName());
+        List<PatientDTO> found = patientService.searchPatients("kowalsk", 10);
+        assertEquals("jakub@gmail.com", found.get(0).getEmail());
+    }
+
+    @Test
+    void importPatients_EmailsDifferOnlyInCase_DuplicatesDetectedAndEmailStoredNormalized() {
+        // given
+        Patient existing = new Patient();
+        existing.setEmail("taken@gmail.com");
+        existing.setIdCardNo("TAKEN1");
+        existing.setFirstName("Kuba");
+        existing.setLastName("Ppp");
+        existing.setPhoneNumber("123456789");
+        existing.setBirthday(LocalDate.of(1990, 1, 1));
+        patientRepository.save(existing);
+        String csv = HEADER +
+                "Taken@Gmail.com,ABC1,Kuba,Ppp,123456789,1990-01-01\n" +
+                "Jakub@Gmail.com,ABC2,Jakub,Kowalski,123456789,1990-01-01\n" +
+                "jakub@gmail.COM,ABC3,Jakub,Kowalski,123456789,1990-01-01\n";
+
+        // when
+        PatientImportDTO result = patientImporter.importPatients(stream(csv), PatientImporter.Format.CSV, null);
+
+        // then
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getDuplicates());
+        assertEquals("ABC2", patientRepository.findByEmail("jakub@gmail.com").orElseThrow().getIdCardNo());
+        assertEquals("ABC2", patientService.getPatientDtoByEmail("JAKUB@gmail.com").getIdCardNo());
+    }
+
+    @Test
+    void importPatients_Ndjson_PatientsImported() {
+        // given
+        String ndjson = "{\"email\":\"jakub@gmail.com\",\"idCardNo\":\"ABC1\",\"firstName\":\"Jakub\",\"lastName\":\"Kowalski\"," +
+                "\"phoneNumber\":\"123456789\",\"birthday\":\"1990-01-01\"}\n" +
+                "{\"email\":\"anna@gmail.com\"\n" +
+                "[1, 2]\n";
+
+        // when
+        PatientImportDTO result = patientImporter.importPatients(stream(ndjson), PatientImporter.Format.NDJSON, null);
+
+        // then
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertEquals(LocalDate.of(1990, 1, 1), patientRepository.findByEmail("jakub@gmail.com").orElseThrow().getBirthday());
+    }
+
+    @Test
+    void importPatients_CsvMissingColumn_IllegalArgumentExceptionThrown() {
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> patientImporter.importPatients(stream("email,firstName\n"), PatientImporter.Format.CSV, null));
+        assertEquals("CSV header is missing column idCardNo.", exception.getMessage());
+    }
+
+    @Test
+    void importPatients_UploadInterrupted_ResumedFromCheckpoint() {
+        // given
+        String csv = csv(12_000);
+        int lineLength = csv.indexOf('\n', HEADER.length()) + 1 - HEADER.length();
+        int interruptedAfter = HEADER.length() + 7_000 * lineLength;
+
+        // when
+        assertThrows(UncheckedIOException.class,
+                () -> patientImporter.importPatients(new FailingInputStream(csv, interruptedAfter), PatientImporter.Format.CSV, null));
+        Long importId = jdbcTemplate.queryForObject("select id from patient_import", Long.class);
+        PatientImportDTO failed = patientImporter.getImport(importId);
+        PatientImportDTO resumed = patientImporter.importPatients(stream(csv), PatientImporter.Format.CSV, importId);
+
+        // then
+        assertEquals("FAILED", failed.getStatus());
+        assertEquals(5_000, failed.getRecordsRead());
+        assertEquals("COMPLETED", resumed.getStatus());
+        assertEquals(12_000, resumed.getRecordsRead());
+        assertEquals(12_000, resumed.getImported());
+        assertEquals(0, resumed.getDuplicates());
+        assertEquals(12_000, patientRepository.count());
+        assertThrows(IllegalArgumentException.class,
+                () -> patientImporter.importPatients(stream(csv), PatientImporter.Format.CSV, importId));
+    }
+
+    @Benchmark
+    void importPatients_HundredThousandRows_Throughput() {
+        // given
+        int rows = 100_000;
+        String csv = csv(rows);
+
+        // when
+        PatientImportDTO result = patientImporter.importPatients(stream(csv), PatientImporter.Format.CSV, null);
+
+        // then
+        assertEquals(rows, result.getImported());
+        BenchmarkReport.log("Imported {} patients: {} rows/s", rows, result.getRowsPerSecond());
+    }
+
+    private static String csv(int rows) {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < rows; i++) {
+            csv.append(String.format("import%06d@gmail.com,ID%06d,Jakub,Kowalski%06d,123456789,1990-01-01%n", i, i, i));
+        }
+        return csv.toString();
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class FailingInputStream extends InputStream {
+
+        private final InputStream delegate;
+        private int remaining;
+
+        private FailingInputStream(String content, int failAfter) {
+            this.delegate = stream(content);
+            this.remaining = failAfter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining-- <= 0) {
+                throw new IOException("Connection reset");
+            }
+            return delegate.read();
+        }
+    }
+}
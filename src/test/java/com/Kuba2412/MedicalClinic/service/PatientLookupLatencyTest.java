@@ -0,0 +1,80 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class PatientLookupLatencyTest {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private PatientCache patientCache;
+
+    @AfterEach
+    void cleanup() {
+        patientRepository.deleteAll();
+        patientCache.clear();
+    }
+
+    @Benchmark
+    void getPatientDtoByEmail_CacheWarm_LowerP99ThanUncached() {
+        // given
+        int count = 500;
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Patient patient = new Patient();
+            patient.setEmail("lookup" + i + "@gmail.com");
+            patient.setIdCardNo("LK" + i);
+            patient.setFirstName("Kuba");
+            patient.setLastName("Ppp");
+            patient.setPhoneNumber("123456789");
+            patient.setBirthday(LocalDate.of(1990, 1, 1));
+            patients.add(patient);
+        }
+        patientRepository.saveAll(patients);
+        int lookups = 5000;
+
+        // when
+        long[] uncached = new long[lookups];
+        for (int i = 0; i < lookups; i++) {
+            String email = "lookup" + (i % count) + "@gmail.com";
+            patientCache.invalidate(email);
+            long startedAt = System.nanoTime();
+            patientService.getPatientDtoByEmail(email);
+            uncached[i] = System.nanoTime() - startedAt;
+        }
+        long hitsBefore = patientCache.getStats().getHits();
+        long[] cached = new long[lookups];
+        for (int i = 0; i < lookups; i++) {
+            long startedAt = System.nanoTime();
+            patientService.getPatientDtoByEmail("lookup" + (i % count) + "@gmail.com");
+            cached[i] = System.nanoTime() - startedAt;
+        }
+
+        // then
+        assertEquals(lookups, patientCache.getStats().getHits() - hitsBefore);
+        assertTrue(p99(cached) < p99(uncached));
+        BenchmarkReport.log("Patient by email p99: uncached {} us, cached {} us", p99(uncached) / 1_000, p99(cached) / 1_000);
+    }
+
+    private static long p99(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+    }
+}
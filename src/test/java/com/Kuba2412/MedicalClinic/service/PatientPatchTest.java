@@ -0,0 +1,192 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.model.User;
+import com.Kuba2412.MedicalClinic.model.Visit;
+import com.Kuba2412.MedicalClinic.model.dto.PatientDTO;
+import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import com.Kuba2412.MedicalClinic.repository.UserRepository;
+import com.Kuba2412.MedicalClinic.repository.VisitRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Import(StatementCounter.class)
+public class PatientPatchTest {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PatientSearchIndex patientSearchIndex;
+
+    @AfterEach
+    void cleanup() {
+        visitRepository.deleteAll();
+        patientRepository.findAll().forEach(patient -> patientSearchIndex.remove(patient.getId()));
+        patientRepository.deleteAll();
+    }
+
+    @Test
+    void patchPatientByEmail_PartialChange_OneStatementAndOtherFieldsKept() {
+        // given
+        patientService.addPatient(createPatient("patch@gmail.com"));
+        PatientDTO changes = new PatientDTO();
+        changes.setLastName("Kowalski");
+        changes.setEmail("patched@gmail.com");
+
+        // when
+        StatementCounter.reset();
+        patientService.patchPatientByEmail("patch@gmail.com", changes);
+        int statements = StatementCounter.count();
+
+        // then
+        assertEquals(1, statements);
+        Patient patient = patientRepository.findByEmail("patched@gmail.com").orElseThrow();
+        assertEquals("Kowalski", patient.getLastName());
+        assertEquals("Kuba", patient.getFirstName());
+        assertEquals("123456789", patient.getPhoneNumber());
+        assertEquals("patched@gmail.com", patientService.searchPatients("kowalsk", 10).get(0).getEmail());
+    }
+
+    @Test
+    void patchPatientByEmail_EmailTaken_IllegalArgumentExceptionThrownAndPatientKept() {
+        // given
+        patientService.addPatient(createPatient("first@gmail.com"));
+        patientService.addPatient(createPatient("second@gmail.com"));
+        PatientDTO changes = new PatientDTO();
+        changes.setEmail("first@gmail.com");
+
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> patientService.patchPatientByEmail("second@gmail.com", changes));
+        assertEquals("Email is already taken.", exception.getMessage());
+        assertTrue(patientRepository.findByEmail("second@gmail.com").isPresent());
+    }
+
+    @Test
+    void deletePatientByEmail_NoUpcomingVisits_UserLookupAndOneDelete() {
+        // given
+        Patient patient = patientService.addPatient(createPatient("delete@gmail.com"));
+        Visit pastVisit = new Visit();
+        pastVisit.setStartVisit(LocalDateTime.now().minusDays(1));
+        pastVisit.setEndVisit(pastVisit.getStartVisit().plusMinutes(15));
+        pastVisit.setPatient(patient);
+        visitRepository.save(pastVisit);
+
+        // when
+        StatementCounter.reset();
+        patientService.deletePatientByEmail("delete@gmail.com");
+        int statements = StatementCounter.count();
+
+        // then
+        assertEquals(2, statements);
+        assertTrue(patientRepository.findByEmail("delete@gmail.com").isEmpty());
+        assertEquals(0, visitRepository.count());
+    }
+
+    @Test
+    void deletePatientByEmail_PatientWithUser_UserRowDeleted() {
+        // given
+        Patient patient = createPatient("withuser@gmail.com");
+        User user = new User();
+        user.setUsername("withuser");
+        user.setPassword("password");
+        patient.setUser(user);
+        Long userId = patientService.addPatient(patient).getUser().getId();
+
+        // when
+        StatementCounter.reset();
+        patientService.deletePatientByEmail("withuser@gmail.com");
+        int statements = StatementCounter.count();
+
+        // then
+        assertEquals(3, statements);
+        assertTrue(patientRepository.findByEmail("withuser@gmail.com").isEmpty());
+        assertFalse(userRepository.existsById(userId));
+    }
+
+    @Test
+    void deletePatientByEmail_UpcomingVisit_VisitFreedAndPatientDeletedInSixStatements() {
+        // given
+        Patient patient = patientService.addPatient(createPatient("delete@gmail.com"));
+        Visit visit = new Visit();
+        visit.setStartVisit(LocalDateTime.now().plusDays(1));
+        visit.setEndVisit(visit.getStartVisit().plusMinutes(15));
+        visit.setPatient(patient);
+        visit = visitRepository.save(visit);
+
+        // when
+        StatementCounter.reset();
+        patientService.deletePatientByEmail("delete@gmail.com");
+        int statements = StatementCounter.count();
+
+        // then
+        assertEquals(6, statements);
+        assertTrue(patientRepository.findByEmail("delete@gmail.com").isEmpty());
+        assertNull(visitRepository.findById(visit.getId()).orElseThrow().getPatient());
+    }
+
+    @Benchmark
+    void patchPatientByEmail_ManyPatients_FasterThanLoadAndSave() {
+        // given
+        int count = 1000;
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            patients.add(createPatient("throughput" + i + "@gmail.com"));
+        }
+        patientRepository.saveAll(patients);
+
+        // when
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            PatientDTO changes = new PatientDTO();
+            changes.setPhoneNumber("111" + i);
+            patientService.updatePatientByEmail("throughput" + i + "@gmail.com", changes);
+        }
+        long updateMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        startedAt = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            PatientDTO changes = new PatientDTO();
+            changes.setPhoneNumber("222" + i);
+            patientService.patchPatientByEmail("throughput" + i + "@gmail.com", changes);
+        }
+        long patchMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+
+        // then
+        assertEquals("2220", patientRepository.findByEmail("throughput0@gmail.com").orElseThrow().getPhoneNumber());
+        BenchmarkReport.log("Load-and-save update: {}/s, single-statement patch: {}/s",
+                count * 1000L / updateMillis, count * 1000L / patchMillis);
+    }
+
+    private Patient createPatient(String email) {
+        Patient patient = new Patient();
+        patient.setEmail(email);
+        patient.setIdCardNo("ID-" + email);
+        patient.setFirstName("Kuba");
+        patient.setLastName("Ppp");
+        patient.setPhoneNumber("123456789");
+        patient.setBirthday(LocalDate.of(1990, 1, 1));
+        return patient;
+    }
+}
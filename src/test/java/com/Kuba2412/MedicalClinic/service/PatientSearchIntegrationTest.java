@@ -0,0 +1,154 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.model.dto.PatientDTO;
+import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class PatientSearchIntegrationTest {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private NgramPatientSearchIndex patientSearchIndex;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void cleanup() {
+        patientRepository.findAll().forEach(patient -> patientSearchIndex.remove(patient.getId()));
+        patientRepository.deleteAll();
+    }
+
+    @Test
+    void searchPatients_PrefixAndTypo_PatientFound() {
+        // given
+        patientService.addPatient(createPatient("jakub.kowalski@gmail.com", "Jakub", "Kowalski", "AXY123456"));
+        patientService.addPatient(createPatient("anna.nowak@gmail.com", "Anna", "Nowak", "BCD654321"));
+
+        // when
+        List<PatientDTO> byPrefix = patientService.searchPatients("kowal", 10);
+        List<PatientDTO> byTypo = patientService.searchPatients("Kowlaski", 10);
+        List<PatientDTO> byIdCard = patientService.searchPatients("bcd654", 10);
+
+        // then
+        assertEquals("jakub.kowalski@gmail.com", byPrefix.get(0).getEmail());
+        assertEquals("jakub.kowalski@gmail.com", byTypo.get(0).getEmail());
+        assertEquals("anna.nowak@gmail.com", byIdCard.get(0).getEmail());
+    }
+
+    @Test
+    void searchPatients_PatientUpdatedAndDeleted_IndexFollows() {
+        // given
+        patientService.addPatient(createPatient("jakub.kowalski@gmail.com", "Jakub", "Kowalski", "AXY123456"));
+        PatientDTO update = new PatientDTO();
+        update.setLastName("Wisniewski");
+
+        // when
+        patientService.updatePatientByEmail("jakub.kowalski@gmail.com", update);
+        List<PatientDTO> afterUpdate = patientService.searchPatients("wisniew", 10);
+        patientService.deletePatientByEmail("jakub.kowalski@gmail.com");
+        List<PatientDTO> afterDelete = patientService.searchPatients("wisniew", 10);
+
+        // then
+        assertEquals(1, afterUpdate.size());
+        assertTrue(afterDelete.isEmpty());
+    }
+
+    @Test
+    void search_WritesRolledBack_IndexUnchanged() {
+        // given
+        Long patientId = patientService.addPatient(createPatient("jakub.kowalski@gmail.com", "Jakub", "Kowalski", "AXY123456")).getId();
+        PatientDTO patch = new PatientDTO();
+        patch.setLastName("Wisniewski");
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            patientService.addPatient(createPatient("anna.nowak@gmail.com", "Anna", "Nowak", "BCD654321"));
+            patientService.patchPatientByEmail("jakub.kowalski@gmail.com", patch);
+            status.setRollbackOnly();
+        });
+
+        // then
+        assertTrue(patientSearchIndex.search("nowak", 10).isEmpty());
+        assertTrue(patientSearchIndex.search("wisniew", 10).isEmpty());
+        assertEquals(List.of(patientId), patientSearchIndex.search("kowal", 10));
+    }
+
+    @Test
+    void searchPatients_TurkishDefaultLocale_UppercaseQueryMatches() {
+        // given
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            patientService.addPatient(createPatient("iga.kim@gmail.com", "Iga", "Kim", "IKM123456"));
+
+            // when
+            List<PatientDTO> result = patientService.searchPatients("IGA KIM", 10);
+
+            // then
+            assertEquals("iga.kim@gmail.com", result.get(0).getEmail());
+            assertEquals(NgramPatientSearchIndex.grams("iga kim", false), NgramPatientSearchIndex.grams("IGA KIM", false));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Benchmark
+    void search_TwentyThousandPatients_TypeAheadLatency() {
+        // given
+        String[] firstNames = {"Jakub", "Anna", "Piotr", "Katarzyna", "Tomasz", "Magdalena", "Pawel", "Agnieszka"};
+        String[] lastNames = {"Kowalski", "Nowak", "Wisniewski", "Wojcik", "Kaminski", "Lewandowski", "Zielinski"};
+        int count = 20_000;
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            patients.add(createPatient("patient" + i + "@gmail.com", firstNames[i % firstNames.length],
+                    lastNames[i % lastNames.length] + i, "ID" + i));
+        }
+        patientRepository.saveAll(patients).forEach(patientSearchIndex::index);
+        String[] queries = {"kowal", "nowak12", "lewandowsk", "patient1999", "wisnieski", "id1234"};
+
+        // when
+        long startedAt = System.nanoTime();
+        int rounds = 50;
+        for (int i = 0; i < rounds; i++) {
+            for (String query : queries) {
+                patientSearchIndex.search(query, 20);
+            }
+        }
+        long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt);
+
+        // then
+        assertFalse(patientSearchIndex.search("patient1999", 20).isEmpty());
+        BenchmarkReport.log("Searched {} patients: {} us per query", count, elapsedMicros / (rounds * queries.length));
+    }
+
+    private Patient createPatient(String email, String firstName, String lastName, String idCardNo) {
+        Patient patient = new Patient();
+        patient.setEmail(email);
+        patient.setIdCardNo(idCardNo);
+        patient.setFirstName(firstName);
+        patient.setLastName(lastName);
+        patient.setPhoneNumber("123456789");
+        patient.setBirthday(LocalDate.of(1990, 1, 1));
+        return patient;
+    }
+}
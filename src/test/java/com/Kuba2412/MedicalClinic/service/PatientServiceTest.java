@@ -3,24 +3,33 @@ package com.Kuba2412.MedicalClinic.service;
 import com.Kuba2412.MedicalClinic.handler.exception.PatientNotFound;
 import com.Kuba2412.MedicalClinic.model.Patient;
 import com.Kuba2412.MedicalClinic.model.dto.PatientDTO;
+import com.Kuba2412.MedicalClinic.model.mapper.DoctorMapper;
+import com.Kuba2412.MedicalClinic.model.mapper.InstitutionMapper;
 import com.Kuba2412.MedicalClinic.model.mapper.PatientMapper;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.InstitutionRepository;
 import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import com.Kuba2412.MedicalClinic.repository.UserRepository;
+import com.Kuba2412.MedicalClinic.repository.VisitRepository;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mapstruct.factory.Mappers;
 
 import org.mockito.Mockito;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -32,12 +41,24 @@ public class PatientServiceTest {
     private PatientService patientService;
     private PatientRepository patientRepository;
     private PatientMapper patientMapper;
+    private VisitRepository visitRepository;
+    private UserRepository userRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private PatientSearchIndex patientSearchIndex;
 
     @BeforeEach
     void setup() {
         patientRepository = Mockito.mock(PatientRepository.class);
         patientMapper = Mappers.getMapper(PatientMapper.class);
-        patientService = new PatientService(patientRepository, patientMapper);
+        visitRepository = Mockito.mock(VisitRepository.class);
+        userRepository = Mockito.mock(UserRepository.class);
+        eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        patientSearchIndex = Mockito.mock(PatientSearchIndex.class);
+        patientService = new PatientService(patientRepository, patientMapper, visitRepository, userRepository, eventPublisher,
+                patientSearchIndex, new PatientCache(patientRepository, patientMapper, 100, 300),
+                new BatchLoaders(patientRepository, patientMapper, Mockito.mock(DoctorRepository.class),
+                        Mappers.getMapper(DoctorMapper.class), Mockito.mock(InstitutionRepository.class),
+                        Mappers.getMapper(InstitutionMapper.class), new DirectoryCache(100)));
     }
 
     @Test
@@ -71,12 +92,12 @@ public class PatientServiceTest {
         // given
         String firstName = "Kuba";
         Pageable pageable = PageRequest.of(0, 10);
-        List<Patient> patients = Arrays.asList(createPatient("kuba1@gmail.com"), createPatient("kuba2@gmail.com"));
-        Page<Patient> patientPage = new PageImpl<>(patients, pageable, patients.size());
-        when(patientRepository.findByFirstName(firstName, pageable)).thenReturn(patientPage);
+        List<PatientDTO> patients = Arrays.asList(patientMapper.patientToPatientDTO(createPatient("kuba1@gmail.com")),
+                patientMapper.patientToPatientDTO(createPatient("kuba2@gmail.com")));
+        when(patientRepository.findPatientDTOsByFirstName(firstName, pageable)).thenReturn(new SliceImpl<>(patients));
 
         // when
-        List<PatientDTO> result = patientService.getPatients(firstName, pageable);
+        List<PatientDTO> result = patientService.getPatients(firstName, pageable).getContent();
 
         // then
         assertNotNull(result);
@@ -97,35 +118,161 @@ public class PatientServiceTest {
         // then
         assertNotNull(result);
         assertEquals("newpatient@gmail.com", result.getEmail());
+        verify(patientSearchIndex).index(patient);
+    }
+
+    @Test
+    void addPatient_MixedCaseEmail_StoredNormalized() {
+        // given
+        Patient patient = createPatient(" NewPatient@Gmail.com ");
+        when(patientRepository.save(any(Patient.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        Patient result = patientService.addPatient(patient);
+
+        // then
+        assertEquals("newpatient@gmail.com", result.getEmail());
+    }
+
+    @Test
+    void patchPatientByEmail_MixedCaseEmails_NormalizedEmailsPassed() {
+        // given
+        PatientDTO changes = new PatientDTO();
+        changes.setEmail("New@Gmail.com");
+        when(patientRepository.patchByEmail("patient@gmail.com", "new@gmail.com", null, null, null)).thenReturn(1);
+
+        // when
+        patientService.patchPatientByEmail("Patient@Gmail.com", changes);
+
+        // then
+        verify(patientSearchIndex).update("patient@gmail.com", changes);
+        assertEquals("new@gmail.com", changes.getEmail());
     }
 
     @Test
     void deletePatientByEmail_PatientExists_PatientDeleted() {
         // given
         String patientEmail = "patient@gmail.com";
-        Patient patient = new Patient();
-        patient.setEmail(patientEmail);
-        when(patientRepository.findByEmail(patientEmail)).thenReturn(Optional.of(patient));
+        when(patientRepository.deleteByEmailWithoutFutureVisits(eq(patientEmail), any(LocalDateTime.class))).thenReturn(1);
+
+        // when
+        patientService.deletePatientByEmail(patientEmail);
+
+        // then
+        verify(patientRepository, never()).findByEmail(anyString());
+        verify(patientRepository, never()).deleteAllByEmail(anyString());
+        verify(visitRepository, never()).releaseVisits(anyList());
+        verify(patientSearchIndex).removeByEmail(patientEmail);
+        verifyNoInteractions(eventPublisher, userRepository);
+    }
+
+    @Test
+    void deletePatientByEmail_PatientHasUser_UserDeleted() {
+        // given
+        String patientEmail = "patient@gmail.com";
+        when(patientRepository.findUserIdByEmail(patientEmail)).thenReturn(Optional.of(7L));
+        when(patientRepository.deleteByEmailWithoutFutureVisits(eq(patientEmail), any(LocalDateTime.class))).thenReturn(1);
+
+        // when
+        patientService.deletePatientByEmail(patientEmail);
+
+        // then
+        verify(userRepository, times(1)).deleteAllByIdInBatch(List.of(7L));
+    }
+
+    @Test
+    void deletePatientByEmail_PatientHasFutureVisits_VisitsFreed() {
+        // given
+        String patientEmail = "patient@gmail.com";
+        when(patientRepository.deleteByEmailWithoutFutureVisits(eq(patientEmail), any(LocalDateTime.class))).thenReturn(0);
+        when(visitRepository.findFutureVisitIdsByPatientEmail(eq(patientEmail), any(LocalDateTime.class))).thenReturn(List.of(10L, 11L));
+        when(patientRepository.deleteAllByEmail(patientEmail)).thenReturn(1);
 
         // when
         patientService.deletePatientByEmail(patientEmail);
 
         // then
-        verify(patientRepository, times(1)).findByEmail(patientEmail);
-        verify(patientRepository, times(1)).delete(patient);
+        verify(visitRepository, times(1)).releaseVisits(List.of(10L, 11L));
+        verify(patientRepository, times(1)).deleteAllByEmail(patientEmail);
+        verify(eventPublisher, times(1)).publishEvent(new VisitFreedEvent(10L));
+        verify(eventPublisher, times(1)).publishEvent(new VisitFreedEvent(11L));
     }
 
     @Test
     void deletePatientByEmail_PatientNotFound_ThrowsException() {
         // given
         String patientEmail2 = "nonexistentpatient@gmail.com";
-        when(patientRepository.findByEmail(patientEmail2)).thenReturn(Optional.empty());
+        when(visitRepository.findFutureVisitIdsByPatientEmail(eq(patientEmail2), any(LocalDateTime.class))).thenReturn(List.of());
 
         // when + then
         Exception exception = assertThrows(PatientNotFound.class, () -> patientService.deletePatientByEmail(patientEmail2));
         assertEquals("Patient not found." , exception.getMessage());
-        verify(patientRepository, times(1)).findByEmail(patientEmail2);
-        verify(patientRepository, never()).delete(any(Patient.class));
+        verify(patientRepository, times(1)).deleteAllByEmail(patientEmail2);
+        verifyNoInteractions(eventPublisher, patientSearchIndex);
+    }
+
+    @Test
+    void patchPatientByEmail_FieldsGiven_OnlyGivenFieldsPassed() {
+        // given
+        String patientEmail = "patient@gmail.com";
+        PatientDTO changes = new PatientDTO();
+        changes.setPhoneNumber("987654321");
+        when(patientRepository.patchByEmail(patientEmail, null, null, null, "987654321")).thenReturn(1);
+
+        // when
+        patientService.patchPatientByEmail(patientEmail, changes);
+
+        // then
+        verify(patientRepository, never()).findByEmail(anyString());
+        verify(patientRepository, never()).save(any(Patient.class));
+        verify(patientSearchIndex).update(patientEmail, changes);
+    }
+
+    @Test
+    void patchPatientByEmail_PatientNotFound_ThrowsException() {
+        // given
+        PatientDTO changes = new PatientDTO();
+        changes.setFirstName("Jakub");
+
+        // when + then
+        Exception exception = assertThrows(PatientNotFound.class, () -> patientService.patchPatientByEmail("missing@gmail.com", changes));
+        assertEquals("Patient not found.", exception.getMessage());
+        verifyNoInteractions(patientSearchIndex);
+    }
+
+    @Test
+    void patchPatientByEmail_NoFields_IllegalArgumentExceptionThrown() {
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> patientService.patchPatientByEmail("patient@gmail.com", new PatientDTO()));
+        assertEquals("No fields to update.", exception.getMessage());
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    void patchPatientByEmail_BirthdayGiven_IllegalArgumentExceptionThrown() {
+        // given
+        PatientDTO changes = new PatientDTO();
+        changes.setPhoneNumber("987654321");
+        changes.setBirthday("1991-02-03");
+
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> patientService.patchPatientByEmail("patient@gmail.com", changes));
+        assertEquals("Id card number and birthday can't be changed.", exception.getMessage());
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    void patchPatientByEmail_EmailTaken_IllegalArgumentExceptionThrown() {
+        // given
+        PatientDTO changes = new PatientDTO();
+        changes.setEmail("taken@gmail.com");
+        when(patientRepository.patchByEmail("patient@gmail.com", "taken@gmail.com", null, null, null))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> patientService.patchPatientByEmail("patient@gmail.com", changes));
+        assertEquals("Email is already taken.", exception.getMessage());
+        verifyNoInteractions(patientSearchIndex);
     }
 
     @Test
@@ -151,6 +298,27 @@ public class PatientServiceTest {
         assertEquals("123456789", result.getPhoneNumber());
     }
 
+    @Test
+    void updatePatientByEmail_PatientCached_CacheInvalidated() {
+        // given
+        String patientEmail = "cached@gmail.com";
+        Patient patient = createPatient(patientEmail);
+        PatientDTO newPatientDto = new PatientDTO();
+        newPatientDto.setFirstName("UpdatedFirstName");
+        when(patientRepository.findByEmail(patientEmail)).thenReturn(Optional.of(patient));
+        when(patientRepository.save(any(Patient.class))).thenReturn(patient);
+        patientService.getPatientDtoByEmail(patientEmail);
+        patientService.getPatientDtoByEmail(patientEmail);
+
+        // when
+        patientService.updatePatientByEmail(patientEmail, newPatientDto);
+        PatientDTO result = patientService.getPatientDtoByEmail(patientEmail);
+
+        // then
+        assertEquals("UpdatedFirstName", result.getFirstName());
+        verify(patientRepository, times(3)).findByEmail(patientEmail);
+    }
+
     @Test
     void updatePatientByEmail_NonExsistentEmail_IllegalArgumentExceptionThrown() {
         // given
@@ -169,6 +337,81 @@ public class PatientServiceTest {
         verify(patientRepository, times(1)).findByEmail(nonExsistentEmail1);
     }
 
+    @Test
+    void searchPatients_IndexReturnsIds_PatientsReturnedInRankOrder() {
+        // given
+        Patient first = createPatient("first@gmail.com");
+        Patient second = createPatient("second@gmail.com");
+        second.setId(2L);
+        when(patientSearchIndex.search("kub", 10)).thenReturn(List.of(2L, 1L));
+        when(patientRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(first, second));
+
+        // when
+        List<PatientDTO> result = patientService.searchPatients(" kub ", 10);
+
+        // then
+        assertEquals(2, result.size());
+        assertEquals("second@gmail.com", result.get(0).getEmail());
+        assertEquals("first@gmail.com", result.get(1).getEmail());
+    }
+
+    @Test
+    void searchPatients_NoMatches_RepositoryNotQueried() {
+        // given
+        when(patientSearchIndex.search("xyz", 20)).thenReturn(List.of());
+
+        // when
+        List<PatientDTO> result = patientService.searchPatients("xyz", 20);
+
+        // then
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    void searchPatients_QueryTooShort_IllegalArgumentExceptionThrown() {
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> patientService.searchPatients("k", 20));
+        assertEquals("Search query must have at least 2 characters.", exception.getMessage());
+        verifyNoInteractions(patientSearchIndex);
+    }
+
+    @Test
+    void searchPatients_LimitOutOfRange_IllegalArgumentExceptionThrown() {
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> patientService.searchPatients("kuba", 101));
+        assertEquals("Limit must be between 1 and 100.", exception.getMessage());
+    }
+
+    @Test
+    void getPatientsByIds_IdsGiven_OneQueryAndRequestOrderKept() {
+        // given
+        Patient first = createPatient("first@gmail.com");
+        Patient second = createPatient("second@gmail.com");
+        second.setId(2L);
+        when(patientRepository.findAllById(List.of(2L, 3L, 1L))).thenReturn(List.of(first, second));
+
+        // when
+        List<PatientDTO> result = patientService.getPatientsByIds(List.of(2L, 3L, 2L, 1L));
+
+        // then
+        assertEquals(List.of("second@gmail.com", "first@gmail.com"), result.stream().map(PatientDTO::getEmail).toList());
+        verify(patientRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    void getPatientsByEmails_TooManyEmails_IllegalArgumentExceptionThrown() {
+        // given
+        List<String> emails = IntStream.rangeClosed(0, BatchLoaders.MAX_KEYS)
+                .mapToObj(i -> "patient" + i + "@gmail.com")
+                .toList();
+
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> patientService.getPatientsByEmails(emails));
+        assertEquals("At most 100 keys can be requested at once.", exception.getMessage());
+        verifyNoInteractions(patientRepository);
+    }
+
     private Patient createPatient(String email) {
         return new Patient(1L, email, "password", "Kuba", "Pp", "1234567890", LocalDate.of(2001, 1, 1), null, null);
     }
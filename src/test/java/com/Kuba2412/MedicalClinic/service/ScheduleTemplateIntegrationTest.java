@@ -0,0 +1,201 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Doctor;
+import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleTemplateDTO;
+import com.Kuba2412.MedicalClinic.model.dto.SlotDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitDTO;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import com.Kuba2412.MedicalClinic.repository.ScheduleTemplateRepository;
+import com.Kuba2412.MedicalClinic.repository.VisitRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Import(StatementCounter.class)
+public class ScheduleTemplateIntegrationTest {
+
+    @Autowired
+    private ScheduleTemplateService scheduleTemplateService;
+
+    @Autowired
+    private VisitService visitService;
+
+    @Autowired
+    private ScheduleTemplateExpander scheduleTemplateExpander;
+
+    @Autowired
+    private ScheduleTemplateRepository scheduleTemplateRepository;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    private Doctor doctor;
+    private Patient patient;
+    private LocalDate monday;
+
+    @BeforeEach
+    void setup() {
+        doctor = new Doctor();
+        doctor.setFirstName("Kuba");
+        doctor.setLastName("Ppp");
+        doctor.setSpecialization("Orthopedics");
+        doctor = doctorRepository.save(doctor);
+
+        patient = new Patient();
+        patient.setEmail("template@gmail.com");
+        patient.setIdCardNo("TPL1");
+        patient.setFirstName("Kuba");
+        patient.setLastName("Ppp");
+        patient.setPhoneNumber("123456789");
+        patient.setBirthday(LocalDate.of(1990, 1, 1));
+        patient = patientRepository.save(patient);
+
+        monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+        scheduleTemplateService.createTemplate(doctor.getId(), new ScheduleTemplateDTO(null, null,
+                EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), LocalTime.of(8, 0), LocalTime.of(14, 0), 15,
+                null, null));
+    }
+
+    @AfterEach
+    void cleanup() {
+        visitRepository.deleteAll();
+        scheduleTemplateRepository.deleteAll();
+        patientRepository.deleteAll();
+        doctorRepository.deleteAll();
+        scheduleTemplateExpander.load();
+    }
+
+    @Test
+    void getFreeSlotsForDoctor_WeekdayTemplate_SlotsExpandedWithoutVisitRows() {
+        // when
+        List<SlotDTO> mondaySlots = visitService.getFreeSlotsForDoctor(doctor.getId(), monday);
+        List<SlotDTO> sundaySlots = visitService.getFreeSlotsForDoctor(doctor.getId(), monday.minusDays(1));
+
+        // then
+        assertEquals(24, mondaySlots.size());
+        assertEquals(monday.atTime(8, 0), mondaySlots.get(0).getStartVisit());
+        assertEquals(monday.atTime(13, 45), mondaySlots.get(23).getStartVisit());
+        assertTrue(sundaySlots.isEmpty());
+        assertEquals(0, visitRepository.count());
+    }
+
+    @Test
+    void registerPatientForTemplateSlot_FreeSlot_VisitCreatedAndSlotNoLongerOffered() {
+        // given
+        LocalDateTime start = monday.atTime(9, 30);
+
+        // when
+        VisitDTO visit = visitService.registerPatientForTemplateSlot(doctor.getId(), start, patient.getId());
+
+        // then
+        assertEquals(patient.getId(), visit.getPatientId());
+        assertEquals(start.plusMinutes(15), visit.getEndVisit());
+        assertEquals(1, visitRepository.count());
+        List<SlotDTO> slots = visitService.getFreeSlotsForDoctor(doctor.getId(), monday);
+        assertEquals(23, slots.size());
+        assertTrue(slots.stream().noneMatch(slot -> slot.getStartVisit().equals(start)));
+        assertEquals(23, visitService.getAvailableVisitsByDoctorSpecializationAndByDate("Orthopedics", monday).size());
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> visitService.registerPatientForTemplateSlot(doctor.getId(), start, patient.getId()));
+        assertEquals("Visit already has registered patient.", exception.getMessage());
+    }
+
+    @Test
+    void getFreeSlotsForDoctor_TemplatesExpanded_NoStatements() {
+        // when
+        StatementCounter.reset();
+        List<SlotDTO> slots = visitService.getFreeSlotsForDoctor(doctor.getId(), monday);
+        List<SlotDTO> firstSlots = scheduleTemplateExpander.getFirstFreeSlots("Orthopedics", null, 5);
+        int statements = StatementCounter.count();
+
+        // then
+        assertEquals(0, statements);
+        assertEquals(24, slots.size());
+        assertEquals(5, firstSlots.size());
+    }
+
+    @Test
+    void createVisit_OverlapsTemplateSlots_SlotsNoLongerOfferedUntilCancelled() {
+        // given
+        visitService.createVisit(new VisitDTO(null, monday.atTime(10, 0), monday.atTime(10, 30), null,
+                doctor.getId(), null));
+
+        // when
+        List<SlotDTO> slots = visitService.getFreeSlotsForDoctor(doctor.getId(), monday);
+        visitService.cancelDoctorVisits(doctor.getId(), monday.atStartOfDay(), monday.plusDays(1).atStartOfDay());
+        List<SlotDTO> slotsAfterCancel = visitService.getFreeSlotsForDoctor(doctor.getId(), monday);
+
+        // then
+        assertEquals(23, slots.size());
+        assertEquals(1, slots.stream().filter(slot -> slot.getVisitId() != null).count());
+        assertTrue(slots.stream().noneMatch(slot -> slot.getVisitId() == null
+                && slot.getStartVisit().equals(monday.atTime(10, 15))));
+        assertEquals(24, slotsAfterCancel.size());
+        assertTrue(slotsAfterCancel.stream().allMatch(slot -> slot.getVisitId() == null));
+    }
+
+    @Test
+    void registerPatientForTemplateSlot_OffQuarterHour_IllegalArgumentExceptionThrown() {
+        // when
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> visitService.registerPatientForTemplateSlot(doctor.getId(), monday.atTime(9, 10), patient.getId()));
+
+        // then
+        assertEquals("Visit time must be in full quarter-hour intervals.", exception.getMessage());
+        assertEquals(0, visitRepository.count());
+    }
+
+    @Test
+    void getNextAvailableSlots_TemplatedDoctorWithoutSpecialization_OtherSpecializationsServed() {
+        // given
+        Doctor withoutSpecialization = new Doctor();
+        withoutSpecialization.setFirstName("Anna");
+        withoutSpecialization.setLastName("Nowak");
+        withoutSpecialization = doctorRepository.save(withoutSpecialization);
+        scheduleTemplateService.createTemplate(withoutSpecialization.getId(), new ScheduleTemplateDTO(null, null,
+                EnumSet.allOf(DayOfWeek.class), LocalTime.of(8, 0), LocalTime.of(9, 0), 15, null, null));
+
+        // when
+        List<SlotDTO> slots = visitService.getNextAvailableSlots("Orthopedics", null, 5);
+        List<VisitDTO> visits = visitService.getAvailableVisitsByDoctorSpecializationAndByDate("Orthopedics", monday);
+
+        // then
+        assertEquals(5, slots.size());
+        assertTrue(slots.stream().allMatch(slot -> slot.getDoctorId().equals(doctor.getId())));
+        assertEquals(24, visits.size());
+    }
+
+    @Test
+    void getNextAvailableSlots_TemplateDoctor_EarliestTemplateSlotsReturned() {
+        // when
+        List<SlotDTO> slots = visitService.getNextAvailableSlots("Orthopedics", null, 5);
+
+        // then
+        assertEquals(5, slots.size());
+        assertTrue(slots.stream().allMatch(slot -> slot.getVisitId() == null
+                && slot.getStartVisit().isAfter(LocalDateTime.now())));
+        assertTrue(slots.get(0).getStartVisit().isBefore(slots.get(4).getStartVisit()));
+    }
+}
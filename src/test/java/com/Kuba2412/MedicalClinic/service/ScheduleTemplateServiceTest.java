@@ -0,0 +1,148 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.handler.exception.ScheduleTemplateNotFound;
+import com.Kuba2412.MedicalClinic.model.Doctor;
+import com.Kuba2412.MedicalClinic.model.ScheduleTemplate;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleTemplateDTO;
+import com.Kuba2412.MedicalClinic.model.mapper.ScheduleTemplateMapper;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.ScheduleTemplateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ScheduleTemplateServiceTest {
+
+    private ScheduleTemplateService scheduleTemplateService;
+    private ScheduleTemplateRepository scheduleTemplateRepository;
+    private DoctorRepository doctorRepository;
+    private ScheduleTemplateMapper scheduleTemplateMapper;
+    private ScheduleTemplateExpander scheduleTemplateExpander;
+
+    @BeforeEach
+    void setup() {
+        scheduleTemplateRepository = Mockito.mock(ScheduleTemplateRepository.class);
+        doctorRepository = Mockito.mock(DoctorRepository.class);
+        scheduleTemplateMapper = Mockito.mock(ScheduleTemplateMapper.class);
+        scheduleTemplateExpander = Mockito.mock(ScheduleTemplateExpander.class);
+        scheduleTemplateService = new ScheduleTemplateService(scheduleTemplateRepository, doctorRepository,
+                scheduleTemplateMapper, scheduleTemplateExpander);
+    }
+
+    @Test
+    void createTemplate_WeekdayMornings_DaysStoredAsMask() {
+        // given
+        ScheduleTemplateDTO templateDTO = new ScheduleTemplateDTO(null, null,
+                EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), LocalTime.of(8, 0), LocalTime.of(14, 0), 15, null, null);
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(new Doctor()));
+        when(scheduleTemplateRepository.save(any(ScheduleTemplate.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        scheduleTemplateService.createTemplate(1L, templateDTO);
+
+        // then
+        verify(scheduleTemplateRepository).save(argThat(template -> template.getDaysMask() == 0b11111
+                && template.getValidFrom().equals(LocalDate.now())));
+        verify(scheduleTemplateExpander).refresh(List.of(1L));
+    }
+
+    @Test
+    void createTemplate_OverlapsExistingTemplate_ThrowsException() {
+        // given
+        ScheduleTemplate existing = new ScheduleTemplate(3L, new Doctor(), ScheduleTemplate.dayBit(DayOfWeek.MONDAY),
+                LocalTime.of(12, 0), LocalTime.of(16, 0), 30, LocalDate.now(), null);
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(new Doctor()));
+        when(scheduleTemplateRepository.findAllByDoctorIdOrderByStartTime(1L)).thenReturn(List.of(existing));
+        ScheduleTemplateDTO templateDTO = new ScheduleTemplateDTO(null, null,
+                EnumSet.of(DayOfWeek.MONDAY), LocalTime.of(8, 0), LocalTime.of(13, 0), 15, null, null);
+
+        // when
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> scheduleTemplateService.createTemplate(1L, templateDTO));
+
+        // then
+        assertEquals("Template overlaps with another template of the doctor.", exception.getMessage());
+        verify(scheduleTemplateRepository, never()).save(any());
+    }
+
+    @Test
+    void createTemplate_SlotLongerThanHours_ThrowsException() {
+        // given
+        ScheduleTemplateDTO templateDTO = new ScheduleTemplateDTO(null, null,
+                EnumSet.of(DayOfWeek.MONDAY), LocalTime.of(8, 0), LocalTime.of(8, 30), 45, null, null);
+
+        // when
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> scheduleTemplateService.createTemplate(1L, templateDTO));
+
+        // then
+        assertEquals("Template must fit at least one slot.", exception.getMessage());
+        verifyNoInteractions(doctorRepository);
+    }
+
+    @Test
+    void createTemplate_StartOffQuarterHour_ThrowsException() {
+        // given
+        ScheduleTemplateDTO templateDTO = new ScheduleTemplateDTO(null, null,
+                EnumSet.of(DayOfWeek.MONDAY), LocalTime.of(8, 7), LocalTime.of(12, 0), 15, null, null);
+
+        // when
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> scheduleTemplateService.createTemplate(1L, templateDTO));
+
+        // then
+        assertEquals("Template start and end time must be on a quarter-hour.", exception.getMessage());
+        verifyNoInteractions(doctorRepository);
+    }
+
+    @Test
+    void createTemplate_SlotNotMultipleOfQuarterHour_ThrowsException() {
+        // given
+        ScheduleTemplateDTO templateDTO = new ScheduleTemplateDTO(null, null,
+                EnumSet.of(DayOfWeek.MONDAY), LocalTime.of(8, 0), LocalTime.of(12, 0), 20, null, null);
+
+        // when
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> scheduleTemplateService.createTemplate(1L, templateDTO));
+
+        // then
+        assertEquals("Slot length must be a multiple of 15 minutes between 15 and 480 minutes.", exception.getMessage());
+        verifyNoInteractions(doctorRepository);
+    }
+
+    @Test
+    void deleteTemplate_TemplateExists_DoctorScheduleRefreshed() {
+        // given
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        ScheduleTemplate template = new ScheduleTemplate(5L, doctor, ScheduleTemplate.dayBit(DayOfWeek.MONDAY),
+                LocalTime.of(8, 0), LocalTime.of(12, 0), 30, LocalDate.now(), null);
+        when(scheduleTemplateRepository.findById(5L)).thenReturn(Optional.of(template));
+
+        // when
+        scheduleTemplateService.deleteTemplate(5L);
+
+        // then
+        verify(scheduleTemplateRepository).delete(template);
+        verify(scheduleTemplateExpander).refresh(List.of(1L));
+    }
+
+    @Test
+    void deleteTemplate_TemplateNotFound_ThrowsException() {
+        // given
+        when(scheduleTemplateRepository.findById(5L)).thenReturn(Optional.empty());
+
+        // when + then
+        assertThrows(ScheduleTemplateNotFound.class, () -> scheduleTemplateService.deleteTemplate(5L));
+    }
+}
@@ -0,0 +1,133 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * List endpoints read a {@code Slice}: one statement per page, and the {@code COUNT(*)} only when the
+ * client asks for the total. Timings of a deep page with and without the count are logged.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(StatementCounter.class)
+public class SlicePaginationTest {
+
+    private static final int ROWS = 5_000;
+    private static final int ITERATIONS = 100;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @BeforeEach
+    void setup() {
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            patients.add(createPatient(i));
+        }
+        patientRepository.saveAll(patients);
+    }
+
+    @AfterEach
+    void cleanup() {
+        patientRepository.deleteAll();
+    }
+
+    @Test
+    void getPatients_NoTotalRequested_OneStatementAndHasNextHeader() throws Exception {
+        // when
+        StatementCounter.reset();
+        mockMvc.perform(get("/patients").param("page", "0").param("size", "10").param("sort", "id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(10))
+                .andExpect(header().string("X-Has-Next", "true"))
+                .andExpect(header().doesNotExist("X-Total-Count"));
+        int statements = StatementCounter.count();
+
+        // then
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void getPatients_TotalRequested_CountAdded() throws Exception {
+        // when
+        StatementCounter.reset();
+        mockMvc.perform(get("/patients").param("page", "0").param("size", "10").param("includeTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", String.valueOf(ROWS)));
+        int statements = StatementCounter.count();
+
+        // then
+        assertEquals(2, statements);
+    }
+
+    @Test
+    void getPatients_LastPage_HasNextFalse() throws Exception {
+        mockMvc.perform(get("/patients").param("page", String.valueOf(ROWS / 10 - 1)).param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(10))
+                .andExpect(header().string("X-Has-Next", "false"));
+    }
+
+    @Benchmark
+    void getPatients_DeepPage_SliceCheaperThanPage() {
+        // given
+        Pageable page = PageRequest.of(ROWS / 50 - 2, 50, Sort.by("id"));
+
+        // when
+        long pageNanos = measure(() -> patientRepository.findAll(page));
+        long sliceNanos = measure(() -> patientService.getPatients(null, page));
+
+        // then
+        BenchmarkReport.log("page {} of {} rows: entity Page with count {} us, projection Slice {} us", page.getPageNumber(), ROWS,
+                pageNanos / 1_000, sliceNanos / 1_000);
+        assertTrue(patientService.getPatients(null, page).hasNext());
+    }
+
+    private static long measure(Supplier<?> pageLoader) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            pageLoader.get();
+        }
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            pageLoader.get();
+        }
+        return (System.nanoTime() - startedAt) / ITERATIONS;
+    }
+
+    private static Patient createPatient(int i) {
+        Patient patient = new Patient();
+        patient.setEmail("slice" + i + "@gmail.com");
+        patient.setIdCardNo("SLC" + i);
+        patient.setFirstName("Kuba");
+        patient.setLastName("Ppp" + i);
+        patient.setPhoneNumber("123456789");
+        patient.setBirthday(LocalDate.of(1990, 1, 1));
+        return patient;
+    }
+}
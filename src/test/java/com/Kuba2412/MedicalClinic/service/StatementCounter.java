@@ -0,0 +1,64 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the JDBC statements the application prepares, whether they come from Hibernate or
+ * from a JdbcTemplate. A batch counts once, as it is sent in one round trip. Import it into a
+ * test and call {@link #reset()} right before the code under measurement.
+ */
+@TestConfiguration
+public class StatementCounter {
+
+    private static final AtomicInteger STATEMENTS = new AtomicInteger();
+
+    @Bean
+    static BeanPostProcessor statementCountingDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? countingProxy(dataSource, DataSource.class) : bean;
+            }
+        };
+    }
+
+    public static void reset() {
+        STATEMENTS.set(0);
+    }
+
+    public static int count() {
+        return STATEMENTS.get();
+    }
+
+    private static <T> T countingProxy(T target, Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(StatementCounter.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("equals")) {
+                        return proxy == args[0];
+                    }
+                    if (name.equals("hashCode")) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if (name.equals("prepareStatement") || name.equals("prepareCall") || name.equals("createStatement")) {
+                        STATEMENTS.incrementAndGet();
+                    }
+                    try {
+                        Object result = method.invoke(target, args);
+                        return result instanceof Connection connection && type == DataSource.class
+                                ? countingProxy(connection, Connection.class)
+                                : result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }));
+    }
+}
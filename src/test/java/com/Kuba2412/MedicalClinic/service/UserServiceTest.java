@@ -6,10 +6,10 @@ import com.Kuba2412.MedicalClinic.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import java.util.Arrays;
 import java.util.List;
@@ -17,7 +17,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class UserServiceTest {
 
@@ -82,15 +82,16 @@ public class UserServiceTest {
         // given
         Pageable pageable = PageRequest.of(0, 10);
         List<User> users = Arrays.asList(new User(), new User());
-        Page<User> userPage = new PageImpl<>(users, pageable, users.size());
-        when(userRepository.findAll(pageable)).thenReturn(userPage);
+        when(userRepository.findAllBy(pageable)).thenReturn(new SliceImpl<>(users, pageable, false));
 
         // when
-        List<User> result = userService.getAllUsers(pageable);
+        Slice<User> result = userService.getAllUsers(pageable);
 
         // then
         assertNotNull(result);
-        assertEquals(users.size(), result.size());
+        assertEquals(users.size(), result.getNumberOfElements());
+        assertFalse(result.hasNext());
+        verify(userRepository, never()).count();
     }
 
     @Test
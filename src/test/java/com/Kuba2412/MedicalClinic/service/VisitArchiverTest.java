@@ -0,0 +1,226 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Doctor;
+import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.model.Visit;
+import com.Kuba2412.MedicalClinic.model.dto.VisitCursor;
+import com.Kuba2412.MedicalClinic.model.dto.VisitDTO;
+import com.Kuba2412.MedicalClinic.repository.ArchivedVisitRepository;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import com.Kuba2412.MedicalClinic.repository.VisitRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class VisitArchiverTest {
+
+    @Autowired
+    private VisitArchiver visitArchiver;
+
+    @Autowired
+    private VisitService visitService;
+
+    @Autowired
+    private VisitExportService visitExportService;
+
+    @Autowired
+    private VisitSlotCalendar visitSlotCalendar;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private ArchivedVisitRepository archivedVisitRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    private Doctor doctor;
+    private Patient patient;
+
+    @BeforeEach
+    void setup() {
+        doctor = new Doctor();
+        doctor.setFirstName("Kuba");
+        doctor.setLastName("Ppp");
+        doctor.setSpecialization("Dermatology");
+        doctor = doctorRepository.save(doctor);
+
+        patient = new Patient();
+        patient.setEmail("archive@gmail.com");
+        patient.setIdCardNo("ARC1");
+        patient.setFirstName("Kuba");
+        patient.setLastName("Ppp");
+        patient.setPhoneNumber("123456789");
+        patient.setBirthday(LocalDate.of(1990, 1, 1));
+        patient = patientRepository.save(patient);
+    }
+
+    @AfterEach
+    void cleanup() {
+        archivedVisitRepository.deleteAll();
+        visitRepository.deleteAll();
+        patientRepository.deleteAll();
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void archiveFinishedVisits_PastVisits_MovedOutOfVisitTable() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        visitRepository.saveAll(List.of(
+                createVisit(now.minusDays(30), patient),
+                createVisit(now.minusDays(20), patient),
+                createVisit(now.minusDays(10), patient),
+                createVisit(now.minusDays(5), null),
+                createVisit(now.plusDays(2), patient)));
+
+        // when
+        int moved = visitArchiver.archiveFinishedVisits(now);
+
+        // then
+        assertEquals(4, moved);
+        assertEquals(1, visitRepository.count());
+        assertEquals(3, archivedVisitRepository.count());
+        assertEquals("Dermatology", archivedVisitRepository.findAllByPatientId(patient.getId(),
+                PageRequest.ofSize(1)).get(0).getSpecialization());
+    }
+
+    @Test
+    void archiveFinishedVisits_FreeVisitDropped_RemovedFromCalendar() {
+        // given
+        LocalDateTime start = LocalDate.now().plusDays(1).atTime(9, 0);
+        visitService.createVisit(new VisitDTO(null, start, start.plusMinutes(15), null, doctor.getId(), null));
+        int indexed = visitSlotCalendar.size();
+
+        // when
+        visitArchiver.archiveFinishedVisits(start.plusHours(1));
+
+        // then
+        assertEquals(indexed - 1, visitSlotCalendar.size());
+        assertTrue(visitSlotCalendar.getFreeSlots(doctor.getId(), start.toLocalDate()).isEmpty());
+    }
+
+    @Test
+    void getAllVisitsForPatient_HistoryPartlyArchived_PagesSpanBothTables() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        visitRepository.saveAll(List.of(
+                createVisit(now.minusDays(30), patient),
+                createVisit(now.minusDays(20), patient),
+                createVisit(now.minusDays(10), patient),
+                createVisit(now.plusDays(2), patient)));
+        visitArchiver.archiveFinishedVisits(now);
+
+        // when
+        List<VisitDTO> firstPage = visitService.getAllVisitsForPatient(patient.getId(), new VisitCursor(null, null, 2));
+        VisitDTO last = firstPage.get(firstPage.size() - 1);
+        List<VisitDTO> secondPage = visitService.getAllVisitsForPatient(patient.getId(),
+                new VisitCursor(last.getStartVisit(), last.getId(), 2));
+
+        // then
+        assertEquals(2, firstPage.size());
+        assertEquals(2, secondPage.size());
+        assertTrue(firstPage.get(0).getStartVisit().isBefore(firstPage.get(1).getStartVisit()));
+        assertTrue(secondPage.get(0).getStartVisit().isBefore(now));
+        assertTrue(secondPage.get(1).getStartVisit().isAfter(now));
+    }
+
+    @Test
+    void getVisitsByDoctorId_HistoryPartlyArchived_ArchivedVisitsListed() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        visitRepository.saveAll(List.of(
+                createVisit(now.minusDays(10), patient),
+                createVisit(now.plusDays(2), patient)));
+        visitArchiver.archiveFinishedVisits(now);
+
+        // when
+        List<VisitDTO> visits = visitService.getVisitsByDoctorId(doctor.getId(), new VisitCursor());
+
+        // then
+        assertEquals(2, visits.size());
+        assertTrue(visits.get(0).getStartVisit().isBefore(now));
+        assertEquals(patient.getId(), visits.get(0).getPatientId());
+        assertEquals("Dermatology", visits.get(0).getSpecialization());
+        assertTrue(visits.get(1).getStartVisit().isAfter(now));
+    }
+
+    @Test
+    void exportVisits_VisitArchived_StillExported() throws Exception {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        Visit archived = visitRepository.save(createVisit(now.minusDays(10), patient));
+        visitRepository.save(createVisit(now.plusDays(2), patient));
+        visitArchiver.archiveFinishedVisits(now);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        visitExportService.exportVisits(now.toLocalDate().minusDays(30), now.toLocalDate().plusDays(30),
+                doctor.getId(), null).writeTo(outputStream);
+
+        // then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"id\":" + archived.getId() + ","));
+    }
+
+    @Test
+    void archiveFinishedVisits_DoctorDeletedLater_ArchivedVisitsCascaded() {
+        // given
+        visitRepository.save(createVisit(LocalDateTime.now().minusDays(10), patient));
+        visitArchiver.archiveFinishedVisits(LocalDateTime.now());
+
+        // when
+        doctorRepository.delete(doctor);
+
+        // then
+        assertEquals(0, archivedVisitRepository.count());
+    }
+
+    @Test
+    void archiveFinishedVisits_ManyPastVisits_MovedInBatches() {
+        // given
+        int count = 5000;
+        LocalDateTime start = LocalDate.now().minusDays(200).atStartOfDay();
+        List<Visit> visits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            visits.add(createVisit(start.plusMinutes(15L * i), i % 2 == 0 ? patient : null));
+        }
+        visitRepository.saveAll(visits);
+
+        // when
+        int moved = visitArchiver.archiveFinishedVisits(LocalDateTime.now());
+
+        // then
+        assertEquals(count, moved);
+        assertEquals(0, visitRepository.count());
+        assertEquals(count / 2, archivedVisitRepository.count());
+    }
+
+    private Visit createVisit(LocalDateTime start, Patient patient) {
+        Visit visit = new Visit();
+        visit.setStartVisit(start);
+        visit.setEndVisit(start.plusMinutes(15));
+        visit.setDoctor(doctor);
+        visit.setPatient(patient);
+        return visit;
+    }
+}
@@ -0,0 +1,214 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Doctor;
+import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.model.Visit;
+import com.Kuba2412.MedicalClinic.model.dto.RegistrationDTO;
+import com.Kuba2412.MedicalClinic.model.dto.RegistrationResultDTO;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import com.Kuba2412.MedicalClinic.repository.VisitRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Import(StatementCounter.class)
+public class VisitBookingConcurrencyTest {
+
+    private static final int THREADS = 32;
+
+    @Autowired
+    private VisitService visitService;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    private List<Patient> patients;
+
+    @BeforeEach
+    void setup() {
+        patients = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            patients.add(patientRepository.save(createPatient(i)));
+        }
+    }
+
+    @AfterEach
+    void cleanup() {
+        visitRepository.deleteAll();
+        patientRepository.deleteAll();
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void registerPatientForVisit_ThousandsOfConcurrentBookingsForOneSlot_ExactlyOneSucceeds() throws Exception {
+        // given
+        Visit visit = visitRepository.save(createVisit(LocalDateTime.now().plusDays(1)));
+        int attempts = 2000;
+        AtomicInteger successes = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+
+        // when
+        runConcurrently(attempts, i -> {
+            try {
+                visitService.registerPatientForVisit(visit.getId(), patients.get(i % THREADS).getId());
+                successes.incrementAndGet();
+            } catch (IllegalArgumentException e) {
+                assertEquals("Visit already has registered patient.", e.getMessage());
+                conflicts.incrementAndGet();
+            }
+        });
+
+        // then
+        assertEquals(1, successes.get());
+        assertEquals(attempts - 1, conflicts.get());
+        assertNotNull(visitRepository.findById(visit.getId()).orElseThrow().getPatient());
+    }
+
+    @Test
+    void registerPatientForVisit_ManyDistinctSlots_AllBooked() throws Exception {
+        // given
+        int slots = 2000;
+        LocalDateTime start = LocalDate.now().plusDays(1).atStartOfDay();
+        List<Visit> visits = new ArrayList<>();
+        for (int i = 0; i < slots; i++) {
+            visits.add(createVisit(start.plusMinutes(15L * i)));
+        }
+        List<Long> visitIds = visitRepository.saveAll(visits).stream().map(Visit::getId).toList();
+
+        // when
+        runConcurrently(slots, i -> visitService.registerPatientForVisit(visitIds.get(i), patients.get(i % THREADS).getId()));
+
+        // then
+        assertEquals(0, visitRepository.findAllById(visitIds).stream().filter(visit -> visit.getPatient() == null).count());
+    }
+
+    @Test
+    void registerPatients_ConcurrentOverlappingBatches_EachVisitRegisteredOnce() throws Exception {
+        // given
+        int slots = 200;
+        int batches = 8;
+        LocalDateTime start = LocalDate.now().plusDays(1).atStartOfDay();
+        List<Visit> visits = new ArrayList<>();
+        for (int i = 0; i < slots; i++) {
+            visits.add(createVisit(start.plusMinutes(15L * i)));
+        }
+        List<Long> visitIds = visitRepository.saveAll(visits).stream().map(Visit::getId).toList();
+        AtomicInteger registered = new AtomicInteger();
+
+        // when
+        runConcurrently(batches, i -> {
+            List<RegistrationDTO> registrations = visitIds.stream()
+                    .map(visitId -> new RegistrationDTO(visitId, patients.get(i).getId()))
+                    .toList();
+            registered.addAndGet((int) visitService.registerPatients(registrations).stream()
+                    .filter(RegistrationResultDTO::isRegistered)
+                    .count());
+        });
+
+        // then
+        assertEquals(slots, registered.get());
+        assertEquals(0, visitRepository.findAllById(visitIds).stream().filter(visit -> visit.getPatient() == null).count());
+    }
+
+    @Test
+    void registerPatients_BatchAcrossDoctorsAndBookedVisits_RegisteredInFiveStatements() {
+        // given
+        int slots = 400;
+        LocalDateTime start = LocalDate.now().plusDays(1).atStartOfDay();
+        List<Visit> visits = new ArrayList<>();
+        for (int i = 0; i < slots; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setFirstName("Kuba");
+            doctor.setLastName("Ppp" + i);
+            doctor.setSpecialization("Cardiology");
+            Visit visit = createVisit(start.plusMinutes(15L * i));
+            visit.setDoctor(doctorRepository.save(doctor));
+            visit.setPatient(i % 2 == 0 ? null : patients.get(i % THREADS));
+            visits.add(visit);
+        }
+        List<Long> visitIds = visitRepository.saveAll(visits).stream().map(Visit::getId).toList();
+        List<RegistrationDTO> registrations = new ArrayList<>();
+        for (int i = 0; i < slots; i++) {
+            registrations.add(new RegistrationDTO(visitIds.get(i), patients.get(i % THREADS).getId()));
+        }
+
+        // when
+        StatementCounter.reset();
+        List<RegistrationResultDTO> results = visitService.registerPatients(registrations);
+        int statements = StatementCounter.count();
+
+        // then
+        assertEquals(slots / 2, results.stream().filter(RegistrationResultDTO::isRegistered).count());
+        assertEquals(0, visitRepository.findAllById(visitIds).stream().filter(visit -> visit.getPatient() == null).count());
+        assertEquals(5, statements);
+    }
+
+    private void runConcurrently(int tasks, IndexedTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < tasks; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Patient createPatient(int index) {
+        Patient patient = new Patient();
+        patient.setEmail("booking" + index + "@gmail.com");
+        patient.setIdCardNo("ABC" + index);
+        patient.setFirstName("Kuba");
+        patient.setLastName("Ppp");
+        patient.setPhoneNumber("123456789");
+        patient.setBirthday(LocalDate.of(1990, 1, 1));
+        return patient;
+    }
+
+    private Visit createVisit(LocalDateTime start) {
+        Visit visit = new Visit();
+        visit.setStartVisit(start);
+        visit.setEndVisit(start.plusMinutes(15));
+        return visit;
+    }
+
+    @FunctionalInterface
+    private interface IndexedTask {
+        void run(int index) throws Exception;
+    }
+}
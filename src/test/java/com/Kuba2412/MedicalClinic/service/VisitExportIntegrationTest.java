@@ -0,0 +1,81 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Doctor;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleDTO;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.VisitRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class VisitExportIntegrationTest {
+
+    @Autowired
+    private VisitExportService visitExportService;
+
+    @Autowired
+    private VisitService visitService;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @AfterEach
+    void cleanup() {
+        visitRepository.deleteAll();
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void exportVisits_GeneratedSchedules_EveryMatchingVisitStreamed() throws Exception {
+        // given
+        Doctor cardiologist = doctorRepository.save(createDoctor("Cardiology"));
+        Doctor neurologist = doctorRepository.save(createDoctor("Neurology"));
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        LocalDate endDate = startDate.plusDays(59);
+        visitService.generateSchedule(new ScheduleDTO(cardiologist.getId(), startDate, endDate,
+                LocalTime.MIN, LocalTime.of(23, 45), 15));
+        visitService.generateSchedule(new ScheduleDTO(neurologist.getId(), startDate, endDate,
+                LocalTime.of(8, 0), LocalTime.of(12, 0), 15));
+        LineCountingOutputStream all = new LineCountingOutputStream();
+        LineCountingOutputStream neurology = new LineCountingOutputStream();
+
+        // when
+        visitExportService.exportVisits(startDate, endDate, null, null).writeTo(all);
+        visitExportService.exportVisits(startDate, endDate, null, "Neurology").writeTo(neurology);
+
+        // then
+        assertEquals(60 * 95 + 60 * 16, all.lines);
+        assertEquals(60 * 16, neurology.lines);
+    }
+
+    private Doctor createDoctor(String specialization) {
+        Doctor doctor = new Doctor();
+        doctor.setFirstName("Kuba");
+        doctor.setLastName("Ppp");
+        doctor.setSpecialization(specialization);
+        return doctor;
+    }
+
+    private static class LineCountingOutputStream extends OutputStream {
+
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+    }
+}
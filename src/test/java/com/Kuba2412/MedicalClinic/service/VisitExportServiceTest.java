@@ -0,0 +1,121 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.dto.VisitDTO;
+import com.Kuba2412.MedicalClinic.repository.ArchivedVisitRepository;
+import com.Kuba2412.MedicalClinic.repository.VisitRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class VisitExportServiceTest {
+
+    private VisitExportService visitExportService;
+    private VisitRepository visitRepository;
+    private ArchivedVisitRepository archivedVisitRepository;
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setup() {
+        visitRepository = Mockito.mock(VisitRepository.class);
+        archivedVisitRepository = Mockito.mock(ArchivedVisitRepository.class);
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        visitExportService = new VisitExportService(visitRepository, archivedVisitRepository, objectMapper,
+                transactionManager);
+    }
+
+    @Test
+    void exportVisits_VisitsInRange_OneJsonLinePerVisit() throws Exception {
+        // given
+        LocalDate from = LocalDate.of(2030, 1, 1);
+        LocalDate to = LocalDate.of(2030, 1, 31);
+        LocalDateTime start = from.atTime(9, 0);
+        Stream<VisitDTO> visits = Stream.of(
+                new VisitDTO(1L, start, start.plusMinutes(15), null, 2L, "Cardiology"),
+                new VisitDTO(2L, start.plusMinutes(15), start.plusMinutes(30), 3L, 2L, "Cardiology"));
+        when(visitRepository.streamForExport(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), 2L, null))
+                .thenReturn(visits);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        visitExportService.exportVisits(from, to, 2L, null).writeTo(outputStream);
+
+        // then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"id\":1"));
+        assertTrue(lines[0].contains("\"startVisit\":\"2030-01-01T09:00:00\""));
+        assertTrue(lines[1].contains("\"patientId\":3"));
+    }
+
+    @Test
+    void exportVisits_VisitsInRange_BothCursorsReadInOneRepeatableReadTransaction() throws Exception {
+        // given
+        LocalDate day = LocalDate.of(2030, 1, 1);
+        when(visitRepository.streamForExport(any(), any(), any(), any())).thenReturn(Stream.empty());
+        when(archivedVisitRepository.streamForExport(any(), any(), any(), any())).thenReturn(Stream.empty());
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+
+        // when
+        visitExportService.exportVisits(day, day, null, null).writeTo(new ByteArrayOutputStream());
+
+        // then
+        verify(transactionManager, times(1)).getTransaction(definition.capture());
+        assertEquals(TransactionDefinition.ISOLATION_REPEATABLE_READ, definition.getValue().getIsolationLevel());
+        assertTrue(definition.getValue().isReadOnly());
+    }
+
+    @Test
+    void exportVisits_SomeVisitsArchived_BothTablesMergedById() throws Exception {
+        // given
+        LocalDate from = LocalDate.of(2030, 1, 1);
+        LocalDate to = LocalDate.of(2030, 1, 31);
+        LocalDateTime start = from.atTime(9, 0);
+        when(visitRepository.streamForExport(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), null, null))
+                .thenReturn(Stream.of(
+                        new VisitDTO(2L, start, start.plusMinutes(15), null, 2L, "Cardiology"),
+                        new VisitDTO(5L, start, start.plusMinutes(15), null, 2L, "Cardiology")));
+        when(archivedVisitRepository.streamForExport(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), null, null))
+                .thenReturn(Stream.of(
+                        new VisitDTO(1L, start, start.plusMinutes(15), 3L, 2L, "Cardiology"),
+                        new VisitDTO(3L, start, start.plusMinutes(15), 3L, 2L, "Cardiology"),
+                        new VisitDTO(7L, start, start.plusMinutes(15), 3L, 2L, "Cardiology")));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        visitExportService.exportVisits(from, to, null, null).writeTo(outputStream);
+
+        // then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].contains("\"id\":1"));
+        assertTrue(lines[1].contains("\"id\":2"));
+        assertTrue(lines[2].contains("\"id\":3"));
+        assertTrue(lines[3].contains("\"id\":5"));
+        assertTrue(lines[4].contains("\"id\":7"));
+    }
+
+    @Test
+    void exportVisits_EndBeforeStart_ThrowsException() {
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> visitExportService.exportVisits(LocalDate.of(2030, 2, 1), LocalDate.of(2030, 1, 1), null, null));
+        assertEquals("Export end date can't be before start date.", exception.getMessage());
+        verifyNoInteractions(visitRepository);
+    }
+}
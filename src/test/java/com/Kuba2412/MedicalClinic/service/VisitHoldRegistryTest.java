@@ -0,0 +1,129 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VisitHoldRegistryTest {
+
+    private VisitHoldRegistry visitHoldRegistry;
+
+    @BeforeEach
+    void setup() {
+        visitHoldRegistry = new VisitHoldRegistry(60);
+    }
+
+    @Test
+    void hold_HeldByOtherPatient_Rejected() {
+        // given
+        visitHoldRegistry.hold(1L, 10L);
+
+        // when + then
+        assertTrue(visitHoldRegistry.hold(1L, 20L).isEmpty());
+        assertTrue(visitHoldRegistry.isHeldBy(1L, 10L));
+        assertTrue(visitHoldRegistry.isHeldByOther(1L, 20L));
+    }
+
+    @Test
+    void hold_SamePatient_HoldExtended() {
+        // given
+        long firstExpiry = visitHoldRegistry.hold(1L, 10L).getAsLong();
+
+        // when
+        long secondExpiry = visitHoldRegistry.hold(1L, 10L).getAsLong();
+
+        // then
+        assertTrue(secondExpiry >= firstExpiry);
+        assertEquals(1, visitHoldRegistry.size());
+    }
+
+    @Test
+    void release_OtherPatient_HoldKept() {
+        // given
+        visitHoldRegistry.hold(1L, 10L);
+
+        // when + then
+        assertFalse(visitHoldRegistry.release(1L, 20L));
+        assertTrue(visitHoldRegistry.isHeld(1L));
+        assertTrue(visitHoldRegistry.release(1L, 10L));
+        assertFalse(visitHoldRegistry.isHeld(1L));
+    }
+
+    @Test
+    void expireHolds_DueHolds_ReclaimedInBulk() {
+        // given
+        long now = System.currentTimeMillis();
+        for (long visitId = 0; visitId < 1_000; visitId++) {
+            visitHoldRegistry.hold(visitId, visitId);
+        }
+
+        // when
+        int expiredEarly = visitHoldRegistry.expireHolds(now + 30_000);
+        int expired = visitHoldRegistry.expireHolds(now + 62_000);
+
+        // then
+        assertEquals(0, expiredEarly);
+        assertEquals(1_000, expired);
+        assertEquals(0, visitHoldRegistry.size());
+    }
+
+    @Test
+    void expireHolds_CheckedEarlierInExpiryTick_ExpiredOnNextTick() {
+        // given
+        long expiresAt = visitHoldRegistry.hold(1L, 10L).getAsLong();
+
+        // when
+        int expiredEarly = visitHoldRegistry.expireHolds(expiresAt - 1);
+        int expired = visitHoldRegistry.expireHolds(expiresAt + 1_000);
+
+        // then
+        assertEquals(0, expiredEarly);
+        assertEquals(1, expired);
+        assertEquals(0, visitHoldRegistry.size());
+    }
+
+    @Test
+    void hold_ConcurrentPatients_EachVisitHeldOnce() throws Exception {
+        // given
+        int threads = 16;
+        int visits = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        // when
+        for (int thread = 0; thread < threads; thread++) {
+            long patientId = thread;
+            int offset = thread * (visits / threads);
+            results.add(executor.submit(() -> {
+                start.await();
+                int held = 0;
+                for (int i = 0; i < visits; i++) {
+                    if (visitHoldRegistry.hold((long) ((offset + i) % visits), patientId).isPresent()) {
+                        held++;
+                    }
+                }
+                return held;
+            }));
+        }
+        start.countDown();
+        int totalHeld = 0;
+        for (Future<Integer> result : results) {
+            totalHeld += result.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdownNow();
+
+        // then
+        assertEquals(visits, totalHeld);
+        assertEquals(visits, visitHoldRegistry.size());
+    }
+}
@@ -0,0 +1,125 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Doctor;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitDTO;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.VisitRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class VisitOverlapTest {
+
+    @Autowired
+    private VisitService visitService;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    private Doctor doctor;
+
+    @BeforeEach
+    void setup() {
+        doctor = new Doctor();
+        doctor.setFirstName("Kuba");
+        doctor.setLastName("Ppp");
+        doctor.setSpecialization("Cardiology");
+        doctor = doctorRepository.save(doctor);
+    }
+
+    @AfterEach
+    void cleanup() {
+        visitRepository.deleteAll();
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void createVisit_OverlappingInterval_Rejected() {
+        // given
+        LocalDateTime start = LocalDate.now().plusDays(1).atTime(10, 0);
+        visitService.createVisit(visit(start, start.plusMinutes(30)));
+
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> visitService.createVisit(visit(start.plusMinutes(15), start.plusMinutes(45))));
+        assertEquals("Visit overlaps with another visit of the doctor.", exception.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> visitService.createVisit(visit(start.minusMinutes(15), start.plusHours(1))));
+        assertEquals(1, visitRepository.count());
+    }
+
+    @Test
+    void createVisit_AdjacentInterval_Created() {
+        // given
+        LocalDateTime start = LocalDate.now().plusDays(1).atTime(10, 0);
+        visitService.createVisit(visit(start, start.plusMinutes(30)));
+
+        // when
+        visitService.createVisit(visit(start.plusMinutes(30), start.plusMinutes(45)));
+        visitService.createVisit(visit(start.minusMinutes(15), start));
+
+        // then
+        assertEquals(3, visitRepository.count());
+    }
+
+    @Benchmark
+    void createVisit_CalendarWithHundredThousandVisits_OverlapsRejectedAndGapsFilled() {
+        // given
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        int existing = 0;
+        for (int year = 0; year < 3; year++) {
+            LocalDate from = startDate.plusDays(366L * year);
+            existing += visitService.generateSchedule(new ScheduleDTO(doctor.getId(), from, from.plusDays(365),
+                    LocalTime.of(0, 0), LocalTime.of(23, 0), 15)).getCreatedVisits();
+        }
+
+        // when
+        int attempts = 1_000;
+        int rejected = 0;
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < attempts; i++) {
+            LocalDateTime start = startDate.plusDays(i).atTime(12, 5);
+            try {
+                visitService.createVisit(visit(start, start.plusMinutes(5)));
+            } catch (IllegalArgumentException e) {
+                rejected++;
+            }
+        }
+        long rejectMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt) / attempts;
+        startedAt = System.nanoTime();
+        for (int i = 0; i < attempts; i++) {
+            LocalDateTime start = startDate.plusDays(i).atTime(23, 0);
+            visitService.createVisit(visit(start, start.plusMinutes(15)));
+        }
+        long createMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt) / attempts;
+
+        // then
+        assertTrue(existing >= 100_000);
+        assertEquals(attempts, rejected);
+        assertEquals(existing + attempts, visitRepository.count());
+        BenchmarkReport.log("createVisit into a calendar of {} visits: {} us/rejected overlap, {} us/created visit",
+                existing, rejectMicros, createMicros);
+    }
+
+    private VisitDTO visit(LocalDateTime start, LocalDateTime end) {
+        VisitDTO visitDTO = new VisitDTO();
+        visitDTO.setDoctorId(doctor.getId());
+        visitDTO.setStartVisit(start);
+        visitDTO.setEndVisit(end);
+        return visitDTO;
+    }
+}
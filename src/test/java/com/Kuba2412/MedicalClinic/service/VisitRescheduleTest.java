@@ -0,0 +1,200 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Doctor;
+import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.model.Visit;
+import com.Kuba2412.MedicalClinic.model.dto.BulkVisitChangeDTO;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitRescheduleDTO;
+import com.Kuba2412.MedicalClinic.repository.AvailableSlotRepository;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import com.Kuba2412.MedicalClinic.repository.VisitRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Import(StatementCounter.class)
+@RecordApplicationEvents
+public class VisitRescheduleTest {
+
+    private static final int VISITS = 500;
+
+    @Autowired
+    private VisitService visitService;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private AvailableSlotRepository availableSlotRepository;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    private Doctor sickDoctor;
+    private Doctor substitute;
+    private Patient patient;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setup() {
+        sickDoctor = doctorRepository.save(createDoctor("Sick"));
+        substitute = doctorRepository.save(createDoctor("Substitute"));
+        patient = new Patient();
+        patient.setEmail("reschedule@gmail.com");
+        patient.setIdCardNo("RES1");
+        patient.setFirstName("Kuba");
+        patient.setLastName("Ppp");
+        patient.setPhoneNumber("123456789");
+        patient.setBirthday(LocalDate.of(1990, 1, 1));
+        patient = patientRepository.save(patient);
+
+        start = LocalDate.now().plusDays(1).atStartOfDay();
+        List<Visit> visits = new ArrayList<>();
+        for (int i = 0; i < VISITS; i++) {
+            Visit visit = new Visit();
+            visit.setStartVisit(start.plusMinutes(15L * i));
+            visit.setEndVisit(visit.getStartVisit().plusMinutes(15));
+            visit.setDoctor(sickDoctor);
+            visit.setPatient(i % 10 == 0 ? patient : null);
+            visits.add(visit);
+        }
+        visitRepository.saveAll(visits);
+        visitService.generateSchedule(new ScheduleDTO(sickDoctor.getId(),
+                start.toLocalDate().plusDays(30), start.toLocalDate().plusDays(30),
+                LocalTime.of(8, 0), LocalTime.of(9, 0), 15));
+    }
+
+    @AfterEach
+    void cleanup() {
+        visitRepository.deleteAll();
+        patientRepository.deleteAll();
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void rescheduleDoctorVisits_FiveHundredVisits_MovedInFewStatements() {
+        // given
+        LocalDate targetDate = start.toLocalDate().plusDays(10);
+        VisitRescheduleDTO rescheduleDTO = new VisitRescheduleDTO(start, start.plusDays(7), substitute.getId(), targetDate);
+
+        // when
+        StatementCounter.reset();
+        BulkVisitChangeDTO result = visitService.rescheduleDoctorVisits(sickDoctor.getId(), rescheduleDTO);
+        int statements = StatementCounter.count();
+
+        // then
+        assertEquals(VISITS, result.getAffectedVisits());
+        assertEquals(List.of(patient.getId()), result.getPatientIds());
+        assertTrue(statements <= 10, "Expected a handful of statements, got " + statements);
+        List<Visit> moved = visitRepository.findAll().stream()
+                .filter(visit -> visit.getDoctor().getId().equals(substitute.getId()))
+                .toList();
+        assertEquals(VISITS, moved.size());
+        assertTrue(moved.stream().allMatch(visit -> !visit.getStartVisit().isBefore(targetDate.atStartOfDay())));
+        assertEquals(VISITS / 10, moved.stream().filter(visit -> visit.getPatient() != null).count());
+        assertEquals(VISITS - VISITS / 10, availableSlotRepository.findAll().stream()
+                .filter(slot -> slot.getDoctorId().equals(substitute.getId()))
+                .count());
+        assertEquals(86, visitService.getFreeSlotsForDoctor(substitute.getId(), targetDate).size());
+        assertEquals(1, applicationEvents.stream(VisitsChangedEvent.class)
+                .filter(event -> event.change() == VisitsChangedEvent.Change.RESCHEDULED)
+                .count());
+    }
+
+    @Test
+    void rescheduleDoctorVisits_TargetDoctorBusy_NothingMoved() {
+        // given
+        Visit busy = new Visit();
+        busy.setStartVisit(start.plusHours(2).plusMinutes(5));
+        busy.setEndVisit(busy.getStartVisit().plusMinutes(15));
+        busy.setDoctor(substitute);
+        visitRepository.save(busy);
+
+        // when
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> visitService.rescheduleDoctorVisits(
+                sickDoctor.getId(), new VisitRescheduleDTO(start, start.plusDays(1), substitute.getId(), null)));
+
+        // then
+        assertEquals("Rescheduled visits overlap with visits of the target doctor.", exception.getMessage());
+        assertEquals(1, visitRepository.findAll().stream()
+                .filter(visit -> visit.getDoctor().getId().equals(substitute.getId()))
+                .count());
+    }
+
+    @Test
+    void rescheduleDoctorVisits_SameDoctorShiftOverlapsSource_NothingMoved() {
+        // when
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> visitService.rescheduleDoctorVisits(
+                sickDoctor.getId(), new VisitRescheduleDTO(start, start.plusDays(2), null, start.toLocalDate().plusDays(1))));
+
+        // then
+        assertEquals("Target window overlaps the visits being moved.", exception.getMessage());
+        assertEquals(start, visitRepository.findAll().stream()
+                .map(Visit::getStartVisit)
+                .min(LocalDateTime::compareTo)
+                .orElseThrow());
+    }
+
+    @Test
+    void rescheduleDoctorVisits_SameDoctorShiftPastSource_VisitsMoved() {
+        // when
+        BulkVisitChangeDTO result = visitService.rescheduleDoctorVisits(sickDoctor.getId(),
+                new VisitRescheduleDTO(start, start.plusDays(2), null, start.toLocalDate().plusDays(10)));
+
+        // then
+        assertEquals(192, result.getAffectedVisits());
+        assertEquals(192, visitRepository.findAll().stream()
+                .filter(visit -> !visit.getStartVisit().isBefore(start.plusDays(10))
+                        && visit.getStartVisit().isBefore(start.plusDays(12)))
+                .count());
+    }
+
+    @Test
+    void cancelDoctorVisits_VisitsInRange_DeletedAndPatientsReturned() {
+        // when
+        StatementCounter.reset();
+        BulkVisitChangeDTO result = visitService.cancelDoctorVisits(sickDoctor.getId(), start, start.plusDays(7));
+        int statements = StatementCounter.count();
+
+        // then
+        assertEquals(VISITS, result.getAffectedVisits());
+        assertEquals(List.of(patient.getId()), result.getPatientIds());
+        assertTrue(statements <= 5, "Expected a handful of statements, got " + statements);
+        assertEquals(4, visitRepository.count());
+        assertEquals(4, availableSlotRepository.count());
+        assertTrue(visitService.getFreeSlotsForDoctor(sickDoctor.getId(), start.toLocalDate()).isEmpty());
+        assertEquals(1, applicationEvents.stream(VisitsChangedEvent.class)
+                .filter(event -> event.change() == VisitsChangedEvent.Change.CANCELLED)
+                .count());
+    }
+
+    private Doctor createDoctor(String lastName) {
+        Doctor doctor = new Doctor();
+        doctor.setFirstName("Kuba");
+        doctor.setLastName(lastName);
+        doctor.setSpecialization("Neurology");
+        return doctor;
+    }
+}
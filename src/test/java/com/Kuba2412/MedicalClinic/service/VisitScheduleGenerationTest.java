@@ -0,0 +1,95 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Doctor;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleDTO;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleResultDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitDTO;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.VisitRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class VisitScheduleGenerationTest {
+
+    @Autowired
+    private VisitService visitService;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @AfterEach
+    void cleanup() {
+        visitRepository.deleteAll();
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void generateSchedule_MonthOfSlots_EveryDayFilled() {
+        // given
+        Doctor doctor = createDoctor();
+        LocalDate startDate = LocalDate.now().plusDays(1);
+
+        // when
+        ScheduleResultDTO result = visitService.generateSchedule(new ScheduleDTO(doctor.getId(), startDate,
+                startDate.plusDays(29), LocalTime.of(8, 0), LocalTime.of(16, 0), 15));
+        Map<LocalDate, Long> visitsPerDay = visitRepository.findAll().stream()
+                .collect(Collectors.groupingBy(visit -> visit.getStartVisit().toLocalDate(), Collectors.counting()));
+
+        // then
+        assertEquals(30 * 32, result.getCreatedVisits());
+        assertEquals(30, visitsPerDay.size());
+        assertTrue(visitsPerDay.keySet().stream().anyMatch(date -> date.getDayOfWeek() == DayOfWeek.SATURDAY));
+        assertTrue(visitsPerDay.values().stream().allMatch(count -> count == 32));
+    }
+
+    @Benchmark
+    void generateSchedule_MonthOfSlots_FasterThanPerVisitCreation() {
+        // given
+        Doctor doctor = createDoctor();
+        LocalDate startDate = LocalDate.now().plusDays(1);
+
+        // when
+        ScheduleResultDTO result = visitService.generateSchedule(new ScheduleDTO(doctor.getId(), startDate,
+                startDate.plusDays(29), LocalTime.of(8, 0), LocalTime.of(16, 0), 15));
+
+        int perVisitCount = 200;
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < perVisitCount; i++) {
+            VisitDTO visitDTO = new VisitDTO();
+            visitDTO.setDoctorId(doctor.getId());
+            visitDTO.setStartVisit(startDate.plusDays(40).atStartOfDay().plusMinutes(15L * i));
+            visitDTO.setEndVisit(visitDTO.getStartVisit().plusMinutes(15));
+            visitService.createVisit(visitDTO);
+        }
+        long perVisitMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        long perVisitRowsPerSecond = perVisitCount * 1000L / perVisitMillis;
+
+        // then
+        assertEquals(30 * 32 + perVisitCount, visitRepository.count());
+        assertTrue(result.getRowsPerSecond() > perVisitRowsPerSecond);
+        BenchmarkReport.log("Schedule: {} rows/s, per-visit path: {} rows/s", result.getRowsPerSecond(), perVisitRowsPerSecond);
+    }
+
+    private Doctor createDoctor() {
+        Doctor doctor = new Doctor();
+        doctor.setFirstName("Kuba");
+        doctor.setLastName("Ppp");
+        doctor.setSpecialization("Cardiology");
+        return doctorRepository.save(doctor);
+    }
+}
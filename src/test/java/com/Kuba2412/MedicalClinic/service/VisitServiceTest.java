@@ -3,24 +3,47 @@ package com.Kuba2412.MedicalClinic.service;
 import com.Kuba2412.MedicalClinic.handler.exception.DoctorNotFoundException;
 import com.Kuba2412.MedicalClinic.handler.exception.PatientNotFound;
 import com.Kuba2412.MedicalClinic.handler.exception.VisitNotFound;
+import com.Kuba2412.MedicalClinic.model.AvailableSlot;
 import com.Kuba2412.MedicalClinic.model.Doctor;
 import com.Kuba2412.MedicalClinic.model.Patient;
 import com.Kuba2412.MedicalClinic.model.Visit;
+import com.Kuba2412.MedicalClinic.model.dto.BulkVisitChangeDTO;
+import com.Kuba2412.MedicalClinic.model.dto.RegistrationDTO;
+import com.Kuba2412.MedicalClinic.model.dto.RegistrationResultDTO;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleDTO;
+import com.Kuba2412.MedicalClinic.model.dto.ScheduleResultDTO;
+import com.Kuba2412.MedicalClinic.model.dto.SlotDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitCursor;
 import com.Kuba2412.MedicalClinic.model.dto.VisitDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitHoldDTO;
+import com.Kuba2412.MedicalClinic.model.dto.VisitRescheduleDTO;
+import com.Kuba2412.MedicalClinic.model.mapper.DoctorMapper;
+import com.Kuba2412.MedicalClinic.model.mapper.InstitutionMapper;
+import com.Kuba2412.MedicalClinic.model.mapper.PatientMapper;
 import com.Kuba2412.MedicalClinic.model.mapper.VisitMapper;
+import com.Kuba2412.MedicalClinic.repository.ArchivedVisitRepository;
+import com.Kuba2412.MedicalClinic.repository.AvailableSlotRepository;
 import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.InstitutionRepository;
 import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import com.Kuba2412.MedicalClinic.repository.VisitAssignment;
+import com.Kuba2412.MedicalClinic.repository.VisitInterval;
 import com.Kuba2412.MedicalClinic.repository.VisitRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
 import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -32,6 +55,13 @@ public class VisitServiceTest {
     private DoctorRepository doctorRepository;
     private PatientRepository patientRepository;
     private VisitMapper visitMapper;
+    private VisitSlotCalendar visitSlotCalendar;
+    private AvailabilityProjection availabilityProjection;
+    private AvailableSlotRepository availableSlotRepository;
+    private VisitHoldRegistry visitHoldRegistry;
+    private ApplicationEventPublisher eventPublisher;
+    private ArchivedVisitRepository archivedVisitRepository;
+    private ScheduleTemplateExpander scheduleTemplateExpander;
 
     @BeforeEach
     void setup() {
@@ -39,13 +69,26 @@ public class VisitServiceTest {
         doctorRepository = Mockito.mock(DoctorRepository.class);
         patientRepository = Mockito.mock(PatientRepository.class);
         visitMapper = Mockito.mock(VisitMapper.class);
-        visitService = new VisitService(visitRepository, patientRepository, visitMapper, doctorRepository);
+        visitSlotCalendar = Mockito.mock(VisitSlotCalendar.class);
+        availabilityProjection = Mockito.mock(AvailabilityProjection.class);
+        availableSlotRepository = Mockito.mock(AvailableSlotRepository.class);
+        visitHoldRegistry = Mockito.mock(VisitHoldRegistry.class);
+        eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        archivedVisitRepository = Mockito.mock(ArchivedVisitRepository.class);
+        scheduleTemplateExpander = Mockito.mock(ScheduleTemplateExpander.class);
+        visitService = new VisitService(visitRepository, patientRepository, visitMapper, doctorRepository,
+                visitSlotCalendar, availabilityProjection, availableSlotRepository, visitHoldRegistry, eventPublisher,
+                archivedVisitRepository, scheduleTemplateExpander,
+                new PatientCache(patientRepository, Mappers.getMapper(PatientMapper.class), 100, 300),
+                new BatchLoaders(patientRepository, Mappers.getMapper(PatientMapper.class), doctorRepository,
+                        Mappers.getMapper(DoctorMapper.class), Mockito.mock(InstitutionRepository.class),
+                        Mappers.getMapper(InstitutionMapper.class), new DirectoryCache(100)));
     }
 
     @Test
     void createVisit_ValidInput_VisitCreated() {
         // given
-        LocalDateTime startVisit = LocalDateTime.now().plusDays(1);
+        LocalDateTime startVisit = LocalDate.now().plusDays(1).atTime(10, 0);
         LocalDateTime endVisit = startVisit.plusHours(1);
 
         VisitDTO visitDTO = new VisitDTO();
@@ -57,14 +100,71 @@ public class VisitServiceTest {
         visit.setEndVisit(endVisit);
 
         when(visitMapper.visitDTOToVisit(visitDTO)).thenReturn(visit);
-        when(visitRepository.save(any(Visit.class))).thenReturn(visit);
+        when(visitRepository.saveAndFlush(any(Visit.class))).thenReturn(visit);
 
         // when
         visitService.createVisit(visitDTO);
 
         // then
         verify(visitMapper, times(1)).visitDTOToVisit(visitDTO);
-        verify(visitRepository, times(1)).save(visit);
+        verify(visitRepository, times(1)).saveAndFlush(visit);
+        verify(availabilityProjection, times(1)).slotOpened(visit);
+    }
+
+    @Test
+    void createVisit_NonExistentDoctor_ThrowsException() {
+        // given
+        VisitDTO visitDTO = new VisitDTO();
+        visitDTO.setDoctorId(999L);
+        visitDTO.setStartVisit(LocalDate.now().plusDays(1).atTime(10, 0));
+        visitDTO.setEndVisit(visitDTO.getStartVisit().plusMinutes(15));
+        when(visitMapper.visitDTOToVisit(visitDTO)).thenReturn(new Visit());
+        when(doctorRepository.findById(999L)).thenReturn(Optional.empty());
+
+        // when + then
+        Exception exception = assertThrows(DoctorNotFoundException.class, () -> visitService.createVisit(visitDTO));
+        assertEquals("Doctor not found.", exception.getMessage());
+        verify(visitRepository, never()).saveAndFlush(any(Visit.class));
+    }
+
+    @Test
+    void createVisit_OverlappingVisit_ThrowsException() {
+        // given
+        LocalDateTime startVisit = LocalDate.now().plusDays(1).atTime(10, 0);
+        VisitDTO visitDTO = new VisitDTO();
+        visitDTO.setDoctorId(1L);
+        visitDTO.setStartVisit(startVisit);
+        visitDTO.setEndVisit(startVisit.plusMinutes(30));
+
+        Visit visit = new Visit();
+        visit.setStartVisit(startVisit);
+        visit.setEndVisit(startVisit.plusMinutes(30));
+
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        when(visitMapper.visitDTOToVisit(visitDTO)).thenReturn(visit);
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
+        when(visitRepository.existsOverlappingVisit(1L, startVisit.minusHours(8), startVisit, startVisit.plusMinutes(30)))
+                .thenReturn(true);
+
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> visitService.createVisit(visitDTO));
+        assertEquals("Visit overlaps with another visit of the doctor.", exception.getMessage());
+        verify(visitRepository, never()).saveAndFlush(any(Visit.class));
+    }
+
+    @Test
+    void createVisit_EndBeforeStart_ThrowsException() {
+        // given
+        LocalDateTime startVisit = LocalDate.now().plusDays(1).atTime(10, 0);
+        VisitDTO visitDTO = new VisitDTO();
+        visitDTO.setStartVisit(startVisit);
+        visitDTO.setEndVisit(startVisit.minusMinutes(15));
+
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> visitService.createVisit(visitDTO));
+        assertEquals("Visit end date must be after start date.", exception.getMessage());
+        verifyNoInteractions(visitRepository);
     }
 
     @Test
@@ -100,12 +200,12 @@ public class VisitServiceTest {
 
         List<Visit> visits = Arrays.asList(visit1, visit2);
 
-        when(visitRepository.findAllByPatientId(patientId)).thenReturn(visits);
+        when(visitRepository.findAllByPatientIdOrderByStartVisitAscIdAsc(patientId, PageRequest.ofSize(20))).thenReturn(visits);
         when(visitMapper.visitToVisitDTO(visit1)).thenReturn(visitDTO1);
         when(visitMapper.visitToVisitDTO(visit2)).thenReturn(visitDTO2);
 
 // when
-        List<VisitDTO> result = visitService.getAllVisitsForPatient(patientId);
+        List<VisitDTO> result = visitService.getAllVisitsForPatient(patientId, new VisitCursor());
 
 // then
         assertNotNull(result);
@@ -121,7 +221,56 @@ public class VisitServiceTest {
         when(patientRepository.findById(nonExistentPatientId)).thenThrow(new PatientNotFound("Patient not found."));
 
         // when + then
-        assertThrows(PatientNotFound.class, () -> visitService.getAllVisitsForPatient(nonExistentPatientId));
+        assertThrows(PatientNotFound.class, () -> visitService.getAllVisitsForPatient(nonExistentPatientId, new VisitCursor()));
+    }
+
+    @Test
+    void getAllVisitsForPatient_NextPage_KeysetQueryUsed() {
+        // given
+        Long patientId = 1L;
+        LocalDateTime afterStart = LocalDateTime.of(2025, 1, 1, 9, 0);
+        VisitCursor cursor = new VisitCursor(afterStart, 7L, 10);
+        when(visitRepository.findAllByPatientIdAfter(patientId, afterStart, 7L, PageRequest.ofSize(10)))
+                .thenReturn(Collections.emptyList());
+
+        // when
+        List<VisitDTO> result = visitService.getAllVisitsForPatient(patientId, cursor);
+
+        // then
+        assertTrue(result.isEmpty());
+        verify(visitRepository, never()).findAllByPatientIdOrderByStartVisitAscIdAsc(anyLong(), any());
+    }
+
+    @Test
+    void getAllVisitsForPatient_ArchivedAndCurrentVisits_MergedInOrder() {
+        // given
+        Long patientId = 1L;
+        LocalDateTime now = LocalDateTime.now();
+        Visit current = new Visit();
+        current.setId(9L);
+        current.setStartVisit(now.plusDays(1));
+        VisitDTO currentDTO = new VisitDTO(9L, now.plusDays(1), null, patientId, null, null);
+        VisitDTO olderArchived = new VisitDTO(2L, now.minusDays(20), null, patientId, null, null);
+        VisitDTO newerArchived = new VisitDTO(5L, now.minusDays(3), null, patientId, null, null);
+        when(visitRepository.findAllByPatientIdOrderByStartVisitAscIdAsc(patientId, PageRequest.ofSize(2)))
+                .thenReturn(List.of(current));
+        when(archivedVisitRepository.findAllByPatientId(patientId, PageRequest.ofSize(2)))
+                .thenReturn(List.of(olderArchived, newerArchived));
+        when(visitMapper.visitToVisitDTO(current)).thenReturn(currentDTO);
+
+        // when
+        List<VisitDTO> result = visitService.getAllVisitsForPatient(patientId, new VisitCursor(null, null, 2));
+
+        // then
+        assertEquals(List.of(2L, 5L), result.stream().map(VisitDTO::getId).toList());
+    }
+
+    @Test
+    void getAllVisitsForPatient_PageTooLarge_ThrowsException() {
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> visitService.getAllVisitsForPatient(1L, new VisitCursor(null, null, 500)));
+        assertEquals("Page size must be between 1 and 100.", exception.getMessage());
     }
 
     @Test
@@ -129,19 +278,265 @@ public class VisitServiceTest {
         // given
         Long visitId = 1L;
         Long patientId = 1L;
-        LocalDateTime futureVisitDate = LocalDateTime.of(2025, 1, 1, 10, 0);
-        Visit visit = new Visit();
-        visit.setStartVisit(futureVisitDate);
-        Patient patient = new Patient();
-        when(visitRepository.findById(visitId)).thenReturn(Optional.of(visit));
-        when(patientRepository.findById(patientId)).thenReturn(Optional.of(patient));
+        when(visitRepository.registerPatient(eq(visitId), eq(patientId), any(LocalDateTime.class))).thenReturn(1);
 
         // when
         visitService.registerPatientForVisit(visitId, patientId);
 
         // then
-        assertEquals(patient, visit.getPatient());
-        verify(visitRepository, times(1)).save(visit);
+        verify(visitRepository, times(1)).registerPatient(eq(visitId), eq(patientId), any(LocalDateTime.class));
+        verify(visitRepository, never()).findById(anyLong());
+        verify(visitRepository, never()).save(any(Visit.class));
+        verify(availabilityProjection, times(1)).slotBooked(visitId);
+    }
+
+    @Test
+    void registerPatientForVisit_HeldByOtherPatient_ThrowsException() {
+        // given
+        when(visitHoldRegistry.isHeldByOther(1L, 2L)).thenReturn(true);
+
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> visitService.registerPatientForVisit(1L, 2L));
+        assertEquals("Visit is temporarily held by another patient.", exception.getMessage());
+        verify(visitRepository, never()).registerPatient(anyLong(), anyLong(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void cancelRegistration_RegisteredPatient_VisitFreedEventPublished() {
+        // given
+        when(visitRepository.cancelRegistration(eq(1L), eq(2L), any(LocalDateTime.class))).thenReturn(1);
+
+        // when
+        visitService.cancelRegistration(1L, 2L);
+
+        // then
+        verify(eventPublisher, times(1)).publishEvent(new VisitFreedEvent(1L));
+        verify(visitRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void rescheduleDoctorVisits_NoTarget_ThrowsException() {
+        // given
+        LocalDateTime from = LocalDate.now().plusDays(1).atStartOfDay();
+        VisitRescheduleDTO rescheduleDTO = new VisitRescheduleDTO(from, from.plusDays(1), null, null);
+
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> visitService.rescheduleDoctorVisits(1L, rescheduleDTO));
+        assertEquals("Target doctor or target date is required.", exception.getMessage());
+        verifyNoInteractions(visitRepository);
+    }
+
+    @Test
+    void rescheduleDoctorVisits_OverlapWithTargetDoctor_NothingUpdated() {
+        // given
+        LocalDateTime from = LocalDate.now().plusDays(1).atStartOfDay();
+        Doctor target = new Doctor();
+        target.setId(2L);
+        when(doctorRepository.findAllById(List.of(1L))).thenReturn(List.of(doctor(1L)));
+        when(doctorRepository.findById(2L)).thenReturn(Optional.of(target));
+        VisitAssignment assignment = mock(VisitAssignment.class);
+        when(assignment.getId()).thenReturn(10L);
+        when(visitRepository.findAssignmentsByDoctorId(eq(1L), eq(from), eq(from.plusDays(1)), any(LocalDateTime.class)))
+                .thenReturn(List.of(assignment));
+        when(visitRepository.existsRescheduleConflict(eq(1L), eq(from), eq(from.plusDays(1)), any(LocalDateTime.class),
+                eq(2L), eq(0L))).thenReturn(true);
+
+        // when
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> visitService.rescheduleDoctorVisits(1L,
+                new VisitRescheduleDTO(from, from.plusDays(1), 2L, null)));
+
+        // then
+        assertEquals("Rescheduled visits overlap with visits of the target doctor.", exception.getMessage());
+        verify(visitRepository, never()).rescheduleVisits(any(), any(), any(), any(), any(), anyLong());
+        verifyNoInteractions(eventPublisher, availabilityProjection);
+    }
+
+    @Test
+    void cancelDoctorVisits_BookedVisits_PatientsReturnedAndEventPublished() {
+        // given
+        LocalDateTime from = LocalDate.now().plusDays(1).atStartOfDay();
+        VisitAssignment booked = mock(VisitAssignment.class);
+        when(booked.getId()).thenReturn(10L);
+        when(booked.getPatientId()).thenReturn(3L);
+        VisitAssignment free = mock(VisitAssignment.class);
+        when(free.getId()).thenReturn(11L);
+        when(free.getPatientId()).thenReturn(null);
+        when(doctorRepository.findAllById(List.of(1L))).thenReturn(List.of(doctor(1L)));
+        when(visitRepository.findAssignmentsByDoctorId(eq(1L), eq(from), eq(from.plusHours(8)), any(LocalDateTime.class)))
+                .thenReturn(List.of(booked, free));
+
+        // when
+        BulkVisitChangeDTO result = visitService.cancelDoctorVisits(1L, from, from.plusHours(8));
+
+        // then
+        assertEquals(2, result.getAffectedVisits());
+        assertEquals(List.of(3L), result.getPatientIds());
+        verify(visitRepository).deleteByDoctorId(eq(1L), eq(from), eq(from.plusHours(8)), any(LocalDateTime.class));
+        verify(availabilityProjection).slotsDeleted(List.of(10L, 11L));
+        verify(eventPublisher).publishEvent(new VisitsChangedEvent(VisitsChangedEvent.Change.CANCELLED,
+                List.of(10L, 11L), List.of(3L)));
+    }
+
+    @Test
+    void registerPatientForTemplateSlot_FreeTemplateSlot_VisitCreatedForPatient() {
+        // given
+        LocalDateTime start = LocalDate.now().plusDays(1).atTime(8, 15);
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        Patient patient = new Patient();
+        patient.setId(2L);
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
+        when(patientRepository.findById(2L)).thenReturn(Optional.of(patient));
+        when(scheduleTemplateExpander.findSlotEnd(1L, start)).thenReturn(Optional.of(start.plusMinutes(15)));
+        when(visitRepository.saveAndFlush(any(Visit.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(visitMapper.visitToVisitDTO(any(Visit.class))).thenReturn(new VisitDTO());
+
+        // when
+        visitService.registerPatientForTemplateSlot(1L, start, 2L);
+
+        // then
+        verify(visitRepository).saveAndFlush(argThat(visit -> visit.getPatient() == patient
+                && visit.getDoctor() == doctor && visit.getEndVisit().equals(start.plusMinutes(15))));
+        verify(scheduleTemplateExpander).occupy(argThat(visits -> visits.size() == 1));
+        verifyNoInteractions(availabilityProjection);
+    }
+
+    @Test
+    void registerPatientForTemplateSlot_OverlappingVisitHeld_ThrowsException() {
+        // given
+        LocalDateTime start = LocalDate.now().plusDays(1).atTime(8, 15);
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(new Doctor()));
+        when(patientRepository.findById(2L)).thenReturn(Optional.of(new Patient()));
+        when(scheduleTemplateExpander.findSlotEnd(1L, start)).thenReturn(Optional.of(start.plusMinutes(15)));
+        when(visitRepository.findOverlappingVisitIds(eq(1L), any(), eq(start), eq(start.plusMinutes(15))))
+                .thenReturn(List.of(7L));
+        when(visitHoldRegistry.isHeld(7L)).thenReturn(true);
+
+        // when
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> visitService.registerPatientForTemplateSlot(1L, start, 2L));
+
+        // then
+        assertEquals("Visit is temporarily held by another patient.", exception.getMessage());
+        verify(visitRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void registerPatientForTemplateSlot_OffQuarterHour_ThrowsException() {
+        // given
+        LocalDateTime start = LocalDate.now().plusDays(1).atTime(8, 10);
+
+        // when
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> visitService.registerPatientForTemplateSlot(1L, start, 2L));
+
+        // then
+        assertEquals("Visit time must be in full quarter-hour intervals.", exception.getMessage());
+        verifyNoInteractions(doctorRepository);
+    }
+
+    @Test
+    void registerPatientForTemplateSlot_NotATemplateSlot_ThrowsException() {
+        // given
+        LocalDateTime start = LocalDate.now().plusDays(1).atTime(8, 45);
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(new Doctor()));
+        when(patientRepository.findById(2L)).thenReturn(Optional.of(new Patient()));
+        when(scheduleTemplateExpander.findSlotEnd(1L, start)).thenReturn(Optional.empty());
+
+        // when + then
+        assertThrows(VisitNotFound.class, () -> visitService.registerPatientForTemplateSlot(1L, start, 2L));
+        verify(visitRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void getFreeSlotsForDoctor_VisitAndTemplateSlots_MergedByStart() {
+        // given
+        LocalDate date = LocalDate.now().plusDays(1);
+        when(visitSlotCalendar.getFreeSlots(1L, date)).thenReturn(List.of(new SlotDTO(5L, 1L, date.atTime(9, 0))));
+        when(scheduleTemplateExpander.getFreeSlots(1L, date)).thenReturn(List.of(
+                new SlotDTO(null, 1L, date.atTime(8, 0)), new SlotDTO(null, 1L, date.atTime(10, 0))));
+
+        // when
+        List<SlotDTO> result = visitService.getFreeSlotsForDoctor(1L, date);
+
+        // then
+        assertEquals(List.of(date.atTime(8, 0), date.atTime(9, 0), date.atTime(10, 0)),
+                result.stream().map(SlotDTO::getStartVisit).toList());
+    }
+
+    @Test
+    void cancelRegistration_OtherPatient_ThrowsException() {
+        // given
+        Visit visit = new Visit();
+        visit.setId(1L);
+        visit.setStartVisit(LocalDateTime.now().plusDays(1));
+        when(visitRepository.cancelRegistration(eq(1L), eq(2L), any(LocalDateTime.class))).thenReturn(0);
+        when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
+
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> visitService.cancelRegistration(1L, 2L));
+        assertEquals("Visit is not registered to this patient.", exception.getMessage());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void holdVisit_FreeVisit_HoldReturned() {
+        // given
+        Visit visit = new Visit();
+        visit.setId(1L);
+        visit.setStartVisit(LocalDateTime.now().plusDays(1));
+        when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
+        when(patientRepository.existsById(2L)).thenReturn(true);
+        when(visitHoldRegistry.hold(1L, 2L)).thenReturn(OptionalLong.of(System.currentTimeMillis() + 300_000));
+
+        // when
+        VisitHoldDTO result = visitService.holdVisit(1L, 2L);
+
+        // then
+        assertEquals(1L, result.getVisitId());
+        assertEquals(2L, result.getPatientId());
+        assertTrue(result.getExpiresAt().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void holdVisit_HeldByOtherPatient_ThrowsException() {
+        // given
+        Visit visit = new Visit();
+        visit.setId(1L);
+        visit.setStartVisit(LocalDateTime.now().plusDays(1));
+        when(visitRepository.findById(1L)).thenReturn(Optional.of(visit));
+        when(patientRepository.existsById(2L)).thenReturn(true);
+        when(visitHoldRegistry.hold(1L, 2L)).thenReturn(OptionalLong.empty());
+
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> visitService.holdVisit(1L, 2L));
+        assertEquals("Visit is temporarily held by another patient.", exception.getMessage());
+    }
+
+    @Test
+    void confirmHold_ExpiredHold_ThrowsException() {
+        // given
+        when(visitHoldRegistry.isHeldBy(1L, 2L)).thenReturn(false);
+
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> visitService.confirmHold(1L, 2L));
+        assertEquals("Visit hold has expired.", exception.getMessage());
+        verify(visitRepository, never()).registerPatient(anyLong(), anyLong(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void confirmHold_ActiveHold_PatientRegisteredAndHoldReleased() {
+        // given
+        when(visitHoldRegistry.isHeldBy(1L, 2L)).thenReturn(true);
+        when(visitRepository.registerPatient(eq(1L), eq(2L), any(LocalDateTime.class))).thenReturn(1);
+
+        // when
+        visitService.confirmHold(1L, 2L);
+
+        // then
+        verify(availabilityProjection, times(1)).slotBooked(1L);
+        verify(visitHoldRegistry, times(1)).release(1L, 2L);
     }
 
     @Test
@@ -149,13 +544,30 @@ public class VisitServiceTest {
         // given
         Long visitId = 12345L;
         Long patientId = 1L;
+        when(visitRepository.registerPatient(eq(visitId), eq(patientId), any(LocalDateTime.class))).thenReturn(0);
         when(visitRepository.findById(visitId)).thenReturn(Optional.empty());
 
         // when + then
         Exception exception = assertThrows(VisitNotFound.class, () -> visitService.registerPatientForVisit(visitId, patientId));
         assertEquals("Visit not found.", exception.getMessage());
         verify(visitRepository, times(1)).findById(visitId);
-        verify(patientRepository, never()).findById(anyLong());
+        verify(patientRepository, never()).existsById(any());
+        verify(availabilityProjection, never()).slotBooked(anyLong());
+    }
+
+    @Test
+    void registerPatientForVisit_PastVisit_ThrowsException() {
+        // given
+        Long visitId = 1L;
+        Long patientId = 1L;
+        Visit visit = new Visit();
+        visit.setStartVisit(LocalDateTime.now().minusDays(1));
+        when(visitRepository.registerPatient(eq(visitId), eq(patientId), any(LocalDateTime.class))).thenReturn(0);
+        when(visitRepository.findById(visitId)).thenReturn(Optional.of(visit));
+
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> visitService.registerPatientForVisit(visitId, patientId));
+        assertEquals("Cannot register for past visit.", exception.getMessage());
     }
 
     @Test
@@ -163,17 +575,34 @@ public class VisitServiceTest {
         // given
         Long visitId = 1L;
         Long patientId = 12345L;
-        LocalDateTime futureVisitDate = LocalDateTime.of(2025, 1, 1, 10, 0);
         Visit visit = new Visit();
-        visit.setStartVisit(futureVisitDate);
+        visit.setStartVisit(LocalDateTime.now().plusDays(1));
+        when(visitRepository.registerPatient(eq(visitId), eq(patientId), any(LocalDateTime.class))).thenReturn(0);
         when(visitRepository.findById(visitId)).thenReturn(Optional.of(visit));
-        when(patientRepository.findById(patientId)).thenReturn(Optional.empty());
 
         // when + then
         Exception exception = assertThrows(PatientNotFound.class, () -> visitService.registerPatientForVisit(visitId, patientId));
         assertEquals("Patient not found.", exception.getMessage());
         verify(visitRepository, times(1)).findById(visitId);
-        verify(patientRepository, times(1)).findById(patientId);
+        verify(patientRepository, times(1)).existsById(patientId);
+    }
+
+    @Test
+    void registerPatientForVisit_VisitAlreadyTaken_ThrowsException() {
+        // given
+        Long visitId = 1L;
+        Long patientId = 2L;
+        Visit visit = new Visit();
+        visit.setStartVisit(LocalDateTime.now().plusDays(1));
+        visit.setPatient(new Patient());
+        when(visitRepository.registerPatient(eq(visitId), eq(patientId), any(LocalDateTime.class))).thenReturn(0);
+        when(visitRepository.findById(visitId)).thenReturn(Optional.of(visit));
+        when(patientRepository.existsById(patientId)).thenReturn(true);
+
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> visitService.registerPatientForVisit(visitId, patientId));
+        assertEquals("Visit already has registered patient.", exception.getMessage());
+        verify(availabilityProjection, never()).slotBooked(anyLong());
     }
 
     @Test
@@ -182,23 +611,18 @@ public class VisitServiceTest {
         String specialization = "Cardiology";
         LocalDate date = LocalDate.of(2024, 10, 15);
 
-        Visit visit = new Visit();
-        visit.setId(1L);
-        visit.setStartVisit(date.atStartOfDay().plusHours(9));
-        visit.setEndVisit(date.atStartOfDay().plusHours(10));
-
-        Doctor doctor = new Doctor();
-        doctor.setId(1L);
-        doctor.setSpecialization(specialization);
-        doctor.setVisits(List.of(visit));
+        AvailableSlot slot = new AvailableSlot(1L, 2L, specialization, date,
+                date.atStartOfDay().plusHours(9), date.atStartOfDay().plusHours(10));
 
         VisitDTO visitDTO = new VisitDTO();
         visitDTO.setId(1L);
         visitDTO.setStartVisit(date.atStartOfDay().plusHours(9));
         visitDTO.setEndVisit(date.atStartOfDay().plusHours(10));
 
-        when(doctorRepository.findBySpecialization(specialization)).thenReturn(List.of(doctor));
-        when(visitMapper.visitToVisitDTO(visit)).thenReturn(visitDTO);
+        when(availableSlotRepository.findAllBySpecializationInRange(specialization,
+                date.atStartOfDay(), date.plusDays(1).atStartOfDay()))
+                .thenReturn(List.of(slot));
+        when(visitMapper.availableSlotToVisitDTO(slot)).thenReturn(visitDTO);
 
         // when
         List<VisitDTO> result = visitService.getAvailableVisitsByDoctorSpecializationAndByDate(specialization, date);
@@ -206,7 +630,8 @@ public class VisitServiceTest {
         // then
         assertNotNull(result);
         assertEquals(1, result.size());
-        assertEquals(visit.getId(), result.get(0).getId());
+        assertEquals(slot.getVisitId(), result.get(0).getId());
+        verifyNoInteractions(visitRepository);
     }
 
     @Test
@@ -215,7 +640,9 @@ public class VisitServiceTest {
         String specialization = "Cardiology";
         LocalDate date = LocalDate.of(2024, 10, 15);
 
-        when(doctorRepository.findBySpecialization(specialization)).thenThrow(new VisitNotFound("Visit not found."));
+        when(availableSlotRepository.findAllBySpecializationInRange(specialization,
+                date.atStartOfDay(), date.plusDays(1).atStartOfDay()))
+                .thenReturn(Collections.emptyList());
 
         // when + then
         VisitNotFound exception = assertThrows(VisitNotFound.class, () ->
@@ -229,24 +656,21 @@ public class VisitServiceTest {
     void getVisitsByDoctorId_DoctorExists_VisitsReturned() {
         // given
         Long doctorId = 1L;
-        Doctor doctor = new Doctor();
-        doctor.setId(doctorId);
 
         Visit visit = new Visit();
         visit.setId(1L);
         visit.setStartVisit(LocalDateTime.now().plusDays(1));
         visit.setEndVisit(LocalDateTime.now().plusDays(1).plusHours(1));
 
-        doctor.setVisits(List.of(visit));
-
         VisitDTO visitDTO = new VisitDTO();
         visitDTO.setId(1L);
 
-        when(doctorRepository.findById(doctorId)).thenReturn(Optional.of(doctor));
+        when(doctorRepository.findAllById(List.of(doctorId))).thenReturn(List.of(doctor(doctorId)));
+        when(visitRepository.findAllByDoctorIdOrderByStartVisitAscIdAsc(doctorId, PageRequest.ofSize(20))).thenReturn(List.of(visit));
         when(visitMapper.visitToVisitDTO(visit)).thenReturn(visitDTO);
 
         // when
-        List<VisitDTO> result = visitService.getVisitsByDoctorId(doctorId);
+        List<VisitDTO> result = visitService.getVisitsByDoctorId(doctorId, new VisitCursor());
 
         // then
         assertNotNull(result);
@@ -254,14 +678,37 @@ public class VisitServiceTest {
         assertEquals(visit.getId(), result.get(0).getId());
     }
 
+    @Test
+    void getVisitsByDoctorId_SomeVisitsArchived_PagesMerged() {
+        // given
+        Long doctorId = 1L;
+        LocalDateTime now = LocalDateTime.now();
+
+        Visit visit = new Visit();
+        visit.setId(5L);
+        visit.setStartVisit(now.plusDays(1));
+        VisitDTO visitDTO = new VisitDTO(5L, now.plusDays(1), null, null, doctorId, null);
+        VisitDTO archived = new VisitDTO(2L, now.minusDays(1), null, 3L, doctorId, null);
+
+        when(doctorRepository.findAllById(List.of(doctorId))).thenReturn(List.of(doctor(doctorId)));
+        when(visitRepository.findAllByDoctorIdOrderByStartVisitAscIdAsc(doctorId, PageRequest.ofSize(20))).thenReturn(List.of(visit));
+        when(archivedVisitRepository.findAllByDoctorId(doctorId, PageRequest.ofSize(20))).thenReturn(List.of(archived));
+        when(visitMapper.visitToVisitDTO(visit)).thenReturn(visitDTO);
+
+        // when
+        List<VisitDTO> result = visitService.getVisitsByDoctorId(doctorId, new VisitCursor());
+
+        // then
+        assertEquals(List.of(2L, 5L), result.stream().map(VisitDTO::getId).toList());
+    }
+
     @Test
     void getVisitsByDoctorId_DoctorNotFound_ThrowsException() {
         // given
         Long doctorId = 9999L;
-        when(doctorRepository.findById(doctorId)).thenReturn(Optional.empty());
 
         // when + then
-        Exception exception = assertThrows(DoctorNotFoundException.class, () -> visitService.getVisitsByDoctorId(doctorId));
+        Exception exception = assertThrows(DoctorNotFoundException.class, () -> visitService.getVisitsByDoctorId(doctorId, new VisitCursor()));
         assertEquals("Doctor not found.", exception.getMessage());
     }
 
@@ -284,11 +731,11 @@ public class VisitServiceTest {
         visitDTO.setId(1L);
 
         when(patientRepository.findByEmail(email)).thenReturn(Optional.of(patient));
-        when(visitRepository.findAllByPatientId(patient.getId())).thenReturn(visits);
+        when(visitRepository.findAllByPatientIdOrderByStartVisitAscIdAsc(patient.getId(), PageRequest.ofSize(20))).thenReturn(visits);
         when(visitMapper.visitToVisitDTO(visit)).thenReturn(visitDTO);
 
         // when
-        List<VisitDTO> result = visitService.getVisitsByPatientEmail(email);
+        List<VisitDTO> result = visitService.getVisitsByPatientEmail(email, new VisitCursor());
 
         // then
         assertNotNull(result);
@@ -303,7 +750,166 @@ public class VisitServiceTest {
         when(patientRepository.findByEmail(email)).thenReturn(Optional.empty());
 
         // when + then
-        Exception exception = assertThrows(PatientNotFound.class, () -> visitService.getVisitsByPatientEmail(email));
+        Exception exception = assertThrows(PatientNotFound.class, () -> visitService.getVisitsByPatientEmail(email, new VisitCursor()));
         assertEquals("Patient not found.", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getFreeSlotsForDoctor_SlotsIndexed_SlotsReturned() {
+        // given
+        LocalDate date = LocalDate.now().plusDays(1);
+        List<SlotDTO> slots = List.of(new SlotDTO(1L, 2L, date.atTime(9, 0)));
+        when(visitSlotCalendar.getFreeSlots(2L, date)).thenReturn(slots);
+
+        // when
+        List<SlotDTO> result = visitService.getFreeSlotsForDoctor(2L, date);
+
+        // then
+        assertEquals(slots, result);
+        verifyNoInteractions(visitRepository);
+    }
+
+    @Test
+    void getFirstFreeSlotBySpecialization_NoSlot_ThrowsException() {
+        // given
+        when(visitSlotCalendar.getFirstFreeSlot("Cardiology")).thenReturn(Optional.empty());
+
+        // when + then
+        Exception exception = assertThrows(VisitNotFound.class, () -> visitService.getFirstFreeSlotBySpecialization("Cardiology"));
+        assertEquals("Visit not found.", exception.getMessage());
+    }
+
+    @Test
+    void generateSchedule_ValidSchedule_FreeVisitsCreated() {
+        // given
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        ScheduleDTO scheduleDTO = new ScheduleDTO(1L, startDate, startDate.plusDays(1),
+                LocalTime.of(8, 0), LocalTime.of(9, 0), 15);
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor));
+        when(visitRepository.findIntervalsByDoctorId(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(visitInterval(startDate.atTime(8, 0), startDate.atTime(8, 30))));
+        when(visitRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        ScheduleResultDTO result = visitService.generateSchedule(scheduleDTO);
+
+        // then
+        assertEquals(6, result.getCreatedVisits());
+        assertEquals(2, result.getSkippedSlots());
+        verify(visitRepository, times(1)).saveAll(anyList());
+        verify(visitRepository, never()).save(any(Visit.class));
+        verify(availabilityProjection, times(1)).slotsOpened(argThat(visits -> visits.size() == 6));
+    }
+
+    @Test
+    void generateSchedule_SlotNotQuarterHour_ThrowsException() {
+        // given
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        ScheduleDTO scheduleDTO = new ScheduleDTO(1L, startDate, startDate, LocalTime.of(8, 0), LocalTime.of(9, 0), 20);
+
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> visitService.generateSchedule(scheduleDTO));
+        assertEquals("Visit time must be in full quarter-hour intervals.", exception.getMessage());
+        verifyNoInteractions(visitRepository);
+    }
+
+    @Test
+    void generateSchedule_NonExistentDoctor_ThrowsException() {
+        // given
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        ScheduleDTO scheduleDTO = new ScheduleDTO(999L, startDate, startDate, LocalTime.of(8, 0), LocalTime.of(9, 0), 15);
+        when(doctorRepository.findById(999L)).thenReturn(Optional.empty());
+
+        // when + then
+        Exception exception = assertThrows(DoctorNotFoundException.class, () -> visitService.generateSchedule(scheduleDTO));
+        assertEquals("Doctor not found.", exception.getMessage());
+    }
+
+    @Test
+    void getNextAvailableSlots_CityGiven_DoctorsFilteredByInstitution() {
+        // given
+        SlotDTO slot = new SlotDTO(10L, 2L, LocalDateTime.now().plusDays(3));
+        when(doctorRepository.findIdsBySpecializationAndInstitutionCity("Neurology", "Warszawa")).thenReturn(List.of(2L));
+        when(visitSlotCalendar.getFirstFreeSlots(List.of(2L), 3)).thenReturn(List.of(slot));
+
+        // when
+        List<SlotDTO> result = visitService.getNextAvailableSlots("Neurology", "Warszawa", 3);
+
+        // then
+        assertEquals(List.of(slot), result);
+        verify(visitSlotCalendar, never()).getDoctorIds(anyString());
+    }
+
+    @Test
+    void getNextAvailableSlots_LimitTooLarge_ThrowsException() {
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> visitService.getNextAvailableSlots("Neurology", null, 1000));
+        assertEquals("Limit must be between 1 and 100.", exception.getMessage());
+        verifyNoInteractions(visitSlotCalendar);
+    }
+
+    @Test
+    void registerPatients_MixedBatch_ConflictsReportedPerPair() {
+        // given
+        Patient patient = new Patient();
+        patient.setId(1L);
+        Patient otherPatient = new Patient();
+        otherPatient.setId(2L);
+        Visit free = new Visit();
+        free.setId(10L);
+        free.setStartVisit(LocalDateTime.now().plusDays(1));
+        Visit past = new Visit();
+        past.setId(11L);
+        past.setStartVisit(LocalDateTime.now().minusDays(1));
+        when(patientRepository.findAllWithUserByIdIn(anySet())).thenReturn(List.of(patient, otherPatient));
+        when(visitRepository.lockAllById(anySet())).thenReturn(List.of(10L, 11L));
+        when(visitRepository.findAllWithPatientAndDoctorByIdIn(List.of(10L, 11L))).thenReturn(List.of(free, past));
+        List<RegistrationDTO> registrations = List.of(new RegistrationDTO(10L, 1L), new RegistrationDTO(10L, 2L),
+                new RegistrationDTO(11L, 1L), new RegistrationDTO(12L, 1L), new RegistrationDTO(10L, 3L));
+
+        // when
+        List<RegistrationResultDTO> results = visitService.registerPatients(registrations);
+
+        // then
+        assertEquals(List.of(true, false, false, false, false),
+                results.stream().map(RegistrationResultDTO::isRegistered).toList());
+        assertEquals("Visit already has registered patient.", results.get(1).getMessage());
+        assertEquals("Cannot register for past visit.", results.get(2).getMessage());
+        assertEquals("Visit not found.", results.get(3).getMessage());
+        assertEquals("Patient not found.", results.get(4).getMessage());
+        assertEquals(patient, free.getPatient());
+        verify(availabilityProjection, times(1)).slotsBooked(List.of(10L));
+        verify(visitRepository, never()).registerPatient(anyLong(), anyLong(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void registerPatients_EmptyBatch_ThrowsException() {
+        // when + then
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> visitService.registerPatients(List.of()));
+        assertEquals("Registrations can't be empty.", exception.getMessage());
+        verifyNoInteractions(visitRepository);
+    }
+
+    private Doctor doctor(Long id) {
+        Doctor doctor = new Doctor();
+        doctor.setId(id);
+        return doctor;
+    }
+
+    private VisitInterval visitInterval(LocalDateTime start, LocalDateTime end) {
+        return new VisitInterval() {
+            @Override
+            public LocalDateTime getStartVisit() {
+                return start;
+            }
+
+            @Override
+            public LocalDateTime getEndVisit() {
+                return end;
+            }
+        };
+    }
+}
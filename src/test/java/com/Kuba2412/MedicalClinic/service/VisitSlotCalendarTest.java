@@ -0,0 +1,231 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.AvailableSlot;
+import com.Kuba2412.MedicalClinic.model.Doctor;
+import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.model.Visit;
+import com.Kuba2412.MedicalClinic.model.dto.SlotDTO;
+import com.Kuba2412.MedicalClinic.repository.AvailableSlotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+public class VisitSlotCalendarTest {
+
+    private VisitSlotCalendar visitSlotCalendar;
+    private AvailableSlotRepository availableSlotRepository;
+    private VisitHoldRegistry visitHoldRegistry;
+    private LocalDate tomorrow;
+
+    @BeforeEach
+    void setup() {
+        availableSlotRepository = Mockito.mock(AvailableSlotRepository.class);
+        visitHoldRegistry = new VisitHoldRegistry(300);
+        visitSlotCalendar = new VisitSlotCalendar(availableSlotRepository, visitHoldRegistry);
+        tomorrow = LocalDate.now().plusDays(1);
+    }
+
+    @Test
+    void load_AvailableSlotsInRepository_SlotsIndexed() {
+        // given
+        when(availableSlotRepository.findAllByStartVisitAfter(any(LocalDateTime.class)))
+                .thenReturn(List.of(createSlot(10L, 1L, tomorrow.atTime(9, 0)),
+                        createSlot(11L, 1L, tomorrow.atTime(23, 45))));
+
+        // when
+        visitSlotCalendar.load();
+
+        // then
+        List<SlotDTO> result = visitSlotCalendar.getFreeSlots(1L, tomorrow);
+        assertEquals(2, result.size());
+        assertEquals(new SlotDTO(10L, 1L, tomorrow.atTime(9, 0)), result.get(0));
+        assertEquals(new SlotDTO(11L, 1L, tomorrow.atTime(23, 45)), result.get(1));
+    }
+
+    @Test
+    void getFreeSlots_HeldVisit_SlotSkipped() {
+        // given
+        Doctor doctor = createDoctor(1L, "Cardiology");
+        visitSlotCalendar.addFreeVisit(createVisit(10L, doctor, tomorrow.atTime(9, 0)));
+        visitSlotCalendar.addFreeVisit(createVisit(11L, doctor, tomorrow.atTime(9, 15)));
+
+        // when
+        visitHoldRegistry.hold(10L, 5L);
+
+        // then
+        assertEquals(List.of(new SlotDTO(11L, 1L, tomorrow.atTime(9, 15))), visitSlotCalendar.getFreeSlots(1L, tomorrow));
+        assertEquals(Optional.of(new SlotDTO(11L, 1L, tomorrow.atTime(9, 15))),
+                visitSlotCalendar.getFirstFreeSlot("Cardiology"));
+    }
+
+    @Test
+    void markBooked_IndexedVisit_SlotRemoved() {
+        // given
+        Doctor doctor = createDoctor(1L, "Cardiology");
+        visitSlotCalendar.addFreeVisit(createVisit(10L, doctor, tomorrow.atTime(9, 0)));
+        visitSlotCalendar.addFreeVisit(createVisit(11L, doctor, tomorrow.atTime(9, 15)));
+
+        // when
+        visitSlotCalendar.markBooked(10L);
+
+        // then
+        List<SlotDTO> result = visitSlotCalendar.getFreeSlots(1L, tomorrow);
+        assertEquals(1, result.size());
+        assertEquals(11L, result.get(0).getVisitId());
+    }
+
+    @Test
+    void addFreeVisit_BookedOrOffGridVisit_NotIndexed() {
+        // given
+        Doctor doctor = createDoctor(1L, "Cardiology");
+        Visit booked = createVisit(10L, doctor, tomorrow.atTime(9, 0));
+        booked.setPatient(new Patient());
+        Visit offGrid = createVisit(11L, doctor, tomorrow.atTime(9, 10));
+
+        // when
+        visitSlotCalendar.addFreeVisit(booked);
+        visitSlotCalendar.addFreeVisit(offGrid);
+
+        // then
+        assertTrue(visitSlotCalendar.getFreeSlots(1L, tomorrow).isEmpty());
+    }
+
+    @Test
+    void getFirstFreeSlot_SeveralDoctors_EarliestSlotReturned() {
+        // given
+        visitSlotCalendar.addFreeVisit(createVisit(10L, createDoctor(1L, "Cardiology"), tomorrow.plusDays(3).atTime(8, 0)));
+        visitSlotCalendar.addFreeVisit(createVisit(11L, createDoctor(2L, "Cardiology"), tomorrow.atTime(16, 30)));
+        visitSlotCalendar.addFreeVisit(createVisit(12L, createDoctor(3L, "Neurology"), tomorrow.atTime(8, 0)));
+
+        // when
+        Optional<SlotDTO> result = visitSlotCalendar.getFirstFreeSlot("Cardiology");
+
+        // then
+        assertTrue(result.isPresent());
+        assertEquals(new SlotDTO(11L, 2L, tomorrow.atTime(16, 30)), result.get());
+    }
+
+    @Test
+    void getFirstFreeSlots_SeveralDoctors_MergedInTimeOrder() {
+        // given
+        Doctor first = createDoctor(1L, "Neurology");
+        Doctor second = createDoctor(2L, "Neurology");
+        visitSlotCalendar.addFreeVisit(createVisit(10L, first, tomorrow.atTime(9, 0)));
+        visitSlotCalendar.addFreeVisit(createVisit(11L, first, tomorrow.plusDays(2).atTime(8, 0)));
+        visitSlotCalendar.addFreeVisit(createVisit(12L, second, tomorrow.atTime(8, 30)));
+        visitSlotCalendar.addFreeVisit(createVisit(13L, second, tomorrow.atTime(9, 45)));
+        visitSlotCalendar.addFreeVisit(createVisit(14L, second, tomorrow.plusDays(1).atTime(12, 0)));
+
+        // when
+        List<SlotDTO> result = visitSlotCalendar.getFirstFreeSlots(List.of(1L, 2L), 4);
+
+        // then
+        assertEquals(List.of(12L, 10L, 13L, 14L), result.stream().map(SlotDTO::getVisitId).toList());
+    }
+
+    @Test
+    void getFirstFreeSlots_SlotsWeeksAway_AnsweredFromCalendar() {
+        // given
+        LocalDate firstFreeDay = tomorrow.plusWeeks(6);
+        List<Long> doctorIds = new ArrayList<>();
+        long visitId = 0;
+        for (long doctorId = 1; doctorId <= 200; doctorId++) {
+            Doctor doctor = createDoctor(doctorId, "Neurology");
+            doctorIds.add(doctorId);
+            for (int day = 0; day < 30; day++) {
+                visitSlotCalendar.addFreeVisit(createVisit(++visitId, doctor,
+                        firstFreeDay.plusDays(day).atTime(8, 0).plusMinutes(15 * (doctorId % 32))));
+            }
+        }
+
+        // when
+        List<SlotDTO> result = visitSlotCalendar.getFirstFreeSlots(doctorIds, 10);
+
+        // then
+        assertEquals(10, result.size());
+        assertEquals(firstFreeDay.atTime(8, 0), result.get(0).getStartVisit());
+        for (int i = 1; i < result.size(); i++) {
+            assertFalse(result.get(i).getStartVisit().isBefore(result.get(i - 1).getStartVisit()));
+        }
+    }
+
+    @Test
+    void markBooked_InsideTransaction_AppliedOnlyAfterCommit() {
+        // given
+        Doctor doctor = createDoctor(1L, "Cardiology");
+        visitSlotCalendar.addFreeVisit(createVisit(10L, doctor, tomorrow.atTime(9, 0)));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // when
+            visitSlotCalendar.markBooked(10L);
+            visitSlotCalendar.addFreeVisit(createVisit(11L, doctor, tomorrow.atTime(9, 15)));
+            List<SlotDTO> beforeCommit = visitSlotCalendar.getFreeSlots(1L, tomorrow);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+            // then
+            assertEquals(List.of(10L), beforeCommit.stream().map(SlotDTO::getVisitId).toList());
+            assertEquals(List.of(11L), visitSlotCalendar.getFreeSlots(1L, tomorrow).stream().map(SlotDTO::getVisitId).toList());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void evictBefore_PastDays_BitmapsAndSlotsDropped() {
+        // given
+        Doctor doctor = createDoctor(1L, "Cardiology");
+        LocalDate today = LocalDate.now();
+        visitSlotCalendar.addFreeVisit(createVisit(10L, doctor, today.minusDays(2).atTime(9, 0)));
+        visitSlotCalendar.addFreeVisit(createVisit(11L, doctor, today.minusDays(1).atTime(9, 0)));
+        visitSlotCalendar.addFreeVisit(createVisit(12L, doctor, tomorrow.atTime(9, 0)));
+
+        // when
+        int evicted = visitSlotCalendar.evictBefore(today);
+
+        // then
+        assertEquals(2, evicted);
+        assertEquals(1, visitSlotCalendar.size());
+        assertEquals(List.of(12L), visitSlotCalendar.getFirstFreeSlots(List.of(1L), 10).stream().map(SlotDTO::getVisitId).toList());
+    }
+
+    @Test
+    void getFirstFreeSlot_UnknownSpecialization_EmptyReturned() {
+        // when
+        Optional<SlotDTO> result = visitSlotCalendar.getFirstFreeSlot("Dermatology");
+
+        // then
+        assertTrue(result.isEmpty());
+    }
+
+    private Doctor createDoctor(Long id, String specialization) {
+        Doctor doctor = new Doctor();
+        doctor.setId(id);
+        doctor.setSpecialization(specialization);
+        return doctor;
+    }
+
+    private AvailableSlot createSlot(Long visitId, Long doctorId, LocalDateTime start) {
+        return new AvailableSlot(visitId, doctorId, "Cardiology", start.toLocalDate(), start, start.plusMinutes(15));
+    }
+
+    private Visit createVisit(Long id, Doctor doctor, LocalDateTime start) {
+        Visit visit = new Visit();
+        visit.setId(id);
+        visit.setDoctor(doctor);
+        visit.setStartVisit(start);
+        visit.setEndVisit(start.plusMinutes(15));
+        return visit;
+    }
+}
@@ -0,0 +1,67 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.dto.WaitlistDTO;
+import com.Kuba2412.MedicalClinic.repository.WaitlistEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+public class VisitWaitlistTest {
+
+    private VisitWaitlist visitWaitlist;
+    private WaitlistEntryRepository waitlistEntryRepository;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setup() {
+        waitlistEntryRepository = Mockito.mock(WaitlistEntryRepository.class);
+        visitWaitlist = new VisitWaitlist(waitlistEntryRepository);
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    void poll_DoctorAndSpecializationQueues_LongestWaitingFirst() {
+        // given
+        when(waitlistEntryRepository.findAllWaiting()).thenReturn(List.of(
+                new WaitlistDTO(1L, 10L, null, "Cardiology", now.minusMinutes(5)),
+                new WaitlistDTO(2L, 11L, 1L, "Cardiology", now.minusMinutes(10)),
+                new WaitlistDTO(3L, 12L, null, "Cardiology", now.minusMinutes(1))));
+        visitWaitlist.load();
+
+        // when + then
+        assertEquals(2L, visitWaitlist.poll(1L, "Cardiology").orElseThrow().getId());
+        assertEquals(1L, visitWaitlist.poll(1L, "Cardiology").orElseThrow().getId());
+        assertEquals(3L, visitWaitlist.poll(1L, "Cardiology").orElseThrow().getId());
+        assertEquals(Optional.empty(), visitWaitlist.poll(1L, "Cardiology"));
+    }
+
+    @Test
+    void poll_OtherDoctorsEntry_NotPromoted() {
+        // given
+        visitWaitlist.add(new WaitlistDTO(1L, 10L, 2L, "Cardiology", now));
+
+        // when + then
+        assertEquals(Optional.empty(), visitWaitlist.poll(1L, "Cardiology"));
+        assertEquals(1, visitWaitlist.size());
+    }
+
+    @Test
+    void remove_WaitingEntry_NotPolled() {
+        // given
+        visitWaitlist.add(new WaitlistDTO(1L, 10L, null, "Cardiology", now));
+
+        // when
+        boolean removed = visitWaitlist.remove(1L);
+
+        // then
+        assertTrue(removed);
+        assertEquals(Optional.empty(), visitWaitlist.poll(1L, "Cardiology"));
+    }
+}
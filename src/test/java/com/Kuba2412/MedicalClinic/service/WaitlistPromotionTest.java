@@ -0,0 +1,223 @@
+package com.Kuba2412.MedicalClinic.service;
+
+import com.Kuba2412.MedicalClinic.model.Doctor;
+import com.Kuba2412.MedicalClinic.model.Patient;
+import com.Kuba2412.MedicalClinic.model.Visit;
+import com.Kuba2412.MedicalClinic.model.dto.WaitlistDTO;
+import com.Kuba2412.MedicalClinic.repository.DoctorRepository;
+import com.Kuba2412.MedicalClinic.repository.PatientRepository;
+import com.Kuba2412.MedicalClinic.repository.VisitRepository;
+import com.Kuba2412.MedicalClinic.repository.WaitlistEntryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "visit.waitlist.promotion-interval-ms=3600000")
+public class WaitlistPromotionTest {
+
+    @Autowired
+    private VisitService visitService;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private WaitlistPromoter waitlistPromoter;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    private VisitWaitlist visitWaitlist;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Doctor doctor;
+
+    @BeforeEach
+    void setup() {
+        doctor = new Doctor();
+        doctor.setFirstName("Kuba");
+        doctor.setLastName("Ppp");
+        doctor.setSpecialization("Cardiology");
+        doctor = doctorRepository.save(doctor);
+    }
+
+    @AfterEach
+    void cleanup() {
+        waitlistEntryRepository.deleteAll();
+        visitRepository.deleteAll();
+        patientRepository.deleteAll();
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void cancelRegistration_PatientWaiting_VisitPromoted() {
+        // given
+        Patient booked = createPatient(1);
+        Patient waiting = createPatient(2);
+        Visit visit = createVisit(LocalDate.now().plusDays(1).atTime(9, 0));
+        visitService.registerPatientForVisit(visit.getId(), booked.getId());
+        waitlistService.joinWaitlist(new WaitlistDTO(null, waiting.getId(), null, "Cardiology", null));
+
+        // when
+        visitService.cancelRegistration(visit.getId(), booked.getId());
+        int promoted = waitlistPromoter.promoteWaitlisted();
+
+        // then
+        assertEquals(1, promoted);
+        assertEquals(waiting.getId(), visitRepository.findById(visit.getId()).orElseThrow().getPatient().getId());
+        assertEquals(0, waitlistEntryRepository.count());
+    }
+
+    @Test
+    void joinWaitlist_TransactionRolledBack_EntryNotQueued() {
+        // given
+        Patient waiting = createPatient(1);
+        int queued = visitWaitlist.size();
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            waitlistService.joinWaitlist(new WaitlistDTO(null, waiting.getId(), null, "Cardiology", null));
+            status.setRollbackOnly();
+        });
+
+        // then
+        assertEquals(queued, visitWaitlist.size());
+        assertEquals(0, waitlistEntryRepository.count());
+    }
+
+    @Test
+    void promoteWaitlisted_TransactionRolledBack_VisitAndEntryQueuedAgain() {
+        // given
+        Patient booked = createPatient(1);
+        Patient waiting = createPatient(2);
+        Visit visit = createVisit(LocalDate.now().plusDays(1).atTime(9, 0));
+        visitService.registerPatientForVisit(visit.getId(), booked.getId());
+        waitlistService.joinWaitlist(new WaitlistDTO(null, waiting.getId(), doctor.getId(), null, null));
+        visitService.cancelRegistration(visit.getId(), booked.getId());
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            waitlistPromoter.promoteWaitlisted();
+            status.setRollbackOnly();
+        });
+        int pending = waitlistPromoter.pendingVisits();
+        int promoted = waitlistPromoter.promoteWaitlisted();
+
+        // then
+        assertEquals(1, pending);
+        assertEquals(1, promoted);
+        assertEquals(waiting.getId(), visitRepository.findById(visit.getId()).orElseThrow().getPatient().getId());
+        assertEquals(0, waitlistEntryRepository.count());
+    }
+
+    @Test
+    void cancelRegistration_TransactionRolledBack_VisitNotRecordedAsFreed() {
+        // given
+        Patient booked = createPatient(1);
+        Visit visit = createVisit(LocalDate.now().plusDays(1).atTime(9, 0));
+        visitService.registerPatientForVisit(visit.getId(), booked.getId());
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            visitService.cancelRegistration(visit.getId(), booked.getId());
+            status.setRollbackOnly();
+        });
+        int pendingAfterRollback = waitlistPromoter.pendingVisits();
+        visitService.cancelRegistration(visit.getId(), booked.getId());
+        int pendingAfterCommit = waitlistPromoter.pendingVisits();
+
+        // then
+        assertEquals(0, pendingAfterRollback);
+        assertEquals(1, pendingAfterCommit);
+        assertNull(visitRepository.findById(visit.getId()).orElseThrow().getPatient());
+    }
+
+    @Test
+    void deletePatientByEmail_PatientWaiting_FutureVisitPromoted() {
+        // given
+        Patient deleted = createPatient(1);
+        Patient waiting = createPatient(2);
+        Visit pastVisit = createVisit(LocalDate.now().minusDays(1).atTime(9, 0));
+        pastVisit.setPatient(deleted);
+        visitRepository.save(pastVisit);
+        Visit futureVisit = createVisit(LocalDate.now().plusDays(1).atTime(9, 0));
+        visitService.registerPatientForVisit(futureVisit.getId(), deleted.getId());
+        waitlistService.joinWaitlist(new WaitlistDTO(null, waiting.getId(), doctor.getId(), null, null));
+
+        // when
+        patientService.deletePatientByEmail(deleted.getEmail());
+        int promoted = waitlistPromoter.promoteWaitlisted();
+
+        // then
+        assertEquals(1, promoted);
+        assertFalse(visitRepository.existsById(pastVisit.getId()));
+        assertEquals(waiting.getId(), visitRepository.findById(futureVisit.getId()).orElseThrow().getPatient().getId());
+    }
+
+    @Test
+    void cancelRegistration_ManyCancellations_PromotedInBatches() {
+        // given
+        int visits = 300;
+        Patient booked = createPatient(0);
+        for (int i = 0; i < visits; i++) {
+            Visit visit = createVisit(LocalDate.now().plusDays(1).atStartOfDay().plusMinutes(15L * i));
+            visitService.registerPatientForVisit(visit.getId(), booked.getId());
+            waitlistService.joinWaitlist(new WaitlistDTO(null, createPatient(i + 1).getId(), null, "Cardiology", null));
+        }
+
+        // when
+        for (Visit visit : visitRepository.findAll()) {
+            visitService.cancelRegistration(visit.getId(), booked.getId());
+        }
+        int promoted = 0;
+        while (waitlistPromoter.pendingVisits() > 0) {
+            promoted += waitlistPromoter.promoteWaitlisted();
+        }
+
+        // then
+        assertEquals(visits, promoted);
+        assertEquals(0, waitlistEntryRepository.count());
+    }
+
+    private Patient createPatient(int index) {
+        Patient patient = new Patient();
+        patient.setEmail("waiting" + index + "@gmail.com");
+        patient.setIdCardNo("ABC" + index);
+        patient.setFirstName("Kuba");
+        patient.setLastName("Ppp");
+        patient.setPhoneNumber("123456789");
+        patient.setBirthday(LocalDate.of(1990, 1, 1));
+        return patientRepository.save(patient);
+    }
+
+    private Visit createVisit(LocalDateTime start) {
+        Visit visit = new Visit();
+        visit.setStartVisit(start);
+        visit.setEndVisit(start.plusMinutes(15));
+        visit.setDoctor(doctor);
+        return visitRepository.save(visit);
+    }
+}